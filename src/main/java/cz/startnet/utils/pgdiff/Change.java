@@ -0,0 +1,437 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single typed operation of {@link ChangeSet}. Change identifies the affected
+ * object by its key and optionally by name of its member (column,
+ * constraint, trigger or rule) and carries text of the SQL statement, so
+ * that renderers do not need to know how the statement is built. Statement
+ * that alters several columns at once is represented by change whose
+ * {@link #sql} is the head of the statement and whose {@link #clauses} are
+ * changes of the individual columns.
+ *
+ * @author fordfrog
+ */
+public final class Change {
+
+    /**
+     * Kind of the change.
+     */
+    public enum Kind {
+
+        /**
+         * Creation of schema.
+         */
+        CREATE_SCHEMA(false),
+        /**
+         * Removal of schema.
+         */
+        DROP_SCHEMA(true),
+        /**
+         * Creation of table.
+         */
+        CREATE_TABLE(false),
+        /**
+         * Removal of table.
+         */
+        DROP_TABLE(true),
+        /**
+         * Alteration of table or composite type other than alteration of
+         * its columns, or head of statement altering columns.
+         */
+        ALTER_TABLE(false),
+        /**
+         * Addition of column or attribute.
+         */
+        ADD_COLUMN(false),
+        /**
+         * Removal of column or attribute.
+         */
+        DROP_COLUMN(true),
+        /**
+         * Change of type of column or attribute.
+         */
+        ALTER_COLUMN_TYPE(false),
+        /**
+         * Change of default value of column or attribute.
+         */
+        ALTER_COLUMN_DEFAULT(false),
+        /**
+         * Change of NOT NULL flag of column or attribute.
+         */
+        ALTER_COLUMN_NULL(false),
+        /**
+         * Change of statistics target of column.
+         */
+        ALTER_COLUMN_STATISTICS(false),
+        /**
+         * Change of storage of column.
+         */
+        ALTER_COLUMN_STORAGE(false),
+        /**
+         * Change of identity or generation expression of column.
+         */
+        ALTER_COLUMN_GENERATION(false),
+        /**
+         * Addition of constraint.
+         */
+        ADD_CONSTRAINT(false),
+        /**
+         * Removal of constraint.
+         */
+        DROP_CONSTRAINT(true),
+        /**
+         * Creation of index.
+         */
+        CREATE_INDEX(false),
+        /**
+         * Removal of index.
+         */
+        DROP_INDEX(true),
+        /**
+         * Clustering of table on index.
+         */
+        SET_CLUSTER(false),
+        /**
+         * Removal of clustering of table.
+         */
+        DROP_CLUSTER(true),
+        /**
+         * Creation of trigger.
+         */
+        CREATE_TRIGGER(false),
+        /**
+         * Removal of trigger.
+         */
+        DROP_TRIGGER(true),
+        /**
+         * Creation of rule.
+         */
+        CREATE_RULE(false),
+        /**
+         * Removal of rule.
+         */
+        DROP_RULE(true),
+        /**
+         * Creation of sequence.
+         */
+        CREATE_SEQUENCE(false),
+        /**
+         * Alteration of sequence.
+         */
+        ALTER_SEQUENCE(false),
+        /**
+         * Removal of sequence.
+         */
+        DROP_SEQUENCE(true),
+        /**
+         * Creation or replacement of function.
+         */
+        CREATE_FUNCTION(false),
+        /**
+         * Removal of function.
+         */
+        DROP_FUNCTION(true),
+        /**
+         * Creation of view.
+         */
+        CREATE_VIEW(false),
+        /**
+         * Removal of view.
+         */
+        DROP_VIEW(true),
+        /**
+         * Creation of type.
+         */
+        CREATE_TYPE(false),
+        /**
+         * Removal of type.
+         */
+        DROP_TYPE(true),
+        /**
+         * Change of comment.
+         */
+        COMMENT(false),
+        /**
+         * Change of owner.
+         */
+        ALTER_OWNER(false),
+        /**
+         * Grant of privileges.
+         */
+        GRANT(false),
+        /**
+         * Revocation of privileges.
+         */
+        REVOKE(false),
+        /**
+         * Warning about change that cannot be expressed by statement.
+         */
+        WARNING(false);
+        /**
+         * Whether the change removes the object or its member.
+         */
+        private final boolean drop;
+
+        /**
+         * Creates a new instance of Kind.
+         *
+         * @param drop {@link #drop}
+         */
+        Kind(final boolean drop) {
+            this.drop = drop;
+        }
+
+        /**
+         * Getter for {@link #drop}.
+         *
+         * @return {@link #drop}
+         */
+        public boolean isDrop() {
+            return drop;
+        }
+    }
+    /**
+     * Kind of the change.
+     */
+    private final Kind kind;
+    /**
+     * Key of the affected object, null for changes of database.
+     */
+    private final ObjectKey key;
+    /**
+     * Name of the affected column, constraint, trigger or rule, null if
+     * the change affects the object itself.
+     */
+    private final String member;
+    /**
+     * Text of the statement, or of the clause if the change is a clause of
+     * another change.
+     */
+    private final String sql;
+    /**
+     * Statement setting search path the statement must be run with, null if
+     * search path does not need to be set.
+     */
+    private String searchPath;
+    /**
+     * Whether the statement is separated from the previous one by an empty
+     * line.
+     */
+    private boolean separated = true;
+    /**
+     * Affected object or member in the original database, null if it does
+     * not exist there.
+     */
+    private Object oldObject;
+    /**
+     * Affected object or member in the new database, null if it does not
+     * exist there.
+     */
+    private Object newObject;
+    /**
+     * Clauses of the statement.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<Change> clauses = new ArrayList<Change>();
+    /**
+     * Keys of objects the affected object depends on, see
+     * {@link ChangeSet#resolveDependencies(
+     * cz.startnet.utils.pgdiff.schema.DependencyGraph,
+     * cz.startnet.utils.pgdiff.schema.DependencyGraph)}.
+     */
+    private List<ObjectKey> dependencies = Collections.emptyList();
+
+    /**
+     * Creates a new instance of Change.
+     *
+     * @param kind   {@link #kind}
+     * @param key    {@link #key}
+     * @param member {@link #member}
+     * @param sql    {@link #sql}
+     */
+    public Change(final Kind kind, final ObjectKey key, final String member,
+            final String sql) {
+        this.kind = kind;
+        this.key = key;
+        this.member = member;
+        this.sql = sql;
+    }
+
+    /**
+     * Getter for {@link #kind}.
+     *
+     * @return {@link #kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Getter for {@link #key}.
+     *
+     * @return {@link #key}
+     */
+    public ObjectKey getKey() {
+        return key;
+    }
+
+    /**
+     * Getter for {@link #member}.
+     *
+     * @return {@link #member}
+     */
+    public String getMember() {
+        return member;
+    }
+
+    /**
+     * Getter for {@link #sql}.
+     *
+     * @return {@link #sql}
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Getter for {@link #searchPath}.
+     *
+     * @return {@link #searchPath}
+     */
+    public String getSearchPath() {
+        return searchPath;
+    }
+
+    /**
+     * Setter for {@link #searchPath}.
+     *
+     * @param searchPath {@link #searchPath}
+     */
+    public void setSearchPath(final String searchPath) {
+        this.searchPath = searchPath;
+    }
+
+    /**
+     * Getter for {@link #separated}.
+     *
+     * @return {@link #separated}
+     */
+    public boolean isSeparated() {
+        return separated;
+    }
+
+    /**
+     * Setter for {@link #separated}.
+     *
+     * @param separated {@link #separated}
+     */
+    public void setSeparated(final boolean separated) {
+        this.separated = separated;
+    }
+
+    /**
+     * Getter for {@link #oldObject}.
+     *
+     * @return {@link #oldObject}
+     */
+    public Object getOldObject() {
+        return oldObject;
+    }
+
+    /**
+     * Getter for {@link #newObject}.
+     *
+     * @return {@link #newObject}
+     */
+    public Object getNewObject() {
+        return newObject;
+    }
+
+    /**
+     * Sets affected objects of both databases.
+     *
+     * @param oldObject {@link #oldObject}
+     * @param newObject {@link #newObject}
+     */
+    public void setObjects(final Object oldObject, final Object newObject) {
+        this.oldObject = oldObject;
+        this.newObject = newObject;
+    }
+
+    /**
+     * Creates new clause of the statement affecting the same object and adds
+     * it to the end of {@link #clauses}.
+     *
+     * @param kind      kind of the clause
+     * @param member    name of the affected member or null
+     * @param oldObject affected object in the original database or null
+     * @param newObject affected object in the new database or null
+     * @param sql       text of the clause
+     *
+     * @return created clause
+     */
+    public Change addClause(final Kind kind, final String member,
+            final Object oldObject, final Object newObject,
+            final String sql) {
+        final Change clause = new Change(kind, key, member, sql);
+        clause.setObjects(oldObject, newObject);
+        clauses.add(clause);
+
+        return clause;
+    }
+
+    /**
+     * Getter for {@link #clauses}.
+     *
+     * @return {@link #clauses}
+     */
+    public List<Change> getClauses() {
+        return Collections.unmodifiableList(clauses);
+    }
+
+    /**
+     * Getter for {@link #dependencies}.
+     *
+     * @return {@link #dependencies}
+     */
+    public List<ObjectKey> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Setter for {@link #dependencies}.
+     *
+     * @param dependencies {@link #dependencies}
+     */
+    void setDependencies(final List<ObjectKey> dependencies) {
+        this.dependencies = Collections.unmodifiableList(dependencies);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sbString = new StringBuilder(50);
+        sbString.append(kind);
+
+        if (key != null) {
+            sbString.append(' ');
+            sbString.append(key);
+        }
+
+        if (member != null) {
+            sbString.append('.');
+            sbString.append(member);
+        }
+
+        return sbString.toString();
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.Dependency;
+import cz.startnet.utils.pgdiff.schema.DependencyGraph;
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered list of changes produced by diffing two databases. The order of
+ * changes is the order in which their statements must be run. Change set
+ * is independent of output format, it is turned into SQL script by
+ * {@link SqlRenderer}.
+ *
+ * @author fordfrog
+ */
+public final class ChangeSet implements ChangeSink {
+
+    /**
+     * Statement setting search path that is assigned to changes added by
+     * {@link #add(Change.Kind, ObjectKey, String, Object, Object, String)},
+     * null if search path does not need to be set.
+     */
+    private final String searchPath;
+    /**
+     * List of changes.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<Change> changes = new ArrayList<Change>();
+
+    /**
+     * Creates a new instance of ChangeSet.
+     *
+     * @param searchPath {@link #searchPath}
+     */
+    public ChangeSet(final String searchPath) {
+        this.searchPath = searchPath;
+    }
+
+    /**
+     * Getter for {@link #searchPath}.
+     *
+     * @return {@link #searchPath}
+     */
+    public String getSearchPath() {
+        return searchPath;
+    }
+
+    /**
+     * Creates new change with search path of this change set and adds it to
+     * the end of the change set.
+     *
+     * @param kind      kind of the change
+     * @param key       key of the affected object
+     * @param member    name of the affected member or null
+     * @param oldObject affected object in the original database or null
+     * @param newObject affected object in the new database or null
+     * @param sql       text of the statement
+     *
+     * @return created change
+     */
+    public Change add(final Change.Kind kind, final ObjectKey key,
+            final String member, final Object oldObject,
+            final Object newObject, final String sql) {
+        final Change change = new Change(kind, key, member, sql);
+        change.setSearchPath(searchPath);
+        change.setObjects(oldObject, newObject);
+        changes.add(change);
+
+        return change;
+    }
+
+    @Override
+    public void add(final Change change) {
+        changes.add(change);
+    }
+
+    /**
+     * Adds all changes of another change set to the end of the change set.
+     *
+     * @param changeSet change set
+     */
+    public void addAll(final ChangeSet changeSet) {
+        changes.addAll(changeSet.changes);
+    }
+
+    /**
+     * Getter for {@link #changes}.
+     *
+     * @return {@link #changes}
+     */
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Checks whether the change set contains no changes.
+     *
+     * @return true if there are no changes, otherwise false
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Sets dependencies of all changes. Dependencies of changes that remove
+     * objects are taken from graph of the original database, dependencies
+     * of other changes from graph of the new database. Dependencies of
+     * changes of members are limited to those introduced by the member.
+     *
+     * @param oldGraph dependency graph of the original database
+     * @param newGraph dependency graph of the new database
+     */
+    public void resolveDependencies(final DependencyGraph oldGraph,
+            final DependencyGraph newGraph) {
+        for (final Change change : changes) {
+            resolveDependencies(change, oldGraph, newGraph);
+        }
+    }
+
+    /**
+     * Sets dependencies of the change and of its clauses.
+     *
+     * @param change   change
+     * @param oldGraph dependency graph of the original database
+     * @param newGraph dependency graph of the new database
+     */
+    static void resolveDependencies(final Change change,
+            final DependencyGraph oldGraph, final DependencyGraph newGraph) {
+        if (change.getKey() != null) {
+            final DependencyGraph graph =
+                    change.getKind().isDrop() ? oldGraph : newGraph;
+            @SuppressWarnings("CollectionWithoutInitialCapacity")
+            final List<ObjectKey> keys = new ArrayList<ObjectKey>();
+
+            for (final Dependency dependency
+                    : graph.getDependencies(change.getKey())) {
+                if ((change.getMember() == null
+                        || change.getMember().equals(dependency.getMember()))
+                        && !keys.contains(dependency.getTo())) {
+                    keys.add(dependency.getTo());
+                }
+            }
+
+            change.setDependencies(keys);
+        }
+
+        for (final Change clause : change.getClauses()) {
+            resolveDependencies(clause, oldGraph, newGraph);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+/**
+ * Consumer of changes produced by
+ * {@link PgDiff#diffDatabases(PgDiffArguments,
+ * cz.startnet.utils.pgdiff.schema.PgDatabase,
+ * cz.startnet.utils.pgdiff.schema.PgDatabase, ChangeSink)}. Changes are
+ * passed in the order in which their statements must be run.
+ *
+ * @author fordfrog
+ */
+public interface ChangeSink {
+
+    /**
+     * Adds change to the end of the sink.
+     *
+     * @param change change
+     */
+    void add(Change change);
+}
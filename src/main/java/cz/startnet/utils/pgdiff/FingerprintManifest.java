@@ -0,0 +1,174 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.CommentTarget;
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import cz.startnet.utils.pgdiff.schema.PgColumn;
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import cz.startnet.utils.pgdiff.schema.PgFunction;
+import cz.startnet.utils.pgdiff.schema.PgIndex;
+import cz.startnet.utils.pgdiff.schema.PgRelation;
+import cz.startnet.utils.pgdiff.schema.PgRule;
+import cz.startnet.utils.pgdiff.schema.PgSchema;
+import cz.startnet.utils.pgdiff.schema.PgSequence;
+import cz.startnet.utils.pgdiff.schema.PgTable;
+import cz.startnet.utils.pgdiff.schema.PgTrigger;
+import cz.startnet.utils.pgdiff.schema.PgType;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Builds manifest of structural fingerprints of all objects of a database.
+ * Manifest maps text of object key to fingerprint of the object and is
+ * sorted by the keys, so manifests of two databases can be compared line by
+ * line without the dumps. Members of relations and types (columns,
+ * constraints, triggers and rules) have their own entries, keyed by key of
+ * the owning object followed by kind and name of the member. Fingerprint of
+ * an object covers its members, so a changed member changes entries of the
+ * member, of its owner, of the schema and of the database.
+ *
+ * @author fordfrog
+ */
+public final class FingerprintManifest {
+
+    /**
+     * Key of the entry of the database itself.
+     */
+    public static final String DATABASE = "DATABASE";
+
+    /**
+     * Builds manifest of the database. The database is frozen.
+     *
+     * @param database database
+     *
+     * @return manifest sorted by keys
+     */
+    public static SortedMap<String, String> build(final PgDatabase database) {
+        database.freeze();
+
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final SortedMap<String, String> manifest =
+                new TreeMap<String, String>();
+        manifest.put(DATABASE, database.getFingerprint());
+
+        for (final PgSchema schema : database.getSchemas()) {
+            final String schemaName = schema.getName();
+            manifest.put(ObjectKey.schema(schemaName).toString(),
+                    schema.getFingerprint());
+
+            for (final PgRelation rel : schema.getRels()) {
+                final String relKey = new ObjectKey(ObjectKey.Kind.RELATION,
+                        schemaName, rel.getName()).toString();
+                manifest.put(relKey, rel.getFingerprint());
+                addColumns(manifest, relKey, rel.getColumns());
+
+                if (rel instanceof PgTable) {
+                    for (final PgConstraint constraint
+                            : ((PgTable) rel).getConstraints()) {
+                        manifest.put(memberKey(relKey,
+                                CommentTarget.Member.CONSTRAINT,
+                                constraint.getName()),
+                                constraint.getFingerprint());
+                    }
+                }
+
+                for (final PgTrigger trigger : rel.getTriggers()) {
+                    manifest.put(memberKey(relKey,
+                            CommentTarget.Member.TRIGGER, trigger.getName()),
+                            trigger.getFingerprint());
+                }
+
+                for (final PgRule rule : rel.getRules()) {
+                    manifest.put(memberKey(relKey,
+                            CommentTarget.Member.RULE, rule.getName()),
+                            rule.getFingerprint());
+                }
+
+                for (final PgIndex index : rel.getIndexes()) {
+                    manifest.put(new ObjectKey(ObjectKey.Kind.INDEX,
+                            schemaName, index.getName()).toString(),
+                            index.getFingerprint());
+                }
+            }
+
+            for (final PgSequence sequence : schema.getSequences()) {
+                manifest.put(new ObjectKey(ObjectKey.Kind.SEQUENCE,
+                        schemaName, sequence.getName()).toString(),
+                        sequence.getFingerprint());
+            }
+
+            for (final PgFunction function : schema.getFunctions()) {
+                manifest.put(ObjectKey.function(schemaName,
+                        function.getName(), function.getSignature()).
+                        toString(), function.getFingerprint());
+            }
+
+            for (final PgType type : schema.getTypes()) {
+                final String typeKey = new ObjectKey(ObjectKey.Kind.TYPE,
+                        schemaName, type.getName()).toString();
+                manifest.put(typeKey, type.getFingerprint());
+                addColumns(manifest, typeKey, type.getColumns());
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Writes manifest, one entry per line, with key and fingerprint
+     * separated by tab.
+     *
+     * @param writer   writer the manifest should be written to
+     * @param manifest manifest
+     */
+    public static void write(final PrintWriter writer,
+            final SortedMap<String, String> manifest) {
+        for (final Map.Entry<String, String> entry : manifest.entrySet()) {
+            writer.print(entry.getKey());
+            writer.print('\t');
+            writer.println(entry.getValue());
+        }
+    }
+
+    /**
+     * Adds entries of columns.
+     *
+     * @param manifest manifest
+     * @param ownerKey key of the owning relation or type
+     * @param columns  columns
+     */
+    private static void addColumns(final SortedMap<String, String> manifest,
+            final String ownerKey, final Iterable<PgColumn> columns) {
+        for (final PgColumn column : columns) {
+            manifest.put(memberKey(ownerKey, CommentTarget.Member.COLUMN,
+                    column.getName()), column.getFingerprint());
+        }
+    }
+
+    /**
+     * Creates key of member entry.
+     *
+     * @param ownerKey key of the owning object
+     * @param member   kind of the member
+     * @param name     name of the member
+     *
+     * @return key of the entry
+     */
+    private static String memberKey(final String ownerKey,
+            final CommentTarget.Member member, final String name) {
+        return ownerKey + ' ' + member + ' ' + name;
+    }
+
+    /**
+     * Creates a new instance of FingerprintManifest.
+     */
+    private FingerprintManifest() {
+    }
+}
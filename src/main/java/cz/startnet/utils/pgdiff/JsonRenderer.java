@@ -0,0 +1,374 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import cz.startnet.utils.pgdiff.schema.PgColumn;
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import cz.startnet.utils.pgdiff.schema.PgFunction;
+import cz.startnet.utils.pgdiff.schema.PgIndex;
+import cz.startnet.utils.pgdiff.schema.PgInheritedColumn;
+import cz.startnet.utils.pgdiff.schema.PgPrivilege;
+import cz.startnet.utils.pgdiff.schema.PgRelation;
+import cz.startnet.utils.pgdiff.schema.PgRule;
+import cz.startnet.utils.pgdiff.schema.PgSchema;
+import cz.startnet.utils.pgdiff.schema.PgSequence;
+import cz.startnet.utils.pgdiff.schema.PgTrigger;
+import cz.startnet.utils.pgdiff.schema.PgType;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Writes changes as JSON objects, one object per line, as they are added.
+ * Each object contains kind of the change, key of the affected object, name
+ * of the affected member, attributes of the object in both databases,
+ * statement with its clauses, search path, estimated lock level, keys of
+ * objects the object depends on and the clauses. Only the current object is
+ * held in memory, so output of large diffs is streamed through the writer.
+ *
+ * @author fordfrog
+ */
+public final class JsonRenderer implements ChangeSink {
+
+    /**
+     * Writer the objects are written to.
+     */
+    private final PrintWriter writer;
+
+    /**
+     * Creates a new instance of JsonRenderer.
+     *
+     * @param writer {@link #writer}
+     */
+    public JsonRenderer(final PrintWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void add(final Change change) {
+        final StringBuilder sbJson = new StringBuilder(500);
+        appendChange(sbJson, change, true);
+        writer.println(sbJson);
+    }
+
+    /**
+     * Appends JSON object of the change.
+     *
+     * @param sbJson    string builder
+     * @param change    change
+     * @param statement whether the change is a statement, false for clause
+     */
+    private static void appendChange(final StringBuilder sbJson,
+            final Change change, final boolean statement) {
+        sbJson.append("{\"kind\":");
+        appendString(sbJson, change.getKind().name());
+        sbJson.append(",\"key\":");
+        appendKey(sbJson, change.getKey());
+        sbJson.append(",\"member\":");
+        appendString(sbJson, change.getMember());
+        sbJson.append(",\"old\":");
+        appendAttributes(sbJson, change.getOldObject());
+        sbJson.append(",\"new\":");
+        appendAttributes(sbJson, change.getNewObject());
+        sbJson.append(",\"sql\":");
+
+        if (statement) {
+            appendString(sbJson, SqlRenderer.getStatement(change, "\n"));
+            sbJson.append(",\"searchPath\":");
+            appendString(sbJson, change.getSearchPath());
+        } else {
+            appendString(sbJson, change.getSql());
+        }
+
+        sbJson.append(",\"lockLevel\":");
+        appendString(sbJson, LockLevel.estimate(change).getSqlName());
+        sbJson.append(",\"dependencies\":[");
+
+        final List<ObjectKey> dependencies = change.getDependencies();
+
+        for (int i = 0; i < dependencies.size(); i++) {
+            if (i > 0) {
+                sbJson.append(',');
+            }
+
+            appendKey(sbJson, dependencies.get(i));
+        }
+
+        sbJson.append(']');
+
+        if (statement) {
+            sbJson.append(",\"clauses\":[");
+
+            final List<Change> clauses = change.getClauses();
+
+            for (int i = 0; i < clauses.size(); i++) {
+                if (i > 0) {
+                    sbJson.append(',');
+                }
+
+                appendChange(sbJson, clauses.get(i), false);
+            }
+
+            sbJson.append(']');
+        }
+
+        sbJson.append('}');
+    }
+
+    /**
+     * Appends JSON object of the key, or null.
+     *
+     * @param sbJson string builder
+     * @param key    key or null
+     */
+    private static void appendKey(final StringBuilder sbJson,
+            final ObjectKey key) {
+        if (key == null) {
+            sbJson.append("null");
+
+            return;
+        }
+
+        sbJson.append("{\"kind\":");
+        appendString(sbJson, key.getKind().name());
+        sbJson.append(",\"schema\":");
+        appendString(sbJson, key.getSchema());
+        sbJson.append(",\"name\":");
+        appendString(sbJson, key.getName());
+        sbJson.append(",\"signature\":");
+        appendString(sbJson, key.getSignature());
+        sbJson.append('}');
+    }
+
+    /**
+     * Appends JSON object of attributes of the object, or null.
+     *
+     * @param sbJson string builder
+     * @param object object or null
+     */
+    @SuppressWarnings("ChainOfInstanceofChecks")
+    private static void appendAttributes(final StringBuilder sbJson,
+            final Object object) {
+        if (object == null) {
+            sbJson.append("null");
+
+            return;
+        }
+
+        final Attributes attributes = new Attributes(sbJson);
+
+        if (object instanceof PgDatabase) {
+            final PgDatabase database = (PgDatabase) object;
+            attributes.add("comment", database.getComment());
+            attributes.add("fingerprint", database.getFingerprint());
+        } else if (object instanceof PgSchema) {
+            final PgSchema schema = (PgSchema) object;
+            attributes.add("name", schema.getName());
+            attributes.add("definition", schema.getDefinition());
+            attributes.add("comment", schema.getComment());
+            attributes.add("fingerprint", schema.getFingerprint());
+        } else if (object instanceof PgRelation) {
+            final PgRelation relation = (PgRelation) object;
+            attributes.add("name", relation.getName());
+            attributes.add("relationKind", relation.getRelationKind());
+            attributes.add("owner", relation.getOwnerTo());
+            attributes.add("tablespace", relation.getTablespace());
+            attributes.add("comment", relation.getComment());
+            attributes.add("fingerprint", relation.getFingerprint());
+        } else if (object instanceof PgColumn) {
+            final PgColumn column = (PgColumn) object;
+            attributes.add("name", column.getName());
+            attributes.add("type", column.getType());
+            attributes.add("default", column.getDefaultValue());
+            attributes.add("notNull", !column.getNullValue());
+            attributes.add("statistics", column.getStatistics());
+            attributes.add("storage", column.getStorage());
+            attributes.add("comment", column.getComment());
+            attributes.add("fingerprint", column.getFingerprint());
+        } else if (object instanceof PgInheritedColumn) {
+            final PgInheritedColumn column = (PgInheritedColumn) object;
+            attributes.add("name", column.getInheritedColumn().getName());
+            attributes.add("default", column.getDefaultValue());
+        } else if (object instanceof PgConstraint) {
+            final PgConstraint constraint = (PgConstraint) object;
+            attributes.add("name", constraint.getName());
+            attributes.add("definition", constraint.getDefinition());
+            attributes.add("comment", constraint.getComment());
+            attributes.add("fingerprint", constraint.getFingerprint());
+        } else if (object instanceof PgIndex) {
+            final PgIndex index = (PgIndex) object;
+            attributes.add("name", index.getName());
+            attributes.add("definition", index.getDefinition());
+            attributes.add("comment", index.getComment());
+            attributes.add("fingerprint", index.getFingerprint());
+        } else if (object instanceof PgTrigger) {
+            final PgTrigger trigger = (PgTrigger) object;
+            attributes.add("name", trigger.getName());
+            attributes.add("definition", trigger.getCreationSQL());
+            attributes.add("comment", trigger.getComment());
+            attributes.add("fingerprint", trigger.getFingerprint());
+        } else if (object instanceof PgRule) {
+            final PgRule rule = (PgRule) object;
+            attributes.add("name", rule.getName());
+            attributes.add("definition", rule.getCreationSQL());
+            attributes.add("comment", rule.getComment());
+            attributes.add("fingerprint", rule.getFingerprint());
+        } else if (object instanceof PgSequence) {
+            final PgSequence sequence = (PgSequence) object;
+            attributes.add("name", sequence.getName());
+            attributes.add("definition", sequence.getCreationSQL());
+            attributes.add("comment", sequence.getComment());
+            attributes.add("fingerprint", sequence.getFingerprint());
+        } else if (object instanceof PgFunction) {
+            final PgFunction function = (PgFunction) object;
+            attributes.add("name", function.getName());
+            attributes.add("definition", function.getCreationSQL());
+            attributes.add("comment", function.getComment());
+            attributes.add("fingerprint", function.getFingerprint());
+        } else if (object instanceof PgType) {
+            final PgType type = (PgType) object;
+            attributes.add("name", type.getName());
+            attributes.add("definition", type.getCreationSQL());
+            attributes.add("fingerprint", type.getFingerprint());
+        } else if (object instanceof PgPrivilege) {
+            final PgPrivilege privilege = (PgPrivilege) object;
+            attributes.add("role", privilege.getRoleName());
+            attributes.add("grants", privilege.getGrants());
+            attributes.add("grantOptions", privilege.getGrantOptions());
+        } else {
+            attributes.add("value", object.toString());
+        }
+
+        sbJson.append('}');
+    }
+
+    /**
+     * Appends JSON string literal, or null.
+     *
+     * @param sbJson string builder
+     * @param value  value or null
+     */
+    private static void appendString(final StringBuilder sbJson,
+            final String value) {
+        if (value == null) {
+            sbJson.append("null");
+
+            return;
+        }
+
+        sbJson.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char chr = value.charAt(i);
+
+            switch (chr) {
+                case '"':
+                    sbJson.append("\\\"");
+                    break;
+                case '\\':
+                    sbJson.append("\\\\");
+                    break;
+                case '\n':
+                    sbJson.append("\\n");
+                    break;
+                case '\r':
+                    sbJson.append("\\r");
+                    break;
+                case '\t':
+                    sbJson.append("\\t");
+                    break;
+                default:
+                    if (chr < 0x20) {
+                        sbJson.append(String.format("\\u%04x", (int) chr));
+                    } else {
+                        sbJson.append(chr);
+                    }
+            }
+        }
+
+        sbJson.append('"');
+    }
+
+    /**
+     * Appends members of JSON object of attributes. Members with null values
+     * are skipped.
+     */
+    private static class Attributes {
+
+        /**
+         * String builder.
+         */
+        private final StringBuilder sbJson;
+        /**
+         * Whether no member has been appended yet.
+         */
+        private boolean first = true;
+
+        /**
+         * Creates a new instance of Attributes and opens the object.
+         *
+         * @param sbJson {@link #sbJson}
+         */
+        Attributes(final StringBuilder sbJson) {
+            this.sbJson = sbJson;
+            sbJson.append('{');
+        }
+
+        /**
+         * Appends member with string value.
+         *
+         * @param name  name of the member
+         * @param value value or null
+         */
+        void add(final String name, final String value) {
+            if (value != null) {
+                appendName(name);
+                appendString(sbJson, value);
+            }
+        }
+
+        /**
+         * Appends member with number value.
+         *
+         * @param name  name of the member
+         * @param value value or null
+         */
+        void add(final String name, final Integer value) {
+            if (value != null) {
+                appendName(name);
+                sbJson.append(value);
+            }
+        }
+
+        /**
+         * Appends member with boolean value.
+         *
+         * @param name  name of the member
+         * @param value value
+         */
+        void add(final String name, final boolean value) {
+            appendName(name);
+            sbJson.append(value);
+        }
+
+        /**
+         * Appends name of member.
+         *
+         * @param name name of the member
+         */
+        private void appendName(final String name) {
+            if (first) {
+                first = false;
+            } else {
+                sbJson.append(',');
+            }
+
+            appendString(sbJson, name);
+            sbJson.append(':');
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of hash join of old and new list of objects by their keys. Objects
+ * whose key is only in the old list are removed, objects whose key is only
+ * in the new list are added and objects present in both lists that are not
+ * equal are changed. Each list is hashed or probed once, so the join runs
+ * in time proportional to the sum of sizes of both lists.
+ *
+ * @param <T> type of joined objects
+ *
+ * @author fordfrog
+ */
+public final class KeyedJoin<T> {
+
+    /**
+     * Extracts join key from object.
+     *
+     * @param <T> type of the object
+     */
+    public interface KeyExtractor<T> {
+
+        /**
+         * Returns join key of the object.
+         *
+         * @param object object
+         *
+         * @return key of the object
+         */
+        String getKey(T object);
+    }
+    /**
+     * Objects that are only in the old list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> removed = new ArrayList<T>();
+    /**
+     * Objects that are only in the new list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> added = new ArrayList<T>();
+    /**
+     * Old versions of changed objects, in the order of the old list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> changedOld = new ArrayList<T>();
+    /**
+     * New versions of changed objects, in the order of the new list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> changedNew = new ArrayList<T>();
+    /**
+     * Objects that should be dropped, that is removed and old versions of
+     * changed objects, in the order of the old list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> dropped = new ArrayList<T>();
+    /**
+     * Objects that should be created, that is added and new versions of
+     * changed objects, in the order of the new list.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<T> created = new ArrayList<T>();
+
+    /**
+     * Creates a new instance of KeyedJoin.
+     */
+    private KeyedJoin() {
+    }
+
+    /**
+     * Joins old and new objects by their keys. If there are more objects
+     * with the same key in a list, the first one is used for matching.
+     *
+     * @param <T>        type of joined objects
+     * @param oldObjects old objects, null is treated as empty list
+     * @param newObjects new objects, null is treated as empty list
+     * @param extractor  key extractor
+     *
+     * @return result of the join
+     */
+    public static <T> KeyedJoin<T> join(final List<T> oldObjects,
+            final List<T> newObjects, final KeyExtractor<T> extractor) {
+        final KeyedJoin<T> join = new KeyedJoin<T>();
+        final List<T> oldList =
+                oldObjects == null ? Collections.<T>emptyList() : oldObjects;
+        final List<T> newList =
+                newObjects == null ? Collections.<T>emptyList() : newObjects;
+
+        final Map<String, T> newByKey = new HashMap<String, T>(
+                Math.max(16, newList.size() * 4 / 3 + 1));
+
+        for (final T newObject : newList) {
+            final String key = extractor.getKey(newObject);
+
+            if (!newByKey.containsKey(key)) {
+                newByKey.put(key, newObject);
+            }
+        }
+
+        final Set<String> matched =
+                new HashSet<String>(Math.max(16, oldList.size() * 4 / 3 + 1));
+        final Set<String> unchanged =
+                new HashSet<String>(Math.max(16, oldList.size() * 4 / 3 + 1));
+
+        for (final T oldObject : oldList) {
+            final String key = extractor.getKey(oldObject);
+
+            if (!matched.add(key)) {
+                join.removed.add(oldObject);
+                join.dropped.add(oldObject);
+                continue;
+            }
+
+            final T newObject = newByKey.get(key);
+
+            if (newObject == null) {
+                join.removed.add(oldObject);
+                join.dropped.add(oldObject);
+            } else if (newObject.equals(oldObject)) {
+                unchanged.add(key);
+            } else {
+                join.changedOld.add(oldObject);
+                join.dropped.add(oldObject);
+            }
+        }
+
+        for (final T newObject : newList) {
+            final String key = extractor.getKey(newObject);
+
+            if (!matched.contains(key) || newByKey.get(key) != newObject) {
+                join.added.add(newObject);
+                join.created.add(newObject);
+            } else if (!unchanged.contains(key)) {
+                join.changedNew.add(newObject);
+                join.created.add(newObject);
+            }
+        }
+
+        return join;
+    }
+
+    /**
+     * Getter for {@link #removed}.
+     *
+     * @return {@link #removed}
+     */
+    public List<T> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Getter for {@link #added}.
+     *
+     * @return {@link #added}
+     */
+    public List<T> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Getter for {@link #changedOld}.
+     *
+     * @return {@link #changedOld}
+     */
+    public List<T> getChangedOld() {
+        return Collections.unmodifiableList(changedOld);
+    }
+
+    /**
+     * Getter for {@link #changedNew}.
+     *
+     * @return {@link #changedNew}
+     */
+    public List<T> getChangedNew() {
+        return Collections.unmodifiableList(changedNew);
+    }
+
+    /**
+     * Getter for {@link #dropped}.
+     *
+     * @return {@link #dropped}
+     */
+    public List<T> getDropped() {
+        return Collections.unmodifiableList(dropped);
+    }
+
+    /**
+     * Getter for {@link #created}.
+     *
+     * @return {@link #created}
+     */
+    public List<T> getCreated() {
+        return Collections.unmodifiableList(created);
+    }
+}
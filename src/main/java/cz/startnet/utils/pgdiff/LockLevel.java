@@ -0,0 +1,129 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+
+/**
+ * Table lock level a statement acquires in PostgreSQL, ordered from the
+ * weakest to the strongest. Levels are estimated from kinds of changes, the
+ * actual level can depend on PostgreSQL version.
+ *
+ * @author fordfrog
+ */
+public enum LockLevel {
+
+    /**
+     * Statement does not lock existing tables.
+     */
+    NONE("NONE"),
+    /**
+     * SHARE UPDATE EXCLUSIVE, reads and writes are not blocked.
+     */
+    SHARE_UPDATE_EXCLUSIVE("SHARE UPDATE EXCLUSIVE"),
+    /**
+     * SHARE, writes are blocked.
+     */
+    SHARE("SHARE"),
+    /**
+     * SHARE ROW EXCLUSIVE, writes are blocked.
+     */
+    SHARE_ROW_EXCLUSIVE("SHARE ROW EXCLUSIVE"),
+    /**
+     * ACCESS EXCLUSIVE, reads and writes are blocked.
+     */
+    ACCESS_EXCLUSIVE("ACCESS EXCLUSIVE");
+    /**
+     * Name of the lock level as used in PostgreSQL documentation.
+     */
+    private final String sqlName;
+
+    /**
+     * Creates a new instance of LockLevel.
+     *
+     * @param sqlName {@link #sqlName}
+     */
+    LockLevel(final String sqlName) {
+        this.sqlName = sqlName;
+    }
+
+    /**
+     * Getter for {@link #sqlName}.
+     *
+     * @return {@link #sqlName}
+     */
+    public String getSqlName() {
+        return sqlName;
+    }
+
+    /**
+     * Estimates lock level acquired by statement of the change. Level of
+     * statement with clauses is the strongest level of its clauses.
+     *
+     * @param change change
+     *
+     * @return estimated lock level
+     */
+    public static LockLevel estimate(final Change change) {
+        if (change.getClauses().isEmpty()) {
+            return estimateKind(change);
+        }
+
+        LockLevel level = NONE;
+
+        for (final Change clause : change.getClauses()) {
+            final LockLevel clauseLevel = estimate(clause);
+
+            if (clauseLevel.compareTo(level) > 0) {
+                level = clauseLevel;
+            }
+        }
+
+        return level;
+    }
+
+    /**
+     * Estimates lock level acquired by statement of the change from its
+     * kind.
+     *
+     * @param change change without clauses
+     *
+     * @return estimated lock level
+     */
+    private static LockLevel estimateKind(final Change change) {
+        switch (change.getKind()) {
+            case CREATE_SCHEMA:
+            case CREATE_TABLE:
+            case CREATE_SEQUENCE:
+            case CREATE_FUNCTION:
+            case CREATE_VIEW:
+            case CREATE_TYPE:
+            case DROP_FUNCTION:
+            case DROP_TYPE:
+            case GRANT:
+            case REVOKE:
+            case WARNING:
+                return NONE;
+            case ALTER_COLUMN_STATISTICS:
+            case SET_CLUSTER:
+            case DROP_CLUSTER:
+            case COMMENT:
+                return SHARE_UPDATE_EXCLUSIVE;
+            case CREATE_INDEX:
+                return SHARE;
+            case CREATE_TRIGGER:
+            case ALTER_SEQUENCE:
+                return SHARE_ROW_EXCLUSIVE;
+            case ADD_CONSTRAINT:
+                return change.getNewObject() instanceof PgConstraint
+                        && ((PgConstraint) change.getNewObject()).getKind()
+                        == PgConstraint.Kind.FOREIGN_KEY
+                        ? SHARE_ROW_EXCLUSIVE : ACCESS_EXCLUSIVE;
+            default:
+                return ACCESS_EXCLUSIVE;
+        }
+    }
+}
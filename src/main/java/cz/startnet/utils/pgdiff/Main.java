@@ -18,7 +18,8 @@ import java.io.UnsupportedEncodingException;
 public class Main {
 
     /**
-     * APgDiff main method.
+     * APgDiff main method. In check mode the exit status is 0 if the dumps
+     * do not differ, 1 if they differ and 2 if the check failed.
      *
      * @param args the command line arguments
      *
@@ -36,13 +37,51 @@ public class Main {
             final PrintWriter encodedWriter = new PrintWriter(
                     new OutputStreamWriter(
                     System.out, arguments.getOutCharsetName()));
-            PgDiff.createDiff(encodedWriter, arguments);
+
+            if (arguments.isCheck()) {
+                final int status = check(encodedWriter, arguments);
+                encodedWriter.close();
+                writer.close();
+                System.exit(status);
+            }
+
+            if (arguments.isManifest()) {
+                PgDiff.createManifest(encodedWriter, arguments);
+            } else if (arguments.getFleetDirectory() != null) {
+                PgDiffFleet.diffFleet(encodedWriter, arguments);
+            } else if (arguments.getTemplateSchema() != null) {
+                PgDiffTemplate.diffTemplate(encodedWriter, arguments);
+            } else {
+                PgDiff.createDiff(encodedWriter, arguments);
+            }
+
             encodedWriter.close();
         }
 
         writer.close();
     }
 
+    /**
+     * Checks whether the dumps differ.
+     *
+     * @param writer    writer the key of the first differing object should be
+     *                  written to
+     * @param arguments object containing arguments settings
+     *
+     * @return exit status
+     */
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    private static int check(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        try {
+            return PgDiff.checkDiff(writer, arguments) ? 0 : 1;
+        } catch (final RuntimeException ex) {
+            System.err.println(ex.getMessage());
+
+            return 2;
+        }
+    }
+
     /**
      * Creates a new Main object.
      */
@@ -0,0 +1,382 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Computes results of independent items in parallel while keeping the order
+ * of the results. {@link #computeAll(List, Computation)} returns the results
+ * in the order of the items and
+ * {@link #computeAll(List, Computation, Receiver)} passes them to the
+ * receiver in that order, so the output is identical to the output of
+ * sequential run. The calling thread processes items too, so computations
+ * can be nested without risk of exhausting the pool.
+ *
+ * @author fordfrog
+ */
+public final class ParallelOutput {
+
+    /**
+     * Computation of result for single item.
+     *
+     * @param <T> type of the item
+     * @param <R> type of the result
+     */
+    public interface Computation<T, R> {
+
+        /**
+         * Computes result for the {@code item}.
+         *
+         * @param item item
+         *
+         * @return result
+         */
+        R compute(T item);
+    }
+
+    /**
+     * Receiver of results of computations.
+     *
+     * @param <R> type of the result
+     */
+    public interface Receiver<R> {
+
+        /**
+         * Receives result computed for the next item.
+         *
+         * @param result result
+         */
+        void receive(R result);
+    }
+    /**
+     * Executor of tasks, null if tasks are run sequentially.
+     */
+    private final ExecutorService executor;
+    /**
+     * Number of threads that process tasks.
+     */
+    private final int threads;
+
+    /**
+     * Creates a new instance of ParallelOutput.
+     *
+     * @param threads number of threads, tasks are run sequentially in the
+     *                calling thread if it is less than 2
+     */
+    public ParallelOutput(final int threads) {
+        this.threads = Math.max(1, threads);
+
+        if (this.threads > 1) {
+            executor = Executors.newFixedThreadPool(this.threads - 1,
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable,
+                                    "apgdiff-worker");
+                            thread.setDaemon(true);
+
+                            return thread;
+                        }
+                    });
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Getter for {@link #threads}.
+     *
+     * @return {@link #threads}
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Runs the {@code computation} for all {@code items} and returns the
+     * results in the order of the items.
+     *
+     * @param <T>         type of the items
+     * @param <R>         type of the results
+     * @param items       items
+     * @param computation computation
+     *
+     * @return list of results
+     */
+    public <T, R> List<R> computeAll(final List<T> items,
+            final Computation<T, R> computation) {
+        final List<R> results = new ArrayList<R>(items.size());
+        computeAll(items, computation, new Receiver<R>() {
+            @Override
+            public void receive(final R result) {
+                results.add(result);
+            }
+        });
+
+        return results;
+    }
+
+    /**
+     * Runs the {@code computation} for all {@code items} and passes the
+     * results to the {@code receiver} in the order of the items. Items are
+     * claimed by threads in batches so that short computations do not
+     * contend on the claiming. Results are passed in the calling thread as
+     * soon as results of all preceding items are available, so the receiver
+     * can stream them before all computations finish.
+     *
+     * @param <T>         type of the items
+     * @param <R>         type of the results
+     * @param items       items
+     * @param computation computation
+     * @param receiver    receiver of the results
+     */
+    public <T, R> void computeAll(final List<T> items,
+            final Computation<T, R> computation, final Receiver<R> receiver) {
+        if (executor == null || items.size() < 2) {
+            for (final T item : items) {
+                receiver.receive(computation.compute(item));
+            }
+
+            return;
+        }
+
+        final int count = Math.min(threads, items.size()) - 1;
+        final Batches<T, R> batches = new Batches<T, R>(items, computation,
+                Math.max(1, items.size() / ((count + 1) * 8)));
+        final List<Helper> helpers = new ArrayList<Helper>(count);
+
+        for (int i = 0; i < count; i++) {
+            final Helper helper = new Helper(batches);
+            helper.future = executor.submit(helper);
+            helpers.add(helper);
+        }
+
+        try {
+            while (batches.computeBatch()) {
+                batches.deliver(receiver);
+            }
+        } catch (final RuntimeException ex) {
+            batches.stop();
+
+            try {
+                waitFor(helpers);
+            } catch (final RuntimeException ignored) {
+                // the first failure is reported
+            }
+
+            throw ex;
+        }
+
+        waitFor(helpers);
+        batches.deliver(receiver);
+    }
+
+    /**
+     * Stops threads of the executor.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Cancels helpers that have not started yet, waits for completion of the
+     * running ones and rethrows the first failure of a task. Helpers that
+     * have not started are cancelled so that nested calls never wait for
+     * tasks queued behind busy threads of the pool.
+     *
+     * @param helpers helpers
+     */
+    private static void waitFor(final List<Helper> helpers) {
+        RuntimeException failure = null;
+
+        for (final Helper helper : helpers) {
+            if (helper.started.compareAndSet(false, true)) {
+                continue;
+            }
+
+            try {
+                helper.future.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+
+                if (failure == null) {
+                    failure = new RuntimeException(ex);
+                }
+            } catch (final ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ex.getCause()
+                            : new RuntimeException(ex.getCause());
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Items of single {@link #computeAll(List, Computation, Receiver)} call
+     * with their results. Threads claim batches of items, the calling thread
+     * also delivers computed results to the receiver.
+     *
+     * @param <T> type of the items
+     * @param <R> type of the results
+     */
+    private static class Batches<T, R> implements Runnable {
+
+        /**
+         * Items.
+         */
+        private final List<T> items;
+        /**
+         * Computation.
+         */
+        private final Computation<T, R> computation;
+        /**
+         * Number of items claimed at once.
+         */
+        private final int batch;
+        /**
+         * Results of the items.
+         */
+        private final Object[] results;
+        /**
+         * Flags of items whose results are stored in {@link #results}. The
+         * flag is set after the result is stored, so reading the flag makes
+         * the result visible to the reading thread.
+         */
+        private final AtomicIntegerArray computed;
+        /**
+         * Index of the first item that has not been claimed yet.
+         */
+        private final AtomicInteger next = new AtomicInteger();
+        /**
+         * Index of the first item whose result has not been delivered yet,
+         * accessed by the calling thread only.
+         */
+        private int delivered;
+
+        /**
+         * Creates a new instance of Batches.
+         *
+         * @param items       {@link #items}
+         * @param computation {@link #computation}
+         * @param batch       {@link #batch}
+         */
+        Batches(final List<T> items, final Computation<T, R> computation,
+                final int batch) {
+            this.items = items;
+            this.computation = computation;
+            this.batch = batch;
+            results = new Object[items.size()];
+            computed = new AtomicIntegerArray(items.size());
+        }
+
+        @Override
+        public void run() {
+            while (computeBatch()) {
+                // claim batches until all items are claimed
+            }
+        }
+
+        /**
+         * Claims next batch of items and computes their results.
+         *
+         * @return true if a batch was claimed, false if all items have
+         *         already been claimed
+         */
+        boolean computeBatch() {
+            final int start = next.getAndAdd(batch);
+
+            if (start >= results.length) {
+                return false;
+            }
+
+            final int end = Math.min(start + batch, results.length);
+
+            for (int i = start; i < end; i++) {
+                results[i] = computation.compute(items.get(i));
+                computed.set(i, 1);
+            }
+
+            return true;
+        }
+
+        /**
+         * Passes results that are available and whose preceding results have
+         * all been passed to the {@code receiver}.
+         *
+         * @param receiver receiver of the results
+         */
+        @SuppressWarnings("unchecked")
+        void deliver(final Receiver<R> receiver) {
+            while (delivered < results.length
+                    && computed.get(delivered) == 1) {
+                final Object result = results[delivered];
+                results[delivered++] = null;
+                receiver.receive((R) result);
+            }
+        }
+
+        /**
+         * Marks all items as claimed so that threads stop computing.
+         */
+        void stop() {
+            next.set(results.length);
+        }
+    }
+
+    /**
+     * Helper that processes tasks in thread of the pool. Helper runs the
+     * worker only if it has not been cancelled before it started.
+     */
+    private static class Helper implements Runnable {
+
+        /**
+         * Set by the helper when it starts or by the caller when it cancels
+         * the helper, whichever comes first.
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+        /**
+         * Worker that processes tasks.
+         */
+        private final Runnable worker;
+        /**
+         * Future of the helper.
+         */
+        private Future<?> future;
+
+        /**
+         * Creates a new instance of Helper.
+         *
+         * @param worker {@link #worker}
+         */
+        Helper(final Runnable worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true)) {
+                worker.run();
+            }
+        }
+    }
+}
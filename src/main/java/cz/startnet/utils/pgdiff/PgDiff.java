@@ -5,11 +5,21 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.loader.FileException;
 import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import cz.startnet.utils.pgdiff.schema.HeapFootprint;
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Creates diff of two database schemas.
@@ -19,7 +29,9 @@ import java.io.PrintWriter;
 public class PgDiff {
 
     /**
-     * Creates diff on the two database schemas.
+     * Creates diff on the two database schemas. If rollback file is set in
+     * the arguments, rollback script is written to it from the same loaded
+     * database schemas.
      *
      * @param writer    writer the output should be written to
      * @param arguments object containing arguments settings
@@ -36,10 +48,16 @@ public class PgDiff {
                 arguments.isIgnoreSlonyTriggers());
 
         diffDatabaseSchemas(writer, arguments, oldDatabase, newDatabase);
+
+        if (arguments.getRollbackFile() != null) {
+            writeRollback(arguments, oldDatabase, newDatabase);
+        }
     }
 
     /**
-     * Creates diff on the two database schemas.
+     * Creates diff on the two database schemas. If rollback file is set in
+     * the arguments, rollback script is written to it from the same loaded
+     * database schemas.
      *
      * @param writer         writer the output should be written to
      * @param arguments      object containing arguments settings
@@ -61,27 +79,118 @@ public class PgDiff {
                 arguments.isIgnoreSlonyTriggers());
 
         diffDatabaseSchemas(writer, arguments, oldDatabase, newDatabase);
+
+        if (arguments.getRollbackFile() != null) {
+            writeRollback(arguments, oldDatabase, newDatabase);
+        }
+    }
+
+    /**
+     * Writes rollback script, which is diff of the new database schema
+     * against the original one, to {@link PgDiffArguments#getRollbackFile()}.
+     * The databases loaded for the forward diff are reused, including their
+     * fingerprints and dependency graphs, but the diff itself is computed
+     * again in the reverse direction.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     */
+    private static void writeRollback(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        final File file = new File(arguments.getRollbackFile());
+        final PrintWriter writer;
+
+        try {
+            writer = new PrintWriter(new OutputStreamWriter(
+                    new FileOutputStream(file),
+                    arguments.getOutCharsetName()));
+        } catch (final IOException ex) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("CannotWriteFile"), file), ex);
+        }
+
+        try {
+            diffDatabaseSchemas(writer, arguments, newDatabase, oldDatabase);
+        } finally {
+            writer.close();
+        }
+
+        if (writer.checkError()) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("CannotWriteFile"), file));
+        }
+    }
+
+    /**
+     * Checks whether the two database schemas differ. Diff is not computed,
+     * only key of the first differing object is written, see
+     * {@link PgDiffCheck#findFirstDifference(PgDatabase, PgDatabase)}.
+     *
+     * @param writer    writer the key of the first differing object should be
+     *                  written to
+     * @param arguments object containing arguments settings
+     *
+     * @return true if the database schemas do not differ, otherwise false
+     */
+    public static boolean checkDiff(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        final PgDatabase oldDatabase = PgDumpLoader.loadDatabaseSchema(
+                arguments.getOldDumpFile(), arguments.getInCharsetName(),
+                false, arguments.isIgnoreSlonyTriggers());
+        final PgDatabase newDatabase = PgDumpLoader.loadDatabaseSchema(
+                arguments.getNewDumpFile(), arguments.getInCharsetName(),
+                false, arguments.isIgnoreSlonyTriggers());
+        final String difference =
+                PgDiffCheck.findFirstDifference(oldDatabase, newDatabase);
+
+        if (difference == null) {
+            return true;
+        }
+
+        writer.println(difference);
+
+        return false;
+    }
+
+    /**
+     * Writes manifest of fingerprints of objects of the dump, see
+     * {@link FingerprintManifest}.
+     *
+     * @param writer    writer the manifest should be written to
+     * @param arguments object containing arguments settings, the dump is
+     *                  read from {@link PgDiffArguments#getOldDumpFile()}
+     */
+    public static void createManifest(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        FingerprintManifest.write(writer, FingerprintManifest.build(
+                PgDumpLoader.loadDatabaseSchema(arguments.getOldDumpFile(),
+                arguments.getInCharsetName(), false,
+                arguments.isIgnoreSlonyTriggers())));
     }
 
     /**
      * Creates new schemas (not the objects inside the schemas).
      *
-     * @param writer      writer the output should be written to
+     * @param changes     change set the changes should be added to
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void createNewSchemas(final PrintWriter writer,
+    private static void createNewSchemas(final ChangeSet changes,
             final PgDatabase oldDatabase, final PgDatabase newDatabase) {
         for (final PgSchema newSchema : newDatabase.getSchemas()) {
             if (oldDatabase.getSchema(newSchema.getName()) == null) {
-                writer.println();
-                writer.println(newSchema.getCreationSQL());
+                changes.add(Change.Kind.CREATE_SCHEMA,
+                        ObjectKey.schema(newSchema.getName()), null, null,
+                        newSchema, newSchema.getCreationSQL());
             }
         }
     }
 
     /**
-     * Creates diff from comparison of two database schemas.
+     * Creates diff from comparison of two database schemas. If JSON output
+     * is requested, only the changes are output, without ignored statements
+     * and heap footprint.
      *
      * @param writer      writer the output should be written to
      * @param arguments   object containing arguments settings
@@ -91,33 +200,16 @@ public class PgDiff {
     private static void diffDatabaseSchemas(final PrintWriter writer,
             final PgDiffArguments arguments, final PgDatabase oldDatabase,
             final PgDatabase newDatabase) {
-        if (arguments.isAddTransaction()) {
-            writer.println("START TRANSACTION;");
-        }
+        if (arguments.isOutputJson()) {
+            diffDatabases(arguments, oldDatabase, newDatabase,
+                    new JsonRenderer(writer));
 
-        if (oldDatabase.getComment() == null
-                && newDatabase.getComment() != null
-                || oldDatabase.getComment() != null
-                && newDatabase.getComment() != null
-                && !oldDatabase.getComment().equals(newDatabase.getComment())) {
-            writer.println();
-            writer.print("COMMENT ON DATABASE current_database() IS ");
-            writer.print(newDatabase.getComment());
-            writer.println(';');
-        } else if (oldDatabase.getComment() != null
-                && newDatabase.getComment() == null) {
-            writer.println();
-            writer.println("COMMENT ON DATABASE current_database() IS NULL;");
+            return;
         }
 
-        dropOldSchemas(writer, oldDatabase, newDatabase);
-        createNewSchemas(writer, oldDatabase, newDatabase);
-        updateSchemas(writer, arguments, oldDatabase, newDatabase);
-
-        if (arguments.isAddTransaction()) {
-            writer.println();
-            writer.println("COMMIT TRANSACTION;");
-        }
+        SqlRenderer.render(writer,
+                diffDatabases(arguments, oldDatabase, newDatabase),
+                arguments.isAddTransaction());
 
         if (arguments.isOutputIgnoredStatements()) {
             if (!oldDatabase.getIgnoredStatements().isEmpty()) {
@@ -150,21 +242,145 @@ public class PgDiff {
                 writer.println("*/");
             }
         }
+
+        if (arguments.isOutputHeapFootprint()) {
+            writer.println();
+            writer.print("/* ");
+            writer.println(
+                    Resources.getString("OriginalDatabaseHeapFootprint"));
+            HeapFootprint.measure(oldDatabase).print(writer);
+            writer.println("*/");
+            writer.println();
+            writer.print("/* ");
+            writer.println(Resources.getString("NewDatabaseHeapFootprint"));
+            HeapFootprint.measure(newDatabase).print(writer);
+            writer.println("*/");
+        }
+    }
+
+    /**
+     * Computes changes that turn the original database into the new one.
+     * Dependencies of the changes are resolved.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return change set
+     */
+    public static ChangeSet diffDatabases(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        final ChangeSet changes = new ChangeSet(null);
+        diffDatabases(arguments, oldDatabase, newDatabase, changes);
+
+        return changes;
+    }
+
+    /**
+     * Computes changes that turn the original database into the new one and
+     * passes them to the {@code sink} with resolved dependencies. Changes of
+     * each schema are passed as soon as the schema and all schemas preceding
+     * it are diffed, so the sink can stream them before the whole diff is
+     * finished.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     * @param sink        sink the changes should be passed to
+     */
+    public static void diffDatabases(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase,
+            final ChangeSink sink) {
+        final ParallelOutput parallel =
+                new ParallelOutput(arguments.getThreads());
+
+        try {
+            diffDatabases(arguments, oldDatabase, newDatabase, sink, parallel);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Computes changes that turn the original database into the new one and
+     * passes them to the {@code sink} with resolved dependencies. Schemas
+     * are diffed using threads of the given {@code parallel}, so that diffs
+     * run in tasks of the same pool do not need pools of their own.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     * @param sink        sink the changes should be passed to
+     * @param parallel    parallel output
+     */
+    static void diffDatabases(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase,
+            final ChangeSink sink, final ParallelOutput parallel) {
+        oldDatabase.freeze();
+        newDatabase.freeze();
+
+        final ChangeSet changes = new ChangeSet(null);
+
+        if (oldDatabase.getComment() == null
+                && newDatabase.getComment() != null
+                || oldDatabase.getComment() != null
+                && newDatabase.getComment() != null
+                && !oldDatabase.getComment().equals(newDatabase.getComment())) {
+            changes.add(Change.Kind.COMMENT, null, null, oldDatabase,
+                    newDatabase, "COMMENT ON DATABASE current_database() IS "
+                    + newDatabase.getComment() + ';');
+        } else if (oldDatabase.getComment() != null
+                && newDatabase.getComment() == null) {
+            changes.add(Change.Kind.COMMENT, null, null, oldDatabase,
+                    newDatabase,
+                    "COMMENT ON DATABASE current_database() IS NULL;");
+        }
+
+        if (oldDatabase.getFingerprint().equals(
+                newDatabase.getFingerprint())) {
+            pass(sink, changes, oldDatabase, newDatabase);
+
+            return;
+        }
+
+        dropOldSchemas(changes, oldDatabase, newDatabase);
+        createNewSchemas(changes, oldDatabase, newDatabase);
+        pass(sink, changes, oldDatabase, newDatabase);
+        updateSchemas(sink, arguments, oldDatabase, newDatabase, parallel);
+    }
+
+    /**
+     * Resolves dependencies of the changes and passes them to the sink.
+     *
+     * @param sink        sink the changes should be passed to
+     * @param changes     change set
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     */
+    private static void pass(final ChangeSink sink, final ChangeSet changes,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        for (final Change change : changes.getChanges()) {
+            ChangeSet.resolveDependencies(change,
+                    oldDatabase.getDependencyGraph(),
+                    newDatabase.getDependencyGraph());
+            sink.add(change);
+        }
     }
 
     /**
      * Drops old schemas that do not exist anymore.
      *
-     * @param writer      writer the output should be written to
+     * @param changes     change set the changes should be added to
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void dropOldSchemas(final PrintWriter writer,
+    private static void dropOldSchemas(final ChangeSet changes,
             final PgDatabase oldDatabase, final PgDatabase newDatabase) {
         for (final PgSchema oldSchema : oldDatabase.getSchemas()) {
             if (newDatabase.getSchema(oldSchema.getName()) == null) {
-                writer.println();
-                writer.println("DROP SCHEMA "
+                changes.add(Change.Kind.DROP_SCHEMA,
+                        ObjectKey.schema(oldSchema.getName()), null,
+                        oldSchema, null, "DROP SCHEMA "
                         + PgDiffUtils.getQuotedName(oldSchema.getName())
                         + " CASCADE;");
             }
@@ -172,121 +388,139 @@ public class PgDiff {
     }
 
     /**
-     * Updates objects in schemas.
+     * Updates objects in schemas. Schemas are diffed in parallel and their
+     * changes are passed in the order of schemas of the new database.
      *
-     * @param writer      writer the output should be written to
+     * @param sink        sink the changes should be passed to
      * @param arguments   object containing arguments settings
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
+     * @param parallel    parallel output
      */
-    private static void updateSchemas(final PrintWriter writer,
+    private static void updateSchemas(final ChangeSink sink,
             final PgDiffArguments arguments, final PgDatabase oldDatabase,
-            final PgDatabase newDatabase) {
+            final PgDatabase newDatabase, final ParallelOutput parallel) {
         final boolean setSearchPath = newDatabase.getSchemas().size() > 1
                 || !newDatabase.getSchemas().get(0).getName().equals("public");
+        final List<PgSchema> changedSchemas =
+                new ArrayList<PgSchema>(newDatabase.getSchemas().size());
 
         for (final PgSchema newSchema : newDatabase.getSchemas()) {
-            final SearchPathHelper searchPathHelper;
-
-            if (setSearchPath) {
-                searchPathHelper = new SearchPathHelper("SET search_path = "
-                        + PgDiffUtils.getQuotedName(newSchema.getName(), true)
-                        + ", pg_catalog;");
-            } else {
-                searchPathHelper = new SearchPathHelper(null);
-            }
-
             final PgSchema oldSchema =
                     oldDatabase.getSchema(newSchema.getName());
 
-            if (oldSchema != null) {
-                if (oldSchema.getComment() == null
-                        && newSchema.getComment() != null
-                        || oldSchema.getComment() != null
-                        && newSchema.getComment() != null
-                        && !oldSchema.getComment().equals(
-                        newSchema.getComment())) {
-                    writer.println();
-                    writer.print("COMMENT ON SCHEMA ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newSchema.getName()));
-                    writer.print(" IS ");
-                    writer.print(newSchema.getComment());
-                    writer.println(';');
-                } else if (oldSchema.getComment() != null
-                        && newSchema.getComment() == null) {
-                    writer.println();
-                    writer.print("COMMENT ON SCHEMA ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newSchema.getName()));
-                    writer.println(" IS NULL;");
-                }
+            if (oldSchema == null || !oldSchema.getFingerprint().equals(
+                    newSchema.getFingerprint())) {
+                changedSchemas.add(newSchema);
             }
+        }
+
+        parallel.computeAll(changedSchemas,
+                new ParallelOutput.Computation<PgSchema, ChangeSet>() {
+                    @Override
+                    public ChangeSet compute(final PgSchema newSchema) {
+                        return updateSchema(arguments, oldDatabase.getSchema(
+                                newSchema.getName()), newSchema,
+                                setSearchPath, parallel);
+                    }
+                }, new ParallelOutput.Receiver<ChangeSet>() {
+                    @Override
+                    public void receive(final ChangeSet schemaChanges) {
+                        pass(sink, schemaChanges, oldDatabase, newDatabase);
+                    }
+                });
+    }
+
+    /**
+     * Computes changes of objects in schema.
+     *
+     * @param arguments     object containing arguments settings
+     * @param oldSchema     original schema or null if the schema is new
+     * @param newSchema     new schema
+     * @param setSearchPath whether search path should be output
+     * @param parallel      parallel output
+     *
+     * @return changes of the schema
+     */
+    private static ChangeSet updateSchema(final PgDiffArguments arguments,
+            final PgSchema oldSchema, final PgSchema newSchema,
+            final boolean setSearchPath, final ParallelOutput parallel) {
+        final ChangeSet changes;
 
-            PgDiffTriggers.dropTriggers(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffRules.dropRules(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffFunctions.dropFunctions(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.dropViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.dropConstraints(
-                    writer, oldSchema, newSchema, true, searchPathHelper);
-            PgDiffConstraints.dropConstraints(
-                    writer, oldSchema, newSchema, false, searchPathHelper);
-            PgDiffIndexes.dropIndexes(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.dropClusters(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.dropTables(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.dropSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-
-            PgDiffSequences.createSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.alterSequences(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.alterTypes(writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.createTypes(writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.dropTypes(writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.createTables(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.alterTables(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.alterCreatedSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffFunctions.createFunctions(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.createConstraints(
-                    writer, oldSchema, newSchema, true, searchPathHelper);
-            PgDiffConstraints.createConstraints(
-                    writer, oldSchema, newSchema, false, searchPathHelper);
-            PgDiffIndexes.createIndexes(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.createClusters(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTriggers.createTriggers(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffRules.createRules(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.createViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.alterViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-
-            PgDiffFunctions.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffIndexes.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTriggers.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffRules.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
+        if (setSearchPath) {
+            changes = new ChangeSet("SET search_path = "
+                    + PgDiffUtils.getQuotedName(newSchema.getName(), true)
+                    + ", pg_catalog;");
+        } else {
+            changes = new ChangeSet(null);
         }
+
+        if (oldSchema != null) {
+            final ObjectKey schemaKey = ObjectKey.schema(newSchema.getName());
+
+            if (oldSchema.getComment() == null
+                    && newSchema.getComment() != null
+                    || oldSchema.getComment() != null
+                    && newSchema.getComment() != null
+                    && !oldSchema.getComment().equals(
+                    newSchema.getComment())) {
+                final Change change = new Change(Change.Kind.COMMENT,
+                        schemaKey, null, "COMMENT ON SCHEMA "
+                        + PgDiffUtils.getQuotedName(newSchema.getName())
+                        + " IS " + newSchema.getComment() + ';');
+                change.setObjects(oldSchema, newSchema);
+                changes.add(change);
+            } else if (oldSchema.getComment() != null
+                    && newSchema.getComment() == null) {
+                final Change change = new Change(Change.Kind.COMMENT,
+                        schemaKey, null, "COMMENT ON SCHEMA "
+                        + PgDiffUtils.getQuotedName(newSchema.getName())
+                        + " IS NULL;");
+                change.setObjects(oldSchema, newSchema);
+                changes.add(change);
+            }
+        }
+
+        PgDiffTriggers.dropTriggers(changes, oldSchema, newSchema);
+        PgDiffRules.dropRules(changes, oldSchema, newSchema);
+        PgDiffFunctions.dropFunctions(
+                changes, arguments, oldSchema, newSchema);
+        PgDiffViews.dropViews(changes, oldSchema, newSchema);
+        PgDiffConstraints.dropConstraints(
+                changes, oldSchema, newSchema, true);
+        PgDiffConstraints.dropConstraints(
+                changes, oldSchema, newSchema, false);
+        PgDiffIndexes.dropIndexes(changes, oldSchema, newSchema);
+        PgDiffTables.dropClusters(changes, oldSchema, newSchema);
+        PgDiffTables.dropTables(changes, oldSchema, newSchema);
+        PgDiffSequences.dropSequences(changes, oldSchema, newSchema);
+
+        PgDiffSequences.createSequences(changes, oldSchema, newSchema);
+        PgDiffSequences.alterSequences(
+                changes, arguments, oldSchema, newSchema);
+        PgDiffTypes.alterTypes(changes, arguments, oldSchema, newSchema);
+        PgDiffTypes.createTypes(changes, oldSchema, newSchema);
+        PgDiffTypes.dropTypes(changes, oldSchema, newSchema);
+        PgDiffTables.createTables(changes, oldSchema, newSchema);
+        PgDiffTables.alterTables(
+                changes, arguments, oldSchema, newSchema, parallel);
+        PgDiffSequences.alterCreatedSequences(changes, oldSchema, newSchema);
+        PgDiffFunctions.createFunctions(
+                changes, arguments, oldSchema, newSchema);
+        PgDiffConstraints.createConstraints(
+                changes, oldSchema, newSchema, true);
+        PgDiffConstraints.createConstraints(
+                changes, oldSchema, newSchema, false);
+        PgDiffIndexes.createIndexes(changes, oldSchema, newSchema);
+        PgDiffTables.createClusters(changes, oldSchema, newSchema);
+        PgDiffTriggers.createTriggers(changes, oldSchema, newSchema);
+        PgDiffRules.createRules(changes, oldSchema, newSchema);
+        PgDiffViews.createViews(changes, oldSchema, newSchema);
+        PgDiffViews.alterViews(changes, oldSchema, newSchema);
+
+        PgDiffComments.alterComments(changes, oldSchema, newSchema);
+
+        return changes;
     }
 
     /**
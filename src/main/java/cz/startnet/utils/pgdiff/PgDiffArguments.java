@@ -5,8 +5,14 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.SortedMap;
 
 /**
@@ -16,16 +22,24 @@ import java.util.SortedMap;
  */
 public class PgDiffArguments {
 
+    /**
+     * Options that are followed by value.
+     */
+    private static final List<String> OPTIONS_WITH_VALUE = Arrays.asList(
+            "--fleet", "--in-charset-name", "--out-charset-name",
+            "--rollback", "--template", "--threads");
+
     /**
      * Input file charset name.
      */
     private String inCharsetName = "UTF-8";
     /**
-     * Path to the new dump file.
+     * Path to the new dump file, or to the baseline dump file in fleet mode.
      */
     private String newDumpFile;
     /**
-     * Path to the original dump file.
+     * Path to the original dump file, or to the only dump file in manifest
+     * mode.
      */
     private String oldDumpFile;
     /**
@@ -53,6 +67,47 @@ public class PgDiffArguments {
      * Whether to display apgdiff version.
      */
     private boolean version;
+    /**
+     * Whether to output approximate heap footprint of loaded databases.
+     */
+    private boolean outputHeapFootprint;
+    /**
+     * Whether to only check whether the dumps differ.
+     */
+    private boolean check;
+    /**
+     * Directory migration scripts of tenants are written to in fleet mode,
+     * null if not in fleet mode.
+     */
+    private String fleetDirectory;
+    /**
+     * Paths to dump files of tenants diffed against the baseline in fleet
+     * mode.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private List<String> tenantDumpFiles = new ArrayList<String>();
+    /**
+     * Name of template schema of the new dump that is diffed against tenant
+     * schemas of the original dump, null if not in template mode.
+     */
+    private String templateSchema;
+    /**
+     * Path to file rollback script is written to, null if rollback script
+     * should not be output.
+     */
+    private String rollbackFile;
+    /**
+     * Whether to output manifest of fingerprints of objects of single dump.
+     */
+    private boolean manifest;
+    /**
+     * Whether to output changes as JSON objects instead of SQL script.
+     */
+    private boolean outputJson;
+    /**
+     * Number of threads used for diffing of schemas.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
     /**
      * Whether to output information about ignored statements.
      */
@@ -194,6 +249,168 @@ public class PgDiffArguments {
         this.outputIgnoredStatements = outputIgnoredStatements;
     }
 
+    /**
+     * Getter for {@link #outputHeapFootprint}.
+     *
+     * @return {@link #outputHeapFootprint}
+     */
+    public boolean isOutputHeapFootprint() {
+        return outputHeapFootprint;
+    }
+
+    /**
+     * Setter for {@link #outputHeapFootprint}.
+     *
+     * @param outputHeapFootprint {@link #outputHeapFootprint}
+     */
+    public void setOutputHeapFootprint(final boolean outputHeapFootprint) {
+        this.outputHeapFootprint = outputHeapFootprint;
+    }
+
+    /**
+     * Getter for {@link #check}.
+     *
+     * @return {@link #check}
+     */
+    public boolean isCheck() {
+        return check;
+    }
+
+    /**
+     * Setter for {@link #check}.
+     *
+     * @param check {@link #check}
+     */
+    public void setCheck(final boolean check) {
+        this.check = check;
+    }
+
+    /**
+     * Getter for {@link #fleetDirectory}.
+     *
+     * @return {@link #fleetDirectory}
+     */
+    public String getFleetDirectory() {
+        return fleetDirectory;
+    }
+
+    /**
+     * Setter for {@link #fleetDirectory}.
+     *
+     * @param fleetDirectory {@link #fleetDirectory}
+     */
+    public void setFleetDirectory(final String fleetDirectory) {
+        this.fleetDirectory = fleetDirectory;
+    }
+
+    /**
+     * Getter for {@link #tenantDumpFiles}.
+     *
+     * @return {@link #tenantDumpFiles}
+     */
+    public List<String> getTenantDumpFiles() {
+        return Collections.unmodifiableList(tenantDumpFiles);
+    }
+
+    /**
+     * Setter for {@link #tenantDumpFiles}.
+     *
+     * @param tenantDumpFiles {@link #tenantDumpFiles}
+     */
+    public void setTenantDumpFiles(final List<String> tenantDumpFiles) {
+        this.tenantDumpFiles = new ArrayList<String>(tenantDumpFiles);
+    }
+
+    /**
+     * Getter for {@link #templateSchema}.
+     *
+     * @return {@link #templateSchema}
+     */
+    public String getTemplateSchema() {
+        return templateSchema;
+    }
+
+    /**
+     * Setter for {@link #templateSchema}.
+     *
+     * @param templateSchema {@link #templateSchema}
+     */
+    public void setTemplateSchema(final String templateSchema) {
+        this.templateSchema = templateSchema;
+    }
+
+    /**
+     * Getter for {@link #rollbackFile}.
+     *
+     * @return {@link #rollbackFile}
+     */
+    public String getRollbackFile() {
+        return rollbackFile;
+    }
+
+    /**
+     * Setter for {@link #rollbackFile}.
+     *
+     * @param rollbackFile {@link #rollbackFile}
+     */
+    public void setRollbackFile(final String rollbackFile) {
+        this.rollbackFile = rollbackFile;
+    }
+
+    /**
+     * Getter for {@link #manifest}.
+     *
+     * @return {@link #manifest}
+     */
+    public boolean isManifest() {
+        return manifest;
+    }
+
+    /**
+     * Setter for {@link #manifest}.
+     *
+     * @param manifest {@link #manifest}
+     */
+    public void setManifest(final boolean manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * Getter for {@link #outputJson}.
+     *
+     * @return {@link #outputJson}
+     */
+    public boolean isOutputJson() {
+        return outputJson;
+    }
+
+    /**
+     * Setter for {@link #outputJson}.
+     *
+     * @param outputJson {@link #outputJson}
+     */
+    public void setOutputJson(final boolean outputJson) {
+        this.outputJson = outputJson;
+    }
+
+    /**
+     * Getter for {@link #threads}.
+     *
+     * @return {@link #threads}
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Setter for {@link #threads}.
+     *
+     * @param threads {@link #threads}
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
     /**
      * Setter for {@link #version}.
      *
@@ -224,19 +441,28 @@ public class PgDiffArguments {
     @SuppressWarnings("AssignmentToForLoopParameter")
     public boolean parse(final PrintWriter writer, final String[] args) {
         boolean success = true;
-        final int argsLength;
+        int i = 0;
 
-        if (args.length >= 2) {
-            argsLength = args.length - 2;
-        } else {
-            argsLength = args.length;
-        }
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            if (OPTIONS_WITH_VALUE.contains(args[i])
+                    && i + 1 == args.length) {
+                writer.print(Resources.getString("ErrorMissingOptionValue"));
+                writer.print(": ");
+                writer.println(args[i]);
+                success = false;
 
-        for (int i = 0; i < argsLength; i++) {
-            if ("--add-defaults".equals(args[i])) {
+                break;
+            } else if ("--add-defaults".equals(args[i])) {
                 setAddDefaults(true);
             } else if ("--add-transaction".equals(args[i])) {
                 setAddTransaction(true);
+            } else if ("--check".equals(args[i])) {
+                setCheck(true);
+            } else if ("--fleet".equals(args[i])) {
+                setFleetDirectory(args[i + 1]);
+                i++;
+            } else if ("--heap-footprint".equals(args[i])) {
+                setOutputHeapFootprint(true);
             } else if ("--ignore-function-whitespace".equals(args[i])) {
                 setIgnoreFunctionWhitespace(true);
             } else if ("--ignore-slony-triggers".equals(args[i])) {
@@ -246,13 +472,40 @@ public class PgDiffArguments {
             } else if ("--in-charset-name".equals(args[i])) {
                 setInCharsetName(args[i + 1]);
                 i++;
+            } else if ("--json".equals(args[i])) {
+                setOutputJson(true);
             } else if ("--list-charsets".equals(args[i])) {
                 setListCharsets(true);
+            } else if ("--manifest".equals(args[i])) {
+                setManifest(true);
             } else if ("--out-charset-name".equals(args[i])) {
                 setOutCharsetName(args[i + 1]);
                 i++;
             } else if ("--output-ignored-statements".equals(args[i])) {
                 setOutputIgnoredStatements(true);
+            } else if ("--rollback".equals(args[i])) {
+                setRollbackFile(args[i + 1]);
+                i++;
+            } else if ("--template".equals(args[i])) {
+                setTemplateSchema(args[i + 1]);
+                i++;
+            } else if ("--threads".equals(args[i])) {
+                final int threadCount = parseThreads(args[i + 1]);
+
+                if (threadCount < 1) {
+                    writer.print(
+                            Resources.getString("ErrorInvalidOptionValue"));
+                    writer.print(": ");
+                    writer.print(args[i]);
+                    writer.print(' ');
+                    writer.println(args[i + 1]);
+                    success = false;
+
+                    break;
+                }
+
+                setThreads(threadCount);
+                i++;
             } else if ("--version".equals(args[i])) {
                 setVersion(true);
             } else {
@@ -271,17 +524,116 @@ public class PgDiffArguments {
         } else if (args.length == 1 && isListCharsets()) {
             listCharsets(writer);
             success = false;
-        } else if (args.length < 2) {
+        } else if (success && !isModeValid(writer)) {
+            success = false;
+        } else if (!isDumpFileCountValid(args.length - i)) {
             printUsage(writer);
             success = false;
+        } else if (success && isManifest()) {
+            setOldDumpFile(args[i]);
+        } else if (success && getFleetDirectory() != null) {
+            setNewDumpFile(args[i]);
+            setTenantDumpFiles(
+                    Arrays.asList(args).subList(i + 1, args.length));
         } else if (success) {
-            setOldDumpFile(args[args.length - 2]);
-            setNewDumpFile(args[args.length - 1]);
+            setOldDumpFile(args[i]);
+            setNewDumpFile(args[i + 1]);
+        }
+
+        if (success && getRollbackFile() != null) {
+            success = isRollbackFileValid(writer);
         }
 
         return success;
     }
 
+    /**
+     * Parses number of threads.
+     *
+     * @param value value of the option
+     *
+     * @return number of threads, or 0 if the value is not a number
+     */
+    private static int parseThreads(final String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (final NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks whether at most one mode is selected. Check, manifest, fleet and
+     * template modes exclude each other, and rollback script is written only
+     * together with plain diff.
+     *
+     * @param writer writer to print the error to
+     *
+     * @return true if at most one mode is selected, otherwise false
+     */
+    private boolean isModeValid(final PrintWriter writer) {
+        final boolean[] modes = {isCheck(), isManifest(),
+            getFleetDirectory() != null, getTemplateSchema() != null,
+            getRollbackFile() != null};
+        int count = 0;
+
+        for (final boolean mode : modes) {
+            if (mode) {
+                count++;
+            }
+        }
+
+        if (count > 1) {
+            writer.println(Resources.getString("ErrorModeConflict"));
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether rollback script would not overwrite any of the dumps.
+     *
+     * @param writer writer to print the error to
+     *
+     * @return true if rollback file differs from both dumps, otherwise false
+     */
+    private boolean isRollbackFileValid(final PrintWriter writer) {
+        final File rollback = PgDiffUtils.getCanonicalFile(getRollbackFile());
+
+        if (rollback.equals(PgDiffUtils.getCanonicalFile(getOldDumpFile()))
+                || rollback.equals(
+                PgDiffUtils.getCanonicalFile(getNewDumpFile()))) {
+            writer.println(MessageFormat.format(
+                    Resources.getString("OutputOverwritesInput"),
+                    getRollbackFile()));
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether number of dump files is valid for the selected mode.
+     * Manifest mode reads single dump, fleet mode reads baseline dump and at
+     * least one tenant dump, otherwise original and new dump are read.
+     *
+     * @param count number of dump files
+     *
+     * @return true if the number is valid, otherwise false
+     */
+    private boolean isDumpFileCountValid(final int count) {
+        if (isManifest()) {
+            return count == 1;
+        } else if (getFleetDirectory() != null) {
+            return count >= 2;
+        } else {
+            return count == 2;
+        }
+    }
+
     /**
      * Prints program usage.
      *
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import cz.startnet.utils.pgdiff.schema.PgFunction;
+import cz.startnet.utils.pgdiff.schema.PgRelation;
+import cz.startnet.utils.pgdiff.schema.PgSchema;
+import cz.startnet.utils.pgdiff.schema.PgSequence;
+import cz.startnet.utils.pgdiff.schema.PgType;
+
+/**
+ * Checks whether two databases differ without computing the diff.
+ * Fingerprints are compared top-down, from database through schemas to
+ * objects, and the check stops at the first difference.
+ *
+ * @author fordfrog
+ */
+public class PgDiffCheck {
+
+    /**
+     * Text returned by {@link #findFirstDifference(PgDatabase, PgDatabase)}
+     * if the databases differ in attributes of the database itself.
+     */
+    public static final String DATABASE = "DATABASE";
+
+    /**
+     * Finds the first object that differs between the databases. Objects of
+     * schemas are checked in the order relations, sequences, functions and
+     * types, objects of the original database before objects that exist in
+     * the new database only.
+     *
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return key of the first differing object as text, {@link #DATABASE}
+     *         if the database itself differs, or null if the databases do
+     *         not differ or differ only in order of objects
+     */
+    public static String findFirstDifference(final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
+        oldDatabase.freeze();
+        newDatabase.freeze();
+
+        if (oldDatabase.getFingerprint().equals(
+                newDatabase.getFingerprint())) {
+            return null;
+        }
+
+        if (!equalsNullable(
+                oldDatabase.getComment(), newDatabase.getComment())) {
+            return DATABASE;
+        }
+
+        for (final PgSchema oldSchema : oldDatabase.getSchemas()) {
+            final PgSchema newSchema =
+                    newDatabase.getSchema(oldSchema.getName());
+
+            if (newSchema == null) {
+                return ObjectKey.schema(oldSchema.getName()).toString();
+            }
+
+            final ObjectKey key = findFirstDifference(oldSchema, newSchema);
+
+            if (key != null) {
+                return key.toString();
+            }
+        }
+
+        for (final PgSchema newSchema : newDatabase.getSchemas()) {
+            if (oldDatabase.getSchema(newSchema.getName()) == null) {
+                return ObjectKey.schema(newSchema.getName()).toString();
+            }
+        }
+
+        // schemas are equal but listed in different order, which the diff
+        // does not output
+        return null;
+    }
+
+    /**
+     * Finds the first object that differs between the schemas.
+     *
+     * @param oldSchema original schema
+     * @param newSchema new schema
+     *
+     * @return key of the first differing object, key of the schema if the
+     *         schema itself differs, or null if the schemas do not differ or
+     *         differ only in order of objects
+     */
+    private static ObjectKey findFirstDifference(final PgSchema oldSchema,
+            final PgSchema newSchema) {
+        if (oldSchema.getFingerprint().equals(newSchema.getFingerprint())) {
+            return null;
+        }
+
+        final String schemaName = newSchema.getName();
+
+        if (!equalsNullable(oldSchema.getAuthorization(),
+                newSchema.getAuthorization())
+                || !equalsNullable(oldSchema.getDefinition(),
+                newSchema.getDefinition())
+                || !equalsNullable(oldSchema.getComment(),
+                newSchema.getComment())) {
+            return ObjectKey.schema(schemaName);
+        }
+
+        for (final PgRelation oldRel : oldSchema.getRels()) {
+            final PgRelation newRel = newSchema.getRelation(oldRel.getName());
+
+            if (newRel == null || !oldRel.getFingerprint().equals(
+                    newRel.getFingerprint())) {
+                return new ObjectKey(ObjectKey.Kind.RELATION, schemaName,
+                        oldRel.getName());
+            }
+        }
+
+        for (final PgRelation newRel : newSchema.getRels()) {
+            if (oldSchema.getRelation(newRel.getName()) == null) {
+                return new ObjectKey(ObjectKey.Kind.RELATION, schemaName,
+                        newRel.getName());
+            }
+        }
+
+        for (final PgSequence oldSequence : oldSchema.getSequences()) {
+            final PgSequence newSequence =
+                    newSchema.getSequence(oldSequence.getName());
+
+            if (newSequence == null || !oldSequence.getFingerprint().equals(
+                    newSequence.getFingerprint())) {
+                return new ObjectKey(ObjectKey.Kind.SEQUENCE, schemaName,
+                        oldSequence.getName());
+            }
+        }
+
+        for (final PgSequence newSequence : newSchema.getSequences()) {
+            if (oldSchema.getSequence(newSequence.getName()) == null) {
+                return new ObjectKey(ObjectKey.Kind.SEQUENCE, schemaName,
+                        newSequence.getName());
+            }
+        }
+
+        for (final PgFunction oldFunction : oldSchema.getFunctions()) {
+            final PgFunction newFunction =
+                    newSchema.getFunction(oldFunction.getSignature());
+
+            if (newFunction == null || !oldFunction.getFingerprint().equals(
+                    newFunction.getFingerprint())) {
+                return ObjectKey.function(schemaName, oldFunction.getName(),
+                        oldFunction.getSignature());
+            }
+        }
+
+        for (final PgFunction newFunction : newSchema.getFunctions()) {
+            if (oldSchema.getFunction(newFunction.getSignature()) == null) {
+                return ObjectKey.function(schemaName, newFunction.getName(),
+                        newFunction.getSignature());
+            }
+        }
+
+        for (final PgType oldType : oldSchema.getTypes()) {
+            final PgType newType = newSchema.getType(oldType.getName());
+
+            if (newType == null || !oldType.getFingerprint().equals(
+                    newType.getFingerprint())) {
+                return new ObjectKey(ObjectKey.Kind.TYPE, schemaName,
+                        oldType.getName());
+            }
+        }
+
+        for (final PgType newType : newSchema.getTypes()) {
+            if (oldSchema.getType(newType.getName()) == null) {
+                return new ObjectKey(ObjectKey.Kind.TYPE, schemaName,
+                        newType.getName());
+            }
+        }
+
+        // objects are equal but listed in different order, which the diff
+        // does not output
+        return null;
+    }
+
+    /**
+     * Compares two strings that can be null.
+     *
+     * @param left  left string or null
+     * @param right right string or null
+     *
+     * @return true if the strings are equal or both null, otherwise false
+     */
+    private static boolean equalsNullable(final String left,
+            final String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+
+    /**
+     * Creates a new instance of PgDiffCheck.
+     */
+    private PgDiffCheck() {
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.CommentTarget;
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import cz.startnet.utils.pgdiff.schema.PgFunction;
+import cz.startnet.utils.pgdiff.schema.PgIndex;
+import cz.startnet.utils.pgdiff.schema.PgRelation;
+import cz.startnet.utils.pgdiff.schema.PgRule;
+import cz.startnet.utils.pgdiff.schema.PgSchema;
+import cz.startnet.utils.pgdiff.schema.PgTable;
+import cz.startnet.utils.pgdiff.schema.PgTrigger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Diffs comments of functions, constraints, indexes, triggers and rules.
+ * Comments of both schemas are merged into single index keyed by
+ * {@link CommentTarget} and changes are added in one sweep over the index.
+ * Comments of schemas, tables, views, sequences and columns are diffed
+ * together with their objects.
+ *
+ * @author fordfrog
+ */
+public class PgDiffComments {
+
+    /**
+     * Adds changes for comments that have changed on objects that exist in
+     * both schemas.
+     *
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
+     */
+    public static void alterComments(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
+        if (oldSchema == null) {
+            return;
+        }
+
+        final CommentIndex index = new CommentIndex();
+        collectComments(oldSchema, index);
+        index.newSide = true;
+        collectComments(newSchema, index);
+
+        for (final Map.Entry<CommentTarget, CommentEntry> mapEntry
+                : index.entries.entrySet()) {
+            final CommentEntry entry = mapEntry.getValue();
+
+            if (entry.newObject == null) {
+                continue;
+            }
+
+            final StringBuilder sbSQL = new StringBuilder(100);
+            sbSQL.append("COMMENT ON ");
+            appendTarget(sbSQL, entry.newObject);
+            sbSQL.append(" IS ");
+            sbSQL.append(
+                    entry.newComment == null ? "NULL" : entry.newComment);
+            sbSQL.append(';');
+
+            changes.add(Change.Kind.COMMENT, mapEntry.getKey().getOwner(),
+                    mapEntry.getKey().getMemberName(), entry.oldObject,
+                    entry.newObject, sbSQL.toString());
+        }
+    }
+
+    /**
+     * Adds comments of all functions, constraints, indexes, triggers and
+     * rules of the schema to the index. The order of kinds determines the
+     * order of the output statements.
+     *
+     * @param schema schema
+     * @param index  comment index
+     */
+    private static void collectComments(final PgSchema schema,
+            final CommentIndex index) {
+        final String schemaName = schema.getName();
+
+        for (final PgFunction function : schema.getFunctions()) {
+            index.add(CommentTarget.of(ObjectKey.function(schemaName,
+                    function.getName(), function.getSignature())),
+                    function.getComment(), function);
+        }
+
+        for (final PgTable table : schema.getTables()) {
+            final ObjectKey tableKey = new ObjectKey(
+                    ObjectKey.Kind.RELATION, schemaName, table.getName());
+
+            for (final PgConstraint constraint : table.getConstraints()) {
+                index.add(new CommentTarget(tableKey,
+                        CommentTarget.Member.CONSTRAINT, constraint.getName()),
+                        constraint.getComment(), constraint);
+            }
+        }
+
+        for (final PgIndex pgIndex : schema.getIndexes()) {
+            index.add(CommentTarget.of(new ObjectKey(ObjectKey.Kind.INDEX,
+                    schemaName, pgIndex.getName())), pgIndex.getComment(),
+                    pgIndex);
+        }
+
+        for (final PgRelation rel : schema.getRels()) {
+            final ObjectKey relKey = new ObjectKey(
+                    ObjectKey.Kind.RELATION, schemaName, rel.getName());
+
+            for (final PgTrigger trigger : rel.getTriggers()) {
+                index.add(new CommentTarget(relKey,
+                        CommentTarget.Member.TRIGGER, trigger.getName()),
+                        trigger.getComment(), trigger);
+            }
+        }
+
+        for (final PgRelation rel : schema.getRels()) {
+            final ObjectKey relKey = new ObjectKey(
+                    ObjectKey.Kind.RELATION, schemaName, rel.getName());
+
+            for (final PgRule rule : rel.getRules()) {
+                index.add(new CommentTarget(relKey,
+                        CommentTarget.Member.RULE, rule.getName()),
+                        rule.getComment(), rule);
+            }
+        }
+    }
+
+    /**
+     * Appends object part of COMMENT ON statement.
+     *
+     * @param sbSQL  statement builder
+     * @param object commented object
+     */
+    private static void appendTarget(final StringBuilder sbSQL,
+            final Object object) {
+        if (object instanceof PgFunction) {
+            final PgFunction function = (PgFunction) object;
+            sbSQL.append("FUNCTION ");
+            sbSQL.append(PgDiffUtils.getQuotedName(function.getName()));
+            sbSQL.append('(');
+
+            boolean addComma = false;
+
+            for (final PgFunction.Argument argument
+                    : function.getArguments()) {
+                if (addComma) {
+                    sbSQL.append(", ");
+                } else {
+                    addComma = true;
+                }
+
+                sbSQL.append(argument.getDeclaration(false));
+            }
+
+            sbSQL.append(')');
+        } else if (object instanceof PgConstraint) {
+            final PgConstraint constraint = (PgConstraint) object;
+
+            if (constraint.isPrimaryKeyConstraint()) {
+                sbSQL.append("INDEX ");
+                sbSQL.append(PgDiffUtils.getQuotedName(constraint.getName()));
+            } else {
+                sbSQL.append("CONSTRAINT ");
+                sbSQL.append(PgDiffUtils.getQuotedName(constraint.getName()));
+                sbSQL.append(" ON ");
+                sbSQL.append(
+                        PgDiffUtils.getQuotedName(constraint.getTableName()));
+            }
+        } else if (object instanceof PgIndex) {
+            sbSQL.append("INDEX ");
+            sbSQL.append(
+                    PgDiffUtils.getQuotedName(((PgIndex) object).getName()));
+        } else if (object instanceof PgTrigger) {
+            final PgTrigger trigger = (PgTrigger) object;
+            sbSQL.append("TRIGGER ");
+            sbSQL.append(PgDiffUtils.getQuotedName(trigger.getName()));
+            sbSQL.append(" ON ");
+            sbSQL.append(PgDiffUtils.getQuotedName(trigger.getRelationName()));
+        } else if (object instanceof PgRule) {
+            final PgRule rule = (PgRule) object;
+            sbSQL.append("RULE ");
+            sbSQL.append(PgDiffUtils.getQuotedName(rule.getName()));
+            sbSQL.append(" ON ");
+            sbSQL.append(PgDiffUtils.getQuotedName(rule.getRelationName()));
+        }
+    }
+
+    /**
+     * Index of comments of old and new schema.
+     */
+    private static class CommentIndex {
+
+        /**
+         * Entries in the order objects of old schema were added.
+         */
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        private final Map<CommentTarget, CommentEntry> entries =
+                new LinkedHashMap<CommentTarget, CommentEntry>();
+        /**
+         * Whether objects of new schema are being added.
+         */
+        private boolean newSide;
+
+        /**
+         * Adds comment of object. Objects of old schema create new entries,
+         * objects of new schema are only matched against existing entries
+         * and recorded if their comment differs.
+         *
+         * @param target  target of the comment
+         * @param comment comment
+         * @param object  commented object
+         */
+        private void add(final CommentTarget target, final String comment,
+                final Object object) {
+            if (!newSide) {
+                if (!entries.containsKey(target)) {
+                    entries.put(target, new CommentEntry(object, comment));
+                }
+
+                return;
+            }
+
+            final CommentEntry entry = entries.get(target);
+
+            if (entry != null && entry.newObject == null
+                    && (comment == null ? entry.oldComment != null
+                    : !comment.equals(entry.oldComment))) {
+                entry.newObject = object;
+                entry.newComment = comment;
+            }
+        }
+    }
+
+    /**
+     * Entry of comment index.
+     */
+    private static class CommentEntry {
+
+        /**
+         * Object in old schema.
+         */
+        private final Object oldObject;
+        /**
+         * Comment of object in old schema.
+         */
+        private final String oldComment;
+        /**
+         * Object in new schema, set only if its comment differs.
+         */
+        private Object newObject;
+        /**
+         * Comment of object in new schema.
+         */
+        private String newComment;
+
+        /**
+         * Creates a new instance of CommentEntry.
+         *
+         * @param oldObject  {@link #oldObject}
+         * @param oldComment {@link #oldComment}
+         */
+        CommentEntry(final Object oldObject, final String oldComment) {
+            this.oldObject = oldObject;
+            this.oldComment = oldComment;
+        }
+    }
+
+    /**
+     * Creates a new instance of PgDiffComments.
+     */
+    private PgDiffComments() {
+    }
+}
@@ -5,10 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgConstraint;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTable;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,19 +20,17 @@ import java.util.List;
 public class PgDiffConstraints {
 
     /**
-     * Outputs statements for creation of new constraints.
+     * Adds changes for creation of new constraints.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param primaryKey       determines whether primary keys should be
-     *                         processed or any other constraints should be
-     *                         processed
-     * @param searchPathHelper search path helper
+     * @param changes    change set the changes should be added to
+     * @param oldSchema  original schema
+     * @param newSchema  new schema
+     * @param primaryKey determines whether primary keys should be processed
+     *                   or any other constraints should be processed
      */
-    public static void createConstraints(final PrintWriter writer,
+    public static void createConstraints(final ChangeSet changes,
             final PgSchema oldSchema, final PgSchema newSchema,
-            final boolean primaryKey, final SearchPathHelper searchPathHelper) {
+            final boolean primaryKey) {
         for (final PgTable newTable : newSchema.getTables()) {
             final PgTable oldTable;
 
@@ -45,27 +43,28 @@ public class PgDiffConstraints {
             // Add new constraints
             for (final PgConstraint constraint :
                     getNewConstraints(oldTable, newTable, primaryKey)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(constraint.getCreationSQL());
+                changes.add(Change.Kind.ADD_CONSTRAINT, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newTable.getName()), constraint.getName(),
+                        oldTable == null ? null
+                        : oldTable.getConstraint(constraint.getName()),
+                        constraint, constraint.getCreationSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for dropping non-existent or modified constraints.
+     * Adds changes for dropping non-existent or modified constraints.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param primaryKey       determines whether primary keys should be
-     *                         processed or any other constraints should be
-     *                         processed
-     * @param searchPathHelper search path helper
+     * @param changes    change set the changes should be added to
+     * @param oldSchema  original schema
+     * @param newSchema  new schema
+     * @param primaryKey determines whether primary keys should be processed
+     *                   or any other constraints should be processed
      */
-    public static void dropConstraints(final PrintWriter writer,
+    public static void dropConstraints(final ChangeSet changes,
             final PgSchema oldSchema, final PgSchema newSchema,
-            final boolean primaryKey, final SearchPathHelper searchPathHelper) {
+            final boolean primaryKey) {
         for (final PgTable newTable : newSchema.getTables()) {
             final PgTable oldTable;
 
@@ -78,9 +77,12 @@ public class PgDiffConstraints {
             // Drop constraints that no more exist or are modified
             for (final PgConstraint constraint :
                     getDropConstraints(oldTable, newTable, primaryKey)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(constraint.getDropSQL());
+                changes.add(Change.Kind.DROP_CONSTRAINT, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newTable.getName()), constraint.getName(),
+                        constraint,
+                        newTable.getConstraint(constraint.getName()),
+                        constraint.getDropSQL());
             }
         }
     }
@@ -157,87 +159,6 @@ public class PgDiffConstraints {
         return list;
     }
 
-    /**
-     * Outputs statements for constraint comments that have changed.
-     *
-     * @param writer           writer
-     * @param oldSchema        old schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
-     */
-    public static void alterComments(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
-        if (oldSchema == null) {
-            return;
-        }
-
-        for (PgTable oldTable : oldSchema.getTables()) {
-            final PgTable newTable = newSchema.getTable(oldTable.getName());
-
-            if (newTable == null) {
-                continue;
-            }
-
-            for (final PgConstraint oldConstraint : oldTable.getConstraints()) {
-                final PgConstraint newConstraint =
-                        newTable.getConstraint(oldConstraint.getName());
-
-                if (newConstraint == null) {
-                    continue;
-                }
-
-                if (oldConstraint.getComment() == null
-                        && newConstraint.getComment() != null
-                        || oldConstraint.getComment() != null
-                        && newConstraint.getComment() != null
-                        && !oldConstraint.getComment().equals(
-                        newConstraint.getComment())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON ");
-
-                    if (newConstraint.isPrimaryKeyConstraint()) {
-                        writer.print("INDEX ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                    } else {
-                        writer.print("CONSTRAINT ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                        writer.print(" ON ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getTableName()));
-                    }
-
-                    writer.print(" IS ");
-                    writer.print(newConstraint.getComment());
-                    writer.println(';');
-                } else if (oldConstraint.getComment() != null
-                        && newConstraint.getComment() == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON ");
-
-                    if (newConstraint.isPrimaryKeyConstraint()) {
-                        writer.print("INDEX ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                    } else {
-                        writer.print("CONSTRAINT ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                        writer.print(" ON ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getTableName()));
-                    }
-
-                    writer.println(" IS NULL;");
-                }
-            }
-        }
-    }
-
     /**
      * Creates a new instance of PgDiffConstraints.
      */
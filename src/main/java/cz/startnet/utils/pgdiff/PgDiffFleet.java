@@ -0,0 +1,413 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.loader.FileException;
+import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Diffs many tenant dumps against single baseline dump. The baseline is
+ * loaded and frozen once and shared by all diffs. Tenant dumps are loaded
+ * in parallel and grouped by structural fingerprint of the whole database,
+ * so that the diff is computed only once for each distinct state of the
+ * tenants. Migration script that turns the tenant into the baseline is
+ * written for each tenant and report of the groups with summary matrix of
+ * objects that drift in the groups is output at the end.
+ *
+ * @author fordfrog
+ */
+public class PgDiffFleet {
+
+    /**
+     * Mark of object that drifts in the group.
+     */
+    private static final String DRIFT = "X";
+    /**
+     * Mark of object that does not drift in the group.
+     */
+    private static final String NO_DRIFT = "-";
+    /**
+     * Extension of dump files that is stripped from name of the tenant.
+     */
+    private static final String DUMP_EXTENSION = ".sql";
+    /**
+     * Suffix appended to name of the tenant to get name of its script.
+     */
+    private static final String SCRIPT_SUFFIX = ".diff.sql";
+
+    /**
+     * Diffs all tenant dumps against the baseline dump, writes migration
+     * script of each tenant to file {@code <name>.diff.sql} in the fleet
+     * directory and writes the report to the {@code writer}. Name of the
+     * tenant is file name of its dump without the {@code .sql} extension.
+     * Tenants with the same fingerprint form a group, the diff is computed
+     * for one member of the group and its script is written for all members.
+     * The report lists the groups, the group of each tenant, and the matrix
+     * with one column per group and one row per object that drifts in at
+     * least one group.
+     *
+     * @param writer    writer the report should be written to
+     * @param arguments object containing arguments settings
+     */
+    public static void diffFleet(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        final List<String> tenants = arguments.getTenantDumpFiles();
+        final File directory = new File(arguments.getFleetDirectory());
+        final List<File> scripts =
+                getScriptFiles(directory, getTenantNames(tenants));
+        checkInputsNotOverwritten(arguments, scripts);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("CannotCreateDirectory"), directory));
+        }
+
+        final PgDatabase baseline = PgDumpLoader.loadDatabaseSchema(
+                arguments.getNewDumpFile(), arguments.getInCharsetName(),
+                false, arguments.isIgnoreSlonyTriggers());
+        baseline.freeze();
+        baseline.getDependencyGraph();
+
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final ConcurrentMap<String, PgDatabase> representatives =
+                new ConcurrentHashMap<String, PgDatabase>();
+        final ParallelOutput parallel =
+                new ParallelOutput(arguments.getThreads());
+        final List<String> fingerprints;
+        final List<String> groups;
+        final List<GroupDiff> groupDiffs;
+
+        try {
+            fingerprints = parallel.computeAll(tenants,
+                    new ParallelOutput.Computation<String, String>() {
+                        @Override
+                        public String compute(final String tenant) {
+                            final PgDatabase database =
+                                    PgDumpLoader.loadDatabaseSchema(tenant,
+                                    arguments.getInCharsetName(), false,
+                                    arguments.isIgnoreSlonyTriggers());
+                            database.freeze();
+                            representatives.putIfAbsent(
+                                    database.getFingerprint(), database);
+
+                            return database.getFingerprint();
+                        }
+                    });
+            groups = new ArrayList<String>(
+                    new LinkedHashSet<String>(fingerprints));
+            groupDiffs = parallel.computeAll(groups,
+                    new ParallelOutput.Computation<String, GroupDiff>() {
+                        @Override
+                        public GroupDiff compute(final String fingerprint) {
+                            return diffGroup(arguments, baseline,
+                                    representatives.remove(fingerprint),
+                                    parallel);
+                        }
+                    });
+        } finally {
+            parallel.shutdown();
+        }
+
+        for (int i = 0; i < tenants.size(); i++) {
+            writeScript(scripts.get(i), groupDiffs.get(
+                    groups.indexOf(fingerprints.get(i))).script,
+                    arguments.getOutCharsetName());
+        }
+
+        final List<String> names = new ArrayList<String>(tenants.size());
+
+        for (final String tenant : tenants) {
+            names.add(new File(tenant).getName());
+        }
+
+        writeReport(writer, names, fingerprints, groups, groupDiffs);
+    }
+
+    /**
+     * Returns names of tenants, which are the file names of their dumps
+     * without the {@code .sql} extension.
+     *
+     * @param tenants paths to dump files of tenants
+     *
+     * @return list of names
+     *
+     * @throws FileException Thrown if more tenants have the same name, so
+     *                       their scripts would overwrite each other.
+     */
+    private static List<String> getTenantNames(final List<String> tenants) {
+        final List<String> names = new ArrayList<String>(tenants.size());
+        final Set<String> uniqueNames = new HashSet<String>(tenants.size());
+
+        for (final String tenant : tenants) {
+            String name = new File(tenant).getName();
+
+            if (name.endsWith(DUMP_EXTENSION)) {
+                name = name.substring(
+                        0, name.length() - DUMP_EXTENSION.length());
+            }
+
+            if (!uniqueNames.add(name)) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("DuplicateTenantName"), name));
+            }
+
+            names.add(name);
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns script files of tenants in the fleet directory.
+     *
+     * @param directory fleet directory
+     * @param names     names of tenants
+     *
+     * @return list of script files
+     */
+    private static List<File> getScriptFiles(final File directory,
+            final List<String> names) {
+        final List<File> scripts = new ArrayList<File>(names.size());
+
+        for (final String name : names) {
+            scripts.add(new File(directory, name + SCRIPT_SUFFIX));
+        }
+
+        return scripts;
+    }
+
+    /**
+     * Checks that no script would overwrite the baseline dump or dump of a
+     * tenant. Paths are compared in canonical form, so the check is done
+     * before anything is written.
+     *
+     * @param arguments object containing arguments settings
+     * @param scripts   script files of tenants
+     *
+     * @throws FileException Thrown if a script file is also an input dump.
+     */
+    private static void checkInputsNotOverwritten(
+            final PgDiffArguments arguments, final List<File> scripts) {
+        final Set<File> inputs = new HashSet<File>(
+                arguments.getTenantDumpFiles().size() + 1);
+        inputs.add(PgDiffUtils.getCanonicalFile(arguments.getNewDumpFile()));
+
+        for (final String tenant : arguments.getTenantDumpFiles()) {
+            inputs.add(PgDiffUtils.getCanonicalFile(tenant));
+        }
+
+        for (final File script : scripts) {
+            if (inputs.contains(
+                    PgDiffUtils.getCanonicalFile(script.getPath()))) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("OutputOverwritesInput"),
+                        script));
+            }
+        }
+    }
+
+    /**
+     * Diffs representative tenant of a group against the baseline.
+     *
+     * @param arguments object containing arguments settings
+     * @param baseline  frozen baseline database
+     * @param database  frozen database of the representative tenant
+     * @param parallel  parallel output
+     *
+     * @return migration script and drifting objects of the group
+     */
+    private static GroupDiff diffGroup(final PgDiffArguments arguments,
+            final PgDatabase baseline, final PgDatabase database,
+            final ParallelOutput parallel) {
+        final ChangeSet changes = new ChangeSet(null);
+        PgDiff.diffDatabases(arguments, database, baseline, changes, parallel);
+
+        final StringWriter script = new StringWriter();
+        final PrintWriter scriptWriter = new PrintWriter(script);
+        SqlRenderer.render(
+                scriptWriter, changes, arguments.isAddTransaction());
+        scriptWriter.flush();
+
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final Set<String> drift = new HashSet<String>();
+
+        for (final Change change : changes.getChanges()) {
+            drift.add(change.getKey() == null ? FingerprintManifest.DATABASE
+                    : change.getKey().toString());
+        }
+
+        return new GroupDiff(script.toString(), drift);
+    }
+
+    /**
+     * Writes migration script to the file.
+     *
+     * @param file        file
+     * @param script      migration script
+     * @param charsetName charset the script should be written in
+     */
+    private static void writeScript(final File file, final String script,
+            final String charsetName) {
+        final Writer writer;
+
+        try {
+            writer = new OutputStreamWriter(
+                    new FileOutputStream(file), charsetName);
+        } catch (final IOException ex) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("CannotWriteFile"), file), ex);
+        }
+
+        try {
+            writer.write(script);
+        } catch (final IOException ex) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("CannotWriteFile"), file), ex);
+        } finally {
+            try {
+                writer.close();
+            } catch (final IOException ex) {
+                // failure of writing has already been reported
+            }
+        }
+    }
+
+    /**
+     * Writes report of the groups. The report consists of three tables
+     * separated by empty line, columns of the tables are separated by tab.
+     * The first table lists the groups with number of tenants and
+     * fingerprint, the second table lists group of each tenant and the
+     * third table is matrix with key of object and mark for each group.
+     * Groups are numbered from 1 in order of their first tenant.
+     *
+     * @param writer       writer the report should be written to
+     * @param names        names of tenants
+     * @param fingerprints fingerprints of tenants
+     * @param groups       fingerprints of groups
+     * @param groupDiffs   diffs of groups
+     */
+    private static void writeReport(final PrintWriter writer,
+            final List<String> names, final List<String> fingerprints,
+            final List<String> groups, final List<GroupDiff> groupDiffs) {
+        final int[] groupNumbers = new int[fingerprints.size()];
+        final int[] groupSizes = new int[groups.size()];
+
+        for (int i = 0; i < fingerprints.size(); i++) {
+            groupNumbers[i] = groups.indexOf(fingerprints.get(i)) + 1;
+            groupSizes[groupNumbers[i] - 1]++;
+        }
+
+        writer.println("GROUP\tTENANTS\tFINGERPRINT");
+
+        for (int i = 0; i < groups.size(); i++) {
+            writer.print(i + 1);
+            writer.print('\t');
+            writer.print(groupSizes[i]);
+            writer.print('\t');
+            writer.println(groups.get(i));
+        }
+
+        writer.println();
+        writer.println("TENANT\tGROUP");
+
+        for (int i = 0; i < names.size(); i++) {
+            writer.print(names.get(i));
+            writer.print('\t');
+            writer.println(groupNumbers[i]);
+        }
+
+        writer.println();
+        writeMatrix(writer, groupDiffs);
+    }
+
+    /**
+     * Writes summary matrix. Header line contains numbers of groups, each
+     * following line contains key of object and mark for each group.
+     *
+     * @param writer     writer the matrix should be written to
+     * @param groupDiffs diffs of groups
+     */
+    private static void writeMatrix(final PrintWriter writer,
+            final List<GroupDiff> groupDiffs) {
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final SortedSet<String> keys = new TreeSet<String>();
+
+        for (final GroupDiff groupDiff : groupDiffs) {
+            keys.addAll(groupDiff.drift);
+        }
+
+        writer.print("OBJECT");
+
+        for (int i = 0; i < groupDiffs.size(); i++) {
+            writer.print('\t');
+            writer.print(i + 1);
+        }
+
+        writer.println();
+
+        for (final String key : keys) {
+            writer.print(key);
+
+            for (final GroupDiff groupDiff : groupDiffs) {
+                writer.print('\t');
+                writer.print(
+                        groupDiff.drift.contains(key) ? DRIFT : NO_DRIFT);
+            }
+
+            writer.println();
+        }
+    }
+
+    /**
+     * Creates a new instance of PgDiffFleet.
+     */
+    private PgDiffFleet() {
+    }
+
+    /**
+     * Result of diff of a group of tenants.
+     */
+    private static class GroupDiff {
+
+        /**
+         * Migration script of the group.
+         */
+        private final String script;
+        /**
+         * Keys of objects that drift in the group as text.
+         */
+        private final Set<String> drift;
+
+        /**
+         * Creates a new instance of GroupDiff.
+         *
+         * @param script {@link #script}
+         * @param drift  {@link #drift}
+         */
+        GroupDiff(final String script, final Set<String> drift) {
+            this.script = script;
+            this.drift = drift;
+        }
+    }
+}
@@ -5,12 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgRelation;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgRule;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Diffs rules.
@@ -20,16 +18,25 @@ import java.util.List;
 public class PgDiffRules {
 
     /**
-     * Outputs statements for creation of new rules.
+     * Extracts name of rule as join key.
+     */
+    private static final KeyedJoin.KeyExtractor<PgRule> RULE_NAME =
+            new KeyedJoin.KeyExtractor<PgRule>() {
+                @Override
+                public String getKey(final PgRule rule) {
+                    return rule.getName();
+                }
+            };
+
+    /**
+     * Adds changes for creation of new rules.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createRules(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createRules(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgRelation newRelation : newSchema.getRels()) {
             final PgRelation oldRelation;
 
@@ -40,25 +47,27 @@ public class PgDiffRules {
             }
 
             // Add new rules
-            for (final PgRule rule : getNewRules(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(rule.getCreationSQL());
+            for (final PgRule rule
+                    : joinRules(oldRelation, newRelation).getCreated()) {
+                changes.add(Change.Kind.CREATE_RULE, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newRelation.getName()), rule.getName(),
+                        oldRelation == null
+                        ? null : oldRelation.getRule(rule.getName()),
+                        rule, rule.getCreationSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for dropping rules.
+     * Adds changes for dropping rules.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropRules(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropRules(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgRelation newRelation : newSchema.getRels()) {
             final PgRelation oldRelation;
 
@@ -69,130 +78,30 @@ public class PgDiffRules {
             }
 
             // Drop rules that no more exist or are modified
-            for (final PgRule rule :
-                    getDropRules(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(rule.getDropSQL());
-            }
-        }
-    }
-
-    /**
-     * Returns list of rules that should be dropped.
-     *
-     * @param oldRelation original relation
-     * @param newRelation new relation
-     *
-     * @return list of rules that should be dropped
-     */
-    private static List<PgRule> getDropRules(final PgRelation oldRelation,
-            final PgRelation newRelation) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgRule> list = new ArrayList<PgRule>();
-
-        if (newRelation != null && oldRelation != null) {
-            final List<PgRule> newRules = newRelation.getRules();
-
-            for (final PgRule oldRule : oldRelation.getRules()) {
-                if (!newRules.contains(oldRule)) {
-                    list.add(oldRule);
-                }
+            for (final PgRule rule
+                    : joinRules(oldRelation, newRelation).getDropped()) {
+                changes.add(Change.Kind.DROP_RULE, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newRelation.getName()), rule.getName(), rule,
+                        newRelation.getRule(rule.getName()),
+                        rule.getDropSQL());
             }
         }
-
-        return list;
     }
 
     /**
-     * Returns list of rules that should be added.
+     * Joins rules of original and new relation by their names.
      *
-     * @param oldRelation original relation
+     * @param oldRelation original relation or null
      * @param newRelation new relation
      *
-     * @return list of rules that should be added
+     * @return result of the join
      */
-    private static List<PgRule> getNewRules(final PgRelation oldRelation,
+    private static KeyedJoin<PgRule> joinRules(final PgRelation oldRelation,
             final PgRelation newRelation) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgRule> list = new ArrayList<PgRule>();
-
-        if (newRelation != null) {
-            if (oldRelation == null) {
-                list.addAll(newRelation.getRules());
-            } else {
-                for (final PgRule newRule : newRelation.getRules()) {
-                    if (!oldRelation.getRules().contains(newRule)) {
-                        list.add(newRule);
-                    }
-                }
-            }
-        }
-
-        return list;
-    }
-
-    /**
-     * Outputs statements for rule comments that have changed.
-     *
-     * @param writer           writer
-     * @param oldSchema        old schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
-     */
-    public static void alterComments(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
-        if (oldSchema == null) {
-            return;
-        }
-
-        for (PgRelation oldRelation : oldSchema.getRels()) {
-            final PgRelation newRelation = newSchema.getRelation(oldRelation.getName());
-
-            if (newRelation == null) {
-                continue;
-            }
-
-            for (final PgRule oldRule : oldRelation.getRules()) {
-                final PgRule newRule =
-                        newRelation.getRule(oldRule.getName());
-
-                if (newRule == null) {
-                    continue;
-                }
-
-                if (oldRule.getComment() == null
-                        && newRule.getComment() != null
-                        || oldRule.getComment() != null
-                        && newRule.getComment() != null
-                        && !oldRule.getComment().equals(
-                        newRule.getComment())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON RULE ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newRule.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newRule.getRelationName()));
-                    writer.print(" IS ");
-                    writer.print(newRule.getComment());
-                    writer.println(';');
-                } else if (oldRule.getComment() != null
-                        && newRule.getComment() == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON RULE ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newRule.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newRule.getRelationName()));
-                    writer.println(" IS NULL;");
-                }
-            }
-        }
+        return KeyedJoin.join(
+                oldRelation == null ? null : oldRelation.getRules(),
+                newRelation.getRules(), RULE_NAME);
     }
 
     /**
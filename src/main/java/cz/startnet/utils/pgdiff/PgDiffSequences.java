@@ -5,12 +5,11 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgSequence;
 import cz.startnet.utils.pgdiff.schema.PgSequencePrivilege;
 
-import java.io.PrintWriter;
-
 /**
  * Diffs sequences.
  *
@@ -19,44 +18,47 @@ import java.io.PrintWriter;
 public class PgDiffSequences {
 
     /**
-     * Outputs statements for creation of new sequences.
+     * Adds changes for creation of new sequences.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createSequences(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createSequences(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         // Add new sequences
         for (final PgSequence sequence : newSchema.getSequences()) {
             if (oldSchema == null
                     || !oldSchema.containsSequence(sequence.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getCreationSQL());
+                final ObjectKey key = new ObjectKey(ObjectKey.Kind.SEQUENCE,
+                        newSchema.getName(), sequence.getName());
+                changes.add(Change.Kind.CREATE_SEQUENCE, key, null, null,
+                        sequence, sequence.getCreationSQL());
 
                 for (PgSequencePrivilege sequencePrivilege : sequence
                         .getPrivileges()) {
-                    writer.println("REVOKE ALL ON TABLE "
+                    changes.add(Change.Kind.REVOKE, key, null, null,
+                            sequencePrivilege, "REVOKE ALL ON TABLE "
                             + PgDiffUtils.getQuotedName(sequence.getName())
-                            + " FROM " + sequencePrivilege.getRoleName() + ";");
-                    if (!"".equals(sequencePrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                            + " FROM " + sequencePrivilege.getRoleName() + ";")
+                            .setSeparated(false);
+                    if (sequencePrivilege.hasPrivileges(true)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                sequencePrivilege, "GRANT "
                                 + sequencePrivilege.getPrivilegesSQL(true)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(sequence.getName())
                                 + " TO " + sequencePrivilege.getRoleName()
-                                + " WITH GRANT OPTION;");
+                                + " WITH GRANT OPTION;").setSeparated(false);
                     }
-                    if (!"".equals(sequencePrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                    if (sequencePrivilege.hasPrivileges(false)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                sequencePrivilege, "GRANT "
                                 + sequencePrivilege.getPrivilegesSQL(false)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(sequence.getName())
                                 + " TO " + sequencePrivilege.getRoleName()
-                                + ";");
+                                + ";").setSeparated(false);
                     }
                 }
 
@@ -65,40 +67,37 @@ public class PgDiffSequences {
     }
 
     /**
-     * Outputs statements for altering of new sequences.
+     * Adds changes for altering of new sequences.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void alterCreatedSequences(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void alterCreatedSequences(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         // Alter created sequences
         for (final PgSequence sequence : newSchema.getSequences()) {
             if ((oldSchema == null
                     || !oldSchema.containsSequence(sequence.getName()))
                     && sequence.getOwnedBy() != null
                     && !sequence.getOwnedBy().isEmpty()) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getOwnedBySQL());
+                changes.add(Change.Kind.ALTER_SEQUENCE, new ObjectKey(
+                        ObjectKey.Kind.SEQUENCE, newSchema.getName(),
+                        sequence.getName()), null, null, sequence,
+                        sequence.getOwnedBySQL());
             }
         }
     }
 
     /**
-     * Outputs statements for dropping of sequences that do not exist anymore.
+     * Adds changes for dropping of sequences that do not exist anymore.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropSequences(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropSequences(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
@@ -106,25 +105,25 @@ public class PgDiffSequences {
         // Drop sequences that do not exist in new schema
         for (final PgSequence sequence : oldSchema.getSequences()) {
             if (!newSchema.containsSequence(sequence.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getDropSQL());
+                changes.add(Change.Kind.DROP_SEQUENCE, new ObjectKey(
+                        ObjectKey.Kind.SEQUENCE, oldSchema.getName(),
+                        sequence.getName()), null, sequence, null,
+                        sequence.getDropSQL());
             }
         }
     }
 
     /**
-     * Outputs statement for modified sequences.
+     * Adds changes for modified sequences.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void alterSequences(final PrintWriter writer,
+    public static void alterSequences(final ChangeSet changes,
             final PgDiffArguments arguments, final PgSchema oldSchema,
-            final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
+            final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
@@ -217,13 +216,14 @@ public class PgDiffSequences {
                 sbSQL.append(newOwnedBy);
             }
 
+            final ObjectKey key = new ObjectKey(ObjectKey.Kind.SEQUENCE,
+                    newSchema.getName(), newSequence.getName());
+
             if (sbSQL.length() > 0) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER SEQUENCE "
-                        + PgDiffUtils.getQuotedName(newSequence.getName()));
-                writer.print(sbSQL.toString());
-                writer.println(';');
+                changes.add(Change.Kind.ALTER_SEQUENCE, key, null,
+                        oldSequence, newSequence, "ALTER SEQUENCE "
+                        + PgDiffUtils.getQuotedName(newSequence.getName())
+                        + sbSQL + ';');
             }
 
             if (oldSequence.getComment() == null
@@ -232,63 +232,41 @@ public class PgDiffSequences {
                     && newSequence.getComment() != null
                     && !oldSequence.getComment().equals(
                     newSequence.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON SEQUENCE ");
-                writer.print(PgDiffUtils.getQuotedName(newSequence.getName()));
-                writer.print(" IS ");
-                writer.print(newSequence.getComment());
-                writer.println(';');
+                changes.add(Change.Kind.COMMENT, key, null, oldSequence,
+                        newSequence, "COMMENT ON SEQUENCE "
+                        + PgDiffUtils.getQuotedName(newSequence.getName())
+                        + " IS " + newSequence.getComment() + ';');
             } else if (oldSequence.getComment() != null
                     && newSequence.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON SEQUENCE ");
-                writer.print(newSequence.getName());
-                writer.println(" IS NULL;");
+                changes.add(Change.Kind.COMMENT, key, null, oldSequence,
+                        newSequence, "COMMENT ON SEQUENCE "
+                        + newSequence.getName() + " IS NULL;");
             }
 
-            alterPrivileges(writer, oldSequence, newSequence, searchPathHelper);
+            alterPrivileges(changes, key, oldSequence, newSequence);
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
-            final PgSequence oldSequence, final PgSequence newSequence,
-            final SearchPathHelper searchPathHelper) {
-        boolean emptyLinePrinted = false;
+    private static void alterPrivileges(final ChangeSet changes,
+            final ObjectKey key, final PgSequence oldSequence,
+            final PgSequence newSequence) {
         for (PgSequencePrivilege oldSequencePrivilege : oldSequence
                 .getPrivileges()) {
             PgSequencePrivilege newSequencePrivilege = newSequence
                     .getPrivilege(oldSequencePrivilege.getRoleName());
             if (newSequencePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                changes.add(Change.Kind.REVOKE, key, null,
+                        oldSequencePrivilege, null, "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(oldSequence.getName())
                         + " FROM " + oldSequencePrivilege.getRoleName() + ";");
             } else if (!oldSequencePrivilege.isSimilar(newSequencePrivilege)) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                changes.add(Change.Kind.REVOKE, key, null,
+                        oldSequencePrivilege, newSequencePrivilege,
+                        "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(newSequence.getName())
                         + " FROM " + newSequencePrivilege.getRoleName() + ";");
-                if (!"".equals(newSequencePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newSequencePrivilege.getPrivilegesSQL(true)
-                            + " ON SEQUENCE "
-                            + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newSequencePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newSequencePrivilege.getPrivilegesSQL(false)
-                            + " ON SEQUENCE "
-                            + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName() + ";");
-                }
+                addGrants(changes, key, oldSequencePrivilege,
+                        newSequencePrivilege, newSequence);
             } // else similar privilege will not be updated
         }
         for (PgSequencePrivilege newSequencePrivilege : newSequence
@@ -296,31 +274,50 @@ public class PgDiffSequences {
             PgSequencePrivilege oldSequencePrivilege = oldSequence
                     .getPrivilege(newSequencePrivilege.getRoleName());
             if (oldSequencePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                changes.add(Change.Kind.REVOKE, key, null, null,
+                        newSequencePrivilege, "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(newSequence.getName())
                         + " FROM " + newSequencePrivilege.getRoleName() + ";");
-                if (!"".equals(newSequencePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newSequencePrivilege.getPrivilegesSQL(true)
-                            + " ON SEQUENCE "
-                            + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newSequencePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newSequencePrivilege.getPrivilegesSQL(false)
-                            + " ON SEQUENCE "
-                            + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName() + ";");
-                }
+                addGrants(changes, key, null, newSequencePrivilege,
+                        newSequence);
             }
         }
     }
 
+    /**
+     * Adds GRANT statements of the privilege that follow REVOKE statement
+     * without empty line.
+     *
+     * @param changes              change set the changes should be added to
+     * @param key                  key of the sequence
+     * @param oldSequencePrivilege original privilege or null
+     * @param newSequencePrivilege new privilege
+     * @param newSequence          new sequence
+     */
+    private static void addGrants(final ChangeSet changes,
+            final ObjectKey key, final PgSequencePrivilege oldSequencePrivilege,
+            final PgSequencePrivilege newSequencePrivilege,
+            final PgSequence newSequence) {
+        if (newSequencePrivilege.hasPrivileges(true)) {
+            changes.add(Change.Kind.GRANT, key, null, oldSequencePrivilege,
+                    newSequencePrivilege, "GRANT "
+                    + newSequencePrivilege.getPrivilegesSQL(true)
+                    + " ON SEQUENCE "
+                    + PgDiffUtils.getQuotedName(newSequence.getName())
+                    + " TO " + newSequencePrivilege.getRoleName()
+                    + " WITH GRANT OPTION;").setSeparated(false);
+        }
+        if (newSequencePrivilege.hasPrivileges(false)) {
+            changes.add(Change.Kind.GRANT, key, null, oldSequencePrivilege,
+                    newSequencePrivilege, "GRANT "
+                    + newSequencePrivilege.getPrivilegesSQL(false)
+                    + " ON SEQUENCE "
+                    + PgDiffUtils.getQuotedName(newSequence.getName())
+                    + " TO " + newSequencePrivilege.getRoleName() + ";")
+                    .setSeparated(false);
+        }
+    }
+
     /**
      * Creates a new instance of PgDiffSequences.
      */
@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgColumn;
 import cz.startnet.utils.pgdiff.schema.PgColumnPrivilege;
 import cz.startnet.utils.pgdiff.schema.PgColumnUtils;
@@ -12,7 +13,6 @@ import cz.startnet.utils.pgdiff.schema.PgInheritedColumn;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTable;
 import cz.startnet.utils.pgdiff.schema.PgRelationPrivilege;
-import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -27,16 +27,14 @@ import java.util.Map;
 public class PgDiffTables {
 
     /**
-     * Outputs statements for creation of clusters.
+     * Adds changes for creation of clusters.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropClusters(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropClusters(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgTable newTable : newSchema.getTables()) {
             final PgTable oldTable;
 
@@ -58,26 +56,24 @@ public class PgDiffTables {
 
             if (oldCluster != null && newCluster == null
                     && newTable.containsIndex(oldCluster)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println(" SET WITHOUT CLUSTER;");
+                changes.add(Change.Kind.DROP_CLUSTER,
+                        tableKey(newSchema, newTable), null, oldTable,
+                        newTable, "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName())
+                        + " SET WITHOUT CLUSTER;");
             }
         }
     }
 
     /**
-     * Outputs statements for dropping of clusters.
+     * Adds changes for dropping of clusters.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createClusters(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createClusters(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgTable newTable : newSchema.getTables()) {
             final PgTable oldTable;
 
@@ -100,62 +96,117 @@ public class PgDiffTables {
             if ((oldCluster == null && newCluster != null)
                     || (oldCluster != null && newCluster != null
                     && newCluster.compareTo(oldCluster) != 0)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print(" CLUSTER ON ");
-                writer.print(PgDiffUtils.getQuotedName(newCluster));
-                writer.println(';');
+                changes.add(Change.Kind.SET_CLUSTER,
+                        tableKey(newSchema, newTable), null, oldTable,
+                        newTable, "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName())
+                        + " CLUSTER ON "
+                        + PgDiffUtils.getQuotedName(newCluster) + ';');
             }
         }
     }
 
     /**
-     * Outputs statements for altering tables.
+     * Adds changes for altering tables. Changes of each table are computed
+     * in parallel into separate change sets that are added in the order of
+     * tables.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param oldSchema original schema
+     * @param newSchema new schema
+     * @param parallel  parallel output
      */
-    public static void alterTables(final PrintWriter writer,
+    public static void alterTables(final ChangeSet changes,
             final PgDiffArguments arguments, final PgSchema oldSchema,
-            final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
+            final PgSchema newSchema, final ParallelOutput parallel) {
+        if (oldSchema == null) {
+            return;
+        }
+
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final List<PgTable> changedTables = new ArrayList<PgTable>();
+
         for (final PgTable newTable : newSchema.getTables()) {
-            if (oldSchema == null
-                    || !oldSchema.containsTable(newTable.getName())) {
-                continue;
+            final PgTable oldTable = oldSchema.getTable(newTable.getName());
+
+            if (oldTable != null && !oldTable.getFingerprint().equals(
+                    newTable.getFingerprint())) {
+                changedTables.add(newTable);
             }
+        }
 
-            final PgTable oldTable = oldSchema.getTable(newTable.getName());
-            updateTableColumns(
-                    writer, arguments, oldTable, newTable, searchPathHelper);
-            checkWithOIDS(writer, oldTable, newTable, searchPathHelper);
-            checkInherits(writer, oldTable, newTable, newSchema, searchPathHelper);
-            addInheritedColumnDefaults(writer, arguments, oldTable, newTable, searchPathHelper);
-            checkTablespace(writer, oldTable, newTable, searchPathHelper);
-            addAlterStatistics(writer, oldTable, newTable, searchPathHelper);
-            addAlterStorage(writer, oldTable, newTable, searchPathHelper);
-            alterComments(writer, oldTable, newTable, searchPathHelper);
-            alterOwnerTo(writer, oldTable, newTable, searchPathHelper);
-            alterPrivileges(writer, oldTable, newTable, searchPathHelper);
-            alterPrivilegesColumns(writer, oldTable, newTable, searchPathHelper);
+        final List<ChangeSet> tableChanges = parallel.computeAll(
+                changedTables,
+                new ParallelOutput.Computation<PgTable, ChangeSet>() {
+                    @Override
+                    public ChangeSet compute(final PgTable newTable) {
+                        final ChangeSet tableChangeSet =
+                                new ChangeSet(changes.getSearchPath());
+                        alterTable(tableChangeSet, arguments,
+                                oldSchema.getTable(newTable.getName()),
+                                newTable, newSchema);
+
+                        return tableChangeSet;
+                    }
+                });
+
+        for (final ChangeSet tableChangeSet : tableChanges) {
+            changes.addAll(tableChangeSet);
         }
     }
 
+    /**
+     * Adds changes for altering single table.
+     *
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param oldTable  original table
+     * @param newTable  new table
+     * @param newSchema new schema
+     */
+    private static void alterTable(final ChangeSet changes,
+            final PgDiffArguments arguments, final PgTable oldTable,
+            final PgTable newTable, final PgSchema newSchema) {
+        final ObjectKey key = tableKey(newSchema, newTable);
+        updateTableColumns(changes, arguments, key, oldTable, newTable);
+        checkWithOIDS(changes, key, oldTable, newTable);
+        checkInherits(changes, key, oldTable, newTable, newSchema);
+        addInheritedColumnDefaults(changes, key, oldTable, newTable);
+        checkTablespace(changes, key, oldTable, newTable);
+        addAlterStatistics(changes, key, oldTable, newTable);
+        addAlterStorage(changes, key, oldTable, newTable);
+        alterComments(changes, key, oldTable, newTable);
+        alterOwnerTo(changes, key, oldTable, newTable);
+        alterPrivileges(changes, key, oldTable, newTable);
+        alterPrivilegesColumns(changes, key, oldTable, newTable);
+    }
+
+    /**
+     * Returns key of the table.
+     *
+     * @param schema schema of the table
+     * @param table  table
+     *
+     * @return key of the table
+     */
+    private static ObjectKey tableKey(final PgSchema schema,
+            final PgTable table) {
+        return new ObjectKey(
+                ObjectKey.Kind.RELATION, schema.getName(), table.getName());
+    }
+
     /**
      * Generate the needed alter table xxx set statistics when needed.
      *
-     * @param writer           writer the output should be written to
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable original table
+     * @param newTable new table
      */
-    private static void addAlterStatistics(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void addAlterStatistics(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         @SuppressWarnings("CollectionWithoutInitialCapacity")
         final Map<String, Integer> stats = new HashMap<String, Integer>();
 
@@ -181,29 +232,27 @@ public class PgDiffTables {
         }
 
         for (final Map.Entry<String, Integer> entry : stats.entrySet()) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ONLY ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(entry.getKey()));
-            writer.print(" SET STATISTICS ");
-            writer.print(entry.getValue());
-            writer.println(';');
+            changes.add(Change.Kind.ALTER_COLUMN_STATISTICS, key,
+                    entry.getKey(), oldTable.getColumn(entry.getKey()),
+                    newTable.getColumn(entry.getKey()), "ALTER TABLE ONLY "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(entry.getKey())
+                    + " SET STATISTICS " + entry.getValue() + ';');
         }
     }
 
     /**
      * Generate the needed alter table xxx set storage when needed.
      *
-     * @param writer           writer the output should be written to
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable original table
+     * @param newTable new table
      */
-    private static void addAlterStorage(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void addAlterStorage(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         for (final PgColumn newColumn : newTable.getColumns()) {
             final PgColumn oldColumn = oldTable.getColumn(newColumn.getName());
             final String oldStorage = (oldColumn == null
@@ -215,9 +264,9 @@ public class PgDiffTables {
                     : newColumn.getStorage();
 
             if (newStorage == null && oldStorage != null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(MessageFormat.format(Resources.getString(
+                changes.add(Change.Kind.WARNING, key, newColumn.getName(),
+                        oldColumn, newColumn, MessageFormat.format(
+                        Resources.getString(
                         "WarningUnableToDetermineStorageType"),
                         newTable.getName() + '.' + newColumn.getName()));
 
@@ -228,34 +277,33 @@ public class PgDiffTables {
                 continue;
             }
 
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ONLY ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-            writer.print(" SET STORAGE ");
-            writer.print(newStorage);
-            writer.print(';');
+            changes.add(Change.Kind.ALTER_COLUMN_STORAGE, key,
+                    newColumn.getName(), oldColumn, newColumn,
+                    "ALTER TABLE ONLY "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(newColumn.getName())
+                    + " SET STORAGE " + newStorage + ';');
         }
     }
 
     /**
-     * Adds statements for creation of new columns to the list of statements.
+     * Adds clauses for creation of new columns to the statement.
      *
-     * @param statements          list of statements
+     * @param alter               statement altering the table
      * @param arguments           object containing arguments settings
      * @param oldTable            original table
      * @param newTable            new table
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addCreateTableColumns(final List<String> statements,
+    private static void addCreateTableColumns(final Change alter,
             final PgDiffArguments arguments, final PgTable oldTable,
             final PgTable newTable, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn column : newTable.getColumns()) {
             if (!oldTable.containsColumn(column.getName())) {
-                statements.add("\tADD COLUMN "
+                alter.addClause(Change.Kind.ADD_COLUMN, column.getName(),
+                        null, column, "ADD COLUMN "
                         + column.getFullDefinition(arguments.isAddDefaults()));
 
                 if (arguments.isAddDefaults() && !column.getNullValue()
@@ -268,33 +316,34 @@ public class PgDiffTables {
     }
 
     /**
-     * Adds statements for removal of columns to the list of statements.
+     * Adds clauses for removal of columns to the statement.
      *
-     * @param statements list of statements
+     * @param alter      statement altering the table
      * @param oldTable   original table
      * @param newTable   new table
      */
-    private static void addDropTableColumns(final List<String> statements,
+    private static void addDropTableColumns(final Change alter,
             final PgTable oldTable, final PgTable newTable) {
         for (final PgColumn column : oldTable.getColumns()) {
             if (!newTable.containsColumn(column.getName())) {
-                statements.add("\tDROP COLUMN "
+                alter.addClause(Change.Kind.DROP_COLUMN, column.getName(),
+                        column, null, "DROP COLUMN "
                         + PgDiffUtils.getQuotedName(column.getName()));
             }
         }
     }
 
     /**
-     * Adds statements for modification of columns to the list of statements.
+     * Adds clauses for modification of columns to the statement.
      *
-     * @param statements          list of statements
+     * @param alter               statement altering the table
      * @param arguments           object containing arguments settings
      * @param oldTable            original table
      * @param newTable            new table
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addModifyTableColumns(final List<String> statements,
+    private static void addModifyTableColumns(final Change alter,
             final PgDiffArguments arguments, final PgTable oldTable,
             final PgTable newTable, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn newColumn : newTable.getColumns()) {
@@ -306,13 +355,31 @@ public class PgDiffTables {
             final String newColumnName =
                     PgDiffUtils.getQuotedName(newColumn.getName());
 
-            if (!oldColumn.getType().equals(newColumn.getType())) {
-                statements.add("\tALTER COLUMN " + newColumnName + " TYPE "
-                        + newColumn.getType() + " /* "
+            if (!equalsNullable(oldColumn.getConstraints(),
+                    newColumn.getConstraints())
+                    || newColumn.getGeneratedExpression() != null
+                    && !newColumn.getGeneratedExpression().equals(
+                    oldColumn.getGeneratedExpression())) {
+                addRecreateTableColumn(alter, arguments, oldColumn, newColumn,
+                        dropDefaultsColumns);
+
+                continue;
+            }
+
+            addDropColumnGeneration(alter, oldColumn, newColumn);
+
+            final String oldColumnType = oldColumn.getTypeWithCollation();
+            final String newColumnType = newColumn.getTypeWithCollation();
+
+            if (!oldColumn.hasSameType(newColumn)) {
+                alter.addClause(Change.Kind.ALTER_COLUMN_TYPE,
+                        newColumn.getName(), oldColumn, newColumn,
+                        "ALTER COLUMN " + newColumnName + " TYPE "
+                        + newColumnType + " /* "
                         + MessageFormat.format(
                         Resources.getString("TypeParameterChange"),
-                        newTable.getName(), oldColumn.getType(),
-                        newColumn.getType()) + " */");
+                        newTable.getName(), oldColumnType, newColumnType)
+                        + " */");
             }
 
             final String oldDefault = (oldColumn.getDefaultValue() == null) ? ""
@@ -322,18 +389,22 @@ public class PgDiffTables {
 
             if (!oldDefault.equals(newDefault)) {
                 if (newDefault.length() == 0) {
-                    statements.add("\tALTER COLUMN " + newColumnName
-                            + " DROP DEFAULT");
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName + " DROP DEFAULT");
                 } else {
-                    statements.add("\tALTER COLUMN " + newColumnName
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName
                             + " SET DEFAULT " + newDefault);
                 }
             }
 
             if (oldColumn.getNullValue() != newColumn.getNullValue()) {
                 if (newColumn.getNullValue()) {
-                    statements.add("\tALTER COLUMN " + newColumnName
-                            + " DROP NOT NULL");
+                    alter.addClause(Change.Kind.ALTER_COLUMN_NULL,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName + " DROP NOT NULL");
                 } else {
                     if (arguments.isAddDefaults()) {
                         final String defaultValue =
@@ -341,33 +412,146 @@ public class PgDiffTables {
                                 newColumn.getType());
 
                         if (defaultValue != null) {
-                            statements.add("\tALTER COLUMN " + newColumnName
+                            alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                                    newColumn.getName(), oldColumn, newColumn,
+                                    "ALTER COLUMN " + newColumnName
                                     + " SET DEFAULT " + defaultValue);
                             dropDefaultsColumns.add(newColumn);
                         }
                     }
 
-                    statements.add("\tALTER COLUMN " + newColumnName
-                            + " SET NOT NULL");
+                    alter.addClause(Change.Kind.ALTER_COLUMN_NULL,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName + " SET NOT NULL");
                 }
             }
+
+            addAlterColumnIdentity(alter, oldColumn, newColumn);
+        }
+    }
+
+    /**
+     * Adds clauses for removal of generation expression and identity of the
+     * column to the statement. Identity is removed also if its options were
+     * changed, it is then added back by
+     * {@link #addAlterColumnIdentity(Change, PgColumn, PgColumn)}.
+     *
+     * @param alter     statement altering the table
+     * @param oldColumn original column
+     * @param newColumn new column
+     */
+    private static void addDropColumnGeneration(final Change alter,
+            final PgColumn oldColumn, final PgColumn newColumn) {
+        final String columnName =
+                PgDiffUtils.getQuotedName(newColumn.getName());
+
+        if (oldColumn.getGeneratedExpression() != null
+                && newColumn.getGeneratedExpression() == null) {
+            alter.addClause(Change.Kind.ALTER_COLUMN_GENERATION,
+                    newColumn.getName(), oldColumn, newColumn,
+                    "ALTER COLUMN " + columnName + " DROP EXPRESSION");
+        }
+
+        if (oldColumn.getIdentity() != null
+                && (newColumn.getIdentity() == null
+                || !equalsNullable(oldColumn.getIdentityOptions(),
+                newColumn.getIdentityOptions()))) {
+            alter.addClause(Change.Kind.ALTER_COLUMN_GENERATION,
+                    newColumn.getName(), oldColumn, newColumn,
+                    "ALTER COLUMN " + columnName + " DROP IDENTITY");
+        }
+    }
+
+    /**
+     * Adds clauses for addition of identity or change of its generation to
+     * the statement.
+     *
+     * @param alter     statement altering the table
+     * @param oldColumn original column
+     * @param newColumn new column
+     */
+    private static void addAlterColumnIdentity(final Change alter,
+            final PgColumn oldColumn, final PgColumn newColumn) {
+        if (newColumn.getIdentity() == null) {
+            return;
+        }
+
+        final String columnName =
+                PgDiffUtils.getQuotedName(newColumn.getName());
+
+        if (oldColumn.getIdentity() == null
+                || !equalsNullable(oldColumn.getIdentityOptions(),
+                newColumn.getIdentityOptions())) {
+            alter.addClause(Change.Kind.ALTER_COLUMN_GENERATION,
+                    newColumn.getName(), oldColumn, newColumn,
+                    "ALTER COLUMN " + columnName + " ADD GENERATED "
+                    + newColumn.getIdentity() + " AS IDENTITY"
+                    + (newColumn.getIdentityOptions() == null ? ""
+                    : ' ' + newColumn.getIdentityOptions()));
+        } else if (!oldColumn.getIdentity().equals(newColumn.getIdentity())) {
+            alter.addClause(Change.Kind.ALTER_COLUMN_GENERATION,
+                    newColumn.getName(), oldColumn, newColumn,
+                    "ALTER COLUMN " + columnName + " SET GENERATED "
+                    + newColumn.getIdentity());
         }
     }
 
+    /**
+     * Adds clauses for removal of the column and its creation with new
+     * definition to the statement. Used for changes of the column definition
+     * that cannot be altered in place.
+     *
+     * @param alter               statement altering the table
+     * @param arguments           object containing arguments settings
+     * @param oldColumn           original column
+     * @param newColumn           new column
+     * @param dropDefaultsColumns list for storing columns for which default
+     *                            value should be dropped
+     */
+    private static void addRecreateTableColumn(final Change alter,
+            final PgDiffArguments arguments, final PgColumn oldColumn,
+            final PgColumn newColumn,
+            final List<PgColumn> dropDefaultsColumns) {
+        alter.addClause(Change.Kind.DROP_COLUMN, oldColumn.getName(),
+                oldColumn, null, "DROP COLUMN "
+                + PgDiffUtils.getQuotedName(oldColumn.getName()));
+        alter.addClause(Change.Kind.ADD_COLUMN, newColumn.getName(), null,
+                newColumn, "ADD COLUMN "
+                + newColumn.getFullDefinition(arguments.isAddDefaults()));
+
+        if (arguments.isAddDefaults() && !newColumn.getNullValue()
+                && (newColumn.getDefaultValue() == null
+                || newColumn.getDefaultValue().isEmpty())) {
+            dropDefaultsColumns.add(newColumn);
+        }
+    }
+
+    /**
+     * Compares two strings that can be null.
+     *
+     * @param left  left string or null
+     * @param right right string or null
+     *
+     * @return true if the strings are equal or both null, otherwise false
+     */
+    private static boolean equalsNullable(final String left,
+            final String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+
     /**
      * Checks whether there is a discrepancy in INHERITS for original and new
      * table.
      *
-     * @param writer           writer the output should be written to
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param key       key of the table
+     * @param oldTable  original table
+     * @param newTable  new table
+     * @param newSchema new schema
      */
-    private static void checkInherits(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    private static void checkInherits(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable, final PgSchema newSchema) {
         for (final Pair<String,String> inheritPairO : oldTable.getInherits()) {
             final String schemaName = inheritPairO.getL();
             final String tableName = inheritPairO.getR();
@@ -385,12 +569,11 @@ public class PgDiffTables {
                 } else {
                     inheritTableName = String.format("%s.%s",PgDiffUtils.getQuotedName(schemaName),PgDiffUtils.getQuotedName(tableName));
                 }
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println("ALTER TABLE "
-                        + PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println("\tNO INHERIT "
-                        + inheritTableName + ';');
+                changes.add(Change.Kind.ALTER_TABLE, key, null, oldTable,
+                        newTable, "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName()))
+                        .addClause(Change.Kind.ALTER_TABLE, null, oldTable,
+                        newTable, "NO INHERIT " + inheritTableName);
             }
         }
 
@@ -411,29 +594,27 @@ public class PgDiffTables {
                 } else {
                     inheritTableName = String.format("%s.%s",PgDiffUtils.getQuotedName(schemaName),PgDiffUtils.getQuotedName(tableName));
                 }
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println("ALTER TABLE "
-                        + PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println("\tINHERIT "
-                        + inheritTableName + ';');
+                changes.add(Change.Kind.ALTER_TABLE, key, null, oldTable,
+                        newTable, "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName()))
+                        .addClause(Change.Kind.ALTER_TABLE, null, oldTable,
+                        newTable, "INHERIT " + inheritTableName);
             }
         }
     }
 
     /**
-     * Outputs statements for defaults of tables who's column belongs to
-     * an inherited table.
+     * Adds changes for defaults of tables who's column belongs to an
+     * inherited table.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable original table
+     * @param newTable new table
      */
-    private static void addInheritedColumnDefaults(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgTable oldTable,
-            final PgTable newTable, final SearchPathHelper searchPathHelper) {
+    private static void addInheritedColumnDefaults(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         for (final PgInheritedColumn newColumn : newTable.getInheritedColumns()) {
             if (!oldTable.containsInheritedColumn(newColumn.getInheritedColumn().getName())) {
                 continue;
@@ -447,19 +628,22 @@ public class PgDiffTables {
             final String newDefault = (newColumn.getDefaultValue() == null) ? ""
                     : newColumn.getDefaultValue();
             if (!oldDefault.equals(newDefault)) {
-                writer.println();
-                writer.print("ALTER TABLE ONLY ");
-                writer.println(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print("\tALTER COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getInheritedColumn().getName()));
+                final String columnName =
+                        newColumn.getInheritedColumn().getName();
+                final Change alter = changes.add(Change.Kind.ALTER_TABLE,
+                        key, null, oldTable, newTable, "ALTER TABLE ONLY "
+                        + PgDiffUtils.getQuotedName(newTable.getName()));
                 if (newDefault.length() == 0) {
-                    writer.print(" DROP DEFAULT");
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            columnName, oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName + " DROP DEFAULT");
                 } else
                 {
-                    writer.print(" SET DEFAULT ");
-                    writer.print(newDefault);
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            columnName, oldColumn, newColumn,
+                            "ALTER COLUMN " + newColumnName + " SET DEFAULT "
+                            + newDefault);
                 }
-                writer.println(";");
             }
         }
     }
@@ -469,101 +653,108 @@ public class PgDiffTables {
      * add OIDS to existing table so we do not create SQL statement for addition
      * of OIDS but we issue warning.
      *
-     * @param writer           writer the output should be written to
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable original table
+     * @param newTable new table
      */
-    private static void checkWithOIDS(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void checkWithOIDS(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         if (oldTable.getWith() == null && newTable.getWith() == null
                 || oldTable.getWith() != null
                 && oldTable.getWith().equals(newTable.getWith())) {
             return;
         }
 
-        searchPathHelper.outputSearchPath(writer);
-        writer.println();
-        writer.println("ALTER TABLE "
+        final Change alter = changes.add(Change.Kind.ALTER_TABLE, key, null,
+                oldTable, newTable, "ALTER TABLE "
                 + PgDiffUtils.getQuotedName(newTable.getName()));
 
         if (newTable.getWith() == null
                 || "OIDS=false".equalsIgnoreCase(newTable.getWith())) {
-            writer.println("\tSET WITHOUT OIDS;");
+            alter.addClause(Change.Kind.ALTER_TABLE, null, oldTable, newTable,
+                    "SET WITHOUT OIDS");
         } else if ("OIDS".equalsIgnoreCase(newTable.getWith())
                 || "OIDS=true".equalsIgnoreCase(newTable.getWith())) {
-            writer.println("\tSET WITH OIDS;");
+            alter.addClause(Change.Kind.ALTER_TABLE, null, oldTable, newTable,
+                    "SET WITH OIDS");
         } else {
-            writer.println("\tSET " + newTable.getWith() + ";");
+            alter.addClause(Change.Kind.ALTER_TABLE, null, oldTable, newTable,
+                    "SET " + newTable.getWith());
         }
     }
 
     /**
      * Checks tablespace modification.
      *
-     * @param writer           writer
-     * @param oldTable         old table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable old table
+     * @param newTable new table
      */
-    private static void checkTablespace(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void checkTablespace(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         if (oldTable.getTablespace() == null && newTable.getTablespace() == null
                 || oldTable.getTablespace() != null
                 && oldTable.getTablespace().equals(newTable.getTablespace())) {
             return;
         }
 
-        searchPathHelper.outputSearchPath(writer);
-        writer.println();
-        writer.println("ALTER TABLE "
-                + PgDiffUtils.getQuotedName(newTable.getName()));
-        writer.println("\tTABLESPACE " + newTable.getTablespace() + ';');
+        changes.add(Change.Kind.ALTER_TABLE, key, null, oldTable, newTable,
+                "ALTER TABLE " + PgDiffUtils.getQuotedName(newTable.getName()))
+                .addClause(Change.Kind.ALTER_TABLE, null, oldTable, newTable,
+                "TABLESPACE " + newTable.getTablespace());
     }
 
     /**
-     * Outputs statements for creation of new tables.
+     * Adds changes for creation of new tables.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createTables(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createTables(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgTable table : newSchema.getTables()) {
             if (oldSchema == null
                     || !oldSchema.containsTable(table.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(table.getCreationSQL(newSchema));
-                writer.println();
+                final ObjectKey key = tableKey(newSchema, table);
+                changes.add(Change.Kind.CREATE_TABLE, key, null, null, table,
+                        table.getCreationSQL(newSchema));
+                boolean emptyLinePrinted = false;
                 if (table.getOwnerTo() != null) {
-                    writer.println("ALTER TABLE "
+                    emptyLinePrinted = true;
+                    changes.add(Change.Kind.ALTER_OWNER, key, null, null,
+                            table, "ALTER TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
                             + " OWNER TO " + table.getOwnerTo() + ";");
                 }
                 for (PgRelationPrivilege tablePrivilege : table.getPrivileges()) {
-                    writer.println("REVOKE ALL ON TABLE "
+                    changes.add(Change.Kind.REVOKE, key, null, null,
+                            tablePrivilege, "REVOKE ALL ON TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
-                            + " FROM " + tablePrivilege.getRoleName() + ";");
-                    if (!"".equals(tablePrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                            + " FROM " + tablePrivilege.getRoleName() + ";")
+                            .setSeparated(!emptyLinePrinted);
+                    emptyLinePrinted = true;
+                    if (tablePrivilege.hasPrivileges(true)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                tablePrivilege, "GRANT "
                                 + tablePrivilege.getPrivilegesSQL(true)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(table.getName())
                                 + " TO " + tablePrivilege.getRoleName()
-                                + " WITH GRANT OPTION;");
+                                + " WITH GRANT OPTION;").setSeparated(false);
                     }
-                    if (!"".equals(tablePrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                    if (tablePrivilege.hasPrivileges(false)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                tablePrivilege, "GRANT "
                                 + tablePrivilege.getPrivilegesSQL(false)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(table.getName())
-                                + " TO " + tablePrivilege.getRoleName() + ";");
+                                + " TO " + tablePrivilege.getRoleName() + ";")
+                                .setSeparated(false);
                     }
                 }
 
@@ -572,83 +763,74 @@ public class PgDiffTables {
     }
 
     /**
-     * Outputs statements for dropping tables.
+     * Adds changes for dropping tables.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropTables(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropTables(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
 
         for (final PgTable table : oldSchema.getTables()) {
             if (!newSchema.containsTable(table.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(table.getDropSQL());
+                changes.add(Change.Kind.DROP_TABLE, tableKey(oldSchema, table),
+                        null, table, null, table.getDropSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for addition, removal and modifications of table
+     * Adds changes for addition, removal and modifications of table
      * columns.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldTable         original table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param key       key of the table
+     * @param oldTable  original table
+     * @param newTable  new table
      */
-    private static void updateTableColumns(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgTable oldTable,
-            final PgTable newTable, final SearchPathHelper searchPathHelper) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<String> statements = new ArrayList<String>();
+    private static void updateTableColumns(final ChangeSet changes,
+            final PgDiffArguments arguments, final ObjectKey key,
+            final PgTable oldTable, final PgTable newTable) {
+        final String quotedTableName =
+                PgDiffUtils.getQuotedName(newTable.getName());
+        final Change alter = new Change(Change.Kind.ALTER_TABLE, key, null,
+                "ALTER TABLE " + quotedTableName);
         @SuppressWarnings("CollectionWithoutInitialCapacity")
         final List<PgColumn> dropDefaultsColumns = new ArrayList<PgColumn>();
-        addDropTableColumns(statements, oldTable, newTable);
+        addDropTableColumns(alter, oldTable, newTable);
         addCreateTableColumns(
-                statements, arguments, oldTable, newTable, dropDefaultsColumns);
+                alter, arguments, oldTable, newTable, dropDefaultsColumns);
         addModifyTableColumns(
-                statements, arguments, oldTable, newTable, dropDefaultsColumns);
-
-        if (!statements.isEmpty()) {
-            final String quotedTableName =
-                    PgDiffUtils.getQuotedName(newTable.getName());
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.println("ALTER TABLE " + quotedTableName);
-
-            for (int i = 0; i < statements.size(); i++) {
-                writer.print(statements.get(i));
-                writer.println((i + 1) < statements.size() ? "," : ";");
-            }
+                alter, arguments, oldTable, newTable, dropDefaultsColumns);
+
+        if (!alter.getClauses().isEmpty()) {
+            alter.setSearchPath(changes.getSearchPath());
+            alter.setObjects(oldTable, newTable);
+            changes.add(alter);
 
             if (!dropDefaultsColumns.isEmpty()) {
-                writer.println();
-                writer.println("ALTER TABLE " + quotedTableName);
-
-                for (int i = 0; i < dropDefaultsColumns.size(); i++) {
-                    writer.print("\tALTER COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            dropDefaultsColumns.get(i).getName()));
-                    writer.print(" DROP DEFAULT");
-                    writer.println(
-                            (i + 1) < dropDefaultsColumns.size() ? "," : ";");
+                final Change dropDefaults = changes.add(
+                        Change.Kind.ALTER_TABLE, key, null, oldTable,
+                        newTable, "ALTER TABLE " + quotedTableName);
+
+                for (final PgColumn column : dropDefaultsColumns) {
+                    dropDefaults.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            column.getName(), null, column, "ALTER COLUMN "
+                            + PgDiffUtils.getQuotedName(column.getName())
+                            + " DROP DEFAULT");
                 }
             }
         }
     }
 
-    private static void alterPrivilegesColumns(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void alterPrivilegesColumns(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         boolean emptyLinePrinted = false;
         for (PgColumn newColumn : newTable.getColumns()) {
             final PgColumn oldColumn = oldTable.getColumn(newColumn.getName());
@@ -659,16 +841,15 @@ public class PgDiffTables {
                     PgColumnPrivilege newColumnPrivilege = newColumn
                             .getPrivilege(oldColumnPrivilege.getRoleName());
                     if (newColumnPrivilege == null) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        changes.add(Change.Kind.REVOKE, key,
+                                newColumn.getName(), oldColumnPrivilege, null,
+                                "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newTable.getName())
                                 + " FROM " + oldColumnPrivilege.getRoleName()
-                                + ";");
+                                + ";").setSeparated(!emptyLinePrinted);
+                        emptyLinePrinted = true;
                     }
                 }
             }
@@ -681,20 +862,19 @@ public class PgDiffTables {
                                 .getPrivilege(newColumnPrivilege.getRoleName());
                     }
                     if (!newColumnPrivilege.isSimilar(oldColumnPrivilege)) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        changes.add(Change.Kind.REVOKE, key,
+                                newColumn.getName(), oldColumnPrivilege,
+                                newColumnPrivilege, "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newTable.getName())
                                 + " FROM " + newColumnPrivilege.getRoleName()
-                                + ";");
-                        if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
-                                true,
-                                PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
+                                + ";").setSeparated(!emptyLinePrinted);
+                        emptyLinePrinted = true;
+                        if (newColumnPrivilege.hasPrivileges(true)) {
+                            changes.add(Change.Kind.GRANT, key,
+                                    newColumn.getName(), oldColumnPrivilege,
+                                    newColumnPrivilege, "GRANT "
                                     + newColumnPrivilege.getPrivilegesSQL(true,
                                             PgDiffUtils.getQuotedName(newColumn
                                                     .getName()))
@@ -702,12 +882,13 @@ public class PgDiffTables {
                                     + PgDiffUtils.getQuotedName(newTable
                                             .getName()) + " TO "
                                     + newColumnPrivilege.getRoleName()
-                                    + " WITH GRANT OPTION;");
+                                    + " WITH GRANT OPTION;")
+                                    .setSeparated(false);
                         }
-                        if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
-                                false,
-                                PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
+                        if (newColumnPrivilege.hasPrivileges(false)) {
+                            changes.add(Change.Kind.GRANT, key,
+                                    newColumn.getName(), oldColumnPrivilege,
+                                    newColumnPrivilege, "GRANT "
                                     + newColumnPrivilege.getPrivilegesSQL(
                                             false, PgDiffUtils
                                                     .getQuotedName(newColumn
@@ -715,7 +896,8 @@ public class PgDiffTables {
                                     + " ON TABLE "
                                     + PgDiffUtils.getQuotedName(newTable
                                             .getName()) + " TO "
-                                    + newColumnPrivilege.getRoleName() + ";");
+                                    + newColumnPrivilege.getRoleName() + ";")
+                                    .setSeparated(false);
                         }
 
                     }
@@ -727,36 +909,31 @@ public class PgDiffTables {
     }
 
     /**
-     * Outputs statements for tables and columns for which comments have
-     * changed.
+     * Adds changes for tables and columns for which comments have changed.
      *
-     * @param writer           writer
-     * @param oldTable         old table
-     * @param newTable         new table
-     * @param searchPathHelper search path helper
+     * @param changes  change set the changes should be added to
+     * @param key      key of the table
+     * @param oldTable old table
+     * @param newTable new table
      */
-    private static void alterComments(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void alterComments(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         if (oldTable.getComment() == null
                 && newTable.getComment() != null
                 || oldTable.getComment() != null
                 && newTable.getComment() != null
                 && !oldTable.getComment().equals(newTable.getComment())) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("COMMENT ON TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" IS ");
-            writer.print(newTable.getComment());
-            writer.println(';');
+            changes.add(Change.Kind.COMMENT, key, null, oldTable, newTable,
+                    "COMMENT ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName()) + " IS "
+                    + newTable.getComment() + ';');
         } else if (oldTable.getComment() != null
                 && newTable.getComment() == null) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("COMMENT ON TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" IS NULL;");
+            changes.add(Change.Kind.COMMENT, key, null, oldTable, newTable,
+                    "COMMENT ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " IS NULL;");
         }
 
         for (final PgColumn newColumn : newTable.getColumns()) {
@@ -767,105 +944,103 @@ public class PgDiffTables {
 
             if (newComment != null && (oldComment == null ? newComment != null
                     : !oldComment.equals(newComment))) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print('.');
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-                writer.print(" IS ");
-                writer.print(newColumn.getComment());
-                writer.println(';');
+                changes.add(Change.Kind.COMMENT, key, newColumn.getName(),
+                        oldColumn, newColumn, "COMMENT ON COLUMN "
+                        + PgDiffUtils.getQuotedName(newTable.getName()) + '.'
+                        + PgDiffUtils.getQuotedName(newColumn.getName())
+                        + " IS " + newColumn.getComment() + ';');
             } else if (oldComment != null && newComment == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print('.');
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-                writer.println(" IS NULL;");
+                changes.add(Change.Kind.COMMENT, key, newColumn.getName(),
+                        oldColumn, newColumn, "COMMENT ON COLUMN "
+                        + PgDiffUtils.getQuotedName(newTable.getName()) + '.'
+                        + PgDiffUtils.getQuotedName(newColumn.getName())
+                        + " IS NULL;");
             }
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    private static void alterPrivileges(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         boolean emptyLinePrinted = false;
         for (PgRelationPrivilege oldTablePrivilege : oldTable.getPrivileges()) {
             PgRelationPrivilege newTablePrivilege = newTable
                     .getPrivilege(oldTablePrivilege.getRoleName());
             if (newTablePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    emptyLinePrinted = true;
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, oldTablePrivilege,
+                        null, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(oldTable.getName())
-                        + " FROM " + oldTablePrivilege.getRoleName() + ";");
+                        + " FROM " + oldTablePrivilege.getRoleName() + ";")
+                        .setSeparated(!emptyLinePrinted);
+                emptyLinePrinted = true;
             } else if (!oldTablePrivilege.isSimilar(newTablePrivilege)) {
-                if (!emptyLinePrinted) {
-                    emptyLinePrinted = true;
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, oldTablePrivilege,
+                        newTablePrivilege, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newTable.getName())
-                        + " FROM " + newTablePrivilege.getRoleName() + ";");
-                if (!"".equals(newTablePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newTablePrivilege.getPrivilegesSQL(true)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newTable.getName())
-                            + " TO " + newTablePrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newTablePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newTablePrivilege.getPrivilegesSQL(false)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newTable.getName())
-                            + " TO " + newTablePrivilege.getRoleName() + ";");
-                }
+                        + " FROM " + newTablePrivilege.getRoleName() + ";")
+                        .setSeparated(!emptyLinePrinted);
+                emptyLinePrinted = true;
+                addGrants(changes, key, oldTablePrivilege, newTablePrivilege,
+                        newTable);
             } // else similar privilege will not be updated
         }
         for (PgRelationPrivilege newTablePrivilege : newTable.getPrivileges()) {
             PgRelationPrivilege oldTablePrivilege = oldTable
                     .getPrivilege(newTablePrivilege.getRoleName());
             if (oldTablePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, null,
+                        newTablePrivilege, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newTable.getName())
-                        + " FROM " + newTablePrivilege.getRoleName() + ";");
-                if (!"".equals(newTablePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newTablePrivilege.getPrivilegesSQL(true)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newTable.getName())
-                            + " TO " + newTablePrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newTablePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newTablePrivilege.getPrivilegesSQL(false)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newTable.getName())
-                            + " TO " + newTablePrivilege.getRoleName() + ";");
-                }
+                        + " FROM " + newTablePrivilege.getRoleName() + ";")
+                        .setSeparated(!emptyLinePrinted);
+                addGrants(changes, key, null, newTablePrivilege, newTable);
             }
         }
     }
 
-    private static void alterOwnerTo(final PrintWriter writer,
-            final PgTable oldTable, final PgTable newTable,
-            final SearchPathHelper searchPathHelper) {
+    /**
+     * Adds GRANT statements of the privilege that follow REVOKE statement
+     * without empty line.
+     *
+     * @param changes           change set the changes should be added to
+     * @param key               key of the table
+     * @param oldTablePrivilege original privilege or null
+     * @param newTablePrivilege new privilege
+     * @param newTable          new table
+     */
+    private static void addGrants(final ChangeSet changes,
+            final ObjectKey key, final PgRelationPrivilege oldTablePrivilege,
+            final PgRelationPrivilege newTablePrivilege,
+            final PgTable newTable) {
+        if (newTablePrivilege.hasPrivileges(true)) {
+            changes.add(Change.Kind.GRANT, key, null, oldTablePrivilege,
+                    newTablePrivilege, "GRANT "
+                    + newTablePrivilege.getPrivilegesSQL(true)
+                    + " ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " TO " + newTablePrivilege.getRoleName()
+                    + " WITH GRANT OPTION;").setSeparated(false);
+        }
+        if (newTablePrivilege.hasPrivileges(false)) {
+            changes.add(Change.Kind.GRANT, key, null, oldTablePrivilege,
+                    newTablePrivilege, "GRANT "
+                    + newTablePrivilege.getPrivilegesSQL(false)
+                    + " ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " TO " + newTablePrivilege.getRoleName() + ";")
+                    .setSeparated(false);
+        }
+    }
+
+    private static void alterOwnerTo(final ChangeSet changes,
+            final ObjectKey key, final PgTable oldTable,
+            final PgTable newTable) {
         final String oldOwnerTo = oldTable.getOwnerTo();
         final String newOwnerTo = newTable.getOwnerTo();
 
         if (newOwnerTo != null && !newOwnerTo.equals(oldOwnerTo)) {
-            writer.println();
-            writer.println("ALTER TABLE "
+            changes.add(Change.Kind.ALTER_OWNER, key, null, oldTable,
+                    newTable, "ALTER TABLE "
                     + PgDiffUtils.getQuotedName(newTable.getName())
                     + " OWNER TO " + newTable.getOwnerTo() + ";");
         }
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import cz.startnet.utils.pgdiff.schema.PgSchema;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diffs template schema of the new dump against each tenant schema of the
+ * original dump. Tenant schemas are schemas of the original dump that do not
+ * exist in the new dump. The template is diffed under the name of the
+ * tenant, so the migration of each tenant sets its own search path and keys
+ * of the changes use name of the tenant. Both dumps are loaded and frozen
+ * once. References qualified with name of the template, such as sequences in
+ * column defaults, tables in foreign keys or objects in view queries, are
+ * renamed to the tenant in the copy of the template, see
+ * {@link PgSchema#withName(String)}. Objects without such references are
+ * shared by all copies with their cached fingerprints. Tenants are diffed in
+ * parallel.
+ *
+ * @author fordfrog
+ */
+public class PgDiffTemplate {
+
+    /**
+     * Writes migration script of each tenant schema that differs from the
+     * template. Scripts are written in the order of tenant schemas in the
+     * original dump, tenant schemas that do not differ are skipped.
+     *
+     * @param writer    writer the scripts should be written to
+     * @param arguments object containing arguments settings
+     */
+    public static void diffTemplate(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        final PgDatabase oldDatabase = PgDumpLoader.loadDatabaseSchema(
+                arguments.getOldDumpFile(), arguments.getInCharsetName(),
+                false, arguments.isIgnoreSlonyTriggers());
+        final PgDatabase newDatabase = PgDumpLoader.loadDatabaseSchema(
+                arguments.getNewDumpFile(), arguments.getInCharsetName(),
+                false, arguments.isIgnoreSlonyTriggers());
+        final PgSchema template =
+                newDatabase.getSchema(arguments.getTemplateSchema());
+
+        if (template == null) {
+            throw new RuntimeException(MessageFormat.format(
+                    Resources.getString("CannotFindTemplateSchema"),
+                    arguments.getTemplateSchema()));
+        }
+
+        oldDatabase.freeze();
+        newDatabase.freeze();
+
+        final List<PgSchema> tenants =
+                new ArrayList<PgSchema>(oldDatabase.getSchemas().size());
+
+        for (final PgSchema schema : oldDatabase.getSchemas()) {
+            if (newDatabase.getSchema(schema.getName()) == null) {
+                tenants.add(schema);
+            }
+        }
+
+        final ParallelOutput parallel =
+                new ParallelOutput(arguments.getThreads());
+
+        try {
+            parallel.computeAll(tenants,
+                    new ParallelOutput.Computation<PgSchema, String>() {
+                        @Override
+                        public String compute(final PgSchema tenant) {
+                            return diffTenant(
+                                    arguments, tenant, template, parallel);
+                        }
+                    }, new ParallelOutput.Receiver<String>() {
+                        @Override
+                        public void receive(final String script) {
+                            writer.print(script);
+                        }
+                    });
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Diffs the tenant schema against the template.
+     *
+     * @param arguments object containing arguments settings
+     * @param tenant    frozen tenant schema
+     * @param template  frozen template schema
+     * @param parallel  parallel output
+     *
+     * @return migration script of the tenant, empty if the tenant schema
+     *         does not differ from the template
+     */
+    private static String diffTenant(final PgDiffArguments arguments,
+            final PgSchema tenant, final PgSchema template,
+            final ParallelOutput parallel) {
+        final ChangeSet changes = new ChangeSet(null);
+        PgDiff.diffDatabases(arguments,
+                createDatabase(tenant.withName(tenant.getName())),
+                createDatabase(template.withName(tenant.getName())),
+                changes, parallel);
+
+        if (changes.getChanges().isEmpty()) {
+            return "";
+        }
+
+        final StringWriter script = new StringWriter();
+        final PrintWriter scriptWriter = new PrintWriter(script);
+        SqlRenderer.render(
+                scriptWriter, changes, arguments.isAddTransaction());
+        scriptWriter.flush();
+
+        return script.toString();
+    }
+
+    /**
+     * Creates database that contains the schema besides the empty public
+     * schema.
+     *
+     * @param schema schema
+     *
+     * @return frozen database
+     */
+    private static PgDatabase createDatabase(final PgSchema schema) {
+        final PgDatabase database = new PgDatabase();
+        database.addSchema(schema);
+        database.freeze();
+
+        return database;
+    }
+
+    /**
+     * Creates a new instance of PgDiffTemplate.
+     */
+    private PgDiffTemplate() {
+    }
+}
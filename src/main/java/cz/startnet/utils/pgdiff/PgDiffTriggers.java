@@ -5,12 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgRelation;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTrigger;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Diffs triggers.
@@ -20,16 +18,25 @@ import java.util.List;
 public class PgDiffTriggers {
 
     /**
-     * Outputs statements for creation of new triggers.
+     * Extracts name of trigger as join key.
+     */
+    private static final KeyedJoin.KeyExtractor<PgTrigger> TRIGGER_NAME =
+            new KeyedJoin.KeyExtractor<PgTrigger>() {
+                @Override
+                public String getKey(final PgTrigger trigger) {
+                    return trigger.getName();
+                }
+            };
+
+    /**
+     * Adds changes for creation of new triggers.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createTriggers(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createTriggers(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgRelation newRelation : newSchema.getRels()) {
             final PgRelation oldRelation;
 
@@ -40,25 +47,27 @@ public class PgDiffTriggers {
             }
 
             // Add new triggers
-            for (final PgTrigger trigger : getNewTriggers(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(trigger.getCreationSQL());
+            for (final PgTrigger trigger
+                    : joinTriggers(oldRelation, newRelation).getCreated()) {
+                changes.add(Change.Kind.CREATE_TRIGGER, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newRelation.getName()), trigger.getName(),
+                        oldRelation == null
+                        ? null : oldRelation.getTrigger(trigger.getName()),
+                        trigger, trigger.getCreationSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for dropping triggers.
+     * Adds changes for dropping triggers.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropTriggers(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropTriggers(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgRelation newRelation : newSchema.getRels()) {
             final PgRelation oldRelation;
 
@@ -69,130 +78,30 @@ public class PgDiffTriggers {
             }
 
             // Drop triggers that no more exist or are modified
-            for (final PgTrigger trigger :
-                    getDropTriggers(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(trigger.getDropSQL());
-            }
-        }
-    }
-
-    /**
-     * Returns list of triggers that should be dropped.
-     *
-     * @param oldRelation original relation
-     * @param newRelation new relation
-     *
-     * @return list of triggers that should be dropped
-     */
-    private static List<PgTrigger> getDropTriggers(final PgRelation oldRelation,
-            final PgRelation newRelation) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgTrigger> list = new ArrayList<PgTrigger>();
-
-        if (newRelation != null && oldRelation != null) {
-            final List<PgTrigger> newTriggers = newRelation.getTriggers();
-
-            for (final PgTrigger oldTrigger : oldRelation.getTriggers()) {
-                if (!newTriggers.contains(oldTrigger)) {
-                    list.add(oldTrigger);
-                }
+            for (final PgTrigger trigger
+                    : joinTriggers(oldRelation, newRelation).getDropped()) {
+                changes.add(Change.Kind.DROP_TRIGGER, new ObjectKey(
+                        ObjectKey.Kind.RELATION, newSchema.getName(),
+                        newRelation.getName()), trigger.getName(), trigger,
+                        newRelation.getTrigger(trigger.getName()),
+                        trigger.getDropSQL());
             }
         }
-
-        return list;
     }
 
     /**
-     * Returns list of triggers that should be added.
+     * Joins triggers of original and new relation by their names.
      *
-     * @param oldRelation original relation
+     * @param oldRelation original relation or null
      * @param newRelation new relation
      *
-     * @return list of triggers that should be added
+     * @return result of the join
      */
-    private static List<PgTrigger> getNewTriggers(final PgRelation oldRelation,
-            final PgRelation newRelation) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgTrigger> list = new ArrayList<PgTrigger>();
-
-        if (newRelation != null) {
-            if (oldRelation == null) {
-                list.addAll(newRelation.getTriggers());
-            } else {
-                for (final PgTrigger newTrigger : newRelation.getTriggers()) {
-                    if (!oldRelation.getTriggers().contains(newTrigger)) {
-                        list.add(newTrigger);
-                    }
-                }
-            }
-        }
-
-        return list;
-    }
-
-    /**
-     * Outputs statements for trigger comments that have changed.
-     *
-     * @param writer           writer
-     * @param oldSchema        old schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
-     */
-    public static void alterComments(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
-        if (oldSchema == null) {
-            return;
-        }
-
-        for (PgRelation oldRelation : oldSchema.getRels()) {
-            final PgRelation newRelation = newSchema.getRelation(oldRelation.getName());
-
-            if (newRelation == null) {
-                continue;
-            }
-
-            for (final PgTrigger oldTrigger : oldRelation.getTriggers()) {
-                final PgTrigger newTrigger =
-                        newRelation.getTrigger(oldTrigger.getName());
-
-                if (newTrigger == null) {
-                    continue;
-                }
-
-                if (oldTrigger.getComment() == null
-                        && newTrigger.getComment() != null
-                        || oldTrigger.getComment() != null
-                        && newTrigger.getComment() != null
-                        && !oldTrigger.getComment().equals(
-                        newTrigger.getComment())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON TRIGGER ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newTrigger.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newTrigger.getRelationName()));
-                    writer.print(" IS ");
-                    writer.print(newTrigger.getComment());
-                    writer.println(';');
-                } else if (oldTrigger.getComment() != null
-                        && newTrigger.getComment() == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON TRIGGER ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newTrigger.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newTrigger.getRelationName()));
-                    writer.println(" IS NULL;");
-                }
-            }
-        }
+    private static KeyedJoin<PgTrigger> joinTriggers(
+            final PgRelation oldRelation, final PgRelation newRelation) {
+        return KeyedJoin.join(
+                oldRelation == null ? null : oldRelation.getTriggers(),
+                newRelation.getTriggers(), TRIGGER_NAME);
     }
 
     /**
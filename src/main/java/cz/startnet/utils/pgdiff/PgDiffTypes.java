@@ -5,16 +5,14 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgColumn;
 import cz.startnet.utils.pgdiff.schema.PgColumnUtils;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgType;
-import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Diffs types.
@@ -24,17 +22,16 @@ import java.util.Map;
 public class PgDiffTypes {
 
     /**
-     * Outputs statements for altering types.
+     * Adds changes for altering types.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void alterTypes(final PrintWriter writer,
+    public static void alterTypes(final ChangeSet changes,
             final PgDiffArguments arguments, final PgSchema oldSchema,
-            final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
+            final PgSchema newSchema) {
         for (final PgType newType : newSchema.getTypes()) {
             if (oldSchema == null
                     || !oldSchema.containsType(newType.getName())) {
@@ -42,29 +39,31 @@ public class PgDiffTypes {
             }
 
             final PgType oldType = oldSchema.getType(newType.getName());
-            updateTypeColumns(
-                    writer, arguments, oldType, newType, searchPathHelper);
+            updateTypeColumns(changes, arguments, new ObjectKey(
+                    ObjectKey.Kind.TYPE, newSchema.getName(),
+                    newType.getName()), oldType, newType);
 
         }
     }
 
 
     /**
-     * Adds statements for creation of new columns to the list of statements.
+     * Adds clauses for creation of new columns to the statement.
      *
-     * @param statements          list of statements
+     * @param alter               statement altering the type
      * @param arguments           object containing arguments settings
      * @param oldType            original type
      * @param newType            new type
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addCreateTypeColumns(final List<String> statements,
+    private static void addCreateTypeColumns(final Change alter,
             final PgDiffArguments arguments, final PgType oldType,
             final PgType newType, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn column : newType.getColumns()) {
             if (!oldType.containsColumn(column.getName())) {
-                statements.add("\tADD ATTRIBUTE "
+                alter.addClause(Change.Kind.ADD_COLUMN, column.getName(),
+                        null, column, "ADD ATTRIBUTE "
                         + column.getFullDefinition(arguments.isAddDefaults()));
 
                 if (arguments.isAddDefaults() && !column.getNullValue()
@@ -77,33 +76,34 @@ public class PgDiffTypes {
     }
 
     /**
-     * Adds statements for removal of columns to the list of statements.
+     * Adds clauses for removal of columns to the statement.
      *
-     * @param statements list of statements
+     * @param alter      statement altering the type
      * @param oldType   original type
      * @param newType   new type
      */
-    private static void addDropTypeColumns(final List<String> statements,
+    private static void addDropTypeColumns(final Change alter,
             final PgType oldType, final PgType newType) {
         for (final PgColumn column : oldType.getColumns()) {
             if (!newType.containsColumn(column.getName())) {
-                statements.add("\tDROP ATTRIBUTE "
+                alter.addClause(Change.Kind.DROP_COLUMN, column.getName(),
+                        column, null, "DROP ATTRIBUTE "
                         + PgDiffUtils.getQuotedName(column.getName()));
             }
         }
     }
 
     /**
-     * Adds statements for modification of columns to the list of statements.
+     * Adds clauses for modification of columns to the statement.
      *
-     * @param statements          list of statements
+     * @param alter               statement altering the type
      * @param arguments           object containing arguments settings
      * @param oldType            original type
      * @param newType            new type
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addModifyTypeColumns(final List<String> statements,
+    private static void addModifyTypeColumns(final Change alter,
             final PgDiffArguments arguments, final PgType oldType,
             final PgType newType, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn newColumn : newType.getColumns()) {
@@ -115,13 +115,18 @@ public class PgDiffTypes {
             final String newColumnName =
                     PgDiffUtils.getQuotedName(newColumn.getName());
 
-            if (!oldColumn.getType().equals(newColumn.getType())) {
-                statements.add("\tALTER ATTRIBUTE " + newColumnName + " TYPE "
-                        + newColumn.getType() + " /* "
+            final String oldColumnType = oldColumn.getTypeWithCollation();
+            final String newColumnType = newColumn.getTypeWithCollation();
+
+            if (!oldColumn.hasSameType(newColumn)) {
+                alter.addClause(Change.Kind.ALTER_COLUMN_TYPE,
+                        newColumn.getName(), oldColumn, newColumn,
+                        "ALTER ATTRIBUTE " + newColumnName + " TYPE "
+                        + newColumnType + " /* "
                         + MessageFormat.format(
                         Resources.getString("TypeParameterChange"),
-                        newType.getName(), oldColumn.getType(),
-                        newColumn.getType()) + " */");
+                        newType.getName(), oldColumnType, newColumnType)
+                        + " */");
             }
 
             final String oldDefault = (oldColumn.getDefaultValue() == null) ? ""
@@ -131,17 +136,23 @@ public class PgDiffTypes {
 
             if (!oldDefault.equals(newDefault)) {
                 if (newDefault.length() == 0) {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER ATTRIBUTE " + newColumnName
                             + " DROP DEFAULT");
                 } else {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER ATTRIBUTE " + newColumnName
                             + " SET DEFAULT " + newDefault);
                 }
             }
 
             if (oldColumn.getNullValue() != newColumn.getNullValue()) {
                 if (newColumn.getNullValue()) {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    alter.addClause(Change.Kind.ALTER_COLUMN_NULL,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER ATTRIBUTE " + newColumnName
                             + " DROP NOT NULL");
                 } else {
                     if (arguments.isAddDefaults()) {
@@ -150,13 +161,17 @@ public class PgDiffTypes {
                                 newColumn.getType());
 
                         if (defaultValue != null) {
-                            statements.add("\tALTER ATTRIBUTE " + newColumnName
+                            alter.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                                    newColumn.getName(), oldColumn, newColumn,
+                                    "ALTER ATTRIBUTE " + newColumnName
                                     + " SET DEFAULT " + defaultValue);
                             dropDefaultsColumns.add(newColumn);
                         }
                     }
 
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    alter.addClause(Change.Kind.ALTER_COLUMN_NULL,
+                            newColumn.getName(), oldColumn, newColumn,
+                            "ALTER ATTRIBUTE " + newColumnName
                             + " SET NOT NULL");
                 }
             }
@@ -164,96 +179,88 @@ public class PgDiffTypes {
     }
 
     /**
-     * Outputs statements for creation of new types.
+     * Adds changes for creation of new types.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createTypes(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createTypes(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgType type : newSchema.getTypes()) {
             if (oldSchema == null
                     || !oldSchema.containsType(type.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(type.getCreationSQL());
+                changes.add(Change.Kind.CREATE_TYPE, new ObjectKey(
+                        ObjectKey.Kind.TYPE, newSchema.getName(),
+                        type.getName()), null, null, type,
+                        type.getCreationSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for dropping types.
+     * Adds changes for dropping types.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropTypes(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropTypes(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
 
         for (final PgType type : oldSchema.getTypes()) {
             if (!newSchema.containsType(type.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(type.getDropSQL());
+                changes.add(Change.Kind.DROP_TYPE, new ObjectKey(
+                        ObjectKey.Kind.TYPE, oldSchema.getName(),
+                        type.getName()), null, type, null,
+                        type.getDropSQL());
             }
         }
     }
 
     /**
-     * Outputs statements for addition, removal and modifications of type
+     * Adds changes for addition, removal and modifications of type
      * columns.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
-     * @param oldType         original type
-     * @param newType         new type
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param arguments object containing arguments settings
+     * @param key       key of the type
+     * @param oldType   original type
+     * @param newType   new type
      */
-    private static void updateTypeColumns(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgType oldType,
-            final PgType newType, final SearchPathHelper searchPathHelper) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<String> statements = new ArrayList<String>();
+    private static void updateTypeColumns(final ChangeSet changes,
+            final PgDiffArguments arguments, final ObjectKey key,
+            final PgType oldType, final PgType newType) {
+        final String quotedTypeName =
+                PgDiffUtils.getQuotedName(newType.getName());
+        final Change alter = new Change(Change.Kind.ALTER_TABLE, key, null,
+                "ALTER TYPE " + quotedTypeName);
         @SuppressWarnings("CollectionWithoutInitialCapacity")
         final List<PgColumn> dropDefaultsColumns = new ArrayList<PgColumn>();
-        addDropTypeColumns(statements, oldType, newType);
+        addDropTypeColumns(alter, oldType, newType);
         addCreateTypeColumns(
-                statements, arguments, oldType, newType, dropDefaultsColumns);
+                alter, arguments, oldType, newType, dropDefaultsColumns);
         addModifyTypeColumns(
-                statements, arguments, oldType, newType, dropDefaultsColumns);
-
-        if (!statements.isEmpty()) {
-            final String quotedTypeName =
-                    PgDiffUtils.getQuotedName(newType.getName());
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.println("ALTER TYPE " + quotedTypeName);
+                alter, arguments, oldType, newType, dropDefaultsColumns);
 
-            for (int i = 0; i < statements.size(); i++) {
-                writer.print(statements.get(i));
-                writer.println((i + 1) < statements.size() ? "," : ";");
-            }
+        if (!alter.getClauses().isEmpty()) {
+            alter.setSearchPath(changes.getSearchPath());
+            alter.setObjects(oldType, newType);
+            changes.add(alter);
 
             if (!dropDefaultsColumns.isEmpty()) {
-                writer.println();
-                writer.println("ALTER TYPE " + quotedTypeName);
+                final Change dropDefaults = changes.add(
+                        Change.Kind.ALTER_TABLE, key, null, oldType,
+                        newType, "ALTER TYPE " + quotedTypeName);
 
-                for (int i = 0; i < dropDefaultsColumns.size(); i++) {
-                    writer.print("\tALTER ATTRIBUTE ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            dropDefaultsColumns.get(i).getName()));
-                    writer.print(" DROP DEFAULT");
-                    writer.println(
-                            (i + 1) < dropDefaultsColumns.size() ? "," : ";");
+                for (final PgColumn column : dropDefaultsColumns) {
+                    dropDefaults.addClause(Change.Kind.ALTER_COLUMN_DEFAULT,
+                            column.getName(), null, column, "ALTER ATTRIBUTE "
+                            + PgDiffUtils.getQuotedName(column.getName())
+                            + " DROP DEFAULT");
                 }
             }
         }
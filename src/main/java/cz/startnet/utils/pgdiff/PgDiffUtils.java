@@ -5,6 +5,8 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Locale;
 
 /**
@@ -529,6 +531,25 @@ public class PgDiffUtils {
         return getQuotedName(name, false);
     }
 
+    /**
+     * Returns canonical form of the file path, so that paths to the same
+     * file can be compared. If the canonical path cannot be resolved,
+     * absolute path is returned.
+     *
+     * @param path path to the file
+     *
+     * @return canonical file
+     */
+    public static File getCanonicalFile(final String path) {
+        final File file = new File(path);
+
+        try {
+            return file.getCanonicalFile();
+        } catch (final IOException ex) {
+            return file.getAbsoluteFile();
+        }
+    }
+
     /**
      * Creates a new PgDiffUtils object.
      */
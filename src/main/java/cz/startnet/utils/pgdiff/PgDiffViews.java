@@ -5,11 +5,11 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
 import cz.startnet.utils.pgdiff.schema.PgColumn;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgView;
 import cz.startnet.utils.pgdiff.schema.PgRelationPrivilege;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,43 +21,48 @@ import java.util.List;
 public class PgDiffViews {
 
     /**
-     * Outputs statements for creation of views.
+     * Adds changes for creation of views.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void createViews(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void createViews(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         for (final PgView newView : newSchema.getViews()) {
             if (oldSchema == null
                     || !oldSchema.containsView(newView.getName())
                     || isViewModified(
                     oldSchema.getView(newView.getName()), newView)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(newView.getCreationSQL());
+                final ObjectKey key = viewKey(newSchema, newView);
+                changes.add(Change.Kind.CREATE_VIEW, key, null,
+                        oldSchema == null
+                        ? null : oldSchema.getView(newView.getName()),
+                        newView, newView.getCreationSQL());
 
                 for (PgRelationPrivilege viewPrivilege : newView.getPrivileges()) {
-                    writer.println("REVOKE ALL ON TABLE "
+                    changes.add(Change.Kind.REVOKE, key, null, null,
+                            viewPrivilege, "REVOKE ALL ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
-                            + " FROM " + viewPrivilege.getRoleName() + ";");
-                    if (!"".equals(viewPrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                            + " FROM " + viewPrivilege.getRoleName() + ";")
+                            .setSeparated(false);
+                    if (viewPrivilege.hasPrivileges(true)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                viewPrivilege, "GRANT "
                                 + viewPrivilege.getPrivilegesSQL(true)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
                                 + " TO " + viewPrivilege.getRoleName()
-                                + " WITH GRANT OPTION;");
+                                + " WITH GRANT OPTION;").setSeparated(false);
                     }
-                    if (!"".equals(viewPrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                    if (viewPrivilege.hasPrivileges(false)) {
+                        changes.add(Change.Kind.GRANT, key, null, null,
+                                viewPrivilege, "GRANT "
                                 + viewPrivilege.getPrivilegesSQL(false)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
-                                + " TO " + viewPrivilege.getRoleName() + ";");
+                                + " TO " + viewPrivilege.getRoleName() + ";")
+                                .setSeparated(false);
                     }
                 }
 
@@ -66,16 +71,14 @@ public class PgDiffViews {
     }
 
     /**
-     * Outputs statements for dropping views.
+     * Adds changes for dropping views.
      *
-     * @param writer           writer the output should be written to
-     * @param oldSchema        original schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema original schema
+     * @param newSchema new schema
      */
-    public static void dropViews(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void dropViews(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
@@ -84,13 +87,27 @@ public class PgDiffViews {
             final PgView newView = newSchema.getView(oldView.getName());
 
             if (newView == null || isViewModified(oldView, newView)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(oldView.getDropSQL());
+                changes.add(Change.Kind.DROP_VIEW,
+                        viewKey(oldSchema, oldView), null, oldView, newView,
+                        oldView.getDropSQL());
             }
         }
     }
 
+    /**
+     * Returns key of the view.
+     *
+     * @param schema schema of the view
+     * @param view   view
+     *
+     * @return key of the view
+     */
+    private static ObjectKey viewKey(final PgSchema schema,
+            final PgView view) {
+        return new ObjectKey(
+                ObjectKey.Kind.RELATION, schema.getName(), view.getName());
+    }
+
     /**
      * Returns true if either column names or query of the view has been
      * modified.
@@ -122,16 +139,14 @@ public class PgDiffViews {
     }
 
     /**
-     * Outputs statements for altering view default values.
+     * Adds changes for altering view default values.
      *
-     * @param writer           writer
-     * @param oldSchema        old schema
-     * @param newSchema        new schema
-     * @param searchPathHelper search path helper
+     * @param changes   change set the changes should be added to
+     * @param oldSchema old schema
+     * @param newSchema new schema
      */
-    public static void alterViews(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
-            final SearchPathHelper searchPathHelper) {
+    public static void alterViews(final ChangeSet changes,
+            final PgSchema oldSchema, final PgSchema newSchema) {
         if (oldSchema == null) {
             return;
         }
@@ -143,7 +158,8 @@ public class PgDiffViews {
                 continue;
             }
 
-            diffDefaultValues(writer, oldView, newView, searchPathHelper);
+            final ObjectKey key = viewKey(newSchema, newView);
+            diffDefaultValues(changes, key, oldView, newView);
 
             if (oldView.getComment() == null
                     && newView.getComment() != null
@@ -151,21 +167,16 @@ public class PgDiffViews {
                     && newView.getComment() != null
                     && !oldView.getComment().equals(
                     newView.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON VIEW ");
-                writer.print(
-                        PgDiffUtils.getQuotedName(newView.getName()));
-                writer.print(" IS ");
-                writer.print(newView.getComment());
-                writer.println(';');
+                changes.add(Change.Kind.COMMENT, key, null, oldView, newView,
+                        "COMMENT ON VIEW "
+                        + PgDiffUtils.getQuotedName(newView.getName())
+                        + " IS " + newView.getComment() + ';');
             } else if (oldView.getComment() != null
                     && newView.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON VIEW ");
-                writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                writer.println(" IS NULL;");
+                changes.add(Change.Kind.COMMENT, key, null, oldView, newView,
+                        "COMMENT ON VIEW "
+                        + PgDiffUtils.getQuotedName(newView.getName())
+                        + " IS NULL;");
             }
 
             final List<String> columnNames =
@@ -195,42 +206,35 @@ public class PgDiffViews {
                 if (oldComment == null && newComment != null
                         || oldComment != null && newComment != null
                         && !oldComment.equals(newComment)) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print('.');
-                    writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-                    writer.print(" IS ");
-                    writer.print(newCol.getComment());
-                    writer.println(';');
+                    changes.add(Change.Kind.COMMENT, key, columnName, oldCol,
+                            newCol, "COMMENT ON COLUMN "
+                            + PgDiffUtils.getQuotedName(newView.getName())
+                            + '.' + PgDiffUtils.getQuotedName(newCol.getName())
+                            + " IS " + newCol.getComment() + ';');
                 } else if (oldComment != null
                         && newComment == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print('.');
-                    writer.print(PgDiffUtils.getQuotedName(oldCol.getName()));
-                    writer.println(" IS NULL;");
+                    changes.add(Change.Kind.COMMENT, key, columnName, oldCol,
+                            newCol, "COMMENT ON COLUMN "
+                            + PgDiffUtils.getQuotedName(newView.getName())
+                            + '.' + PgDiffUtils.getQuotedName(oldCol.getName())
+                            + " IS NULL;");
                 }
             }
 
-            alterPrivileges(writer, oldView, newView, searchPathHelper);
+            alterPrivileges(changes, key, oldView, newView);
         }
     }
 
     /**
      * Diffs default values in views.
      *
-     * @param writer           writer
-     * @param oldView          old view
-     * @param newView          new view
-     * @param searchPathHelper search path helper
+     * @param changes change set the changes should be added to
+     * @param key     key of the view
+     * @param oldView old view
+     * @param newView new view
      */
-    private static void diffDefaultValues(final PrintWriter writer,
-            final PgView oldView, final PgView newView,
-            final SearchPathHelper searchPathHelper) {
+    private static void diffDefaultValues(final ChangeSet changes,
+            final ObjectKey key, final PgView oldView, final PgView newView) {
 
         // modify defaults that are in old view
         for (final PgColumn oldCol : oldView.getColumns()) {
@@ -242,25 +246,20 @@ public class PgDiffViews {
             if (newCol != null && newCol.getDefaultValue() != null) {
                 if (!oldCol.getDefaultValue().equals(
                         newCol.getDefaultValue())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("ALTER TABLE ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print(" ALTER COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-                    writer.print(" SET DEFAULT ");
-                    writer.print(newCol.getDefaultValue());
-                    writer.println(';');
+                    changes.add(Change.Kind.ALTER_COLUMN_DEFAULT, key,
+                            newCol.getName(), oldCol, newCol, "ALTER TABLE "
+                            + PgDiffUtils.getQuotedName(newView.getName())
+                            + " ALTER COLUMN "
+                            + PgDiffUtils.getQuotedName(newCol.getName())
+                            + " SET DEFAULT " + newCol.getDefaultValue() + ';');
                 }
             } else {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                writer.print(" ALTER COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(oldCol.getName()));
-                writer.println(" DROP DEFAULT;");
+                changes.add(Change.Kind.ALTER_COLUMN_DEFAULT, key,
+                        oldCol.getName(), oldCol, newCol, "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newView.getName())
+                        + " ALTER COLUMN "
+                        + PgDiffUtils.getQuotedName(oldCol.getName())
+                        + " DROP DEFAULT;");
             }
         }
 
@@ -273,85 +272,80 @@ public class PgDiffViews {
                 continue;
             }
 
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-            writer.print(" SET DEFAULT ");
-            writer.print(newCol.getDefaultValue());
-            writer.println(';');
+            changes.add(Change.Kind.ALTER_COLUMN_DEFAULT, key,
+                    newCol.getName(), oldCol, newCol, "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newView.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(newCol.getName())
+                    + " SET DEFAULT " + newCol.getDefaultValue() + ';');
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
-            final PgView oldView, final PgView newView,
-            final SearchPathHelper searchPathHelper) {
-        boolean emptyLinePrinted = false;
+    private static void alterPrivileges(final ChangeSet changes,
+            final ObjectKey key, final PgView oldView, final PgView newView) {
         for (PgRelationPrivilege oldViewPrivilege : oldView.getPrivileges()) {
             PgRelationPrivilege newViewPrivilege = newView
                     .getPrivilege(oldViewPrivilege.getRoleName());
             if (newViewPrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, oldViewPrivilege,
+                        null, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(oldView.getName())
                         + " FROM " + oldViewPrivilege.getRoleName() + ";");
             } else if (!oldViewPrivilege.isSimilar(newViewPrivilege)) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, oldViewPrivilege,
+                        newViewPrivilege, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newView.getName())
                         + " FROM " + newViewPrivilege.getRoleName() + ";");
-                if (!"".equals(newViewPrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newViewPrivilege.getPrivilegesSQL(true)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newView.getName())
-                            + " TO " + newViewPrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newViewPrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newViewPrivilege.getPrivilegesSQL(false)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newView.getName())
-                            + " TO " + newViewPrivilege.getRoleName() + ";");
-                }
+                addGrants(changes, key, oldViewPrivilege, newViewPrivilege,
+                        newView);
             } // else similar privilege will not be updated
         }
         for (PgRelationPrivilege newViewPrivilege : newView.getPrivileges()) {
             PgRelationPrivilege oldViewPrivilege = oldView
                     .getPrivilege(newViewPrivilege.getRoleName());
             if (oldViewPrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                changes.add(Change.Kind.REVOKE, key, null, null,
+                        newViewPrivilege, "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newView.getName())
                         + " FROM " + newViewPrivilege.getRoleName() + ";");
-                if (!"".equals(newViewPrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
-                            + newViewPrivilege.getPrivilegesSQL(true)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newView.getName())
-                            + " TO " + newViewPrivilege.getRoleName()
-                            + " WITH GRANT OPTION;");
-                }
-                if (!"".equals(newViewPrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
-                            + newViewPrivilege.getPrivilegesSQL(false)
-                            + " ON TABLE "
-                            + PgDiffUtils.getQuotedName(newView.getName())
-                            + " TO " + newViewPrivilege.getRoleName() + ";");
-                }
+                addGrants(changes, key, null, newViewPrivilege, newView);
             }
         }
     }
 
+    /**
+     * Adds GRANT statements of the privilege that follow REVOKE statement
+     * without empty line.
+     *
+     * @param changes          change set the changes should be added to
+     * @param key              key of the view
+     * @param oldViewPrivilege original privilege or null
+     * @param newViewPrivilege new privilege
+     * @param newView          new view
+     */
+    private static void addGrants(final ChangeSet changes,
+            final ObjectKey key, final PgRelationPrivilege oldViewPrivilege,
+            final PgRelationPrivilege newViewPrivilege, final PgView newView) {
+        if (newViewPrivilege.hasPrivileges(true)) {
+            changes.add(Change.Kind.GRANT, key, null, oldViewPrivilege,
+                    newViewPrivilege, "GRANT "
+                    + newViewPrivilege.getPrivilegesSQL(true)
+                    + " ON TABLE "
+                    + PgDiffUtils.getQuotedName(newView.getName())
+                    + " TO " + newViewPrivilege.getRoleName()
+                    + " WITH GRANT OPTION;").setSeparated(false);
+        }
+        if (newViewPrivilege.hasPrivileges(false)) {
+            changes.add(Change.Kind.GRANT, key, null, oldViewPrivilege,
+                    newViewPrivilege, "GRANT "
+                    + newViewPrivilege.getPrivilegesSQL(false)
+                    + " ON TABLE "
+                    + PgDiffUtils.getQuotedName(newView.getName())
+                    + " TO " + newViewPrivilege.getRoleName() + ";")
+                    .setSeparated(false);
+        }
+    }
+
     /**
      * Creates a new instance of PgDiffViews.
      */
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Renders {@link ChangeSet} as SQL script.
+ *
+ * @author fordfrog
+ */
+public final class SqlRenderer {
+
+    /**
+     * Line separator used by {@link PrintWriter#println()}.
+     */
+    private static final String EOL = System.getProperty("line.separator");
+
+    /**
+     * Writes statements of all changes. Search path is output before the
+     * first change that requires search path different from the one that
+     * was output last.
+     *
+     * @param writer         writer the output should be written to
+     * @param changeSet      change set
+     * @param addTransaction whether statements should be enclosed in
+     *                       transaction
+     */
+    public static void render(final PrintWriter writer,
+            final ChangeSet changeSet, final boolean addTransaction) {
+        if (addTransaction) {
+            writer.println("START TRANSACTION;");
+        }
+
+        String searchPath = null;
+
+        for (final Change change : changeSet.getChanges()) {
+            if (change.getSearchPath() != null
+                    && !change.getSearchPath().equals(searchPath)) {
+                searchPath = change.getSearchPath();
+                writer.println();
+                writer.println(searchPath);
+            }
+
+            if (change.isSeparated()) {
+                writer.println();
+            }
+
+            writer.println(getStatement(change, EOL));
+        }
+
+        if (addTransaction) {
+            writer.println();
+            writer.println("COMMIT TRANSACTION;");
+        }
+    }
+
+    /**
+     * Returns text of the statement of the change including its clauses.
+     * Each clause is on its own line, indented by tab.
+     *
+     * @param change        change
+     * @param lineSeparator separator of lines of the statement
+     *
+     * @return text of the statement
+     */
+    public static String getStatement(final Change change,
+            final String lineSeparator) {
+        final List<Change> clauses = change.getClauses();
+
+        if (clauses.isEmpty()) {
+            return change.getSql();
+        }
+
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append(change.getSql());
+
+        for (int i = 0; i < clauses.size(); i++) {
+            sbSQL.append(lineSeparator);
+            sbSQL.append('\t');
+            sbSQL.append(clauses.get(i).getSql());
+            sbSQL.append((i + 1) < clauses.size() ? ',' : ';');
+        }
+
+        return sbSQL.toString();
+    }
+
+    /**
+     * Creates a new instance of SqlRenderer.
+     */
+    private SqlRenderer() {
+    }
+}
@@ -162,11 +162,6 @@ public class PgDumpLoader { //NOPMD
     private static final Pattern PATTERN_DOLLAR_TAG= Pattern.compile(
             "[\"\\s]",
             Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Storage of unprocessed line part.
-     */
-    private static String lineBuffer;
-
     /**
      * Loads database schema from dump file.
      *
@@ -195,7 +190,8 @@ public class PgDumpLoader { //NOPMD
                     + charsetName, ex);
         }
 
-        String statement = getWholeStatement(reader);
+        final StringBuilder lineBuffer = new StringBuilder(1024);
+        String statement = getWholeStatement(reader, lineBuffer);
 
         while (statement != null) {
             if (PATTERN_CREATE_SCHEMA.matcher(statement).matches()) {
@@ -250,9 +246,11 @@ public class PgDumpLoader { //NOPMD
                 // is false
             }
 
-            statement = getWholeStatement(reader);
+            statement = getWholeStatement(reader, lineBuffer);
         }
 
+        CommentParser.attachComments(database);
+
         return database;
     }
 
@@ -290,17 +288,22 @@ public class PgDumpLoader { //NOPMD
 
     /**
      * Reads whole statement from the reader into single-line string.
+     * Unprocessed part of the last read line is kept in the
+     * {@code lineBuffer} for the next call, the buffer is local to a single
+     * load so that dumps can be loaded in parallel.
      *
-     * @param reader reader to be read
+     * @param reader     reader to be read
+     * @param lineBuffer storage of unprocessed line part
      *
      * @return whole statement from the reader into single-line string
      */
-    private static String getWholeStatement(final BufferedReader reader) {
+    private static String getWholeStatement(final BufferedReader reader,
+            final StringBuilder lineBuffer) {
         final StringBuilder sbStatement = new StringBuilder(1024);
 
-        if (lineBuffer != null) {
+        if (lineBuffer.length() > 0) {
             sbStatement.append(lineBuffer);
-            lineBuffer = null;
+            lineBuffer.setLength(0);
             stripComment(sbStatement);
         }
 
@@ -338,10 +341,9 @@ public class PgDumpLoader { //NOPMD
                 pos = sbStatement.indexOf(";", pos);
             } else {
                 if (!isQuoted(sbStatement, pos)) {
-                    if (pos == sbStatement.length() - 1) {
-                        lineBuffer = null;
-                    } else {
-                        lineBuffer = sbStatement.substring(pos + 1);
+                    if (pos < sbStatement.length() - 1) {
+                        lineBuffer.append(sbStatement, pos + 1,
+                                sbStatement.length());
                         sbStatement.setLength(pos + 1);
                     }
 
@@ -47,8 +47,8 @@ public class AlterRelationParser {
         }
 
         final String relName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(relName, database);
+        final QualifiedName qualifiedName = new QualifiedName(relName);
+        final String schemaName = qualifiedName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -57,11 +57,12 @@ public class AlterRelationParser {
                     statement));
         }
 
-        final String objectName = ParserUtils.getObjectName(relName);
-        final PgRelation rel = schema.getRelation(objectName);
+        final String objectName = qualifiedName.getObjectName();
+        final PgRelation rel = database.getRelation(schemaName, objectName);
 
         if (rel == null) {
-            final PgSequence sequence = schema.getSequence(objectName);
+            final PgSequence sequence =
+                    database.getSequence(schemaName, objectName);
 
             if (sequence != null) {
                 parseSequence(parser, sequence, outputIgnoredStatements,
@@ -221,6 +222,8 @@ public class AlterRelationParser {
         } else {
             constraint.setDefinition(parser.getExpression());
         }
+
+        ConstraintDefinitionParser.parse(constraint);
     }
 
     /**
@@ -334,6 +337,11 @@ public class AlterRelationParser {
         table.addConstraint(constraint);
         constraint.setDefinition(parser.getExpression());
         constraint.setTableName(table.getName());
+        ConstraintDefinitionParser.parse(constraint);
+
+        for (final String columnName : columnNames) {
+            constraint.addColumn(columnName);
+        }
     }
 
     /**
@@ -33,8 +33,8 @@ public class AlterSequenceParser {
         parser.expect("ALTER", "SEQUENCE");
 
         final String sequenceName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(sequenceName, database);
+        final QualifiedName qualifiedName = new QualifiedName(sequenceName);
+        final String schemaName = qualifiedName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -43,7 +43,7 @@ public class AlterSequenceParser {
                     statement));
         }
 
-        final String objectName = ParserUtils.getObjectName(sequenceName);
+        final String objectName = qualifiedName.getObjectName();
         final PgSequence sequence = schema.getSequence(objectName);
 
         if (sequence == null) {
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgColumn;
+import java.util.Locale;
+
+/**
+ * Parses column definition (everything after column name in CREATE TABLE or
+ * CREATE TYPE) in single pass and fills attributes of {@link PgColumn}.
+ *
+ * @author fordfrog
+ */
+public final class ColumnDefinitionParser {
+
+    /**
+     * Parses column {@code definition} and stores data type, collation,
+     * default value, nullability, storage, identity and generation expression
+     * in the {@code column}. Everything up to the first recognized clause is
+     * considered to be the data type. Clauses that are not parsed into other
+     * attributes, such as inline REFERENCES or CHECK constraints, are kept as
+     * written in column constraints.
+     *
+     * @param column     column
+     * @param definition column definition
+     */
+    public static void parse(final PgColumn column, final String definition) {
+        final DefinitionTokens tokens = new DefinitionTokens(definition);
+        int pos = 0;
+
+        while (pos < tokens.size() && !isClauseStart(tokens, pos)) {
+            pos++;
+        }
+
+        column.setType(pos == 0 ? "" : tokens.getText(0, pos));
+
+        final StringBuilder sbConstraints = new StringBuilder(0);
+
+        while (pos < tokens.size()) {
+            if (tokens.isWord(pos, "NOT") && tokens.isWord(pos + 1, "NULL")) {
+                column.setNullValue(false);
+                pos += 2;
+            } else if (tokens.isWord(pos, "NULL")) {
+                column.setNullValue(true);
+                pos++;
+            } else if (tokens.isWord(pos, "DEFAULT")
+                    && pos + 1 < tokens.size()) {
+                final int start = pos + 1;
+                pos = start + 1;
+
+                while (pos < tokens.size() && !isClauseStart(tokens, pos)) {
+                    pos++;
+                }
+
+                column.setDefaultValue(tokens.getText(start, pos));
+            } else if (tokens.isWord(pos, "COLLATE")
+                    && pos + 1 < tokens.size()) {
+                column.setCollation(tokens.get(pos + 1));
+                pos += 2;
+            } else if (tokens.isWord(pos, "STORAGE")
+                    && pos + 1 < tokens.size()) {
+                column.setStorage(
+                        tokens.get(pos + 1).toUpperCase(Locale.ENGLISH));
+                pos += 2;
+            } else if (tokens.isWord(pos, "GENERATED")
+                    && (tokens.isWord(pos + 1, "ALWAYS")
+                    || tokens.isWord(pos + 1, "BY"))) {
+                pos = parseGenerated(tokens, pos + 1, column);
+            } else {
+                final int start = pos;
+                pos = tokens.isWord(start, "CONSTRAINT")
+                        ? Math.min(start + 3, tokens.size()) : start + 1;
+
+                while (pos < tokens.size() && (!isClauseStart(tokens, pos)
+                        || tokens.isWord(pos - 1, "SET"))) {
+                    pos++;
+                }
+
+                if (sbConstraints.length() > 0) {
+                    sbConstraints.append(' ');
+                }
+
+                sbConstraints.append(tokens.getText(start, pos));
+            }
+        }
+
+        if (sbConstraints.length() > 0) {
+            column.setConstraints(sbConstraints.toString());
+        }
+    }
+
+    /**
+     * Parses GENERATED clause, either identity or generation expression.
+     *
+     * @param tokens tokens
+     * @param pos    position of the token after GENERATED
+     * @param column column
+     *
+     * @return position after the clause
+     */
+    private static int parseGenerated(final DefinitionTokens tokens,
+            final int pos, final PgColumn column) {
+        int result = pos;
+        final String generation;
+
+        if (tokens.isWord(result, "ALWAYS")) {
+            generation = "ALWAYS";
+            result++;
+        } else if (tokens.isWord(result, "BY")
+                && tokens.isWord(result + 1, "DEFAULT")) {
+            generation = "BY DEFAULT";
+            result += 2;
+        } else {
+            return result;
+        }
+
+        if (tokens.isWord(result, "AS")) {
+            result++;
+        }
+
+        if (tokens.isWord(result, "IDENTITY")) {
+            column.setIdentity(generation);
+            result++;
+
+            if (tokens.isGroup(result)) {
+                column.setIdentityOptions(tokens.get(result));
+                result++;
+            }
+        } else if (tokens.isGroup(result)) {
+            column.setGeneratedExpression(tokens.get(result));
+            result++;
+
+            if (tokens.isWord(result, "STORED")) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks whether token at {@code pos} starts a clause that follows data
+     * type in column definition.
+     *
+     * @param tokens tokens
+     * @param pos    position of the token
+     *
+     * @return true if the token starts a clause, otherwise false
+     */
+    private static boolean isClauseStart(final DefinitionTokens tokens,
+            final int pos) {
+        return tokens.isWord(pos, "DEFAULT") || tokens.isWord(pos, "NULL")
+                || tokens.isWord(pos, "NOT") && tokens.isWord(pos + 1, "NULL")
+                || tokens.isWord(pos, "COLLATE")
+                || tokens.isWord(pos, "STORAGE")
+                || tokens.isWord(pos, "GENERATED")
+                || tokens.isWord(pos, "CONSTRAINT")
+                || tokens.isWord(pos, "CHECK")
+                || tokens.isWord(pos, "UNIQUE")
+                || tokens.isWord(pos, "PRIMARY")
+                && tokens.isWord(pos + 1, "KEY")
+                || tokens.isWord(pos, "REFERENCES");
+    }
+
+    /**
+     * Creates a new instance of ColumnDefinitionParser.
+     */
+    private ColumnDefinitionParser() {
+    }
+}
@@ -7,9 +7,12 @@ import cz.startnet.utils.pgdiff.Resources;
 import cz.startnet.utils.pgdiff.schema.*;
 
 import java.text.MessageFormat;
+import java.util.Map;
 
 /**
- * COMMENT parser.
+ * COMMENT parser. Comments are only recorded in the database while the dump
+ * is loaded and they are attached to their objects by
+ * {@link #attachComments(PgDatabase)} once loading is finished.
  *
  * @author fordfrog
  */
@@ -40,6 +43,8 @@ public class CommentParser {
             parseFunction(parser, database);
         } else if (parser.expectOptional("INDEX")) {
             parseIndex(parser, database);
+        } else if (parser.expectOptional("RULE")) {
+            parseMember(parser, database, CommentTarget.Member.RULE);
         } else if (parser.expectOptional("SCHEMA")) {
             parseSchema(parser, database);
         } else if (parser.expectOptional("SEQUENCE")) {
@@ -53,6 +58,134 @@ public class CommentParser {
         }
     }
 
+    /**
+     * Attaches comments collected by {@link #parse(PgDatabase, String,
+     * boolean)} to their objects. Comments are attached in bulk once the
+     * whole dump is loaded so that each of them costs single hash lookup and
+     * COMMENT statement can precede creation of the commented object.
+     *
+     * @param database database
+     */
+    public static void attachComments(final PgDatabase database) {
+        for (final Map.Entry<CommentTarget, String> entry
+                : database.getPendingComments().entrySet()) {
+            attachComment(database, entry.getKey(), entry.getValue());
+        }
+
+        database.clearPendingComments();
+    }
+
+    /**
+     * Attaches comment to object given by {@code target}.
+     *
+     * @param database database
+     * @param target   target of the comment
+     * @param comment  comment
+     */
+    private static void attachComment(final PgDatabase database,
+            final CommentTarget target, final String comment) {
+        final ObjectKey owner = target.getOwner();
+
+        if (owner == null) {
+            database.setComment(comment);
+            return;
+        }
+
+        final Object object = database.getObject(owner);
+
+        if (object == null) {
+            if (owner.getKind() == ObjectKey.Kind.INDEX) {
+                final PgConstraint primaryKey = database.getPrimaryKey(
+                        owner.getSchema(), owner.getName());
+
+                if (primaryKey != null) {
+                    primaryKey.setComment(comment);
+                    return;
+                }
+            }
+
+            throw new ParserException(MessageFormat.format(
+                    Resources.getString("CannotFindCommentedObject"),
+                    target));
+        }
+
+        switch (target.getMember()) {
+            case COLUMN:
+                final PgColumn column =
+                        ((PgRelation) object).getColumn(target.getMemberName());
+
+                if (column == null) {
+                    throw new ParserException(MessageFormat.format(
+                            Resources.getString("CannotFindColumnInTable"),
+                            target.getMemberName(), owner.getName()));
+                }
+
+                column.setComment(comment);
+                break;
+            case TRIGGER:
+                final PgTrigger trigger = ((PgRelation) object).getTrigger(
+                        target.getMemberName());
+
+                if (trigger == null) {
+                    throw new ParserException(MessageFormat.format(
+                            Resources.getString("CannotFindCommentedObject"),
+                            target));
+                }
+
+                trigger.setComment(comment);
+                break;
+            case CONSTRAINT:
+                final PgConstraint constraint = object instanceof PgTable
+                        ? ((PgTable) object).getConstraint(
+                        target.getMemberName()) : null;
+
+                if (constraint == null) {
+                    throw new ParserException(MessageFormat.format(
+                            Resources.getString("CannotFindCommentedObject"),
+                            target));
+                }
+
+                constraint.setComment(comment);
+                break;
+            case RULE:
+                final PgRule rule =
+                        ((PgRelation) object).getRule(target.getMemberName());
+
+                if (rule == null) {
+                    throw new ParserException(MessageFormat.format(
+                            Resources.getString("CannotFindCommentedObject"),
+                            target));
+                }
+
+                rule.setComment(comment);
+                break;
+            default:
+                setComment(object, comment);
+        }
+    }
+
+    /**
+     * Sets comment of schema or schema object.
+     *
+     * @param object  object
+     * @param comment comment
+     */
+    private static void setComment(final Object object, final String comment) {
+        if (object instanceof PgSchema) {
+            ((PgSchema) object).setComment(comment);
+        } else if (object instanceof PgRelation) {
+            ((PgRelation) object).setComment(comment);
+        } else if (object instanceof PgSequence) {
+            ((PgSequence) object).setComment(comment);
+        } else if (object instanceof PgFunction) {
+            ((PgFunction) object).setComment(comment);
+        } else if (object instanceof PgIndex) {
+            ((PgIndex) object).setComment(comment);
+        } else if (object instanceof PgConstraint) {
+            ((PgConstraint) object).setComment(comment);
+        }
+    }
+
     /**
      * Parses COMMENT ON TABLE.
      *
@@ -61,17 +194,7 @@ public class CommentParser {
      */
     private static void parseTable(final Parser parser,
             final PgDatabase database) {
-        final String tableName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(tableName);
-        final String schemaName =
-                ParserUtils.getSchemaName(tableName, database);
-
-        final PgTable table =
-                database.getSchema(schemaName).getTable(objectName);
-
-        parser.expect("IS");
-        table.setComment(getComment(parser));
-        parser.expect(";");
+        parseObject(parser, database, ObjectKey.Kind.RELATION);
     }
 
     /**
@@ -82,22 +205,7 @@ public class CommentParser {
      */
     private static void parseConstraint(final Parser parser,
             final PgDatabase database) {
-        final String constraintName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
-
-        parser.expect("ON");
-
-        final String tableName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(tableName);
-        final String schemaName =
-                ParserUtils.getSchemaName(constraintName, database);
-
-        final PgConstraint constraint = database.getSchema(schemaName).
-                getTable(objectName).getConstraint(constraintName);
-
-        parser.expect("IS");
-        constraint.setComment(getComment(parser));
-        parser.expect(";");
+        parseMember(parser, database, CommentTarget.Member.CONSTRAINT);
     }
 
     /**
@@ -110,36 +218,20 @@ public class CommentParser {
             final PgDatabase database) {
         parser.parseIdentifier();
         parser.expect("IS");
-        database.setComment(getComment(parser));
+        database.addPendingComment(CommentTarget.of(null), getComment(parser));
         parser.expect(";");
     }
 
     /**
-     * Parses COMMENT ON INDEX.
+     * Parses COMMENT ON INDEX. If there is no index of given name, the
+     * comment is attached to primary key of that name.
      *
      * @param parser   parser
      * @param database database
      */
     private static void parseIndex(final Parser parser,
             final PgDatabase database) {
-        final String indexName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(indexName);
-        final String schemaName =
-                ParserUtils.getSchemaName(indexName, database);
-        final PgSchema schema = database.getSchema(schemaName);
-
-        final PgIndex index = schema.getIndex(objectName);
-
-        if (index == null) {
-            final PgConstraint primaryKey = schema.getPrimaryKey(objectName);
-            parser.expect("IS");
-            primaryKey.setComment(getComment(parser));
-            parser.expect(";");
-        } else {
-            parser.expect("IS");
-            index.setComment(getComment(parser));
-            parser.expect(";");
-        }
+        parseObject(parser, database, ObjectKey.Kind.INDEX);
     }
 
     /**
@@ -152,10 +244,11 @@ public class CommentParser {
             final PgDatabase database) {
         final String schemaName =
                 ParserUtils.getObjectName(parser.parseIdentifier());
-        final PgSchema schema = database.getSchema(schemaName);
 
         parser.expect("IS");
-        schema.setComment(getComment(parser));
+        database.addPendingComment(
+                CommentTarget.of(ObjectKey.schema(schemaName)),
+                getComment(parser));
         parser.expect(";");
     }
 
@@ -167,17 +260,7 @@ public class CommentParser {
      */
     private static void parseSequence(final Parser parser,
             final PgDatabase database) {
-        final String sequenceName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(sequenceName);
-        final String schemaName =
-                ParserUtils.getSchemaName(sequenceName, database);
-
-        final PgSequence sequence =
-                database.getSchema(schemaName).getSequence(objectName);
-
-        parser.expect("IS");
-        sequence.setComment(getComment(parser));
-        parser.expect(";");
+        parseObject(parser, database, ObjectKey.Kind.SEQUENCE);
     }
 
     /**
@@ -188,69 +271,83 @@ public class CommentParser {
      */
     private static void parseTrigger(final Parser parser,
             final PgDatabase database) {
-        final String triggerName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
-
-        parser.expect("ON");
+        parseMember(parser, database, CommentTarget.Member.TRIGGER);
+    }
 
-        final String tableName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(tableName);
-        final String schemaName =
-                ParserUtils.getSchemaName(triggerName, database);
+    /**
+     * Parses COMMENT ON VIEW.
+     *
+     * @param parser   parser
+     * @param database database
+     */
+    private static void parseView(final Parser parser,
+            final PgDatabase database) {
+        parseObject(parser, database, ObjectKey.Kind.RELATION);
+    }
 
-        final PgTrigger trigger = database.getSchema(schemaName).
-                getTable(objectName).getTrigger(triggerName);
+    /**
+     * Parses COMMENT ON COLUMN.
+     *
+     * @param parser   parser
+     * @param database database
+     */
+    private static void parseColumn(final Parser parser,
+            final PgDatabase database) {
+        final QualifiedName columnName = parser.parseQualifiedName();
+        final String schemaName = columnName.getPartCount() > 2
+                ? columnName.getThirdObjectName()
+                : database.getDefaultSchema().getName();
+        final ObjectKey owner = new ObjectKey(ObjectKey.Kind.RELATION,
+                schemaName, columnName.getSecondObjectName());
 
         parser.expect("IS");
-        trigger.setComment(getComment(parser));
+        database.addPendingComment(new CommentTarget(owner,
+                CommentTarget.Member.COLUMN, columnName.getObjectName()),
+                getComment(parser));
         parser.expect(";");
     }
 
     /**
-     * Parses COMMENT ON VIEW.
+     * Parses comment of schema object identified by its qualified name.
      *
      * @param parser   parser
      * @param database database
+     * @param kind     kind of the object
      */
-    private static void parseView(final Parser parser,
-            final PgDatabase database) {
-        final String viewName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(viewName);
-        final String schemaName =
-                ParserUtils.getSchemaName(viewName, database);
-
-        final PgView view = database.getSchema(schemaName).getView(objectName);
+    private static void parseObject(final Parser parser,
+            final PgDatabase database, final ObjectKey.Kind kind) {
+        final QualifiedName name = parser.parseQualifiedName();
+        final ObjectKey owner = new ObjectKey(kind,
+                name.getSchemaName(database), name.getObjectName());
 
         parser.expect("IS");
-        view.setComment(getComment(parser));
+        database.addPendingComment(CommentTarget.of(owner), getComment(parser));
         parser.expect(";");
     }
 
     /**
-     * Parses COMMENT ON COLUMN.
+     * Parses comment of trigger, rule or constraint, that is
+     * "name ON relation".
      *
      * @param parser   parser
      * @param database database
+     * @param member   kind of the member
      */
-    private static void parseColumn(final Parser parser,
-            final PgDatabase database) {
-        final String columnName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(columnName);
-        final String relName = ParserUtils.getSecondObjectName(columnName);
-        final String schemaName = ParserUtils.getThirdObjectName(columnName);
-        final PgSchema schema = database.getSchema(schemaName);
+    private static void parseMember(final Parser parser,
+            final PgDatabase database, final CommentTarget.Member member) {
+        final String memberName =
+                ParserUtils.getObjectName(parser.parseIdentifier());
 
-        final PgRelation rel = schema.getRelation(relName);
-        final PgColumn column = rel.getColumn(objectName);
+        parser.expect("ON");
 
-        if (column == null) {
-            throw new ParserException(MessageFormat.format(
-                    Resources.getString("CannotFindColumnInTable"),
-                    columnName, rel.getName()));
-        }
+        final QualifiedName relName = parser.parseQualifiedName();
+        final ObjectKey owner = new ObjectKey(ObjectKey.Kind.RELATION,
+                relName.getSchemaName(database), relName.getObjectName());
 
         parser.expect("IS");
-        column.setComment(getComment(parser));
+        database.addPendingComment(
+                new CommentTarget(owner, member, memberName),
+                getComment(parser));
         parser.expect(";");
     }
 
@@ -262,11 +359,9 @@ public class CommentParser {
      */
     private static void parseFunction(final Parser parser,
             final PgDatabase database) {
-        final String functionName = parser.parseIdentifier();
-        final String objectName = ParserUtils.getObjectName(functionName);
-        final String schemaName =
-                ParserUtils.getSchemaName(functionName, database);
-        final PgSchema schema = database.getSchema(schemaName);
+        final QualifiedName functionName = parser.parseQualifiedName();
+        final String objectName = functionName.getObjectName();
+        final String schemaName = functionName.getSchemaName(database);
 
         parser.expect("(");
 
@@ -316,11 +411,10 @@ public class CommentParser {
             }
         }
 
-        final PgFunction function =
-                schema.getFunction(tmpFunction.getSignature());
-
         parser.expect("IS");
-        function.setComment(getComment(parser));
+        database.addPendingComment(CommentTarget.of(ObjectKey.function(
+                schemaName, objectName, tmpFunction.getSignature())),
+                getComment(parser));
         parser.expect(";");
     }
 
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import java.util.Locale;
+
+/**
+ * Parses constraint definition into structured form stored in
+ * {@link PgConstraint}.
+ *
+ * @author fordfrog
+ */
+public final class ConstraintDefinitionParser {
+
+    /**
+     * Parses definition of the {@code constraint} and stores kind, columns,
+     * referenced table and columns, actions and deferrability in the
+     * constraint.
+     *
+     * @param constraint constraint with definition set
+     */
+    public static void parse(final PgConstraint constraint) {
+        final DefinitionTokens tokens =
+                new DefinitionTokens(constraint.getDefinition());
+        int pos = 0;
+
+        if (tokens.isWord(pos, "PRIMARY") && tokens.isWord(pos + 1, "KEY")) {
+            constraint.setKind(PgConstraint.Kind.PRIMARY_KEY);
+            pos = parseColumns(tokens, pos + 2, constraint, false);
+        } else if (tokens.isWord(pos, "UNIQUE")) {
+            constraint.setKind(PgConstraint.Kind.UNIQUE);
+            pos = parseColumns(tokens, pos + 1, constraint, false);
+        } else if (tokens.isWord(pos, "FOREIGN")
+                && tokens.isWord(pos + 1, "KEY")) {
+            constraint.setKind(PgConstraint.Kind.FOREIGN_KEY);
+            pos = parseColumns(tokens, pos + 2, constraint, false);
+        } else if (tokens.isWord(pos, "REFERENCES")) {
+            constraint.setKind(PgConstraint.Kind.FOREIGN_KEY);
+        } else if (tokens.isWord(pos, "CHECK")) {
+            constraint.setKind(PgConstraint.Kind.CHECK);
+            pos = tokens.findGroup(pos + 1) + 1;
+        } else if (tokens.isWord(pos, "EXCLUDE")) {
+            constraint.setKind(PgConstraint.Kind.EXCLUDE);
+            pos++;
+        } else {
+            constraint.setKind(PgConstraint.Kind.OTHER);
+        }
+
+        while (pos < tokens.size()) {
+            if (tokens.isWord(pos, "REFERENCES") && pos + 1 < tokens.size()) {
+                constraint.setReferencedTable(tokens.get(pos + 1));
+                pos += 2;
+
+                if (tokens.isGroup(pos)) {
+                    pos = parseColumns(tokens, pos, constraint, true);
+                }
+            } else if (tokens.isWord(pos, "MATCH")
+                    && pos + 1 < tokens.size()) {
+                constraint.setMatchType(
+                        tokens.get(pos + 1).toUpperCase(Locale.ENGLISH));
+                pos += 2;
+            } else if (tokens.isWord(pos, "ON")
+                    && tokens.isWord(pos + 1, "DELETE")) {
+                pos += 2;
+                constraint.setOnDelete(getAction(tokens, pos));
+                pos = skipAction(tokens, pos);
+            } else if (tokens.isWord(pos, "ON")
+                    && tokens.isWord(pos + 1, "UPDATE")) {
+                pos += 2;
+                constraint.setOnUpdate(getAction(tokens, pos));
+                pos = skipAction(tokens, pos);
+            } else if (tokens.isWord(pos, "NOT")
+                    && tokens.isWord(pos + 1, "DEFERRABLE")) {
+                constraint.setDeferrable(false);
+                pos += 2;
+            } else if (tokens.isWord(pos, "DEFERRABLE")) {
+                constraint.setDeferrable(true);
+                pos++;
+            } else if (tokens.isWord(pos, "INITIALLY")
+                    && tokens.isWord(pos + 1, "DEFERRED")) {
+                constraint.setInitiallyDeferred(true);
+                pos += 2;
+            } else if (tokens.isWord(pos, "INITIALLY")
+                    && tokens.isWord(pos + 1, "IMMEDIATE")) {
+                constraint.setInitiallyDeferred(false);
+                pos += 2;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Skips optional words (like NULLS NOT DISTINCT) up to the next column
+     * list and parses the column list into the constraint.
+     *
+     * @param tokens     tokens
+     * @param pos        position of the first token
+     * @param constraint constraint
+     * @param referenced whether the columns are referenced columns
+     *
+     * @return position after the column list
+     */
+    private static int parseColumns(final DefinitionTokens tokens,
+            final int pos, final PgConstraint constraint,
+            final boolean referenced) {
+        final int groupPos = tokens.findGroup(pos);
+
+        if (groupPos == tokens.size()) {
+            return pos;
+        }
+
+        final Parser parser = new Parser(tokens.get(groupPos));
+        parser.expect("(");
+
+        while (!parser.expectOptional(")")) {
+            final String column =
+                    ParserUtils.getObjectName(parser.parseIdentifier());
+
+            if (referenced) {
+                constraint.addReferencedColumn(column);
+            } else {
+                constraint.addColumn(column);
+            }
+
+            if (parser.expectOptional(")")) {
+                break;
+            } else {
+                parser.expect(",");
+            }
+        }
+
+        return groupPos + 1;
+    }
+
+    /**
+     * Returns referential action starting at {@code pos}.
+     *
+     * @param tokens tokens
+     * @param pos    position of the action
+     *
+     * @return action or null if there is no action at the position
+     */
+    private static String getAction(final DefinitionTokens tokens,
+            final int pos) {
+        if (tokens.isWord(pos, "NO") || tokens.isWord(pos, "SET")) {
+            return pos + 1 < tokens.size()
+                    ? tokens.get(pos).toUpperCase(Locale.ENGLISH) + ' '
+                    + tokens.get(pos + 1).toUpperCase(Locale.ENGLISH) : null;
+        } else if (pos < tokens.size()) {
+            return tokens.get(pos).toUpperCase(Locale.ENGLISH);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Skips referential action starting at {@code pos}, including optional
+     * column list of SET NULL and SET DEFAULT actions.
+     *
+     * @param tokens tokens
+     * @param pos    position of the action
+     *
+     * @return position after the action
+     */
+    private static int skipAction(final DefinitionTokens tokens,
+            final int pos) {
+        int result = pos;
+
+        if (tokens.isWord(result, "NO") || tokens.isWord(result, "SET")) {
+            result += 2;
+        } else {
+            result++;
+        }
+
+        if (tokens.isGroup(result)) {
+            result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a new instance of ConstraintDefinitionParser.
+     */
+    private ConstraintDefinitionParser() {
+    }
+}
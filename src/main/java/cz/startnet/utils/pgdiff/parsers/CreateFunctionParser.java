@@ -31,9 +31,8 @@ public class CreateFunctionParser {
         parser.expectOptional("OR", "REPLACE");
         parser.expect("FUNCTION");
 
-        final String functionName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(functionName, database);
+        final QualifiedName functionName = parser.parseQualifiedName();
+        final String schemaName = functionName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -43,8 +42,7 @@ public class CreateFunctionParser {
         }
 
         final PgFunction function = new PgFunction();
-        function.setName(ParserUtils.getObjectName(functionName));
-        schema.addFunction(function);
+        function.setName(functionName.getObjectName());
 
         parser.expect("(");
 
@@ -104,6 +102,7 @@ public class CreateFunctionParser {
         }
 
         function.setBody(parser.getRest());
+        schema.addFunction(function);
     }
 
     /**
@@ -39,9 +39,9 @@ public class CreateIndexParser {
         parser.expect("ON");
 
         final String tableName = parser.parseIdentifier();
+        final QualifiedName qualifiedName = new QualifiedName(tableName);
         final String definition = parser.getRest();
-        final String schemaName =
-                ParserUtils.getSchemaName(tableName, database);
+        final String schemaName = qualifiedName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -50,7 +50,7 @@ public class CreateIndexParser {
                     statement));
         }
 
-        final String objectName = ParserUtils.getObjectName(tableName);
+        final String objectName = qualifiedName.getObjectName();
         final PgTable table = schema.getTable(objectName);
         final PgView view = schema.getView(objectName);
         final PgIndex index = new PgIndex(indexName);
@@ -54,9 +54,9 @@ public class CreateRuleParser {
 
         parser.expect("TO");
 
-        final String relationName = parser.parseIdentifier();
+        final QualifiedName relationName = parser.parseQualifiedName();
 
-        rule.setRelationName(ParserUtils.getObjectName(relationName));
+        rule.setRelationName(relationName.getObjectName());
 
         if (parser.expectOptional("WHERE")) {
             rule.setWhere(parser.getExpressionUntil("DO"));
@@ -71,7 +71,7 @@ public class CreateRuleParser {
         rule.setCommand(parser.getRest());
 
 				final PgSchema schema = database.getSchema(
-								ParserUtils.getSchemaName(relationName, database));
+								relationName.getSchemaName(database));
 				schema.getRelation(rule.getRelationName()).addRule(rule);
     }
 
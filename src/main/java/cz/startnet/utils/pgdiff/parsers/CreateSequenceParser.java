@@ -29,11 +29,10 @@ public class CreateSequenceParser {
         final Parser parser = new Parser(statement);
         parser.expect("CREATE", "SEQUENCE");
 
-        final String sequenceName = parser.parseIdentifier();
+        final QualifiedName sequenceName = parser.parseQualifiedName();
         final PgSequence sequence =
-                new PgSequence(ParserUtils.getObjectName(sequenceName));
-        final String schemaName =
-                ParserUtils.getSchemaName(sequenceName, database);
+                new PgSequence(sequenceName.getObjectName());
+        final String schemaName = sequenceName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
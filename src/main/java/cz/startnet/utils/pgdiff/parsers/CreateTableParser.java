@@ -36,9 +36,8 @@ public class CreateTableParser {
         // Optional IF NOT EXISTS, irrelevant for our purposes
         parser.expectOptional("IF", "NOT", "EXISTS");
 
-        final String tableName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(tableName, database);
+        final QualifiedName tableName = parser.parseQualifiedName();
+        final String schemaName = tableName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -47,7 +46,7 @@ public class CreateTableParser {
                     statement));
         }
 
-        final PgTable table = new PgTable(ParserUtils.getObjectName(tableName), database, schema);
+        final PgTable table = new PgTable(tableName.getObjectName(), database, schema);
         table.setUnlogged(unlogged);
         schema.addRelation(table);
 
@@ -107,10 +106,10 @@ public class CreateTableParser {
         parser.expect("(");
 
         while (!parser.expectOptional(")")) {
-         final String parsedString = parser.parseIdentifier();
-         final String tableName = ParserUtils.getObjectName(parsedString);
-         final String schemaName = parsedString.contains(".") ?
-             ParserUtils.getSecondObjectName(parsedString) :
+         final QualifiedName parsedName = parser.parseQualifiedName();
+         final String tableName = parsedName.getObjectName();
+         final String schemaName = parsedName.getPartCount() > 1 ?
+             parsedName.getSecondObjectName() :
              database.getDefaultSchema().getName();
             table.addInherits(schemaName, tableName);
             if (parser.expectOptional(")")) {
@@ -134,6 +133,7 @@ public class CreateTableParser {
         table.addConstraint(constraint);
         constraint.setDefinition(parser.getExpression());
         constraint.setTableName(table.getName());
+        ConstraintDefinitionParser.parse(constraint);
     }
 
     /**
@@ -146,7 +146,7 @@ public class CreateTableParser {
         final PgColumn column = new PgColumn(
                 ParserUtils.getObjectName(parser.parseIdentifier()));
         table.addColumn(column);
-        column.parseDefinition(parser.getExpression());
+        ColumnDefinitionParser.parse(column, parser.getExpression());
     }
 
     /**
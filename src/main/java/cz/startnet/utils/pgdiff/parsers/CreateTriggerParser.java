@@ -72,9 +72,9 @@ public class CreateTriggerParser {
 
         parser.expect("ON");
 
-        final String relationName = parser.parseIdentifier();
+        final QualifiedName relationName = parser.parseQualifiedName();
 
-        trigger.setRelationName(ParserUtils.getObjectName(relationName));
+        trigger.setRelationName(relationName.getObjectName());
 
         if (parser.expectOptional("FOR")) {
             parser.expectOptional("EACH");
@@ -103,7 +103,7 @@ public class CreateTriggerParser {
 
         if (!ignoreSlonyTrigger) {
             final PgSchema schema = database.getSchema(
-                    ParserUtils.getSchemaName(relationName, database));
+                    relationName.getSchemaName(database));
             schema.getRelation(trigger.getRelationName()).addTrigger(trigger);
         }
     }
@@ -33,10 +33,9 @@ public class CreateTypeParser {
         final Parser parser = new Parser(statement);
         parser.expect("CREATE", "TYPE");
 
-        final String typeName = parser.parseIdentifier();
-        final PgType type = new PgType(ParserUtils.getObjectName(typeName));
-        final String schemaName
-                = ParserUtils.getSchemaName(typeName, database);
+        final QualifiedName typeName = parser.parseQualifiedName();
+        final PgType type = new PgType(typeName.getObjectName());
+        final String schemaName = typeName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -89,7 +88,7 @@ public class CreateTypeParser {
         final PgColumn column = new PgColumn(
                 ParserUtils.getObjectName(parser.parseIdentifier()));
         type.addColumn(column);
-        column.parseDefinition(parser.getExpression());
+        ColumnDefinitionParser.parse(column, parser.getExpression());
     }
 
     /**
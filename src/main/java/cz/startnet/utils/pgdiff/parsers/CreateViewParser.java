@@ -35,7 +35,7 @@ public class CreateViewParser {
         final boolean materialized = parser.expectOptional("MATERIALIZED");
         parser.expect("VIEW");
 
-        final String viewName = parser.parseIdentifier();
+        final QualifiedName viewName = parser.parseQualifiedName();
 
         final boolean columnsExist = parser.expectOptional("(");
         final List<String> columnNames = new ArrayList<String>(10);
@@ -52,12 +52,12 @@ public class CreateViewParser {
 
         final String query = parser.getRest();
 
-        final PgView view = new PgView(ParserUtils.getObjectName(viewName));
+        final PgView view = new PgView(viewName.getObjectName());
         view.setMaterialized(materialized);
         view.setDeclaredColumnNames(columnNames);
         view.setQuery(query);
 
-        final String schemaName = ParserUtils.getSchemaName(viewName, database);
+        final String schemaName = viewName.getSchemaName(database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import java.util.Arrays;
+
+/**
+ * Definition (of column, constraint etc.) split into tokens in single pass.
+ * A token is either a word (possibly containing quoted parts, like schema
+ * qualified names or string literals) or a whole parenthesized group including
+ * nested parentheses. Whitespace, commas and semicolons outside of groups
+ * separate tokens and are not part of them.
+ *
+ * @author fordfrog
+ */
+final class DefinitionTokens {
+
+    /**
+     * Tokenized definition.
+     */
+    private final String definition;
+    /**
+     * Start positions of tokens in {@link #definition}.
+     */
+    private int[] starts = new int[8];
+    /**
+     * End positions (exclusive) of tokens in {@link #definition}.
+     */
+    private int[] ends = new int[8];
+    /**
+     * Number of tokens.
+     */
+    private int size;
+
+    /**
+     * Creates a new instance of DefinitionTokens.
+     *
+     * @param definition definition to be tokenized
+     */
+    DefinitionTokens(final String definition) {
+        this.definition = definition;
+
+        final int length = definition.length();
+        int pos = 0;
+
+        while (pos < length) {
+            final char chr = definition.charAt(pos);
+
+            if (Character.isWhitespace(chr) || chr == ',' || chr == ')'
+                    || chr == ';') {
+                pos++;
+                continue;
+            }
+
+            final int start = pos;
+
+            if (chr == '(') {
+                int depth = 0;
+
+                while (pos < length) {
+                    final char groupChr = definition.charAt(pos);
+
+                    if (groupChr == '"' || groupChr == '\'') {
+                        pos = skipQuoted(pos);
+                        continue;
+                    } else if (groupChr == '(') {
+                        depth++;
+                    } else if (groupChr == ')') {
+                        depth--;
+                    }
+
+                    pos++;
+
+                    if (depth == 0) {
+                        break;
+                    }
+                }
+            } else {
+                while (pos < length) {
+                    final char wordChr = definition.charAt(pos);
+
+                    if (wordChr == '"' || wordChr == '\'') {
+                        pos = skipQuoted(pos);
+                    } else if (Character.isWhitespace(wordChr)
+                            || wordChr == '(' || wordChr == ')'
+                            || wordChr == ',' || wordChr == ';') {
+                        break;
+                    } else {
+                        pos++;
+                    }
+                }
+            }
+
+            addToken(start, pos);
+        }
+    }
+
+    /**
+     * Returns number of tokens.
+     *
+     * @return number of tokens
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns text of token at {@code index}.
+     *
+     * @param index index of the token
+     *
+     * @return text of the token
+     */
+    String get(final int index) {
+        return definition.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Returns original text of the definition from start of token
+     * {@code from} to end of token {@code to - 1}.
+     *
+     * @param from index of the first token
+     * @param to   index after the last token
+     *
+     * @return original text including whitespace between the tokens
+     */
+    String getText(final int from, final int to) {
+        return definition.substring(starts[from], ends[to - 1]);
+    }
+
+    /**
+     * Checks whether token at {@code index} is given {@code word}, ignoring
+     * case.
+     *
+     * @param index index of the token
+     * @param word  word
+     *
+     * @return true if the token is the word, otherwise false
+     */
+    boolean isWord(final int index, final String word) {
+        return index < size && ends[index] - starts[index] == word.length()
+                && definition.regionMatches(
+                true, starts[index], word, 0, word.length());
+    }
+
+    /**
+     * Checks whether token at {@code index} is parenthesized group.
+     *
+     * @param index index of the token
+     *
+     * @return true if the token is parenthesized group, otherwise false
+     */
+    boolean isGroup(final int index) {
+        return index < size && definition.charAt(starts[index]) == '(';
+    }
+
+    /**
+     * Returns index of the first parenthesized group at or after
+     * {@code index}, or number of tokens if there is no such group.
+     *
+     * @param index index to start at
+     *
+     * @return index of the group
+     */
+    int findGroup(final int index) {
+        int result = index;
+
+        while (result < size && !isGroup(result)) {
+            result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds token to the list of tokens.
+     *
+     * @param start start position of the token
+     * @param end   end position of the token
+     */
+    private void addToken(final int start, final int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * Skips quoted identifier or string starting at {@code pos}. Doubled
+     * quotes inside are treated as part of the quoted text.
+     *
+     * @param pos position of the opening quote
+     *
+     * @return position after the closing quote
+     */
+    private int skipQuoted(final int pos) {
+        final char quote = definition.charAt(pos);
+        int result = pos + 1;
+
+        while (result < definition.length()) {
+            if (definition.charAt(result) == quote) {
+                if (result + 1 < definition.length()
+                        && definition.charAt(result + 1) == quote) {
+                    result += 2;
+                    continue;
+                }
+
+                return result + 1;
+            }
+
+            result++;
+        }
+
+        return result;
+    }
+}
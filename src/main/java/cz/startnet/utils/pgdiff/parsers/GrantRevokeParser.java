@@ -45,7 +45,7 @@ public class GrantRevokeParser {
         // List<String>>();
         List<String> privileges = new ArrayList<String>();
         List<List<String>> privilegesColumns = new ArrayList<List<String>>();
-        List<String> identifiers = new ArrayList<String>();
+        List<QualifiedName> identifiers = new ArrayList<QualifiedName>();
         List<String> roles = new ArrayList<String>();
         boolean grantOption = false;
         String revokeMode;
@@ -132,7 +132,7 @@ public class GrantRevokeParser {
             parseConsumeFunctionSignature(parser, database, statement,
                     outputIgnoredStatements);
         }
-        identifiers.add(identifier);
+        identifiers.add(new QualifiedName(identifier));
         while (identifier != null) {
             if (parser.expectOptional(",")) {
                 identifier = parser.parseIdentifier();
@@ -142,7 +142,7 @@ public class GrantRevokeParser {
                     parseConsumeFunctionSignature(parser, database, statement,
                             outputIgnoredStatements);
                 }
-                identifiers.add(identifier);
+                identifiers.add(new QualifiedName(identifier));
             } else {
                 identifier = null;
             }
@@ -180,9 +180,8 @@ public class GrantRevokeParser {
         }
 
         if ("TABLE".equalsIgnoreCase(objectType) && columns == null) {
-            for (String name : identifiers) {
-                final String schemaName = ParserUtils.getSchemaName(name,
-                        database);
+            for (QualifiedName name : identifiers) {
+                final String schemaName = name.getSchemaName(database);
                 final PgSchema schema = database.getSchema(schemaName);
 
                 if (schema == null) {
@@ -190,10 +189,9 @@ public class GrantRevokeParser {
                             Resources.getString("CannotFindSchema"),
                             schemaName, statement));
                 }
-                final String objectName = ParserUtils.getObjectName(name);
-                final PgTable table = schema.getTable(objectName);
-                final PgView view = database.getSchema(schemaName).getView(
-                        objectName);
+                final String objectName = name.getObjectName();
+                final PgTable table = database.getTable(schemaName, objectName);
+                final PgView view = database.getView(schemaName, objectName);
 
                 if (table != null) {
                     for (String roleName : roles) {
@@ -229,9 +227,8 @@ public class GrantRevokeParser {
                 }
             }
         } else if ("TABLE".equalsIgnoreCase(objectType) && columns != null) {
-            for (String name : identifiers) {
-                final String schemaName = ParserUtils.getSchemaName(name,
-                        database);
+            for (QualifiedName name : identifiers) {
+                final String schemaName = name.getSchemaName(database);
                 final PgSchema schema = database.getSchema(schemaName);
 
                 if (schema == null) {
@@ -239,8 +236,8 @@ public class GrantRevokeParser {
                             Resources.getString("CannotFindSchema"),
                             schemaName, statement));
                 }
-                final String objectName = ParserUtils.getObjectName(name);
-                final PgTable table = schema.getTable(objectName);
+                final String objectName = name.getObjectName();
+                final PgTable table = database.getTable(schemaName, objectName);
 
                 if (table != null) {
 
@@ -288,10 +285,9 @@ public class GrantRevokeParser {
                 }
             }
         } else if ("SEQUENCE".equalsIgnoreCase(objectType)) {
-            for (String name : identifiers) {
+            for (QualifiedName name : identifiers) {
                 // final String sequenceName = parser.parseIdentifier();
-                final String schemaName = ParserUtils.getSchemaName(name,
-                        database);
+                final String schemaName = name.getSchemaName(database);
                 final PgSchema schema = database.getSchema(schemaName);
 
                 if (schema == null) {
@@ -300,8 +296,9 @@ public class GrantRevokeParser {
                             schemaName, statement));
                 }
 
-                final String objectName = ParserUtils.getObjectName(name);
-                final PgSequence sequence = schema.getSequence(objectName);
+                final String objectName = name.getObjectName();
+                final PgSequence sequence =
+                        database.getSequence(schemaName, objectName);
 
                 if (sequence == null) {
                     throw new RuntimeException(MessageFormat.format(
@@ -121,6 +121,16 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses optionally qualified identifier from current position, see
+     * {@link #parseIdentifier()}.
+     *
+     * @return parsed qualified name
+     */
+    public QualifiedName parseQualifiedName() {
+        return new QualifiedName(parseIdentifier());
+    }
+
     /**
      * Parses identifier from current position. If identifier is quoted, it is
      * returned quoted. If the identifier is not quoted, it is converted to
@@ -6,7 +6,6 @@
 package cz.startnet.utils.pgdiff.parsers;
 
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,9 +23,13 @@ public class ParserUtils {
      * @return name of the object
      */
     public static String getObjectName(final String name) {
-        final String[] names = splitNames(name);
+        if (name.indexOf('"') == -1) {
+            final int pos = name.lastIndexOf('.');
 
-        return names[names.length - 1];
+            return pos == -1 ? name : name.substring(pos + 1);
+        }
+
+        return new QualifiedName(name).getObjectName();
     }
 
     /**
@@ -38,9 +41,7 @@ public class ParserUtils {
      * @return name of the object
      */
     public static String getSecondObjectName(final String name) {
-        final String[] names = splitNames(name);
-
-        return names[names.length - 2];
+        return new QualifiedName(name).getSecondObjectName();
     }
 
     /**
@@ -52,9 +53,7 @@ public class ParserUtils {
      * @return name of the object or null if there is no third object name
      */
     public static String getThirdObjectName(final String name) {
-        final String[] names = splitNames(name);
-
-        return names.length >= 3 ? names[names.length - 3] : null;
+        return new QualifiedName(name).getThirdObjectName();
     }
 
     /**
@@ -67,13 +66,7 @@ public class ParserUtils {
      */
     public static String getSchemaName(final String name,
             final PgDatabase database) {
-        final String[] names = splitNames(name);
-
-        if (names.length < 2) {
-            return database.getDefaultSchema().getName();
-        } else {
-            return names[0];
-        }
+        return new QualifiedName(name).getSchemaName(database);
     }
 
     /**
@@ -120,50 +113,6 @@ public class ParserUtils {
         return sbResult.toString();
     }
 
-    /**
-     * Splits qualified names by dots. If names are quoted then quotes are
-     * removed.
-     *
-     * @param string qualified name
-     *
-     * @return array of names
-     */
-    private static String[] splitNames(final String string) {
-        if (string.indexOf('"') == -1) {
-            return string.split("\\.");
-        } else {
-            final List<String> strings = new ArrayList<String>(2);
-            int startPos = 0;
-
-            while (true) {
-                if (string.charAt(startPos) == '"') {
-                    final int endPos = string.indexOf('"', startPos + 1);
-                    strings.add(string.substring(startPos + 1, endPos));
-
-                    if (endPos + 1 == string.length()) {
-                        break;
-                    } else if (string.charAt(endPos + 1) == '.') {
-                        startPos = endPos + 2;
-                    } else {
-                        startPos = endPos + 1;
-                    }
-                } else {
-                    final int endPos = string.indexOf('.', startPos);
-
-                    if (endPos == -1) {
-                        strings.add(string.substring(startPos));
-                        break;
-                    } else {
-                        strings.add(string.substring(startPos, endPos));
-                        startPos = endPos + 1;
-                    }
-                }
-            }
-
-            return strings.toArray(new String[strings.size()]);
-        }
-    }
-
     /**
      * Creates a new instance of ParserUtils.
      */
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.util.Arrays;
+
+/**
+ * Optionally qualified name (like {@code schema.table.column}) parsed once
+ * into offsets of its parts. Parts are extracted lazily on first access, with
+ * quotes removed, so a name can be queried for object, schema and other parts
+ * without splitting it repeatedly.
+ *
+ * @author fordfrog
+ */
+public final class QualifiedName {
+
+    /**
+     * Qualified name as written.
+     */
+    private final String name;
+    /**
+     * Start (even indexes) and end (odd indexes) positions of parts in
+     * {@link #name}, quotes not included.
+     */
+    private int[] bounds = new int[6];
+    /**
+     * Number of parts.
+     */
+    private int count;
+    /**
+     * Extracted parts, null for parts that were not accessed yet.
+     */
+    private String[] parts;
+
+    /**
+     * Creates a new instance of QualifiedName and parses the {@code name}.
+     *
+     * @param name optionally qualified name
+     */
+    public QualifiedName(final String name) {
+        this.name = name;
+
+        final int length = name.length();
+        int pos = 0;
+
+        while (pos < length) {
+            if (name.charAt(pos) == '"') {
+                int endPos = pos + 1;
+
+                while (endPos < length) {
+                    if (name.charAt(endPos) == '"') {
+                        if (endPos + 1 < length
+                                && name.charAt(endPos + 1) == '"') {
+                            endPos += 2;
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    endPos++;
+                }
+
+                addPart(pos + 1, endPos);
+                pos = endPos + 1;
+
+                if (pos < length && name.charAt(pos) == '.') {
+                    pos++;
+                }
+            } else {
+                int endPos = name.indexOf('.', pos);
+
+                if (endPos == -1) {
+                    endPos = length;
+                }
+
+                addPart(pos, endPos);
+                pos = endPos + 1;
+            }
+        }
+
+        if (count == 0) {
+            addPart(0, 0);
+        }
+    }
+
+    /**
+     * Returns number of parts of the name.
+     *
+     * @return number of parts
+     */
+    public int getPartCount() {
+        return count;
+    }
+
+    /**
+     * Returns part of the name at given {@code index} (from left) with quotes
+     * removed.
+     *
+     * @param index index of the part
+     *
+     * @return part of the name
+     */
+    public String getPart(final int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        if (parts == null) {
+            parts = new String[count];
+        }
+
+        if (parts[index] == null) {
+            final String part =
+                    name.substring(bounds[index * 2], bounds[index * 2 + 1]);
+            parts[index] = part.indexOf('"') == -1
+                    ? part : part.replace("\"\"", "\"");
+        }
+
+        return parts[index];
+    }
+
+    /**
+     * Returns object name, the last part of the name.
+     *
+     * @return name of the object
+     */
+    public String getObjectName() {
+        return getPart(count - 1);
+    }
+
+    /**
+     * Returns second (from right) part of the name.
+     *
+     * @return second part of the name
+     */
+    public String getSecondObjectName() {
+        return getPart(count - 2);
+    }
+
+    /**
+     * Returns third (from right) part of the name.
+     *
+     * @return third part of the name or null if there is no third part
+     */
+    public String getThirdObjectName() {
+        return count >= 3 ? getPart(count - 3) : null;
+    }
+
+    /**
+     * Returns schema name, the first part of the name, or name of default
+     * schema of the {@code database} if the name is not qualified.
+     *
+     * @param database database
+     *
+     * @return name of the schema
+     */
+    public String getSchemaName(final PgDatabase database) {
+        return count < 2 ? database.getDefaultSchema().getName() : getPart(0);
+    }
+
+    /**
+     * Returns qualified name as written.
+     *
+     * @return qualified name
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Adds bounds of a part.
+     *
+     * @param start start position of the part
+     * @param end   end position of the part
+     */
+    private void addPart(final int start, final int end) {
+        if (count * 2 == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+
+        bounds[count * 2] = start;
+        bounds[count * 2 + 1] = end;
+        count++;
+    }
+}
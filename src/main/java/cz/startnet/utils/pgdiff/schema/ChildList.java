@@ -0,0 +1,99 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of child objects of schema object. The list is read-only for code
+ * outside of the schema package, so it can be returned from getters without
+ * wrapping. Items are added using {@link #append(java.lang.Object)} until the
+ * list is frozen, then the backing array is trimmed to exact size and the list
+ * cannot be modified anymore.
+ *
+ * @param <E> type of items
+ *
+ * @author fordfrog
+ */
+final class ChildList<E> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * Empty array shared by all empty lists.
+     */
+    private static final Object[] EMPTY = new Object[0];
+    /**
+     * Array of items, can contain unused slots at the end until the list is
+     * frozen.
+     */
+    private Object[] items = EMPTY;
+    /**
+     * Number of items in the list.
+     */
+    private int size;
+    /**
+     * Whether the list is frozen.
+     */
+    private boolean frozen;
+
+    /**
+     * Appends {@code item} to the end of the list.
+     *
+     * @param item item
+     *
+     * @throws IllegalStateException Thrown if the list is frozen.
+     */
+    void append(final E item) {
+        if (frozen) {
+            throw new IllegalStateException("Schema object is frozen");
+        }
+
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size < 4 ? 4 : size * 2);
+        }
+
+        items[size++] = item;
+    }
+
+    /**
+     * Trims the list to exact size and prevents further modifications.
+     */
+    void freeze() {
+        if (!frozen) {
+            if (items.length != size) {
+                items = size == 0 ? EMPTY : Arrays.copyOf(items, size);
+            }
+
+            frozen = true;
+        }
+    }
+
+    /**
+     * Getter for {@link #frozen}.
+     *
+     * @return {@link #frozen}
+     */
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+
+        return (E) items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
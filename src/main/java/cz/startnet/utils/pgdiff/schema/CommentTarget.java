@@ -0,0 +1,147 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+/**
+ * Immutable identity of an object a comment is attached to. Targets are
+ * used as keys of comments collected while loading the dump, see
+ * {@link PgDatabase#addPendingComment(CommentTarget, String)}, and of
+ * comments compared when diffing schemas.
+ *
+ * @author fordfrog
+ */
+public final class CommentTarget {
+
+    /**
+     * Kind of member of the owning object the comment is attached to.
+     */
+    public enum Member {
+
+        /**
+         * Comment is attached to the owning object itself.
+         */
+        NONE,
+        /**
+         * Column of table or view.
+         */
+        COLUMN,
+        /**
+         * Trigger of table or view.
+         */
+        TRIGGER,
+        /**
+         * Constraint of table.
+         */
+        CONSTRAINT,
+        /**
+         * Rule of table or view.
+         */
+        RULE
+    }
+    /**
+     * Key of the owning object, null for database.
+     */
+    private final ObjectKey owner;
+    /**
+     * Kind of the member.
+     */
+    private final Member member;
+    /**
+     * Name of the member, null if {@link #member} is {@link Member#NONE}.
+     */
+    private final String memberName;
+    /**
+     * Cached hash code.
+     */
+    private final int hash;
+
+    /**
+     * Creates a new instance of CommentTarget.
+     *
+     * @param owner      {@link #owner}
+     * @param member     {@link #member}
+     * @param memberName {@link #memberName}
+     */
+    public CommentTarget(final ObjectKey owner, final Member member,
+            final String memberName) {
+        this.owner = owner;
+        this.member = member;
+        this.memberName = memberName;
+
+        int result = owner == null ? 0 : owner.hashCode();
+        result = 31 * result + member.hashCode();
+        result = 31 * result + (memberName == null ? 0 : memberName.hashCode());
+        hash = result;
+    }
+
+    /**
+     * Creates target of the object itself.
+     *
+     * @param owner key of the object, null for database
+     *
+     * @return target of the object
+     */
+    public static CommentTarget of(final ObjectKey owner) {
+        return new CommentTarget(owner, Member.NONE, null);
+    }
+
+    /**
+     * Getter for {@link #owner}.
+     *
+     * @return {@link #owner}
+     */
+    public ObjectKey getOwner() {
+        return owner;
+    }
+
+    /**
+     * Getter for {@link #member}.
+     *
+     * @return {@link #member}
+     */
+    public Member getMember() {
+        return member;
+    }
+
+    /**
+     * Getter for {@link #memberName}.
+     *
+     * @return {@link #memberName}
+     */
+    public String getMemberName() {
+        return memberName;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof CommentTarget)) {
+            return false;
+        }
+
+        final CommentTarget target = (CommentTarget) object;
+
+        return hash == target.hash && member == target.member
+                && (owner == null ? target.owner == null
+                : owner.equals(target.owner))
+                && (memberName == null ? target.memberName == null
+                : memberName.equals(target.memberName));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final String ownerName = owner == null ? "DATABASE" : owner.toString();
+
+        return member == Member.NONE ? ownerName
+                : member + " " + memberName + " ON " + ownerName;
+    }
+}
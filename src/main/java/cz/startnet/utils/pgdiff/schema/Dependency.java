@@ -0,0 +1,114 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+/**
+ * Edge of {@link DependencyGraph}, dependency of one database object on
+ * another.
+ *
+ * @author fordfrog
+ */
+public final class Dependency {
+
+    /**
+     * Kind of the dependency.
+     */
+    public enum Kind {
+
+        /**
+         * View reads table or another view in its query.
+         */
+        VIEW_READS_RELATION,
+        /**
+         * Column default value calls nextval on sequence.
+         */
+        DEFAULT_USES_SEQUENCE,
+        /**
+         * Trigger executes function.
+         */
+        TRIGGER_CALLS_FUNCTION,
+        /**
+         * Foreign key references table.
+         */
+        FOREIGN_KEY_REFERENCES_TABLE
+    }
+    /**
+     * Kind of the dependency.
+     */
+    private final Kind kind;
+    /**
+     * Key of the dependent object. For dependencies of columns, triggers and
+     * constraints this is the key of relation that owns them.
+     */
+    private final ObjectKey from;
+    /**
+     * Key of the object {@link #from} depends on.
+     */
+    private final ObjectKey to;
+    /**
+     * Name of the column, trigger or constraint that introduces the
+     * dependency, null for view dependencies.
+     */
+    private final String member;
+
+    /**
+     * Creates a new instance of Dependency.
+     *
+     * @param kind   {@link #kind}
+     * @param from   {@link #from}
+     * @param to     {@link #to}
+     * @param member {@link #member}
+     */
+    public Dependency(final Kind kind, final ObjectKey from,
+            final ObjectKey to, final String member) {
+        this.kind = kind;
+        this.from = from;
+        this.to = to;
+        this.member = member;
+    }
+
+    /**
+     * Getter for {@link #kind}.
+     *
+     * @return {@link #kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Getter for {@link #from}.
+     *
+     * @return {@link #from}
+     */
+    public ObjectKey getFrom() {
+        return from;
+    }
+
+    /**
+     * Getter for {@link #to}.
+     *
+     * @return {@link #to}
+     */
+    public ObjectKey getTo() {
+        return to;
+    }
+
+    /**
+     * Getter for {@link #member}.
+     *
+     * @return {@link #member}
+     */
+    public String getMember() {
+        return member;
+    }
+
+    @Override
+    public String toString() {
+        return from + (member == null ? "" : " (" + member + ')') + ' '
+                + kind + ' ' + to;
+    }
+}
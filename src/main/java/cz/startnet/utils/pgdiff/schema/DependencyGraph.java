@@ -0,0 +1,437 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graph of dependencies between objects of a loaded database. Edges are
+ * indexed both by dependent object and by the object depended on, so both
+ * "what does X depend on" and "what depends on X" are answered in time
+ * proportional to the number of returned edges. Objects are identified by
+ * {@link ObjectKey}, dependencies that cannot be resolved to an object of the
+ * database (like references to system catalogs) are not recorded.
+ *
+ * @author fordfrog
+ */
+public final class DependencyGraph {
+
+    /**
+     * All edges of the graph in the order they were found.
+     */
+    private final List<Dependency> dependencies = new ArrayList<Dependency>();
+    /**
+     * Edges indexed by key of the dependent object.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<ObjectKey, List<Dependency>> forward =
+            new HashMap<ObjectKey, List<Dependency>>();
+    /**
+     * Edges indexed by key of the object depended on.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<ObjectKey, List<Dependency>> reverse =
+            new HashMap<ObjectKey, List<Dependency>>();
+    /**
+     * Database the graph is built for.
+     */
+    private final PgDatabase database;
+
+    /**
+     * Creates a new instance of DependencyGraph and collects dependencies of
+     * all objects in the {@code database}.
+     *
+     * @param database loaded database
+     */
+    DependencyGraph(final PgDatabase database) {
+        this.database = database;
+
+        for (final PgSchema schema : database.getSchemas()) {
+            for (final PgRelation rel : schema.getRels()) {
+                final ObjectKey relKey = new ObjectKey(ObjectKey.Kind.RELATION,
+                        schema.getName(), rel.getName());
+
+                if (rel instanceof PgView) {
+                    addViewDependencies(schema, (PgView) rel, relKey);
+                }
+
+                for (final PgColumn column : rel.getColumns()) {
+                    addDefaultDependency(schema, column, relKey);
+                }
+
+                for (final PgTrigger trigger : rel.getTriggers()) {
+                    addTriggerDependency(schema, trigger, relKey);
+                }
+
+                if (rel instanceof PgTable) {
+                    for (final PgConstraint constraint
+                            : ((PgTable) rel).getConstraints()) {
+                        addForeignKeyDependency(schema, constraint, relKey);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all dependencies in the database.
+     *
+     * @return unmodifiable list of dependencies
+     */
+    public List<Dependency> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * Returns dependencies of the object with given {@code key}, that is
+     * edges from the object.
+     *
+     * @param key key of the object
+     *
+     * @return unmodifiable list of dependencies, empty if there are none
+     */
+    public List<Dependency> getDependencies(final ObjectKey key) {
+        return getEdges(forward, key);
+    }
+
+    /**
+     * Returns dependencies on the object with given {@code key}, that is
+     * edges to the object.
+     *
+     * @param key key of the object
+     *
+     * @return unmodifiable list of dependencies, empty if there are none
+     */
+    public List<Dependency> getDependents(final ObjectKey key) {
+        return getEdges(reverse, key);
+    }
+
+    /**
+     * Adds dependencies of view on relations named in its query. Every
+     * identifier outside of string literals and comments that names an
+     * existing relation is considered to be a dependency, so the result can
+     * contain extra edges (like column names matching names of relations).
+     * Unqualified names are resolved in schema of the view and then in
+     * default schema.
+     *
+     * @param schema schema of the view
+     * @param view   view
+     * @param key    key of the view
+     */
+    private void addViewDependencies(final PgSchema schema, final PgView view,
+            final ObjectKey key) {
+        final String query = view.getQuery();
+
+        if (query == null) {
+            return;
+        }
+
+        final Set<ObjectKey> targets = new LinkedHashSet<ObjectKey>();
+        final int length = query.length();
+        int pos = 0;
+
+        while (pos < length) {
+            final char chr = query.charAt(pos);
+
+            if (chr == '\'') {
+                pos = skipQuoted(query, pos);
+            } else if (chr == '-' && pos + 1 < length
+                    && query.charAt(pos + 1) == '-') {
+                final int end = query.indexOf('\n', pos);
+                pos = end == -1 ? length : end;
+            } else if (chr == '"' || Character.isLetter(chr) || chr == '_') {
+                final List<String> names = new ArrayList<String>(2);
+                pos = parseName(query, pos, names);
+
+                final ObjectKey target = resolve(ObjectKey.Kind.RELATION,
+                        schema, names);
+
+                if (target != null && !target.equals(key)) {
+                    targets.add(target);
+                }
+            } else {
+                pos++;
+            }
+        }
+
+        for (final ObjectKey target : targets) {
+            add(new Dependency(Dependency.Kind.VIEW_READS_RELATION, key,
+                    target, null));
+        }
+    }
+
+    /**
+     * Adds dependency of column on sequence used in nextval call in its
+     * default value.
+     *
+     * @param schema schema of the relation
+     * @param column column
+     * @param key    key of the relation
+     */
+    private void addDefaultDependency(final PgSchema schema,
+            final PgColumn column, final ObjectKey key) {
+        final String defaultValue = column.getDefaultValue();
+
+        if (defaultValue == null) {
+            return;
+        }
+
+        final int start = defaultValue.toLowerCase(Locale.ENGLISH).
+                indexOf("nextval('");
+
+        if (start == -1) {
+            return;
+        }
+
+        final int nameStart = start + "nextval('".length();
+        final int nameEnd = defaultValue.indexOf('\'', nameStart);
+
+        if (nameEnd == -1) {
+            return;
+        }
+
+        final List<String> names = new ArrayList<String>(2);
+        parseName(defaultValue.substring(nameStart, nameEnd), 0, names);
+
+        final ObjectKey target =
+                resolve(ObjectKey.Kind.SEQUENCE, schema, names);
+
+        if (target != null) {
+            add(new Dependency(Dependency.Kind.DEFAULT_USES_SEQUENCE, key,
+                    target, column.getName()));
+        }
+    }
+
+    /**
+     * Adds dependency of trigger on function it executes.
+     *
+     * @param schema  schema of the relation
+     * @param trigger trigger
+     * @param key     key of the relation
+     */
+    private void addTriggerDependency(final PgSchema schema,
+            final PgTrigger trigger, final ObjectKey key) {
+        final String function = trigger.getFunction();
+
+        if (function == null) {
+            return;
+        }
+
+        final List<String> names = new ArrayList<String>(2);
+        parseName(function.trim(), 0, names);
+
+        if (names.isEmpty()) {
+            return;
+        }
+
+        final String name = names.get(names.size() - 1);
+        final String[] schemaNames = names.size() > 1
+                ? new String[]{names.get(names.size() - 2)}
+                : new String[]{schema.getName(),
+                    database.getDefaultSchema().getName()};
+
+        for (final String schemaName : schemaNames) {
+            final ObjectKey target =
+                    ObjectKey.function(schemaName, name, name + "()");
+
+            if (database.getObject(target) != null) {
+                add(new Dependency(Dependency.Kind.TRIGGER_CALLS_FUNCTION,
+                        key, target, trigger.getName()));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds dependency of foreign key on referenced table.
+     *
+     * @param schema     schema of the table
+     * @param constraint constraint
+     * @param key        key of the table
+     */
+    private void addForeignKeyDependency(final PgSchema schema,
+            final PgConstraint constraint, final ObjectKey key) {
+        if (constraint.getKind() != PgConstraint.Kind.FOREIGN_KEY
+                || constraint.getReferencedTable() == null) {
+            return;
+        }
+
+        final List<String> names = new ArrayList<String>(2);
+        parseName(constraint.getReferencedTable(), 0, names);
+
+        final ObjectKey target =
+                resolve(ObjectKey.Kind.RELATION, schema, names);
+
+        if (target != null) {
+            add(new Dependency(Dependency.Kind.FOREIGN_KEY_REFERENCES_TABLE,
+                    key, target, constraint.getName()));
+        }
+    }
+
+    /**
+     * Resolves optionally schema qualified name to key of existing object.
+     *
+     * @param kind   kind of the object
+     * @param schema schema used for unqualified names before default schema
+     * @param names  parts of the name
+     *
+     * @return key of the object or null if there is no such object
+     */
+    private ObjectKey resolve(final ObjectKey.Kind kind, final PgSchema schema,
+            final List<String> names) {
+        if (names.isEmpty()) {
+            return null;
+        }
+
+        final String name = names.get(names.size() - 1);
+
+        if (names.size() > 1) {
+            final ObjectKey key =
+                    new ObjectKey(kind, names.get(names.size() - 2), name);
+
+            return database.getObject(key) == null ? null : key;
+        }
+
+        ObjectKey key = new ObjectKey(kind, schema.getName(), name);
+
+        if (database.getObject(key) == null) {
+            key = new ObjectKey(kind, database.getDefaultSchema().getName(),
+                    name);
+        }
+
+        return database.getObject(key) == null ? null : key;
+    }
+
+    /**
+     * Adds edge to the graph and to both indexes.
+     *
+     * @param dependency dependency
+     */
+    private void add(final Dependency dependency) {
+        dependencies.add(dependency);
+        addEdge(forward, dependency.getFrom(), dependency);
+        addEdge(reverse, dependency.getTo(), dependency);
+    }
+
+    /**
+     * Adds edge to the index.
+     *
+     * @param index      index
+     * @param key        key the edge is indexed by
+     * @param dependency dependency
+     */
+    private static void addEdge(final Map<ObjectKey, List<Dependency>> index,
+            final ObjectKey key, final Dependency dependency) {
+        List<Dependency> edges = index.get(key);
+
+        if (edges == null) {
+            edges = new ArrayList<Dependency>(2);
+            index.put(key, edges);
+        }
+
+        edges.add(dependency);
+    }
+
+    /**
+     * Returns edges indexed by given key.
+     *
+     * @param index index
+     * @param key   key
+     *
+     * @return unmodifiable list of edges
+     */
+    private static List<Dependency> getEdges(
+            final Map<ObjectKey, List<Dependency>> index, final ObjectKey key) {
+        final List<Dependency> edges = index.get(key);
+
+        return edges == null ? Collections.<Dependency>emptyList()
+                : Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Parses dot separated name starting at {@code pos}. Unquoted parts are
+     * converted to lower case, quotes are removed from quoted parts.
+     *
+     * @param text  text
+     * @param pos   position of the first character of the name
+     * @param names list the parts of the name are added to
+     *
+     * @return position after the name
+     */
+    private static int parseName(final String text, final int pos,
+            final List<String> names) {
+        int result = pos;
+
+        while (result < text.length()) {
+            final char chr = text.charAt(result);
+
+            if (chr == '"') {
+                final int end = skipQuoted(text, result);
+                names.add(text.substring(result + 1,
+                        Math.max(result + 1, end - 1)).replace("\"\"", "\""));
+                result = end;
+            } else if (Character.isLetter(chr) || chr == '_') {
+                final int start = result;
+
+                while (result < text.length()
+                        && (Character.isLetterOrDigit(text.charAt(result))
+                        || text.charAt(result) == '_'
+                        || text.charAt(result) == '$')) {
+                    result++;
+                }
+
+                names.add(text.substring(start, result).
+                        toLowerCase(Locale.ENGLISH));
+            } else {
+                break;
+            }
+
+            if (result < text.length() && text.charAt(result) == '.') {
+                result++;
+            } else {
+                break;
+            }
+        }
+
+        return result == pos ? pos + 1 : result;
+    }
+
+    /**
+     * Skips quoted identifier or string starting at {@code pos}.
+     *
+     * @param text text
+     * @param pos  position of the opening quote
+     *
+     * @return position after the closing quote
+     */
+    private static int skipQuoted(final String text, final int pos) {
+        final char quote = text.charAt(pos);
+        int result = pos + 1;
+
+        while (result < text.length()) {
+            if (text.charAt(result) == quote) {
+                if (result + 1 < text.length()
+                        && text.charAt(result + 1) == quote) {
+                    result += 2;
+                    continue;
+                }
+
+                return result + 1;
+            }
+
+            result++;
+        }
+
+        return result;
+    }
+}
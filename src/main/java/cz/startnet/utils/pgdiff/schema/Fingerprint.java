@@ -0,0 +1,151 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Builder of structural fingerprints of schema objects. Values are fed into
+ * a SHA-1 digest one by one, each of them prefixed with its length so that
+ * different sequences of values cannot produce the same input. Fingerprints
+ * of child objects are added as plain values, so that the fingerprint of a
+ * parent object changes whenever any of its children changes. Schema objects
+ * compute their fingerprint on the first call of {@code getFingerprint()}
+ * and cache it, so an object must not be modified afterwards. The
+ * fingerprint covers every attribute the diff compares, therefore equal
+ * fingerprints mean that the objects do not differ and their diff can be
+ * skipped.
+ *
+ * @author fordfrog
+ */
+final class Fingerprint {
+
+    /**
+     * Hexadecimal digits used for conversion of the digest to string.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    /**
+     * Message digest used to compute the fingerprint.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Creates a new instance of Fingerprint.
+     *
+     * @param kind kind of the object the fingerprint is computed for, so that
+     *             objects of different kinds do not share fingerprints
+     */
+    Fingerprint(final String kind) {
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        add(kind);
+    }
+
+    /**
+     * Adds string value to the fingerprint.
+     *
+     * @param value value, can be null
+     *
+     * @return this fingerprint
+     */
+    Fingerprint add(final String value) {
+        if (value == null) {
+            addLength(-1);
+        } else {
+            final byte[] bytes;
+
+            try {
+                bytes = value.getBytes("UTF-8");
+            } catch (final UnsupportedEncodingException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            addLength(bytes.length);
+            digest.update(bytes);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds boolean value to the fingerprint.
+     *
+     * @param value value
+     *
+     * @return this fingerprint
+     */
+    Fingerprint add(final boolean value) {
+        digest.update((byte) (value ? 1 : 0));
+
+        return this;
+    }
+
+    /**
+     * Adds integer value to the fingerprint.
+     *
+     * @param value value, can be null
+     *
+     * @return this fingerprint
+     */
+    Fingerprint add(final Integer value) {
+        return add(value == null ? null : value.toString());
+    }
+
+    /**
+     * Adds list of strings to the fingerprint.
+     *
+     * @param values values
+     *
+     * @return this fingerprint
+     */
+    Fingerprint add(final List<String> values) {
+        addLength(values.size());
+
+        for (final String value : values) {
+            add(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the computed fingerprint as hexadecimal string. The
+     * fingerprint cannot be used anymore after this method is called.
+     *
+     * @return fingerprint
+     */
+    @Override
+    public String toString() {
+        final byte[] bytes = digest.digest();
+        final char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Adds length prefix to the digest.
+     *
+     * @param length length
+     */
+    private void addLength(final int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+}
@@ -0,0 +1,506 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Approximate heap footprint of a loaded database. The footprint is computed
+ * by walking the model and estimating sizes of reached objects, assuming
+ * 64-bit JVM with compressed references and compact strings. Every object is
+ * counted once, at the first place it is reached, and attributed to the
+ * schema it belongs to, to the kind (class) of the nearest schema object
+ * that holds it and to a category (strings, bodies of functions and views,
+ * collections and other objects).
+ *
+ * @author fordfrog
+ */
+public final class HeapFootprint {
+
+    /**
+     * Category of strings.
+     */
+    public static final String CATEGORY_STRINGS = "strings";
+    /**
+     * Category of function bodies and view queries.
+     */
+    public static final String CATEGORY_BODIES = "bodies";
+    /**
+     * Category of collections and arrays.
+     */
+    public static final String CATEGORY_COLLECTIONS = "collections";
+    /**
+     * Category of other objects.
+     */
+    public static final String CATEGORY_OBJECTS = "objects";
+    /**
+     * Schema name used for objects held directly by the database.
+     */
+    private static final String DATABASE_BUCKET = "";
+    /**
+     * Size of object header.
+     */
+    private static final int HEADER = 12;
+    /**
+     * Size of array header.
+     */
+    private static final int ARRAY_HEADER = 16;
+    /**
+     * Size of reference.
+     */
+    private static final int REFERENCE = 4;
+    /**
+     * Cache of instance fields of classes.
+     */
+    private static final Map<Class<?>, Field[]> FIELDS =
+            new HashMap<Class<?>, Field[]>(64);
+    /**
+     * Package of schema classes.
+     */
+    private static final String SCHEMA_PACKAGE =
+            HeapFootprint.class.getPackage().getName();
+    /**
+     * Objects that have been counted already.
+     */
+    private final Map<Object, Boolean> visited =
+            new IdentityHashMap<Object, Boolean>(1024);
+    /**
+     * Bytes by schema name, objects held directly by database are stored
+     * under empty name.
+     */
+    private final Map<String, Long> bytesBySchema =
+            new LinkedHashMap<String, Long>();
+    /**
+     * Bytes by kind of schema object.
+     */
+    private final Map<String, Long> bytesByKind = new TreeMap<String, Long>();
+    /**
+     * Bytes by category.
+     */
+    private final Map<String, Long> bytesByCategory =
+            new TreeMap<String, Long>();
+    /**
+     * Total bytes.
+     */
+    private long totalBytes;
+
+    /**
+     * Creates a new instance of HeapFootprint.
+     */
+    private HeapFootprint() {
+    }
+
+    /**
+     * Computes footprint of the {@code database}.
+     *
+     * @param database loaded database
+     *
+     * @return footprint
+     */
+    public static HeapFootprint measure(final PgDatabase database) {
+        final HeapFootprint footprint = new HeapFootprint();
+        footprint.visited.put(database, Boolean.TRUE);
+
+        for (final PgSchema schema : database.getSchemas()) {
+            footprint.visited.put(schema, Boolean.TRUE);
+        }
+
+        for (final PgSchema schema : database.getSchemas()) {
+            footprint.walk(schema, schema.getName(), "PgSchema");
+        }
+
+        footprint.walk(database, DATABASE_BUCKET, "PgDatabase");
+
+        return footprint;
+    }
+
+    /**
+     * Getter for {@link #totalBytes}.
+     *
+     * @return {@link #totalBytes}
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns bytes by schema name. Objects held directly by the database
+     * (like registry of objects or ignored statements) are reported under
+     * empty name.
+     *
+     * @return unmodifiable map of bytes by schema name
+     */
+    public Map<String, Long> getBytesBySchema() {
+        return Collections.unmodifiableMap(bytesBySchema);
+    }
+
+    /**
+     * Returns bytes by kind (class name) of schema object.
+     *
+     * @return unmodifiable map of bytes by kind
+     */
+    public Map<String, Long> getBytesByKind() {
+        return Collections.unmodifiableMap(bytesByKind);
+    }
+
+    /**
+     * Returns bytes by category, see CATEGORY_* constants.
+     *
+     * @return unmodifiable map of bytes by category
+     */
+    public Map<String, Long> getBytesByCategory() {
+        return Collections.unmodifiableMap(bytesByCategory);
+    }
+
+    /**
+     * Prints the footprint, one value per line.
+     *
+     * @param writer writer
+     */
+    public void print(final PrintWriter writer) {
+        writer.print("total: ");
+        writer.println(totalBytes);
+
+        for (final Map.Entry<String, Long> entry : bytesByCategory.entrySet()) {
+            writer.print("category ");
+            writer.print(entry.getKey());
+            writer.print(": ");
+            writer.println(entry.getValue());
+        }
+
+        for (final Map.Entry<String, Long> entry : bytesByKind.entrySet()) {
+            writer.print("kind ");
+            writer.print(entry.getKey());
+            writer.print(": ");
+            writer.println(entry.getValue());
+        }
+
+        for (final Map.Entry<String, Long> entry : bytesBySchema.entrySet()) {
+            if (DATABASE_BUCKET.equals(entry.getKey())) {
+                writer.print("database: ");
+            } else {
+                writer.print("schema ");
+                writer.print(entry.getKey());
+                writer.print(": ");
+            }
+
+            writer.println(entry.getValue());
+        }
+    }
+
+    /**
+     * Walks object graph starting at {@code root}, which has been registered
+     * as visited already. Objects are processed iteratively to not overflow
+     * the stack on long chains.
+     *
+     * @param root   root object
+     * @param schema schema the objects are attributed to
+     * @param kind   kind of the root
+     */
+    private void walk(final Object root, final String schema,
+            final String kind) {
+        final List<Object[]> stack = new ArrayList<Object[]>(64);
+        stack.add(new Object[]{root, kind, null});
+
+        while (!stack.isEmpty()) {
+            final Object[] item = stack.remove(stack.size() - 1);
+            final Object object = item[0];
+            final Class<?> type = object.getClass();
+            String objectKind = (String) item[1];
+
+            if (object instanceof String) {
+                add(schema, objectKind,
+                        "body".equals(item[2]) || "query".equals(item[2])
+                        ? CATEGORY_BODIES : CATEGORY_STRINGS,
+                        getStringSize((String) object));
+            } else if (type.isArray()) {
+                add(schema, objectKind, CATEGORY_COLLECTIONS,
+                        getArraySize(object, stack, objectKind));
+            } else if (object instanceof Collection<?>
+                    && !(object instanceof ChildList<?>)) {
+                add(schema, objectKind, CATEGORY_COLLECTIONS,
+                        getCollectionSize((Collection<?>) object, stack,
+                        objectKind));
+            } else if (object instanceof Map<?, ?>) {
+                add(schema, objectKind, CATEGORY_COLLECTIONS,
+                        getMapSize((Map<?, ?>) object, stack, objectKind));
+            } else if (type.getName().startsWith("cz.startnet.")) {
+                if (SCHEMA_PACKAGE.equals(type.getPackage().getName())
+                        && !(object instanceof ChildList<?>)) {
+                    objectKind = type.getName().substring(
+                            SCHEMA_PACKAGE.length() + 1);
+                }
+
+                add(schema, objectKind, object instanceof ChildList<?>
+                        ? CATEGORY_COLLECTIONS : CATEGORY_OBJECTS,
+                        getObjectSize(object, stack, objectKind));
+            } else {
+                add(schema, objectKind, CATEGORY_OBJECTS,
+                        object instanceof Long || object instanceof Double
+                        ? 24 : 16);
+            }
+        }
+    }
+
+    /**
+     * Pushes object to the stack unless it is null, enum constant (shared by
+     * all instances) or has been visited.
+     *
+     * @param stack     stack
+     * @param object    object
+     * @param kind      kind of the nearest schema object
+     * @param fieldName name of the field the object is held in, or null
+     */
+    private void push(final List<Object[]> stack, final Object object,
+            final String kind, final String fieldName) {
+        if (object != null && !(object instanceof Enum<?>)
+                && !visited.containsKey(object)) {
+            visited.put(object, Boolean.TRUE);
+            stack.add(new Object[]{object, kind, fieldName});
+        }
+    }
+
+    /**
+     * Returns shallow size of object of a class from this application and
+     * pushes objects referenced by its fields to the stack.
+     *
+     * @param object object
+     * @param stack  stack
+     * @param kind   kind of the object
+     *
+     * @return shallow size of the object
+     */
+    private long getObjectSize(final Object object, final List<Object[]> stack,
+            final String kind) {
+        long size = HEADER;
+
+        for (final Field field : getFields(object.getClass())) {
+            final Class<?> fieldType = field.getType();
+
+            if (fieldType == long.class || fieldType == double.class) {
+                size += 8;
+            } else if (fieldType == int.class || fieldType == float.class) {
+                size += 4;
+            } else if (fieldType == short.class || fieldType == char.class) {
+                size += 2;
+            } else if (fieldType == byte.class || fieldType == boolean.class) {
+                size += 1;
+            } else {
+                size += REFERENCE;
+
+                try {
+                    push(stack, field.get(object), kind, field.getName());
+                } catch (final IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+
+        return align(size);
+    }
+
+    /**
+     * Returns size of array and pushes its elements to the stack.
+     *
+     * @param array array
+     * @param stack stack
+     * @param kind  kind of the nearest schema object
+     *
+     * @return size of the array
+     */
+    private long getArraySize(final Object array, final List<Object[]> stack,
+            final String kind) {
+        final Class<?> componentType = array.getClass().getComponentType();
+        final int length = Array.getLength(array);
+
+        if (!componentType.isPrimitive()) {
+            for (final Object element : (Object[]) array) {
+                push(stack, element, kind, null);
+            }
+
+            return align(ARRAY_HEADER + (long) length * REFERENCE);
+        } else if (componentType == long.class
+                || componentType == double.class) {
+            return align(ARRAY_HEADER + (long) length * 8);
+        } else if (componentType == int.class
+                || componentType == float.class) {
+            return align(ARRAY_HEADER + (long) length * 4);
+        } else if (componentType == short.class
+                || componentType == char.class) {
+            return align(ARRAY_HEADER + (long) length * 2);
+        } else {
+            return align(ARRAY_HEADER + length);
+        }
+    }
+
+    /**
+     * Returns estimated size of JDK collection and pushes its elements to the
+     * stack.
+     *
+     * @param collection collection
+     * @param stack      stack
+     * @param kind       kind of the nearest schema object
+     *
+     * @return estimated size of the collection
+     */
+    private long getCollectionSize(final Collection<?> collection,
+            final List<Object[]> stack, final String kind) {
+        for (final Object element : collection) {
+            push(stack, element, kind, null);
+        }
+
+        if (collection instanceof Set<?>) {
+            return 16 + getHashTableSize(collection.size());
+        }
+
+        return 24 + align(ARRAY_HEADER + (long) collection.size() * REFERENCE);
+    }
+
+    /**
+     * Returns estimated size of JDK map and pushes its keys and values to the
+     * stack.
+     *
+     * @param map   map
+     * @param stack stack
+     * @param kind  kind of the nearest schema object
+     *
+     * @return estimated size of the map
+     */
+    private long getMapSize(final Map<?, ?> map, final List<Object[]> stack,
+            final String kind) {
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            push(stack, entry.getKey(), kind, null);
+            push(stack, entry.getValue(), kind, null);
+        }
+
+        return getHashTableSize(map.size());
+    }
+
+    /**
+     * Returns estimated size of hash map with given number of entries.
+     *
+     * @param entries number of entries
+     *
+     * @return estimated size
+     */
+    private static long getHashTableSize(final int entries) {
+        int capacity = 16;
+
+        while (capacity * 3 / 4 < entries) {
+            capacity *= 2;
+        }
+
+        return 48 + align(ARRAY_HEADER + (long) capacity * REFERENCE)
+                + 32L * entries;
+    }
+
+    /**
+     * Returns size of string including its backing array.
+     *
+     * @param string string
+     *
+     * @return size of the string
+     */
+    private static long getStringSize(final String string) {
+        int bytesPerChar = 1;
+
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xff) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+
+        return 24 + align(ARRAY_HEADER + (long) string.length() * bytesPerChar);
+    }
+
+    /**
+     * Adds bytes to all counters.
+     *
+     * @param schema   schema name
+     * @param kind     kind of schema object
+     * @param category category
+     * @param bytes    number of bytes
+     */
+    private void add(final String schema, final String kind,
+            final String category, final long bytes) {
+        increment(bytesBySchema, schema, bytes);
+        increment(bytesByKind, kind, bytes);
+        increment(bytesByCategory, category, bytes);
+        totalBytes += bytes;
+    }
+
+    /**
+     * Increments value in the map.
+     *
+     * @param map   map
+     * @param key   key
+     * @param bytes number of bytes to add
+     */
+    private static void increment(final Map<String, Long> map,
+            final String key, final long bytes) {
+        final Long value = map.get(key);
+        map.put(key, value == null ? bytes : value + bytes);
+    }
+
+    /**
+     * Aligns size to 8 bytes.
+     *
+     * @param size size
+     *
+     * @return aligned size
+     */
+    private static long align(final long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Returns instance fields of the class and its super classes that belong
+     * to this application.
+     *
+     * @param type class
+     *
+     * @return fields
+     */
+    private static Field[] getFields(final Class<?> type) {
+        synchronized (FIELDS) {
+            Field[] fields = FIELDS.get(type);
+
+            if (fields == null) {
+                final List<Field> list = new ArrayList<Field>(16);
+
+                for (Class<?> cls = type; cls != null
+                        && cls.getName().startsWith("cz.startnet.");
+                        cls = cls.getSuperclass()) {
+                    for (final Field field : cls.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers())) {
+                            field.setAccessible(true);
+                            list.add(field);
+                        }
+                    }
+                }
+
+                fields = list.toArray(new Field[list.size()]);
+                FIELDS.put(type, fields);
+            }
+
+            return fields;
+        }
+    }
+}
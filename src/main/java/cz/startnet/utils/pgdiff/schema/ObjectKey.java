@@ -0,0 +1,216 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+/**
+ * Immutable identity of a database object. Keys are used to look up objects
+ * across the whole database in {@link PgDatabase#getObject(ObjectKey)} and
+ * can be used as stable identities of objects in caches and reports.
+ *
+ * @author fordfrog
+ */
+public final class ObjectKey {
+
+    /**
+     * Kind of the object.
+     */
+    public enum Kind {
+
+        /**
+         * Schema.
+         */
+        SCHEMA,
+        /**
+         * Table or view.
+         */
+        RELATION,
+        /**
+         * Sequence.
+         */
+        SEQUENCE,
+        /**
+         * Function.
+         */
+        FUNCTION,
+        /**
+         * Type.
+         */
+        TYPE,
+        /**
+         * Index.
+         */
+        INDEX,
+        /**
+         * Primary key constraint.
+         */
+        PRIMARY_KEY
+    }
+    /**
+     * Kind of the object.
+     */
+    private final Kind kind;
+    /**
+     * Name of the schema the object belongs to, null for schemas.
+     */
+    private final String schema;
+    /**
+     * Name of the object.
+     */
+    private final String name;
+    /**
+     * Signature of the object, set only for functions.
+     */
+    private final String signature;
+    /**
+     * Cached hash code.
+     */
+    private final int hash;
+
+    /**
+     * Creates a new instance of ObjectKey.
+     *
+     * @param kind      {@link #kind}
+     * @param schema    {@link #schema}
+     * @param name      {@link #name}
+     * @param signature {@link #signature}
+     */
+    public ObjectKey(final Kind kind, final String schema, final String name,
+            final String signature) {
+        this.kind = kind;
+        this.schema = schema;
+        this.name = name;
+        this.signature = signature;
+
+        int result = kind.hashCode();
+        result = 31 * result + (schema == null ? 0 : schema.hashCode());
+        result = 31 * result + (name == null ? 0 : name.hashCode());
+        result = 31 * result + (signature == null ? 0 : signature.hashCode());
+        hash = result;
+    }
+
+    /**
+     * Creates a new instance of ObjectKey for object without signature.
+     *
+     * @param kind   {@link #kind}
+     * @param schema {@link #schema}
+     * @param name   {@link #name}
+     */
+    public ObjectKey(final Kind kind, final String schema, final String name) {
+        this(kind, schema, name, null);
+    }
+
+    /**
+     * Creates key of schema.
+     *
+     * @param name schema name
+     *
+     * @return key of the schema
+     */
+    public static ObjectKey schema(final String name) {
+        return new ObjectKey(Kind.SCHEMA, null, name);
+    }
+
+    /**
+     * Creates key of function.
+     *
+     * @param schema    schema name
+     * @param name      function name
+     * @param signature function signature as returned by
+     *                  {@link PgFunction#getSignature()}
+     *
+     * @return key of the function
+     */
+    public static ObjectKey function(final String schema, final String name,
+            final String signature) {
+        return new ObjectKey(Kind.FUNCTION, schema, name, signature);
+    }
+
+    /**
+     * Getter for {@link #kind}.
+     *
+     * @return {@link #kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Getter for {@link #schema}.
+     *
+     * @return {@link #schema}
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Getter for {@link #name}.
+     *
+     * @return {@link #name}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for {@link #signature}.
+     *
+     * @return {@link #signature}
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof ObjectKey)) {
+            return false;
+        }
+
+        final ObjectKey key = (ObjectKey) object;
+
+        return hash == key.hash && kind == key.kind
+                && equalsNullable(schema, key.schema)
+                && equalsNullable(name, key.name)
+                && equalsNullable(signature, key.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sbString = new StringBuilder(50);
+        sbString.append(kind);
+        sbString.append(' ');
+
+        if (schema != null) {
+            sbString.append(schema);
+            sbString.append('.');
+        }
+
+        sbString.append(signature == null ? name : signature);
+
+        return sbString.toString();
+    }
+
+    /**
+     * Compares two strings that might be null.
+     *
+     * @param left  left string
+     * @param right right string
+     *
+     * @return true if both strings are null or equal, otherwise false
+     */
+    private static boolean equalsNullable(final String left,
+            final String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+}
@@ -6,11 +6,9 @@
 package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * Stores column information.
@@ -19,21 +17,6 @@ import java.util.regex.Pattern;
  */
 public class PgColumn {
 
-    /**
-     * Pattern for parsing NULL arguments.
-     */
-    private static final Pattern PATTERN_NULL =
-            Pattern.compile("^(.+)[\\s]+NULL$", Pattern.CASE_INSENSITIVE);
-    /**
-     * Pattern for parsing NOT NULL arguments.
-     */
-    private static final Pattern PATTERN_NOT_NULL = Pattern.compile(
-            "^(.+)[\\s]+NOT[\\s]+NULL$", Pattern.CASE_INSENSITIVE);
-    /**
-     * Pattern for parsing DEFAULT value.
-     */
-    private static final Pattern PATTERN_DEFAULT = Pattern.compile(
-            "^(.+)[\\s]+DEFAULT[\\s]+(.+)$", Pattern.CASE_INSENSITIVE);
     /**
      * Specific statistics value.
      */
@@ -50,6 +33,33 @@ public class PgColumn {
      * Type of the column. Always null for view columns.
      */
     private String type;
+    /**
+     * Canonical descriptor of {@link #type}.
+     */
+    private PgDataType dataType;
+    /**
+     * Collation of the column.
+     */
+    private String collation;
+    /**
+     * Identity generation of the column, either ALWAYS or BY DEFAULT, or null
+     * if the column is not identity column.
+     */
+    private String identity;
+    /**
+     * Sequence options of identity column including parentheses.
+     */
+    private String identityOptions;
+    /**
+     * Generation expression of generated column including parentheses.
+     */
+    private String generatedExpression;
+    /**
+     * Column constraints and other clauses of the column definition that are
+     * not parsed into other attributes, such as inline REFERENCES or CHECK,
+     * kept as written.
+     */
+    private String constraints;
     /**
      * Determines whether null value is allowed in the column.
      */
@@ -65,8 +75,18 @@ public class PgColumn {
     /**
      * List of privileges defined on the table.
      */
+    private final ChildList<PgColumnPrivilege> privileges =
+            new ChildList<PgColumnPrivilege>();
+    /**
+     * Privileges indexed by role name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgColumnPrivilege> privileges = new ArrayList<PgColumnPrivilege>();
+    private final Map<String, PgColumnPrivilege> privilegesByRole =
+            new HashMap<String, PgColumnPrivilege>();
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgColumn object.
@@ -125,7 +145,13 @@ public class PgColumn {
         final StringBuilder sbDefinition = new StringBuilder(100);
         sbDefinition.append(PgDiffUtils.getQuotedName(name));
         sbDefinition.append(' ');
-        sbDefinition.append(type);
+        sbDefinition.append(getTypeWithCollation());
+
+        if (generatedExpression != null) {
+            sbDefinition.append(" GENERATED ALWAYS AS ");
+            sbDefinition.append(generatedExpression);
+            sbDefinition.append(" STORED");
+        }
 
         if (defaultValue != null && !defaultValue.isEmpty()) {
             sbDefinition.append(" DEFAULT ");
@@ -143,6 +169,22 @@ public class PgColumn {
             sbDefinition.append(" NOT NULL");
         }
 
+        if (identity != null) {
+            sbDefinition.append(" GENERATED ");
+            sbDefinition.append(identity);
+            sbDefinition.append(" AS IDENTITY");
+
+            if (identityOptions != null) {
+                sbDefinition.append(' ');
+                sbDefinition.append(identityOptions);
+            }
+        }
+
+        if (constraints != null) {
+            sbDefinition.append(' ');
+            sbDefinition.append(constraints);
+        }
+
         return sbDefinition.toString();
     }
 
@@ -225,6 +267,7 @@ public class PgColumn {
      */
     public void setType(final String type) {
         this.type = type;
+        dataType = PgDataType.valueOf(type);
     }
 
     /**
@@ -236,52 +279,215 @@ public class PgColumn {
         return type;
     }
 
+    /**
+     * Getter for {@link #dataType}.
+     *
+     * @return {@link #dataType}
+     */
+    public PgDataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Checks whether the column has the same data type and collation as
+     * {@code column}. Aliases of the same type are considered to be equal.
+     *
+     * @param column column to compare with
+     *
+     * @return true if type and collation are the same, otherwise false
+     */
+    public boolean hasSameType(final PgColumn column) {
+        return dataType == column.dataType && (collation == null
+                ? column.collation == null
+                : collation.equals(column.collation));
+    }
+
     public void addPrivilege(final PgColumnPrivilege privilege) {
-        privileges.add(privilege);
+        privileges.append(privilege);
+
+        if (!privilegesByRole.containsKey(privilege.getRoleName())) {
+            privilegesByRole.put(privilege.getRoleName(), privilege);
+        }
     }
 
     public PgColumnPrivilege getPrivilege(final String roleName) {
-        for (PgColumnPrivilege privilege : privileges) {
-            if (privilege.getRoleName().equals(roleName)) {
-                return privilege;
-            }
-        }
-        return null;
+        return privilegesByRole.get(roleName);
     }
 
     public List<PgColumnPrivilege> getPrivileges() {
-        return Collections.unmodifiableList(privileges);
+        return privileges;
     }
 
     /**
-     * Parses definition of the column
+     * Returns type of the column followed by COLLATE clause if collation is
+     * set.
      *
-     * @param definition definition of the column
+     * @return type with collation
      */
-    public void parseDefinition(final String definition) {
-        String string = definition;
+    public String getTypeWithCollation() {
+        return collation == null ? type : type + " COLLATE " + collation;
+    }
 
-        Matcher matcher = PATTERN_NOT_NULL.matcher(string);
+    /**
+     * Getter for {@link #collation}.
+     *
+     * @return {@link #collation}
+     */
+    public String getCollation() {
+        return collation;
+    }
 
-        if (matcher.matches()) {
-            string = matcher.group(1).trim();
-            setNullValue(false);
-        } else {
-            matcher = PATTERN_NULL.matcher(string);
+    /**
+     * Setter for {@link #collation}.
+     *
+     * @param collation {@link #collation}
+     */
+    public void setCollation(final String collation) {
+        this.collation = collation;
+    }
 
-            if (matcher.matches()) {
-                string = matcher.group(1).trim();
-                setNullValue(true);
-            }
+    /**
+     * Getter for {@link #identity}.
+     *
+     * @return {@link #identity}
+     */
+    public String getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Setter for {@link #identity}.
+     *
+     * @param identity {@link #identity}
+     */
+    public void setIdentity(final String identity) {
+        this.identity = identity;
+    }
+
+    /**
+     * Getter for {@link #identityOptions}.
+     *
+     * @return {@link #identityOptions}
+     */
+    public String getIdentityOptions() {
+        return identityOptions;
+    }
+
+    /**
+     * Setter for {@link #identityOptions}.
+     *
+     * @param identityOptions {@link #identityOptions}
+     */
+    public void setIdentityOptions(final String identityOptions) {
+        this.identityOptions = identityOptions;
+    }
+
+    /**
+     * Getter for {@link #generatedExpression}.
+     *
+     * @return {@link #generatedExpression}
+     */
+    public String getGeneratedExpression() {
+        return generatedExpression;
+    }
+
+    /**
+     * Setter for {@link #generatedExpression}.
+     *
+     * @param generatedExpression {@link #generatedExpression}
+     */
+    public void setGeneratedExpression(final String generatedExpression) {
+        this.generatedExpression = generatedExpression;
+    }
+
+    /**
+     * Getter for {@link #constraints}.
+     *
+     * @return {@link #constraints}
+     */
+    public String getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Setter for {@link #constraints}.
+     *
+     * @param constraints {@link #constraints}
+     */
+    public void setConstraints(final String constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Freezes the column, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        privileges.freeze();
+    }
+
+    /**
+     * Returns the column with qualifiers of schema renamed in its definition.
+     *
+     * @param rename schema rename
+     *
+     * @return this column if its definition does not contain the renamed
+     *         qualifier, otherwise its copy
+     */
+    PgColumn withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(type) && !rename.isQualified(defaultValue)
+                && !rename.isQualified(identityOptions)
+                && !rename.isQualified(generatedExpression)
+                && !rename.isQualified(constraints)) {
+            return this;
+        }
+
+        final PgColumn copy = new PgColumn(name);
+
+        if (type != null) {
+            copy.setType(rename.apply(type));
+        }
+
+        copy.statistics = statistics;
+        copy.defaultValue = rename.apply(defaultValue);
+        copy.collation = collation;
+        copy.identity = identity;
+        copy.identityOptions = rename.apply(identityOptions);
+        copy.generatedExpression = rename.apply(generatedExpression);
+        copy.constraints = rename.apply(constraints);
+        copy.nullValue = nullValue;
+        copy.storage = storage;
+        copy.comment = comment;
+
+        for (final PgColumnPrivilege privilege : privileges) {
+            copy.addPrivilege(privilege);
         }
 
-        matcher = PATTERN_DEFAULT.matcher(string);
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the column, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder = new Fingerprint("COLUMN").add(name).
+                    add(dataType == null ? null : dataType.toString()).
+                    add(collation).add(defaultValue).
+                    add(nullValue).add(identity).add(identityOptions).
+                    add(generatedExpression).add(constraints).
+                    add(statistics).add(storage).add(comment);
+
+            for (final PgColumnPrivilege privilege : privileges) {
+                builder.add(privilege.getRoleName()).
+                        add(privilege.getGrants()).
+                        add(privilege.getGrantOptions());
+            }
 
-        if (matcher.matches()) {
-            string = matcher.group(1).trim();
-            setDefaultValue(matcher.group(2).trim());
+            fingerprint = builder.toString();
         }
 
-        setType(string);
+        return fingerprint;
     }
 }
@@ -6,7 +6,7 @@
 package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * Stores table constraint information.
@@ -16,14 +16,77 @@ import java.util.regex.Pattern;
 public class PgConstraint {
 
     /**
-     * Pattern for checking whether the constraint is PRIMARY KEY constraint.
+     * Kind of the constraint.
      */
-    private static final Pattern PATTERN_PRIMARY_KEY =
-            Pattern.compile(".*PRIMARY[\\s]+KEY.*", Pattern.CASE_INSENSITIVE);
+    public enum Kind {
+
+        /**
+         * PRIMARY KEY constraint.
+         */
+        PRIMARY_KEY,
+        /**
+         * UNIQUE constraint.
+         */
+        UNIQUE,
+        /**
+         * FOREIGN KEY constraint.
+         */
+        FOREIGN_KEY,
+        /**
+         * CHECK constraint.
+         */
+        CHECK,
+        /**
+         * EXCLUDE constraint.
+         */
+        EXCLUDE,
+        /**
+         * Constraint of other or unrecognized kind.
+         */
+        OTHER
+    }
     /**
      * Definition of the constraint.
      */
     private String definition;
+    /**
+     * Kind of the constraint, parsed from {@link #definition}.
+     */
+    private Kind kind = Kind.OTHER;
+    /**
+     * Names of constrained columns.
+     */
+    private final ChildList<String> columns = new ChildList<String>();
+    /**
+     * Possibly schema qualified name of the table referenced by FOREIGN KEY
+     * constraint.
+     */
+    private String referencedTable;
+    /**
+     * Names of columns referenced by FOREIGN KEY constraint.
+     */
+    private final ChildList<String> referencedColumns =
+            new ChildList<String>();
+    /**
+     * MATCH type of FOREIGN KEY constraint.
+     */
+    private String matchType;
+    /**
+     * ON DELETE action of FOREIGN KEY constraint.
+     */
+    private String onDelete;
+    /**
+     * ON UPDATE action of FOREIGN KEY constraint.
+     */
+    private String onUpdate;
+    /**
+     * Whether the constraint is DEFERRABLE.
+     */
+    private boolean deferrable;
+    /**
+     * Whether the constraint is INITIALLY DEFERRED.
+     */
+    private boolean initiallyDeferred;
     /**
      * Name of the constraint.
      */
@@ -36,6 +99,10 @@ public class PgConstraint {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgConstraint object.
@@ -154,7 +221,169 @@ public class PgConstraint {
      * @return true if this is a PRIMARY KEY constraint, otherwise false
      */
     public boolean isPrimaryKeyConstraint() {
-        return PATTERN_PRIMARY_KEY.matcher(definition).matches();
+        return kind == Kind.PRIMARY_KEY;
+    }
+
+    /**
+     * Getter for {@link #kind}.
+     *
+     * @return {@link #kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Setter for {@link #kind}.
+     *
+     * @param kind {@link #kind}
+     */
+    public void setKind(final Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Getter for {@link #columns}. The list cannot be modified.
+     *
+     * @return {@link #columns}
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Adds {@code column} to the list of constrained columns.
+     *
+     * @param column column name
+     */
+    public void addColumn(final String column) {
+        columns.append(column);
+    }
+
+    /**
+     * Getter for {@link #referencedTable}.
+     *
+     * @return {@link #referencedTable}
+     */
+    public String getReferencedTable() {
+        return referencedTable;
+    }
+
+    /**
+     * Setter for {@link #referencedTable}.
+     *
+     * @param referencedTable {@link #referencedTable}
+     */
+    public void setReferencedTable(final String referencedTable) {
+        this.referencedTable = referencedTable;
+    }
+
+    /**
+     * Getter for {@link #referencedColumns}. The list cannot be modified.
+     *
+     * @return {@link #referencedColumns}
+     */
+    public List<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+
+    /**
+     * Adds {@code column} to the list of referenced columns.
+     *
+     * @param column column name
+     */
+    public void addReferencedColumn(final String column) {
+        referencedColumns.append(column);
+    }
+
+    /**
+     * Getter for {@link #matchType}.
+     *
+     * @return {@link #matchType}
+     */
+    public String getMatchType() {
+        return matchType;
+    }
+
+    /**
+     * Setter for {@link #matchType}.
+     *
+     * @param matchType {@link #matchType}
+     */
+    public void setMatchType(final String matchType) {
+        this.matchType = matchType;
+    }
+
+    /**
+     * Getter for {@link #onDelete}.
+     *
+     * @return {@link #onDelete}
+     */
+    public String getOnDelete() {
+        return onDelete;
+    }
+
+    /**
+     * Setter for {@link #onDelete}.
+     *
+     * @param onDelete {@link #onDelete}
+     */
+    public void setOnDelete(final String onDelete) {
+        this.onDelete = onDelete;
+    }
+
+    /**
+     * Getter for {@link #onUpdate}.
+     *
+     * @return {@link #onUpdate}
+     */
+    public String getOnUpdate() {
+        return onUpdate;
+    }
+
+    /**
+     * Setter for {@link #onUpdate}.
+     *
+     * @param onUpdate {@link #onUpdate}
+     */
+    public void setOnUpdate(final String onUpdate) {
+        this.onUpdate = onUpdate;
+    }
+
+    /**
+     * Getter for {@link #deferrable}.
+     *
+     * @return {@link #deferrable}
+     */
+    public boolean isDeferrable() {
+        return deferrable;
+    }
+
+    /**
+     * Setter for {@link #deferrable}.
+     *
+     * @param deferrable {@link #deferrable}
+     */
+    public void setDeferrable(final boolean deferrable) {
+        this.deferrable = deferrable;
+    }
+
+    /**
+     * Getter for {@link #initiallyDeferred}.
+     *
+     * @return {@link #initiallyDeferred}
+     */
+    public boolean isInitiallyDeferred() {
+        return initiallyDeferred;
+    }
+
+    /**
+     * Setter for {@link #initiallyDeferred}.
+     *
+     * @param initiallyDeferred {@link #initiallyDeferred}
+     */
+    public void setInitiallyDeferred(final boolean initiallyDeferred) {
+        this.initiallyDeferred = initiallyDeferred;
     }
 
     /**
@@ -208,4 +437,64 @@ public class PgConstraint {
         return (getClass().getName() + "|" + definition + "|" + name + "|"
                 + tableName).hashCode();
     }
+
+    /**
+     * Freezes the constraint, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        columns.freeze();
+        referencedColumns.freeze();
+    }
+
+    /**
+     * Returns the constraint with qualifiers of schema renamed in its
+     * definition.
+     *
+     * @param rename schema rename
+     *
+     * @return this constraint if its definition does not contain the renamed
+     *         qualifier, otherwise its copy
+     */
+    PgConstraint withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(definition)) {
+            return this;
+        }
+
+        final PgConstraint copy = new PgConstraint(name);
+        copy.definition = rename.apply(definition);
+        copy.kind = kind;
+        copy.referencedTable = rename.apply(referencedTable);
+        copy.matchType = matchType;
+        copy.onDelete = onDelete;
+        copy.onUpdate = onUpdate;
+        copy.deferrable = deferrable;
+        copy.initiallyDeferred = initiallyDeferred;
+        copy.tableName = tableName;
+        copy.comment = comment;
+
+        for (final String column : columns) {
+            copy.columns.append(column);
+        }
+
+        for (final String column : referencedColumns) {
+            copy.referencedColumns.append(column);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the constraint, see
+     * {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = new Fingerprint("CONSTRAINT").add(name).
+                    add(tableName).add(definition).add(comment).toString();
+        }
+
+        return fingerprint;
+    }
 }
@@ -0,0 +1,391 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical descriptor of a data type. Descriptors are interned, different
+ * spellings of the same type (like {@code int4} and {@code integer} or
+ * {@code varchar(10)} and {@code character varying(10)}) resolve to the same
+ * instance, so data types can be compared by identity.
+ *
+ * @author fordfrog
+ */
+public final class PgDataType {
+
+    /**
+     * Map of built-in type aliases to their canonical names.
+     */
+    private static final Map<String, String> ALIASES =
+            new HashMap<String, String>(32);
+    /**
+     * Interned descriptors by type text as it was written.
+     */
+    private static final ConcurrentMap<String, PgDataType> BY_TEXT =
+            new ConcurrentHashMap<String, PgDataType>(256);
+    /**
+     * Interned descriptors by canonical type text.
+     */
+    private static final ConcurrentMap<String, PgDataType> BY_CANONICAL =
+            new ConcurrentHashMap<String, PgDataType>(256);
+
+    static {
+        ALIASES.put("int", "integer");
+        ALIASES.put("int4", "integer");
+        ALIASES.put("int8", "bigint");
+        ALIASES.put("int2", "smallint");
+        ALIASES.put("bool", "boolean");
+        ALIASES.put("varchar", "character varying");
+        ALIASES.put("char", "character");
+        ALIASES.put("float", "double precision");
+        ALIASES.put("float8", "double precision");
+        ALIASES.put("float4", "real");
+        ALIASES.put("decimal", "numeric");
+        ALIASES.put("timestamptz", "timestamp with time zone");
+        ALIASES.put("timestamp", "timestamp without time zone");
+        ALIASES.put("timetz", "time with time zone");
+        ALIASES.put("time", "time without time zone");
+        ALIASES.put("varbit", "bit varying");
+    }
+    /**
+     * Canonical name of the base type, without modifiers and array
+     * dimensions.
+     */
+    private final String baseType;
+    /**
+     * Type modifiers including parentheses, or null if there are no
+     * modifiers.
+     */
+    private final String modifiers;
+    /**
+     * Number of array dimensions, zero if the type is not an array.
+     */
+    private final int arrayDimensions;
+    /**
+     * Canonical text of the data type.
+     */
+    private final String canonical;
+
+    /**
+     * Creates a new instance of PgDataType.
+     *
+     * @param baseType        {@link #baseType}
+     * @param modifiers       {@link #modifiers}
+     * @param arrayDimensions {@link #arrayDimensions}
+     * @param canonical       {@link #canonical}
+     */
+    private PgDataType(final String baseType, final String modifiers,
+            final int arrayDimensions, final String canonical) {
+        this.baseType = baseType;
+        this.modifiers = modifiers;
+        this.arrayDimensions = arrayDimensions;
+        this.canonical = canonical;
+    }
+
+    /**
+     * Returns interned descriptor of the data type written as {@code text}.
+     *
+     * @param text data type as written in the dump
+     *
+     * @return descriptor or null if {@code text} is null
+     */
+    public static PgDataType valueOf(final String text) {
+        if (text == null) {
+            return null;
+        }
+
+        final PgDataType cached = BY_TEXT.get(text);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final PgDataType parsed = parse(text);
+        final PgDataType interned =
+                BY_CANONICAL.putIfAbsent(parsed.canonical, parsed);
+        final PgDataType result = interned == null ? parsed : interned;
+        BY_TEXT.putIfAbsent(text, result);
+
+        return result;
+    }
+
+    /**
+     * Getter for {@link #baseType}.
+     *
+     * @return {@link #baseType}
+     */
+    public String getBaseType() {
+        return baseType;
+    }
+
+    /**
+     * Getter for {@link #modifiers}.
+     *
+     * @return {@link #modifiers}
+     */
+    public String getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * Getter for {@link #arrayDimensions}.
+     *
+     * @return {@link #arrayDimensions}
+     */
+    public int getArrayDimensions() {
+        return arrayDimensions;
+    }
+
+    /**
+     * Returns canonical text of the data type.
+     *
+     * @return canonical text
+     */
+    @Override
+    public String toString() {
+        return canonical;
+    }
+
+    /**
+     * Parses data type text into a new descriptor. Unquoted parts are
+     * converted to lower case and whitespace is collapsed, first parenthesized
+     * group is taken as modifiers and bracket pairs (and ARRAY keyword) as
+     * array dimensions. Built-in aliases are then resolved to canonical
+     * names.
+     *
+     * @param text data type text
+     *
+     * @return descriptor
+     */
+    private static PgDataType parse(final String text) {
+        final StringBuilder sbName = new StringBuilder(text.length());
+        final StringBuilder sbModifiers = new StringBuilder(10);
+        int dimensions = 0;
+        boolean quoted = false;
+        int pos = 0;
+
+        while (pos < text.length()) {
+            final char chr = text.charAt(pos);
+
+            if (chr == '"') {
+                final int end = skipQuoted(text, pos);
+                sbName.append(text, pos, end);
+                quoted = true;
+                pos = end;
+            } else if (chr == '(') {
+                final int end = skipGroup(text, pos);
+
+                if (sbModifiers.length() == 0) {
+                    appendModifiers(sbModifiers, text, pos, end);
+                }
+
+                pos = end;
+            } else if (chr == '[') {
+                final int end = text.indexOf(']', pos);
+                dimensions++;
+                pos = end == -1 ? text.length() : end + 1;
+            } else if (Character.isWhitespace(chr)) {
+                if (sbName.length() > 0
+                        && sbName.charAt(sbName.length() - 1) != ' ') {
+                    sbName.append(' ');
+                }
+
+                pos++;
+            } else {
+                sbName.append(Character.toLowerCase(chr));
+                pos++;
+            }
+        }
+
+        String name = sbName.toString().trim();
+
+        if (name.endsWith(" array")) {
+            name = name.substring(0, name.length() - 6);
+            dimensions = Math.max(dimensions, 1);
+        }
+
+        String mods = sbModifiers.length() == 0 ? null : sbModifiers.toString();
+
+        if (!quoted) {
+            if (name.startsWith("pg_catalog.")) {
+                name = name.substring(11);
+            }
+
+            if ("float".equals(name) && mods != null) {
+                name = parsePrecision(mods) <= 24 ? "real" : "double precision";
+                mods = null;
+            } else if ("bpchar".equals(name) && mods != null) {
+                // bare bpchar has unlimited length, unlike bare character
+                name = "character";
+            } else if (ALIASES.containsKey(name)) {
+                name = ALIASES.get(name);
+            }
+
+            if (mods == null
+                    && ("character".equals(name) || "bit".equals(name))) {
+                mods = "(1)";
+            } else if (mods != null && "numeric".equals(name)
+                    && mods.indexOf(',') == -1) {
+                mods = mods.substring(0, mods.length() - 1) + ",0)";
+            }
+        }
+
+        return new PgDataType(name, mods, dimensions,
+                getCanonical(name, mods, dimensions));
+    }
+
+    /**
+     * Builds canonical text of the data type. Modifiers of time and timestamp
+     * types are placed before the time zone specification, the same way
+     * PostgreSQL formats them.
+     *
+     * @param name       canonical base type name
+     * @param modifiers  modifiers or null
+     * @param dimensions number of array dimensions
+     *
+     * @return canonical text
+     */
+    private static String getCanonical(final String name,
+            final String modifiers, final int dimensions) {
+        final StringBuilder sbCanonical = new StringBuilder(name.length() + 10);
+
+        if (modifiers != null && (name.startsWith("timestamp ")
+                || name.startsWith("time "))) {
+            final int space = name.indexOf(' ');
+            sbCanonical.append(name, 0, space);
+            sbCanonical.append(modifiers);
+            sbCanonical.append(name, space, name.length());
+        } else {
+            sbCanonical.append(name);
+
+            if (modifiers != null) {
+                sbCanonical.append(modifiers);
+            }
+        }
+
+        for (int i = 0; i < dimensions; i++) {
+            sbCanonical.append("[]");
+        }
+
+        return sbCanonical.toString();
+    }
+
+    /**
+     * Appends modifiers group without whitespace and in lower case (except
+     * quoted parts) to {@code sbModifiers}.
+     *
+     * @param sbModifiers string builder
+     * @param text        data type text
+     * @param start       position of the opening parenthesis
+     * @param end         position after the closing parenthesis
+     */
+    private static void appendModifiers(final StringBuilder sbModifiers,
+            final String text, final int start, final int end) {
+        int pos = start;
+
+        while (pos < end) {
+            final char chr = text.charAt(pos);
+
+            if (chr == '"' || chr == '\'') {
+                final int quotedEnd = skipQuoted(text, pos);
+                sbModifiers.append(text, pos, quotedEnd);
+                pos = quotedEnd;
+            } else {
+                if (!Character.isWhitespace(chr)) {
+                    sbModifiers.append(Character.toLowerCase(chr));
+                }
+
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Parses precision from {@code (p)} modifiers of float type.
+     *
+     * @param modifiers modifiers
+     *
+     * @return precision or {@link Integer#MAX_VALUE} if the modifiers are not
+     *         a number
+     */
+    private static int parsePrecision(final String modifiers) {
+        try {
+            return Integer.parseInt(
+                    modifiers.substring(1, modifiers.length() - 1));
+        } catch (final NumberFormatException ex) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Skips parenthesized group starting at {@code pos}, including nested
+     * groups and quoted parts.
+     *
+     * @param text text
+     * @param pos  position of the opening parenthesis
+     *
+     * @return position after the closing parenthesis
+     */
+    private static int skipGroup(final String text, final int pos) {
+        int depth = 0;
+        int result = pos;
+
+        while (result < text.length()) {
+            final char chr = text.charAt(result);
+
+            if (chr == '"' || chr == '\'') {
+                result = skipQuoted(text, result);
+                continue;
+            } else if (chr == '(') {
+                depth++;
+            } else if (chr == ')') {
+                depth--;
+            }
+
+            result++;
+
+            if (depth == 0) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Skips quoted identifier or string starting at {@code pos}.
+     *
+     * @param text text
+     * @param pos  position of the opening quote
+     *
+     * @return position after the closing quote
+     */
+    private static int skipQuoted(final String text, final int pos) {
+        final char quote = text.charAt(pos);
+        int result = pos + 1;
+
+        while (result < text.length()) {
+            if (text.charAt(result) == quote) {
+                if (result + 1 < text.length()
+                        && text.charAt(result + 1) == quote) {
+                    result += 2;
+                    continue;
+                }
+
+                return result + 1;
+            }
+
+            result++;
+        }
+
+        return result;
+    }
+}
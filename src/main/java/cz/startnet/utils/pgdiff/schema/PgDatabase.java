@@ -5,9 +5,11 @@
  */
 package cz.startnet.utils.pgdiff.schema;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Stores database information.
@@ -19,12 +21,26 @@ public class PgDatabase {
     /**
      * List of database schemas.
      */
-    private final List<PgSchema> schemas = new ArrayList<PgSchema>(1);
+    private final ChildList<PgSchema> schemas = new ChildList<PgSchema>();
     /**
      * Array of ignored statements.
      */
+    private final ChildList<String> ignoredStatements = new ChildList<String>();
+    /**
+     * Registry of all schemas and schema objects of the database. If there
+     * are more objects with the same key, the first one added is stored.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<ObjectKey, Object> objects =
+            new HashMap<ObjectKey, Object>();
+    /**
+     * Comments collected while loading the dump that have not been attached
+     * to their objects yet. Later comment of the same object replaces the
+     * earlier one. Null values are comments removed by COMMENT ... IS NULL.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<String> ignoredStatements = new ArrayList<String>();
+    private final Map<CommentTarget, String> pendingComments =
+            new LinkedHashMap<CommentTarget, String>();
     /**
      * Current default schema.
      */
@@ -33,12 +49,24 @@ public class PgDatabase {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
+    /**
+     * Cached dependency graph, see {@link #getDependencyGraph()}.
+     */
+    private DependencyGraph dependencyGraph;
+    /**
+     * Whether the database has been frozen, see {@link #freeze()}.
+     */
+    private boolean frozen;
 
     /**
      * Creates a new PgDatabase object.
      */
     public PgDatabase() {
-        schemas.add(new PgSchema("public"));
+        addSchema(new PgSchema("public"));
         defaultSchema = schemas.get(0);
     }
 
@@ -84,7 +112,7 @@ public class PgDatabase {
      * @return {@link #ignoredStatements}
      */
     public List<String> getIgnoredStatements() {
-        return Collections.unmodifiableList(ignoredStatements);
+        return ignoredStatements;
     }
 
     /**
@@ -93,7 +121,7 @@ public class PgDatabase {
      * @param ignoredStatement ignored statement
      */
     public void addIgnoredStatement(final String ignoredStatement) {
-        ignoredStatements.add(ignoredStatement);
+        ignoredStatements.append(ignoredStatement);
     }
 
     /**
@@ -109,13 +137,7 @@ public class PgDatabase {
             return getDefaultSchema();
         }
 
-        for (final PgSchema schema : schemas) {
-            if (schema.getName().equals(name)) {
-                return schema;
-            }
-        }
-
-        return null;
+        return (PgSchema) objects.get(ObjectKey.schema(name));
     }
 
     /**
@@ -124,7 +146,7 @@ public class PgDatabase {
      * @return {@link #schemas}
      */
     public List<PgSchema> getSchemas() {
-        return Collections.unmodifiableList(schemas);
+        return schemas;
     }
 
     /**
@@ -133,6 +155,243 @@ public class PgDatabase {
      * @param schema schema
      */
     public void addSchema(final PgSchema schema) {
-        schemas.add(schema);
+        schemas.append(schema);
+        register(ObjectKey.schema(schema.getName()), schema);
+        schema.setDatabase(this);
+    }
+
+    /**
+     * Records comment of object given by {@code target}. The comment is
+     * attached to the object once the whole dump is loaded, so the object
+     * does not need to exist yet.
+     *
+     * @param target  target of the comment
+     * @param comment comment, null if the comment is removed
+     */
+    public void addPendingComment(final CommentTarget target,
+            final String comment) {
+        pendingComments.put(target, comment);
+    }
+
+    /**
+     * Getter for {@link #pendingComments}. The map cannot be modified.
+     *
+     * @return {@link #pendingComments}
+     */
+    public Map<CommentTarget, String> getPendingComments() {
+        return Collections.unmodifiableMap(pendingComments);
+    }
+
+    /**
+     * Removes all pending comments, called once they have been attached.
+     */
+    public void clearPendingComments() {
+        pendingComments.clear();
+    }
+
+    /**
+     * Returns object registered with given {@code key}.
+     *
+     * @param key key of the object
+     *
+     * @return found object or null if no such object has been found
+     */
+    public Object getObject(final ObjectKey key) {
+        return objects.get(key);
+    }
+
+    /**
+     * Finds table/view in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the table/view
+     *
+     * @return found relation or null if no such relation has been found
+     */
+    public PgRelation getRelation(final String schemaName,
+            final String name) {
+        return (PgRelation) objects.get(new ObjectKey(
+                ObjectKey.Kind.RELATION, resolveSchemaName(schemaName), name));
+    }
+
+    /**
+     * Finds table in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the table
+     *
+     * @return found table or null if no such table has been found
+     */
+    public PgTable getTable(final String schemaName, final String name) {
+        final PgRelation rel = getRelation(schemaName, name);
+
+        return rel instanceof PgTable ? (PgTable) rel : null;
+    }
+
+    /**
+     * Finds view in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the view
+     *
+     * @return found view or null if no such view has been found
+     */
+    public PgView getView(final String schemaName, final String name) {
+        final PgRelation rel = getRelation(schemaName, name);
+
+        return rel instanceof PgView ? (PgView) rel : null;
+    }
+
+    /**
+     * Finds sequence in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the sequence
+     *
+     * @return found sequence or null if no such sequence has been found
+     */
+    public PgSequence getSequence(final String schemaName,
+            final String name) {
+        return (PgSequence) objects.get(new ObjectKey(
+                ObjectKey.Kind.SEQUENCE, resolveSchemaName(schemaName), name));
+    }
+
+    /**
+     * Finds function in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the function
+     * @param signature  signature of the function
+     *
+     * @return found function or null if no such function has been found
+     */
+    public PgFunction getFunction(final String schemaName, final String name,
+            final String signature) {
+        return (PgFunction) objects.get(ObjectKey.function(
+                resolveSchemaName(schemaName), name, signature));
+    }
+
+    /**
+     * Finds type in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the type
+     *
+     * @return found type or null if no such type has been found
+     */
+    public PgType getType(final String schemaName, final String name) {
+        return (PgType) objects.get(new ObjectKey(
+                ObjectKey.Kind.TYPE, resolveSchemaName(schemaName), name));
+    }
+
+    /**
+     * Finds index in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the index
+     *
+     * @return found index or null if no such index has been found
+     */
+    public PgIndex getIndex(final String schemaName, final String name) {
+        return (PgIndex) objects.get(new ObjectKey(
+                ObjectKey.Kind.INDEX, resolveSchemaName(schemaName), name));
+    }
+
+    /**
+     * Finds primary key in given schema.
+     *
+     * @param schemaName schema name or null which means default schema
+     * @param name       name of the primary key
+     *
+     * @return found primary key or null if no such primary key has been found
+     */
+    public PgConstraint getPrimaryKey(final String schemaName,
+            final String name) {
+        return (PgConstraint) objects.get(new ObjectKey(
+                ObjectKey.Kind.PRIMARY_KEY, resolveSchemaName(schemaName),
+                name));
+    }
+
+    /**
+     * Returns structural fingerprint of the database, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder =
+                    new Fingerprint("DATABASE").add(comment);
+
+            for (final PgSchema schema : schemas) {
+                builder.add(schema.getFingerprint());
+            }
+
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Returns graph of dependencies between objects of the database. The
+     * graph is built on the first call and cached, so the database must not
+     * be modified afterwards.
+     *
+     * @return dependency graph
+     */
+    public synchronized DependencyGraph getDependencyGraph() {
+        if (dependencyGraph == null) {
+            dependencyGraph = new DependencyGraph(this);
+        }
+
+        return dependencyGraph;
+    }
+
+    /**
+     * Freezes the database after it has been loaded. Lists of child objects
+     * of all schema objects are trimmed to exact size, no more objects can be
+     * added to them and fingerprints are computed. Frozen database can be
+     * shared between threads as long as none of its objects is modified.
+     * Freezing already frozen database does nothing, so the database must
+     * be frozen before it is shared.
+     */
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+
+        for (final PgSchema schema : schemas) {
+            schema.freeze();
+        }
+
+        schemas.freeze();
+        ignoredStatements.freeze();
+        getFingerprint();
+        frozen = true;
+    }
+
+    /**
+     * Registers {@code object} under given {@code key} unless there already
+     * is an object registered under the key.
+     *
+     * @param key    key of the object
+     * @param object object
+     */
+    void register(final ObjectKey key, final Object object) {
+        if (!objects.containsKey(key)) {
+            objects.put(key, object);
+        }
+    }
+
+    /**
+     * Returns {@code schemaName} or name of default schema if
+     * {@code schemaName} is null.
+     *
+     * @param schemaName schema name or null
+     *
+     * @return schema name
+     */
+    private String resolveSchemaName(final String schemaName) {
+        return schemaName == null ? defaultSchema.getName() : schemaName;
     }
 }
@@ -6,8 +6,6 @@
 package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -25,8 +23,7 @@ public class PgFunction {
     /**
      * List of arguments.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<Argument> arguments = new ArrayList<Argument>();
+    private final ChildList<Argument> arguments = new ChildList<Argument>();
     /**
      * Whole definition of the function from RETURNS keyword.
      */
@@ -35,6 +32,10 @@ public class PgFunction {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Getter for {@link #comment}.
@@ -182,7 +183,7 @@ public class PgFunction {
      * @return {@link #arguments}
      */
     public List<Argument> getArguments() {
-        return Collections.unmodifiableList(arguments);
+        return arguments;
     }
 
     /**
@@ -191,7 +192,7 @@ public class PgFunction {
      * @param argument argument
      */
     public void addArgument(final Argument argument) {
-        arguments.add(argument);
+        arguments.append(argument);
     }
 
     /**
@@ -312,6 +313,36 @@ public class PgFunction {
         return sbString.toString().hashCode();
     }
 
+    /**
+     * Freezes the function, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        arguments.freeze();
+    }
+
+    /**
+     * Returns structural fingerprint of the function, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder =
+                    new Fingerprint("FUNCTION").add(name).add(body).
+                    add(comment);
+
+            for (final Argument argument : arguments) {
+                builder.add(argument.getMode()).add(argument.getName()).
+                        add(argument.getDataType()).
+                        add(argument.getDefaultExpression());
+            }
+
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
+    }
+
     /**
      * Function argument information.
      */
@@ -34,6 +34,10 @@ public class PgIndex {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgIndex object.
@@ -211,4 +215,40 @@ public class PgIndex {
     public void setUnique(final boolean unique) {
         this.unique = unique;
     }
+
+    /**
+     * Returns the index with qualifiers of schema renamed in its definition.
+     *
+     * @param rename schema rename
+     *
+     * @return this index if its definition does not contain the renamed
+     *         qualifier, otherwise its copy
+     */
+    PgIndex withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(definition)) {
+            return this;
+        }
+
+        final PgIndex copy = new PgIndex(name);
+        copy.definition = rename.apply(definition);
+        copy.tableName = tableName;
+        copy.unique = unique;
+        copy.comment = comment;
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the index, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = new Fingerprint("INDEX").add(name).add(tableName).
+                    add(definition).add(unique).add(comment).toString();
+        }
+
+        return fingerprint;
+    }
 }
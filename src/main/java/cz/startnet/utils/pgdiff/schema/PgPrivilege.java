@@ -0,0 +1,192 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+/**
+ * Privileges granted to a role on a database object. Privileges are stored as
+ * bit masks, one bit per privilege, with separate masks for granted privileges
+ * and for privileges granted with grant option. Two privileges can then be
+ * compared by XOR of their masks.
+ *
+ * @author fordfrog
+ */
+public abstract class PgPrivilege {
+
+    /**
+     * Name of the role.
+     */
+    private final String roleName;
+    /**
+     * Names of privileges applicable to the object, index of the name is the
+     * bit of the privilege in the masks. The order is the order in which
+     * privileges are listed in SQL.
+     */
+    private final String[] privilegeNames;
+    /**
+     * Mask of all privileges applicable to the object.
+     */
+    private final int allMask;
+    /**
+     * Mask of granted privileges.
+     */
+    private int grants;
+    /**
+     * Mask of privileges granted with grant option.
+     */
+    private int grantOptions;
+
+    /**
+     * Creates a new instance of PgPrivilege.
+     *
+     * @param roleName       {@link #roleName}
+     * @param privilegeNames {@link #privilegeNames}
+     */
+    protected PgPrivilege(final String roleName,
+            final String[] privilegeNames) {
+        this.roleName = roleName;
+        this.privilegeNames = privilegeNames;
+        allMask = (1 << privilegeNames.length) - 1;
+    }
+
+    /**
+     * Getter for {@link #roleName}.
+     *
+     * @return {@link #roleName}
+     */
+    public String getRoleName() {
+        return roleName;
+    }
+
+    /**
+     * Getter for {@link #grants}.
+     *
+     * @return {@link #grants}
+     */
+    public int getGrants() {
+        return grants;
+    }
+
+    /**
+     * Getter for {@link #grantOptions}.
+     *
+     * @return {@link #grantOptions}
+     */
+    public int getGrantOptions() {
+        return grantOptions;
+    }
+
+    /**
+     * Applies GRANT or REVOKE of given privilege.
+     *
+     * @param privilege   name of the privilege or ALL
+     * @param value       true for GRANT, false for REVOKE
+     * @param grantOption true if WITH GRANT OPTION (for GRANT) or GRANT
+     *                    OPTION FOR (for REVOKE) was specified
+     */
+    public void setPrivileges(final String privilege, final boolean value,
+            final boolean grantOption) {
+        final int mask = getMask(privilege);
+
+        if (value) {
+            grants |= mask;
+
+            if (grantOption) {
+                grantOptions |= mask;
+            }
+        } else {
+            grantOptions &= ~mask;
+
+            if (!grantOption) {
+                grants &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * Checks whether any privilege is granted.
+     *
+     * @param withGrantOption whether privileges granted with grant option
+     *                        should be checked
+     *
+     * @return true if there is at least one privilege, otherwise false
+     */
+    public boolean hasPrivileges(final boolean withGrantOption) {
+        return (withGrantOption ? grantOptions : grants) != 0;
+    }
+
+    /**
+     * Returns true if the privileges are the same (no matter of role name).
+     *
+     * @param other privileges to compare, can be null
+     *
+     * @return true if the privileges are the same, otherwise false
+     */
+    public boolean isSimilar(final PgPrivilege other) {
+        return other != null
+                && ((grants ^ other.grants)
+                | (grantOptions ^ other.grantOptions)) == 0;
+    }
+
+    /**
+     * Returns comma separated list of granted privileges, or ALL if all
+     * privileges are granted.
+     *
+     * @param withGrantOption whether privileges granted with grant option
+     *                        should be listed
+     * @param suffix          suffix appended to each privilege, can be null
+     *
+     * @return list of privileges or empty string if there are no privileges
+     */
+    protected String buildPrivilegesSQL(final boolean withGrantOption,
+            final String suffix) {
+        final int mask = withGrantOption ? grantOptions : grants;
+
+        if (mask == 0) {
+            return "";
+        } else if (mask == allMask) {
+            return suffix == null ? "ALL" : "ALL" + suffix;
+        }
+
+        final StringBuilder sbSQL = new StringBuilder(50);
+
+        for (int i = 0; i < privilegeNames.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                if (sbSQL.length() > 0) {
+                    sbSQL.append(", ");
+                }
+
+                sbSQL.append(privilegeNames[i]);
+
+                if (suffix != null) {
+                    sbSQL.append(suffix);
+                }
+            }
+        }
+
+        return sbSQL.toString();
+    }
+
+    /**
+     * Returns mask of given privilege.
+     *
+     * @param privilege name of the privilege or ALL
+     *
+     * @return mask of the privilege, zero for unknown privilege
+     */
+    private int getMask(final String privilege) {
+        if ("ALL".equalsIgnoreCase(privilege)) {
+            return allMask;
+        }
+
+        for (int i = 0; i < privilegeNames.length; i++) {
+            if (privilegeNames[i].equalsIgnoreCase(privilege)) {
+                return 1 << i;
+            }
+        }
+
+        return 0;
+    }
+}
@@ -7,9 +7,9 @@ package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for tables and views.
@@ -21,23 +21,43 @@ public abstract class PgRelation {
     /**
      * List of columns defined on the relation.
      */
+    protected final ChildList<PgColumn> columns = new ChildList<PgColumn>();
+    /**
+     * Columns of the relation indexed by column name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    protected final List<PgColumn> columns = new ArrayList<PgColumn>();
+    private final Map<String, PgColumn> columnsByName =
+            new HashMap<String, PgColumn>();
     /**
      * List of indexes defined on the relation.
      */
+    private final ChildList<PgIndex> indexes = new ChildList<PgIndex>();
+    /**
+     * Indexes of the relation indexed by index name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgIndex> indexes = new ArrayList<PgIndex>();
+    private final Map<String, PgIndex> indexesByName =
+            new HashMap<String, PgIndex>();
     /**
      * List of triggers defined on the table/view.
      */
+    private final ChildList<PgTrigger> triggers = new ChildList<PgTrigger>();
+    /**
+     * Triggers of the table/view indexed by trigger name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgTrigger> triggers = new ArrayList<PgTrigger>();
+    private final Map<String, PgTrigger> triggersByName =
+            new HashMap<String, PgTrigger>();
     /**
      * List of rules defined on the table/view.
      */
+    private final ChildList<PgRule> rules = new ChildList<PgRule>();
+    /**
+     * Rules of the table/view indexed by rule name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgRule> rules = new ArrayList<PgRule>();
+    private final Map<String, PgRule> rulesByName =
+            new HashMap<String, PgRule>();
     /**
      * Name of the index on which the table/matview is clustered
      */
@@ -58,12 +78,22 @@ public abstract class PgRelation {
     /**
      * List of privileges defined on the table.
      */
+    private final ChildList<PgRelationPrivilege> privileges =
+            new ChildList<PgRelationPrivilege>();
+    /**
+     * Privileges defined on the table indexed by role name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgRelationPrivilege> privileges = new ArrayList<PgRelationPrivilege>();
+    private final Map<String, PgRelationPrivilege> privilegesByRole =
+            new HashMap<String, PgRelationPrivilege>();
     /**
      * Column the table is owner to.
      */
     private String ownerTo;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Setter for {@link #clusterIndexName}.
@@ -91,13 +121,7 @@ public abstract class PgRelation {
      * @return found column or null if no such column has been found
      */
     public PgColumn getColumn(final String name) {
-        for (PgColumn column : columns) {
-            if (column.getName().equals(name)) {
-                return column;
-            }
-        }
-
-        return null;
+        return columnsByName.get(name);
     }
 
     /**
@@ -106,7 +130,7 @@ public abstract class PgRelation {
      * @return {@link #columns}
      */
     public List<PgColumn> getColumns() {
-        return Collections.unmodifiableList(columns);
+        return columns;
     }
 
     /**
@@ -172,13 +196,7 @@ public abstract class PgRelation {
      * @return found index or null if no such index has been found
      */
     public PgIndex getIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return index;
-            }
-        }
-
-        return null;
+        return indexesByName.get(name);
     }
 
     /**
@@ -189,13 +207,7 @@ public abstract class PgRelation {
      * @return found trigger or null if no such trigger has been found
      */
     public PgTrigger getTrigger(final String name) {
-        for (PgTrigger trigger : triggers) {
-            if (trigger.getName().equals(name)) {
-                return trigger;
-            }
-        }
-
-        return null;
+        return triggersByName.get(name);
     }
 
     /**
@@ -206,13 +218,7 @@ public abstract class PgRelation {
      * @return found rule or null if no such rule has been found
      */
     public PgRule getRule(final String name) {
-        for (PgRule rule : rules) {
-            if (rule.getName().equals(name)) {
-                return rule;
-            }
-        }
-
-        return null;
+        return rulesByName.get(name);
     }
 
     /**
@@ -221,7 +227,7 @@ public abstract class PgRelation {
      * @return {@link #indexes}
      */
     public List<PgIndex> getIndexes() {
-        return Collections.unmodifiableList(indexes);
+        return indexes;
     }
 
     /**
@@ -248,7 +254,7 @@ public abstract class PgRelation {
      * @return {@link #triggers}
      */
     public List<PgTrigger> getTriggers() {
-        return Collections.unmodifiableList(triggers);
+        return triggers;
     }
 
     /**
@@ -257,7 +263,7 @@ public abstract class PgRelation {
      * @return {@link #rules}
      */
     public List<PgRule> getRules() {
-        return Collections.unmodifiableList(rules);
+        return rules;
     }
 
     /**
@@ -284,7 +290,11 @@ public abstract class PgRelation {
      * @param column column
      */
     public void addColumn(final PgColumn column) {
-        columns.add(column);
+        columns.append(column);
+
+        if (!columnsByName.containsKey(column.getName())) {
+            columnsByName.put(column.getName(), column);
+        }
     }
 
     /**
@@ -293,7 +303,11 @@ public abstract class PgRelation {
      * @param index index
      */
     public void addIndex(final PgIndex index) {
-        indexes.add(index);
+        indexes.append(index);
+
+        if (!indexesByName.containsKey(index.getName())) {
+            indexesByName.put(index.getName(), index);
+        }
     }
 
     /**
@@ -302,7 +316,11 @@ public abstract class PgRelation {
      * @param trigger trigger
      */
     public void addTrigger(final PgTrigger trigger) {
-        triggers.add(trigger);
+        triggers.append(trigger);
+
+        if (!triggersByName.containsKey(trigger.getName())) {
+            triggersByName.put(trigger.getName(), trigger);
+        }
     }
 
     /**
@@ -311,7 +329,11 @@ public abstract class PgRelation {
      * @param rule rule
      */
     public void addRule(final PgRule rule) {
-        rules.add(rule);
+        rules.append(rule);
+
+        if (!rulesByName.containsKey(rule.getName())) {
+            rulesByName.put(rule.getName(), rule);
+        }
     }
 
     /**
@@ -340,13 +362,7 @@ public abstract class PgRelation {
      * @return true if table contains given column {@code name}, otherwise false
      */
     public boolean containsColumn(final String name) {
-        for (PgColumn column : columns) {
-            if (column.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return columnsByName.containsKey(name);
     }
 
     /**
@@ -382,17 +398,11 @@ public abstract class PgRelation {
      * @return true if table/matview contains given index {@code name}, otherwise false
      */
     public boolean containsIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return indexesByName.containsKey(name);
     }
 
     public List<PgRelationPrivilege> getPrivileges() {
-        return Collections.unmodifiableList(privileges);
+        return privileges;
     }
 
     /**
@@ -416,16 +426,167 @@ public abstract class PgRelation {
 
 
     public void addPrivilege(final PgRelationPrivilege privilege) {
-        privileges.add(privilege);
+        privileges.append(privilege);
+
+        if (!privilegesByRole.containsKey(privilege.getRoleName())) {
+            privilegesByRole.put(privilege.getRoleName(), privilege);
+        }
     }
 
 
     public PgRelationPrivilege getPrivilege(final String roleName) {
-        for (PgRelationPrivilege privilege : privileges) {
-            if (privilege.getRoleName().equals(roleName)) {
-                return privilege;
+        return privilegesByRole.get(roleName);
+    }
+
+    /**
+     * Freezes the relation and all its objects, see
+     * {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        for (final PgColumn column : columns) {
+            column.freeze();
+        }
+
+        for (final PgTrigger trigger : triggers) {
+            trigger.freeze();
+        }
+
+        columns.freeze();
+        indexes.freeze();
+        triggers.freeze();
+        rules.freeze();
+        privileges.freeze();
+    }
+
+    /**
+     * Returns the relation with qualifiers of schema renamed in definitions
+     * of the relation and its objects.
+     *
+     * @param rename schema rename
+     * @param schema schema the copy belongs to
+     *
+     * @return this relation if it does not contain the renamed qualifier,
+     *         otherwise its copy
+     */
+    abstract PgRelation withSchemaRename(SchemaRename rename,
+            PgSchema schema);
+
+    /**
+     * Checks whether definitions of columns, indexes, triggers or rules of
+     * the relation contain the renamed qualifier.
+     *
+     * @param rename schema rename
+     *
+     * @return true if the relation contains the renamed qualifier, otherwise
+     *         false
+     */
+    boolean isQualified(final SchemaRename rename) {
+        for (final PgColumn column : columns) {
+            if (column.withSchemaRename(rename) != column) {
+                return true;
             }
         }
-        return null;
+
+        for (final PgIndex index : indexes) {
+            if (index.withSchemaRename(rename) != index) {
+                return true;
+            }
+        }
+
+        for (final PgTrigger trigger : triggers) {
+            if (trigger.withSchemaRename(rename) != trigger) {
+                return true;
+            }
+        }
+
+        for (final PgRule rule : rules) {
+            if (rule.withSchemaRename(rename) != rule) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies attributes and objects of the relation to the {@code copy},
+     * with qualifiers of schema renamed in their definitions.
+     *
+     * @param copy   copy of the relation
+     * @param rename schema rename
+     */
+    void copyTo(final PgRelation copy, final SchemaRename rename) {
+        copy.clusterIndexName = clusterIndexName;
+        copy.tablespace = tablespace;
+        copy.comment = comment;
+        copy.ownerTo = ownerTo;
+
+        for (final PgColumn column : columns) {
+            copy.addColumn(column.withSchemaRename(rename));
+        }
+
+        for (final PgIndex index : indexes) {
+            copy.addIndex(index.withSchemaRename(rename));
+        }
+
+        for (final PgTrigger trigger : triggers) {
+            copy.addTrigger(trigger.withSchemaRename(rename));
+        }
+
+        for (final PgRule rule : rules) {
+            copy.addRule(rule.withSchemaRename(rename));
+        }
+
+        for (final PgRelationPrivilege privilege : privileges) {
+            copy.addPrivilege(privilege);
+        }
+    }
+
+    /**
+     * Returns structural fingerprint of the relation, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder = new Fingerprint(getRelationKind());
+            addFingerprint(builder);
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Adds attributes and children of the relation to the fingerprint.
+     * Subclasses add their own attributes after calling this method.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint builder) {
+        builder.add(name).add(clusterIndexName).add(tablespace).
+                add(comment).add(ownerTo);
+
+        for (final PgColumn column : columns) {
+            builder.add(column.getFingerprint());
+        }
+
+        for (final PgIndex index : indexes) {
+            builder.add(index.getFingerprint());
+        }
+
+        for (final PgTrigger trigger : triggers) {
+            builder.add(trigger.getFingerprint());
+        }
+
+        for (final PgRule rule : rules) {
+            builder.add(rule.getFingerprint());
+        }
+
+        for (final PgRelationPrivilege privilege : privileges) {
+            builder.add(privilege.getRoleName()).
+                    add(privilege.getGrants()).
+                    add(privilege.getGrantOptions());
+        }
     }
 }
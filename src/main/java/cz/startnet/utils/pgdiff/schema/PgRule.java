@@ -62,6 +62,10 @@ public class PgRule {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Getter for {@link #comment}.
@@ -363,4 +367,50 @@ public class PgRule {
                 + command + "|" + name + "|" + onDelete + "|" + onInsert + "|"
                 + onUpdate + "|" + onSelect + "|" + also + "|" + instead + "|" + relationName).hashCode();
     }
+
+    /**
+     * Returns the rule with qualifiers of schema renamed in its command and
+     * WHERE condition.
+     *
+     * @param rename schema rename
+     *
+     * @return this rule if it does not contain the renamed qualifier,
+     *         otherwise its copy
+     */
+    PgRule withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(command) && !rename.isQualified(where)) {
+            return this;
+        }
+
+        final PgRule copy = new PgRule();
+        copy.command = rename.apply(command);
+        copy.name = name;
+        copy.relationName = relationName;
+        copy.onDelete = onDelete;
+        copy.onInsert = onInsert;
+        copy.onUpdate = onUpdate;
+        copy.onSelect = onSelect;
+        copy.also = also;
+        copy.instead = instead;
+        copy.where = rename.apply(where);
+        copy.comment = comment;
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the rule, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = new Fingerprint("RULE").add(name).
+                    add(relationName).add(command).add(onDelete).
+                    add(onInsert).add(onUpdate).add(onSelect).add(also).
+                    add(instead).add(where).add(comment).toString();
+        }
+
+        return fingerprint;
+    }
 }
@@ -6,9 +6,9 @@
 package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Stores schema information.
@@ -20,34 +20,78 @@ public class PgSchema {
     /**
      * List of functions defined in the schema.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgFunction> functions = new ArrayList<PgFunction>();
+    private final ChildList<PgFunction> functions = new ChildList<PgFunction>();
     /**
      * List of sequences defined in the schema.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgSequence> sequences = new ArrayList<PgSequence>();
+    private final ChildList<PgSequence> sequences = new ChildList<PgSequence>();
     /**
      * List of rels defined in the schema.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgRelation> rels = new ArrayList<PgRelation>();
+    private final ChildList<PgRelation> rels = new ChildList<PgRelation>();
+    /**
+     * List of tables defined in the schema, subset of {@link #rels}.
+     */
+    private final ChildList<PgTable> tables = new ChildList<PgTable>();
+    /**
+     * List of views (including materialized views) defined in the schema,
+     * subset of {@link #rels}.
+     */
+    private final ChildList<PgView> views = new ChildList<PgView>();
+    /**
+     * List of materialized views defined in the schema, subset of
+     * {@link #views}.
+     */
+    private final ChildList<PgView> materializedViews = new ChildList<PgView>();
     /**
      * List of types defined in the schema.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgType> types = new ArrayList<PgType>();
+    private final ChildList<PgType> types = new ChildList<PgType>();
     /**
      * List of indexes defined in the schema.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgIndex> indexes = new ArrayList<PgIndex>();
+    private final ChildList<PgIndex> indexes = new ChildList<PgIndex>();
     /**
      * List of primary keys defined in the schema.
      */
+    private final ChildList<PgConstraint> primaryKeys =
+            new ChildList<PgConstraint>();
+    /**
+     * Functions of the schema by signature.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<String, PgFunction> functionsBySignature =
+            new HashMap<String, PgFunction>();
+    /**
+     * Sequences of the schema by name.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<String, PgSequence> sequencesByName =
+            new HashMap<String, PgSequence>();
+    /**
+     * Rels of the schema by name.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<String, PgRelation> relsByName =
+            new HashMap<String, PgRelation>();
+    /**
+     * Types of the schema by name.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<String, PgType> typesByName =
+            new HashMap<String, PgType>();
+    /**
+     * Indexes of the schema by name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgConstraint> primaryKeys =
-            new ArrayList<PgConstraint>();
+    private final Map<String, PgIndex> indexesByName =
+            new HashMap<String, PgIndex>();
+    /**
+     * Primary keys of the schema by name.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final Map<String, PgConstraint> primaryKeysByName =
+            new HashMap<String, PgConstraint>();
     /**
      * Name of the schema.
      */
@@ -64,6 +108,15 @@ public class PgSchema {
      * Comment.
      */
     private String comment;
+    /**
+     * Database the schema belongs to, null until the schema is added to a
+     * database.
+     */
+    private PgDatabase database;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgSchema object.
@@ -74,6 +127,41 @@ public class PgSchema {
         this.name = name;
     }
 
+    /**
+     * Setter for {@link #database}. Objects already added to the schema are
+     * registered in the database.
+     *
+     * @param database {@link #database}
+     */
+    void setDatabase(final PgDatabase database) {
+        this.database = database;
+
+        for (final PgRelation rel : rels) {
+            register(ObjectKey.Kind.RELATION, rel.getName(), rel);
+        }
+
+        for (final PgSequence sequence : sequences) {
+            register(ObjectKey.Kind.SEQUENCE, sequence.getName(), sequence);
+        }
+
+        for (final PgFunction function : functions) {
+            registerFunction(function);
+        }
+
+        for (final PgType type : types) {
+            register(ObjectKey.Kind.TYPE, type.getName(), type);
+        }
+
+        for (final PgIndex index : indexes) {
+            register(ObjectKey.Kind.INDEX, index.getName(), index);
+        }
+
+        for (final PgConstraint primaryKey : primaryKeys) {
+            register(ObjectKey.Kind.PRIMARY_KEY, primaryKey.getName(),
+                    primaryKey);
+        }
+    }
+
     /**
      * Setter for {@link #authorization}.
      *
@@ -166,13 +254,7 @@ public class PgSchema {
      * @return found function or null if no such function has been found
      */
     public PgFunction getFunction(final String signature) {
-        for (PgFunction function : functions) {
-            if (function.getSignature().equals(signature)) {
-                return function;
-            }
-        }
-
-        return null;
+        return functionsBySignature.get(signature);
     }
 
     /**
@@ -181,7 +263,7 @@ public class PgSchema {
      * @return {@link #functions}
      */
     public List<PgFunction> getFunctions() {
-        return Collections.unmodifiableList(functions);
+        return functions;
     }
 
     /**
@@ -201,13 +283,7 @@ public class PgSchema {
      * @return found index or null if no such index has been found
      */
     public PgIndex getIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return index;
-            }
-        }
-
-        return null;
+        return indexesByName.get(name);
     }
 
     /**
@@ -218,13 +294,7 @@ public class PgSchema {
      * @return found primary key or null if no such primary key has been found
      */
     public PgConstraint getPrimaryKey(final String name) {
-        for (PgConstraint constraint : primaryKeys) {
-            if (constraint.getName().equals(name)) {
-                return constraint;
-            }
-        }
-
-        return null;
+        return primaryKeysByName.get(name);
     }
 
     /**
@@ -235,13 +305,7 @@ public class PgSchema {
      * @return found sequence or null if no such sequence has been found
      */
     public PgSequence getSequence(final String name) {
-        for (PgSequence sequence : sequences) {
-            if (sequence.getName().equals(name)) {
-                return sequence;
-            }
-        }
-
-        return null;
+        return sequencesByName.get(name);
     }
 
     /**
@@ -250,7 +314,7 @@ public class PgSchema {
      * @return {@link #indexes}
      */
     public List<PgIndex> getIndexes() {
-        return Collections.unmodifiableList(indexes);
+        return indexes;
     }
 
     /**
@@ -259,7 +323,7 @@ public class PgSchema {
      * @return {@link #primaryKeys}
      */
     public List<PgConstraint> getPrimaryKeys() {
-        return Collections.unmodifiableList(primaryKeys);
+        return primaryKeys;
     }
 
     /**
@@ -268,7 +332,7 @@ public class PgSchema {
      * @return {@link #sequences}
      */
     public List<PgSequence> getSequences() {
-        return Collections.unmodifiableList(sequences);
+        return sequences;
     }
 
     /**
@@ -279,13 +343,7 @@ public class PgSchema {
      * @return found table or null if no such table has been found
      */
     public PgRelation getRelation(final String name) {
-        for (PgRelation rel : rels) {
-            if (rel.getName().equals(name)) {
-                return rel;
-            }
-        }
-
-        return null;
+        return relsByName.get(name);
     }
 
     /**
@@ -303,21 +361,12 @@ public class PgSchema {
     }
 
     /**
-     * Get a list of tables from {@link #rels}.
+     * Getter for {@link #tables}. The list cannot be modified.
      *
-     * @return list of tables
+     * @return {@link #tables}
      */
     public List<PgTable> getTables() {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgTable> list = new ArrayList<PgTable>();
-
-        for (PgRelation rel : rels) {
-            if (rel instanceof PgTable) {
-                list.add((PgTable) rel);
-            }
-        }
-
-        return list;
+        return tables;
     }
 
     /**
@@ -326,7 +375,7 @@ public class PgSchema {
      * @return {@link #rels}
      */
     public List<PgRelation> getRels() {
-        return Collections.unmodifiableList(rels);
+        return rels;
     }
 
     /**
@@ -344,21 +393,21 @@ public class PgSchema {
     }
 
     /**
-     * Get a list of views from {@link #rels}.
+     * Getter for {@link #views}. The list cannot be modified.
      *
-     * @return list of views
+     * @return {@link #views}
      */
     public List<PgView> getViews() {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgView> list = new ArrayList<PgView>();
-
-        for (PgRelation rel : rels) {
-            if (rel instanceof PgView) {
-                list.add((PgView) rel);
-            }
-        }
+        return views;
+    }
 
-        return list;
+    /**
+     * Getter for {@link #materializedViews}. The list cannot be modified.
+     *
+     * @return {@link #materializedViews}
+     */
+    public List<PgView> getMaterializedViews() {
+        return materializedViews;
     }
 
     /**
@@ -367,7 +416,9 @@ public class PgSchema {
      * @param index index
      */
     public void addIndex(final PgIndex index) {
-        indexes.add(index);
+        indexes.append(index);
+        putFirst(indexesByName, index.getName(), index);
+        register(ObjectKey.Kind.INDEX, index.getName(), index);
     }
 
     /**
@@ -376,16 +427,23 @@ public class PgSchema {
      * @param primaryKey index
      */
     public void addPrimaryKey(final PgConstraint primaryKey) {
-        primaryKeys.add(primaryKey);
+        primaryKeys.append(primaryKey);
+        putFirst(primaryKeysByName, primaryKey.getName(), primaryKey);
+        register(ObjectKey.Kind.PRIMARY_KEY, primaryKey.getName(),
+                primaryKey);
     }
 
     /**
-     * Adds {@code function} to the list of functions.
+     * Adds {@code function} to the list of functions. The function is
+     * registered in the database under its current signature, so its
+     * arguments should be set before it is added.
      *
      * @param function function
      */
     public void addFunction(final PgFunction function) {
-        functions.add(function);
+        functions.append(function);
+        putFirst(functionsBySignature, function.getSignature(), function);
+        registerFunction(function);
     }
 
     /**
@@ -394,16 +452,33 @@ public class PgSchema {
      * @param sequence sequence
      */
     public void addSequence(final PgSequence sequence) {
-        sequences.add(sequence);
+        sequences.append(sequence);
+        putFirst(sequencesByName, sequence.getName(), sequence);
+        register(ObjectKey.Kind.SEQUENCE, sequence.getName(), sequence);
     }
 
     /**
-     * Adds {@code rel} table or view to the list of rels.
+     * Adds {@code rel} table or view to the list of rels and to the list of
+     * its kind. Views are classified as materialized according to
+     * {@link PgView#isMaterialized()} at the time they are added.
      *
      * @param rel relation
      */
     public void addRelation(final PgRelation rel) {
-        rels.add(rel);
+        rels.append(rel);
+        putFirst(relsByName, rel.getName(), rel);
+        register(ObjectKey.Kind.RELATION, rel.getName(), rel);
+
+        if (rel instanceof PgTable) {
+            tables.append((PgTable) rel);
+        } else if (rel instanceof PgView) {
+            final PgView view = (PgView) rel;
+            views.append(view);
+
+            if (view.isMaterialized()) {
+                materializedViews.append(view);
+            }
+        }
     }
 
     /**
@@ -412,7 +487,174 @@ public class PgSchema {
      * @param type type
      */
     public void addType(final PgType type) {
-        types.add(type);
+        types.append(type);
+        putFirst(typesByName, type.getName(), type);
+        register(ObjectKey.Kind.TYPE, type.getName(), type);
+    }
+
+    /**
+     * Creates copy of the schema with different name. Qualifiers of the
+     * schema are renamed in definitions of tables, views, their objects and
+     * sequences, see {@link SchemaRename}. Definitions of functions and types
+     * are not changed. Objects without the qualifier are shared with the
+     * copy, including their cached fingerprints, so the schema should be
+     * frozen and the objects must not be modified.
+     *
+     * @param name name of the copy
+     *
+     * @return copy of the schema
+     */
+    public PgSchema withName(final String name) {
+        final PgSchema copy = new PgSchema(name);
+        copy.authorization = authorization;
+        copy.definition = definition;
+        copy.comment = comment;
+
+        final SchemaRename rename = new SchemaRename(this.name, name);
+
+        for (final PgFunction function : functions) {
+            copy.functions.append(function);
+        }
+
+        for (final PgSequence sequence : sequences) {
+            copy.addSequence(sequence.withSchemaRename(rename));
+        }
+
+        for (final PgRelation rel : rels) {
+            copy.addRelation(rel.withSchemaRename(rename, copy));
+        }
+
+        for (final PgType type : types) {
+            copy.types.append(type);
+        }
+
+        for (final PgIndex index : indexes) {
+            final PgRelation rel = copy.getRelation(index.getTableName());
+            final PgIndex renamed =
+                    rel == null ? null : rel.getIndex(index.getName());
+            copy.addIndex(renamed == null ? index : renamed);
+        }
+
+        for (final PgConstraint primaryKey : primaryKeys) {
+            final PgTable table = copy.getTable(primaryKey.getTableName());
+            final PgConstraint renamed = table == null ? null
+                    : table.getConstraint(primaryKey.getName());
+            copy.addPrimaryKey(renamed == null ? primaryKey : renamed);
+        }
+
+        copy.functionsBySignature.putAll(functionsBySignature);
+        copy.typesByName.putAll(typesByName);
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the schema, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder = new Fingerprint("SCHEMA").add(name).
+                    add(authorization).add(definition).add(comment);
+
+            for (final PgRelation rel : rels) {
+                builder.add(rel.getFingerprint());
+            }
+
+            for (final PgSequence sequence : sequences) {
+                builder.add(sequence.getFingerprint());
+            }
+
+            for (final PgFunction function : functions) {
+                builder.add(function.getFingerprint());
+            }
+
+            for (final PgType type : types) {
+                builder.add(type.getFingerprint());
+            }
+
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Freezes the schema and all its objects, see
+     * {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        for (final PgRelation rel : rels) {
+            rel.freeze();
+        }
+
+        for (final PgFunction function : functions) {
+            function.freeze();
+        }
+
+        for (final PgSequence sequence : sequences) {
+            sequence.freeze();
+        }
+
+        for (final PgType type : types) {
+            type.freeze();
+        }
+
+        functions.freeze();
+        sequences.freeze();
+        rels.freeze();
+        tables.freeze();
+        views.freeze();
+        materializedViews.freeze();
+        types.freeze();
+        indexes.freeze();
+        primaryKeys.freeze();
+    }
+
+    /**
+     * Puts {@code object} to the {@code map} unless there already is an
+     * object with the same key, so lookups return the first object like
+     * lookups in the database do.
+     *
+     * @param <T>    type of the object
+     * @param map    map of objects by name or signature
+     * @param key    name or signature of the object
+     * @param object object
+     */
+    private static <T> void putFirst(final Map<String, T> map,
+            final String key, final T object) {
+        if (!map.containsKey(key)) {
+            map.put(key, object);
+        }
+    }
+
+    /**
+     * Registers {@code object} in {@link #database} if the schema has already
+     * been added to a database.
+     *
+     * @param kind   kind of the object
+     * @param name   name of the object
+     * @param object object
+     */
+    private void register(final ObjectKey.Kind kind, final String name,
+            final Object object) {
+        if (database != null) {
+            database.register(new ObjectKey(kind, this.name, name), object);
+        }
+    }
+
+    /**
+     * Registers {@code function} in {@link #database} if the schema has
+     * already been added to a database.
+     *
+     * @param function function
+     */
+    private void registerFunction(final PgFunction function) {
+        if (database != null) {
+            database.register(ObjectKey.function(this.name,
+                    function.getName(), function.getSignature()), function);
+        }
     }
 
     /**
@@ -432,13 +674,7 @@ public class PgSchema {
      * @return found type or null if no such table has been found
      */
     public PgType getType(final String name) {
-        for (PgType type : types) {
-            if (type.getName().equals(name)) {
-                return type;
-            }
-        }
-
-        return null;
+        return typesByName.get(name);
     }
 
     /**
@@ -451,13 +687,7 @@ public class PgSchema {
      * false.
      */
     public boolean containsType(final String name) {
-        for (PgType type : types) {
-            if (type.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return typesByName.containsKey(name);
     }
 
     /**
@@ -470,13 +700,7 @@ public class PgSchema {
      *         otherwise false
      */
     public boolean containsFunction(final String signature) {
-        for (PgFunction function : functions) {
-            if (function.getSignature().equals(signature)) {
-                return true;
-            }
-        }
-
-        return false;
+        return functionsBySignature.containsKey(signature);
     }
 
     /**
@@ -489,13 +713,7 @@ public class PgSchema {
      *         otherwise false
      */
     public boolean containsSequence(final String name) {
-        for (PgSequence sequence : sequences) {
-            if (sequence.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return sequencesByName.containsKey(name);
     }
 
     /**
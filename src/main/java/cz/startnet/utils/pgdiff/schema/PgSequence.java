@@ -5,9 +5,9 @@
  */
 package cz.startnet.utils.pgdiff.schema;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 
@@ -57,8 +57,18 @@ public class PgSequence {
     /**
      * List of privileges defined on the sequence.
      */
+    private final ChildList<PgSequencePrivilege> privileges =
+            new ChildList<PgSequencePrivilege>();
+    /**
+     * Privileges indexed by role name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgSequencePrivilege> privileges = new ArrayList<PgSequencePrivilege>();
+    private final Map<String, PgSequencePrivilege> privilegesByRole =
+            new HashMap<String, PgSequencePrivilege>();
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgSequence object.
@@ -331,19 +341,79 @@ public class PgSequence {
     }
 
     public List<PgSequencePrivilege> getPrivileges() {
-        return Collections.unmodifiableList(privileges);
+        return privileges;
     }
 
     public PgSequencePrivilege getPrivilege(final String roleName) {
-        for (PgSequencePrivilege privilege : privileges) {
-            if (privilege.getRoleName().equals(roleName)) {
-                return privilege;
-            }
-        }
-        return null;
+        return privilegesByRole.get(roleName);
     }
 
     public void addPrivilege(final PgSequencePrivilege privilege) {
-        privileges.add(privilege);
+        privileges.append(privilege);
+
+        if (!privilegesByRole.containsKey(privilege.getRoleName())) {
+            privilegesByRole.put(privilege.getRoleName(), privilege);
+        }
+    }
+
+    /**
+     * Freezes the sequence, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        privileges.freeze();
+    }
+
+    /**
+     * Returns the sequence with qualifier of schema renamed in its OWNED BY.
+     *
+     * @param rename schema rename
+     *
+     * @return this sequence if its OWNED BY does not contain the renamed
+     *         qualifier, otherwise its copy
+     */
+    PgSequence withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(ownedBy)) {
+            return this;
+        }
+
+        final PgSequence copy = new PgSequence(name);
+        copy.cache = cache;
+        copy.increment = increment;
+        copy.maxValue = maxValue;
+        copy.minValue = minValue;
+        copy.startWith = startWith;
+        copy.cycle = cycle;
+        copy.ownedBy = rename.apply(ownedBy);
+        copy.comment = comment;
+
+        for (final PgSequencePrivilege privilege : privileges) {
+            copy.addPrivilege(privilege);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the sequence, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder = new Fingerprint("SEQUENCE").
+                    add(name).add(cache).add(increment).add(maxValue).
+                    add(minValue).add(startWith).add(cycle).add(ownedBy).
+                    add(comment);
+
+            for (final PgSequencePrivilege privilege : privileges) {
+                builder.add(privilege.getRoleName()).
+                        add(privilege.getGrants()).
+                        add(privilege.getGrantOptions());
+            }
+
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
     }
 }
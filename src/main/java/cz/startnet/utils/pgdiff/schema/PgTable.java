@@ -8,8 +8,9 @@ package cz.startnet.utils.pgdiff.schema;
 import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Stores table information.
@@ -21,19 +22,30 @@ public class PgTable extends PgRelation {
     /**
      * List of inheritedColumns defined on the table.
      */
+    private final ChildList<PgInheritedColumn> inheritedColumns =
+            new ChildList<PgInheritedColumn>();
+    /**
+     * Inherited columns of the table indexed by column name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgInheritedColumn> inheritedColumns = new ArrayList<PgInheritedColumn>();
+    private final Map<String, PgInheritedColumn> inheritedColumnsByName =
+            new HashMap<String, PgInheritedColumn>();
     /**
      * List of constraints defined on the table.
      */
+    private final ChildList<PgConstraint> constraints =
+            new ChildList<PgConstraint>();
+    /**
+     * Constraints of the table indexed by constraint name.
+     */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgConstraint> constraints =
-            new ArrayList<PgConstraint>();
+    private final Map<String, PgConstraint> constraintsByName =
+            new HashMap<String, PgConstraint>();
     /**
      * List of names of inherited tables.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<Pair<String,String>> inherits = new ArrayList<Pair<String,String>>();
+    private final ChildList<Pair<String,String>> inherits =
+            new ChildList<Pair<String,String>>();
     /**
      * WITH clause. If value is null then it is not set, otherwise can be set to
      * OIDS=true, OIDS=false, or storage parameters can be set.
@@ -74,13 +86,7 @@ public class PgTable extends PgRelation {
      * @return found constraint or null if no such constraint has been found
      */
     public PgConstraint getConstraint(final String name) {
-        for (PgConstraint constraint : constraints) {
-            if (constraint.getName().equals(name)) {
-                return constraint;
-            }
-        }
-
-        return null;
+        return constraintsByName.get(name);
     }
 
     /**
@@ -89,7 +95,7 @@ public class PgTable extends PgRelation {
      * @return {@link #constraints}
      */
     public List<PgConstraint> getConstraints() {
-        return Collections.unmodifiableList(constraints);
+        return constraints;
     }
 
     /**
@@ -229,11 +235,10 @@ public class PgTable extends PgRelation {
      * @param tableName name of inherited table
      */
     public void addInherits(final String schemaName, final String tableName) {
-        inherits.add(new Pair<String, String>(schemaName, tableName));
+        inherits.append(new Pair<String, String>(schemaName, tableName));
         final PgTable inheritedTable = database.getSchema(schemaName).getTable(tableName);
         for( PgColumn column : inheritedTable.getColumns() ) {
-          PgInheritedColumn inheritedColumn = new PgInheritedColumn(column);
-          inheritedColumns.add(inheritedColumn);
+          addInheritedColumn(new PgInheritedColumn(column));
         }
     }
 
@@ -243,7 +248,7 @@ public class PgTable extends PgRelation {
      * @return {@link #inherits}
      */
     public List<Pair<String,String>> getInherits() {
-        return Collections.unmodifiableList(inherits);
+        return inherits;
     }
 
     /**
@@ -282,22 +287,19 @@ public class PgTable extends PgRelation {
         this.tablespace = tablespace;
     }
 
-    /**
-     * Adds {@code column} to the list of columns.
-     *
-     * @param column column
-     */
-    public void addColumn(final PgColumn column) {
-        columns.add(column);
-    }
-
     /**
      * Adds {@code inheritedColumn} to the list of inheritedColumns.
      *
      * @param inheritedColumn inheritedColumn
      */
     public void addInheritedColumn(final PgInheritedColumn inheritedColumn) {
-        inheritedColumns.add(inheritedColumn);
+        inheritedColumns.append(inheritedColumn);
+
+        final String columnName = inheritedColumn.getInheritedColumn().getName();
+
+        if (!inheritedColumnsByName.containsKey(columnName)) {
+            inheritedColumnsByName.put(columnName, inheritedColumn);
+        }
     }
 
     /**
@@ -310,11 +312,7 @@ public class PgTable extends PgRelation {
      */
     public PgInheritedColumn getInheritedColumn(final String name) {
         if (inherits != null && !inherits.isEmpty()) {
-            for (PgInheritedColumn inheritedColumn : inheritedColumns) {
-                if (inheritedColumn.getInheritedColumn().getName().equals(name)) {
-                    return inheritedColumn;
-                }
-            }
+            return inheritedColumnsByName.get(name);
         }
         return null;
     }
@@ -325,7 +323,7 @@ public class PgTable extends PgRelation {
      * @return {@link #inheritedColumns}
      */
     public List<PgInheritedColumn> getInheritedColumns() {
-        return Collections.unmodifiableList(inheritedColumns);
+        return inheritedColumns;
     }
 
     /**
@@ -334,7 +332,11 @@ public class PgTable extends PgRelation {
      * @param constraint constraint
      */
     public void addConstraint(final PgConstraint constraint) {
-        constraints.add(constraint);
+        constraints.append(constraint);
+
+        if (!constraintsByName.containsKey(constraint.getName())) {
+            constraintsByName.put(constraint.getName(), constraint);
+        }
     }
 
     /**
@@ -348,11 +350,7 @@ public class PgTable extends PgRelation {
      */
     public boolean containsInheritedColumn(final String name) {
         if (inherits != null && !inherits.isEmpty()) {
-            for (PgInheritedColumn inheritedColumn : inheritedColumns) {
-                if (inheritedColumn.getInheritedColumn().getName().equals(name)) {
-                    return true;
-                }
-            }
+            return inheritedColumnsByName.containsKey(name);
         }
         return false;
     }
@@ -367,13 +365,7 @@ public class PgTable extends PgRelation {
      *         false
      */
     public boolean containsConstraint(final String name) {
-        for (PgConstraint constraint : constraints) {
-            if (constraint.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return constraintsByName.containsKey(name);
     }
 
     /**
@@ -401,4 +393,86 @@ public class PgTable extends PgRelation {
     public void setUnlogged(boolean unlogged) {
         this.unlogged = unlogged;
     }
+
+    @Override
+    void addFingerprint(final Fingerprint builder) {
+        super.addFingerprint(builder);
+        builder.add(with).add(unlogged);
+
+        for (final PgConstraint constraint : constraints) {
+            builder.add(constraint.getFingerprint());
+        }
+
+        for (final Pair<String, String> inherit : inherits) {
+            builder.add(inherit.getL()).add(inherit.getR());
+        }
+
+        for (final PgInheritedColumn column : inheritedColumns) {
+            builder.add(column.getInheritedColumn().getFingerprint()).
+                    add(column.getDefaultValue());
+        }
+    }
+
+    @Override
+    PgRelation withSchemaRename(final SchemaRename rename,
+            final PgSchema schema) {
+        if (!isQualified(rename)) {
+            return this;
+        }
+
+        final PgTable copy = new PgTable(name, database, schema);
+        copyTo(copy, rename);
+        copy.with = with;
+        copy.unlogged = unlogged;
+
+        for (final PgConstraint constraint : constraints) {
+            copy.addConstraint(constraint.withSchemaRename(rename));
+        }
+
+        for (final Pair<String, String> inherit : inherits) {
+            copy.inherits.append(rename.isRenamed(inherit.getL())
+                    ? new Pair<String, String>(schema.getName(),
+                    inherit.getR()) : inherit);
+        }
+
+        for (final PgInheritedColumn column : inheritedColumns) {
+            copy.addInheritedColumn(column);
+        }
+
+        return copy;
+    }
+
+    @Override
+    boolean isQualified(final SchemaRename rename) {
+        if (super.isQualified(rename)) {
+            return true;
+        }
+
+        for (final PgConstraint constraint : constraints) {
+            if (constraint.withSchemaRename(rename) != constraint) {
+                return true;
+            }
+        }
+
+        for (final Pair<String, String> inherit : inherits) {
+            if (rename.isRenamed(inherit.getL())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    void freeze() {
+        super.freeze();
+
+        for (final PgConstraint constraint : constraints) {
+            constraint.freeze();
+        }
+
+        inheritedColumns.freeze();
+        constraints.freeze();
+        inherits.freeze();
+    }
 }
@@ -85,8 +85,7 @@ public class PgTrigger {
     /**
      * Optional list of columns for UPDATE event.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<String> updateColumns = new ArrayList<String>();
+    private final ChildList<String> updateColumns = new ChildList<String>();
     /**
      * WHEN condition.
      */
@@ -95,6 +94,10 @@ public class PgTrigger {
      * Comment.
      */
     private String comment;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Setter for {@link #eventTimeQualification}.
@@ -388,7 +391,7 @@ public class PgTrigger {
      * @return {@link #updateColumns}
      */
     public List<String> getUpdateColumns() {
-        return Collections.unmodifiableList(updateColumns);
+        return updateColumns;
     }
 
     /**
@@ -397,7 +400,7 @@ public class PgTrigger {
      * @param columnName column name
      */
     public void addUpdateColumn(final String columnName) {
-        updateColumns.add(columnName);
+        updateColumns.append(columnName);
     }
 
     /**
@@ -457,4 +460,63 @@ public class PgTrigger {
                 + function + "|" + name + "|" + onDelete + "|" + onInsert + "|"
                 + onUpdate + "|" + onTruncate + "|" + relationName).hashCode();
     }
+
+    /**
+     * Freezes the trigger, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        updateColumns.freeze();
+    }
+
+    /**
+     * Returns the trigger with qualifiers of schema renamed in its function
+     * call and WHEN condition.
+     *
+     * @param rename schema rename
+     *
+     * @return this trigger if it does not contain the renamed qualifier,
+     *         otherwise its copy
+     */
+    PgTrigger withSchemaRename(final SchemaRename rename) {
+        if (!rename.isQualified(function) && !rename.isQualified(when)) {
+            return this;
+        }
+
+        final PgTrigger copy = new PgTrigger();
+        copy.function = rename.apply(function);
+        copy.name = name;
+        copy.relationName = relationName;
+        copy.eventTimeQualification = eventTimeQualification;
+        copy.forEachRow = forEachRow;
+        copy.onDelete = onDelete;
+        copy.onInsert = onInsert;
+        copy.onUpdate = onUpdate;
+        copy.onTruncate = onTruncate;
+        copy.when = rename.apply(when);
+        copy.comment = comment;
+
+        for (final String column : updateColumns) {
+            copy.updateColumns.append(column);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns structural fingerprint of the trigger, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = new Fingerprint("TRIGGER").add(name).
+                    add(relationName).add(function).
+                    add(String.valueOf(eventTimeQualification)).
+                    add(forEachRow).add(onDelete).add(onInsert).
+                    add(onUpdate).add(onTruncate).add(updateColumns).
+                    add(when).add(comment).toString();
+        }
+
+        return fingerprint;
+    }
 }
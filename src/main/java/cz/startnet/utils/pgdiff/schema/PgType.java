@@ -7,7 +7,6 @@ package cz.startnet.utils.pgdiff.schema;
 
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,9 +19,8 @@ public class PgType {
     /**
      * List of columns defined on the table.
      */
-    @SuppressWarnings("CollectionWithoutInitialCapacity")
-    private final List<PgColumn> columns = new ArrayList<PgColumn>();
-    private final List<String> enumValues = new ArrayList<String>();
+    private final ChildList<PgColumn> columns = new ChildList<PgColumn>();
+    private final ChildList<String> enumValues = new ChildList<String>();
 
     /**
      * Name of the table.
@@ -30,6 +28,10 @@ public class PgType {
     private String name;
 
     private Boolean isEnum = false;
+    /**
+     * Cached structural fingerprint, see {@link #getFingerprint()}.
+     */
+    private String fingerprint;
 
     /**
      * Creates a new PgTable object.
@@ -63,7 +65,7 @@ public class PgType {
      * @return {@link #columns}
      */
     public List<PgColumn> getColumns() {
-        return Collections.unmodifiableList(columns);
+        return columns;
     }
 
     /**
@@ -164,7 +166,7 @@ public class PgType {
      * @param column column
      */
     public void addColumn(final PgColumn column) {
-        columns.add(column);
+        columns.append(column);
     }
 
     /**
@@ -212,6 +214,38 @@ public class PgType {
     }
 
     public void addEnumValue(String value) {
-        enumValues.add(value);
+        enumValues.append(value);
+    }
+
+    /**
+     * Freezes the type and its columns, see {@link PgDatabase#freeze()}.
+     */
+    void freeze() {
+        for (final PgColumn column : columns) {
+            column.freeze();
+        }
+
+        columns.freeze();
+        enumValues.freeze();
+    }
+
+    /**
+     * Returns structural fingerprint of the type, see {@link Fingerprint}.
+     *
+     * @return fingerprint
+     */
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            final Fingerprint builder = new Fingerprint("TYPE").add(name).
+                    add(Boolean.TRUE.equals(isEnum)).add(enumValues);
+
+            for (final PgColumn column : columns) {
+                builder.add(column.getFingerprint());
+            }
+
+            fingerprint = builder.toString();
+        }
+
+        return fingerprint;
     }
 }
@@ -194,10 +194,14 @@ public class PgView extends PgRelation {
         if (col == null && !declareColumnNames) {
             /*
              * In views, we don't always know columns beforehand; create a new
-             * column if the view didn't declare col names.
+             * column if the view didn't declare col names. Frozen view cannot
+             * be modified, so the column is only returned then.
              */
             col = new PgColumn(name);
-            addColumn(col);
+
+            if (!columns.isFrozen()) {
+                addColumn(col);
+            }
         }
         return col;
     }
@@ -213,4 +217,26 @@ public class PgView extends PgRelation {
     public boolean containsColumn(final String name) {
         return true;
     }
+
+    @Override
+    PgRelation withSchemaRename(final SchemaRename rename,
+            final PgSchema schema) {
+        if (!rename.isQualified(query) && !isQualified(rename)) {
+            return this;
+        }
+
+        final PgView copy = new PgView(name);
+        copyTo(copy, rename);
+        copy.declareColumnNames = declareColumnNames;
+        copy.materialized = materialized;
+        copy.query = rename.apply(query);
+
+        return copy;
+    }
+
+    @Override
+    void addFingerprint(final Fingerprint builder) {
+        super.addFingerprint(builder);
+        builder.add(declareColumnNames).add(materialized).add(query);
+    }
 }
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import cz.startnet.utils.pgdiff.PgDiffUtils;
+
+/**
+ * Renames schema used as qualifier of names in definitions of objects, see
+ * {@link PgSchema#withName(String)}. Qualifiers are renamed both in plain and
+ * in quoted form. String literals, dollar quoted strings and comments are
+ * kept as they are, except for string literal cast to regclass, such as
+ * {@code nextval('s.seq'::regclass)}, which names a relation.
+ *
+ * @author fordfrog
+ */
+final class SchemaRename {
+
+    /**
+     * Cast of string literal that is renamed.
+     */
+    private static final String REGCLASS = "::regclass";
+    /**
+     * Name of the schema that is renamed.
+     */
+    private final String oldName;
+    /**
+     * Quoted form of {@link #oldName}.
+     */
+    private final String oldQuotedName;
+    /**
+     * New name of the schema, quoted if needed.
+     */
+    private final String newName;
+
+    /**
+     * Creates a new instance of SchemaRename.
+     *
+     * @param oldName name of the schema that is renamed
+     * @param newName new name of the schema
+     */
+    SchemaRename(final String oldName, final String newName) {
+        this.oldName = oldName;
+        oldQuotedName = '"' + oldName.replace("\"", "\"\"") + '"';
+        this.newName = PgDiffUtils.getQuotedName(newName);
+    }
+
+    /**
+     * Checks whether schema of given name is renamed.
+     *
+     * @param schemaName name of the schema
+     *
+     * @return true if the schema is renamed, otherwise false
+     */
+    boolean isRenamed(final String schemaName) {
+        return oldName.equals(schemaName);
+    }
+
+    /**
+     * Checks whether {@link #apply(String)} changes the {@code sql}.
+     *
+     * @param sql SQL code or null
+     *
+     * @return true if the SQL code contains renamed qualifier, otherwise
+     *         false
+     */
+    boolean isQualified(final String sql) {
+        return sql != null && !apply(sql).equals(sql);
+    }
+
+    /**
+     * Renames qualifiers in the {@code sql}.
+     *
+     * @param sql SQL code or null
+     *
+     * @return SQL code with renamed qualifiers, or {@code sql} itself if it
+     *         does not contain any
+     */
+    String apply(final String sql) {
+        if (sql == null || oldName.equals(newName)
+                || sql.indexOf(oldName) == -1
+                && sql.indexOf(oldQuotedName) == -1) {
+            return sql;
+        }
+
+        final StringBuilder sbSQL = new StringBuilder(sql.length() + 16);
+        int copied = 0;
+        int pos = 0;
+
+        while (pos < sql.length()) {
+            final char chr = sql.charAt(pos);
+            final int end;
+
+            if (chr == '\'') {
+                end = skipQuoted(sql, pos, '\'');
+
+                if (sql.startsWith(REGCLASS, end)) {
+                    copied = replace(sql, pos + 1, end - 1, sbSQL, copied,
+                            newName.replace("'", "''"));
+                }
+            } else if (chr == '"') {
+                end = skipQuoted(sql, pos, '"');
+
+                if (end - pos == oldQuotedName.length()
+                        && isQualifier(sql, pos, end)
+                        && sql.startsWith(oldQuotedName, pos)) {
+                    copied = append(sql, pos, end, sbSQL, copied);
+                }
+            } else if (chr == '$' || chr == '-' || chr == '/') {
+                end = skipNonCode(sql, pos);
+            } else if (Character.isLetterOrDigit(chr) || chr == '_') {
+                end = skipWord(sql, pos);
+
+                if (end - pos == oldName.length()
+                        && isQualifier(sql, pos, end)
+                        && sql.startsWith(oldName, pos)) {
+                    copied = append(sql, pos, end, sbSQL, copied);
+                }
+            } else {
+                end = pos + 1;
+            }
+
+            pos = end;
+        }
+
+        if (copied == 0) {
+            return sql;
+        }
+
+        sbSQL.append(sql, copied, sql.length());
+
+        return sbSQL.toString();
+    }
+
+    /**
+     * Replaces qualifier at the start of string literal content, if there is
+     * one.
+     *
+     * @param sql     SQL code
+     * @param start   start of the literal content
+     * @param end     position of the closing quote
+     * @param sbSQL   builder of the renamed SQL code
+     * @param copied  position up to which the SQL code was already copied
+     * @param literal new name in form of literal content
+     *
+     * @return position up to which the SQL code is copied
+     */
+    private int replace(final String sql, final int start, final int end,
+            final StringBuilder sbSQL, final int copied,
+            final String literal) {
+        for (final String name : new String[]{oldName, oldQuotedName}) {
+            if (start + name.length() < end && sql.startsWith(name, start)
+                    && sql.charAt(start + name.length()) == '.') {
+                sbSQL.append(sql, copied, start);
+                sbSQL.append(literal);
+
+                return start + name.length();
+            }
+        }
+
+        return copied;
+    }
+
+    /**
+     * Writes new name in place of the qualifier.
+     *
+     * @param sql    SQL code
+     * @param start  start of the qualifier
+     * @param end    end (exclusive) of the qualifier
+     * @param sbSQL  builder of the renamed SQL code
+     * @param copied position up to which the SQL code was already copied
+     *
+     * @return position up to which the SQL code is copied
+     */
+    private int append(final String sql, final int start, final int end,
+            final StringBuilder sbSQL, final int copied) {
+        sbSQL.append(sql, copied, start);
+        sbSQL.append(newName);
+
+        return end;
+    }
+
+    /**
+     * Checks whether name between {@code start} and {@code end} is followed
+     * by dot and is not itself qualified.
+     *
+     * @param sql   SQL code
+     * @param start start of the name
+     * @param end   end (exclusive) of the name
+     *
+     * @return true if the name is qualifier, otherwise false
+     */
+    private static boolean isQualifier(final String sql, final int start,
+            final int end) {
+        return end < sql.length() && sql.charAt(end) == '.'
+                && (start == 0 || sql.charAt(start - 1) != '.');
+    }
+
+    /**
+     * Skips quoted string or identifier. Doubled quote is part of the
+     * string.
+     *
+     * @param sql   SQL code
+     * @param start position of the opening quote
+     * @param quote quote character
+     *
+     * @return position after the closing quote
+     */
+    private static int skipQuoted(final String sql, final int start,
+            final char quote) {
+        int pos = start + 1;
+
+        while (pos < sql.length()) {
+            if (sql.charAt(pos) == quote) {
+                if (pos + 1 < sql.length() && sql.charAt(pos + 1) == quote) {
+                    pos += 2;
+                } else {
+                    return pos + 1;
+                }
+            } else {
+                pos++;
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Skips dollar quoted string or comment. If there is none at
+     * {@code start}, skips the single character.
+     *
+     * @param sql   SQL code
+     * @param start position of the first character
+     *
+     * @return position after the string or comment
+     */
+    private static int skipNonCode(final String sql, final int start) {
+        final String end;
+
+        if (sql.startsWith("--", start)) {
+            end = "\n";
+        } else if (sql.startsWith("/*", start)) {
+            end = "*/";
+        } else if (sql.charAt(start) == '$') {
+            int pos = start + 1;
+
+            while (pos < sql.length()
+                    && (Character.isLetter(sql.charAt(pos))
+                    || sql.charAt(pos) == '_'
+                    || pos > start + 1
+                    && Character.isDigit(sql.charAt(pos)))) {
+                pos++;
+            }
+
+            if (pos == sql.length() || sql.charAt(pos) != '$') {
+                return start + 1;
+            }
+
+            end = sql.substring(start, pos + 1);
+        } else {
+            return start + 1;
+        }
+
+        final int pos = sql.indexOf(end, start + end.length());
+
+        return pos == -1 ? sql.length() : pos + end.length();
+    }
+
+    /**
+     * Skips unquoted name or number.
+     *
+     * @param sql   SQL code
+     * @param start position of the first character
+     *
+     * @return position after the name
+     */
+    private static int skipWord(final String sql, final int start) {
+        int pos = start + 1;
+
+        while (pos < sql.length() && (Character.isLetterOrDigit(
+                sql.charAt(pos)) || sql.charAt(pos) == '_'
+                || sql.charAt(pos) == '$')) {
+            pos++;
+        }
+
+        return pos;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link FingerprintManifest}.
+ *
+ * @author fordfrog
+ */
+public class FingerprintManifestTest {
+
+    @Test(timeout = 1000)
+    public void testManifestIsStable() {
+        Assert.assertThat(FingerprintManifest.build(
+                TestUtils.load("add_column_original.sql")),
+                IsEqual.equalTo(FingerprintManifest.build(
+                TestUtils.load("add_column_original.sql"))));
+    }
+
+    @Test(timeout = 1000)
+    public void testChangedEntries() {
+        final SortedMap<String, String> oldManifest = FingerprintManifest.
+                build(TestUtils.load("add_column_original.sql"));
+        final SortedMap<String, String> newManifest = FingerprintManifest.
+                build(TestUtils.load("add_column_new.sql"));
+        @SuppressWarnings("CollectionWithoutInitialCapacity")
+        final List<String> changed = new ArrayList<String>();
+
+        for (final Map.Entry<String, String> entry : newManifest.entrySet()) {
+            if (!entry.getValue().equals(oldManifest.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+
+        Assert.assertThat(changed.toString(), IsEqual.equalTo("[DATABASE, "
+                + "RELATION public.testtable, "
+                + "RELATION public.testtable COLUMN field5, SCHEMA public]"));
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link JsonRenderer}.
+ *
+ * @author fordfrog
+ */
+public class JsonRendererTest {
+
+    /**
+     * Line separator.
+     */
+    private static final String EOL = System.getProperty("line.separator");
+
+    @Test(timeout = 1000)
+    public void testRender() {
+        final ObjectKey key =
+                new ObjectKey(ObjectKey.Kind.RELATION, "s", "t");
+        final ChangeSet changes = new ChangeSet("SET search_path = s;");
+        final Change alter = changes.add(Change.Kind.ALTER_TABLE, key, null,
+                null, null, "ALTER TABLE t");
+        alter.addClause(Change.Kind.ALTER_COLUMN_STATISTICS, "a", null, null,
+                "ALTER COLUMN a SET STATISTICS 100");
+        alter.addClause(Change.Kind.ADD_COLUMN, "b", null, null,
+                "ADD COLUMN b text DEFAULT '\"'");
+        changes.add(Change.Kind.CREATE_INDEX, new ObjectKey(
+                ObjectKey.Kind.INDEX, "s", "i"), null, null, "i",
+                "CREATE INDEX i ON t (b);");
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        final JsonRenderer renderer = new JsonRenderer(writer);
+
+        for (final Change change : changes.getChanges()) {
+            renderer.add(change);
+        }
+
+        writer.flush();
+
+        Assert.assertThat(output.toString(), IsEqual.equalTo(
+                "{\"kind\":\"ALTER_TABLE\",\"key\":{\"kind\":\"RELATION\","
+                + "\"schema\":\"s\",\"name\":\"t\",\"signature\":null},"
+                + "\"member\":null,\"old\":null,\"new\":null,"
+                + "\"sql\":\"ALTER TABLE t\\n\\tALTER COLUMN a SET "
+                + "STATISTICS 100,\\n\\tADD COLUMN b text DEFAULT "
+                + "'\\\"';\",\"searchPath\":\"SET search_path = s;\","
+                + "\"lockLevel\":\"ACCESS EXCLUSIVE\",\"dependencies\":[],"
+                + "\"clauses\":[{\"kind\":\"ALTER_COLUMN_STATISTICS\","
+                + "\"key\":{\"kind\":\"RELATION\",\"schema\":\"s\","
+                + "\"name\":\"t\",\"signature\":null},\"member\":\"a\","
+                + "\"old\":null,\"new\":null,\"sql\":\"ALTER COLUMN a SET "
+                + "STATISTICS 100\",\"lockLevel\":\"SHARE UPDATE "
+                + "EXCLUSIVE\",\"dependencies\":[]},{\"kind\":"
+                + "\"ADD_COLUMN\",\"key\":{\"kind\":\"RELATION\","
+                + "\"schema\":\"s\",\"name\":\"t\",\"signature\":null},"
+                + "\"member\":\"b\",\"old\":null,\"new\":null,\"sql\":"
+                + "\"ADD COLUMN b text DEFAULT '\\\"'\",\"lockLevel\":"
+                + "\"ACCESS EXCLUSIVE\",\"dependencies\":[]}]}" + EOL
+                + "{\"kind\":\"CREATE_INDEX\",\"key\":{\"kind\":\"INDEX\","
+                + "\"schema\":\"s\",\"name\":\"i\",\"signature\":null},"
+                + "\"member\":null,\"old\":null,\"new\":{\"value\":\"i\"},"
+                + "\"sql\":\"CREATE INDEX i ON t (b);\",\"searchPath\":"
+                + "\"SET search_path = s;\",\"lockLevel\":\"SHARE\","
+                + "\"dependencies\":[],\"clauses\":[]}" + EOL));
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.Arrays;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link KeyedJoin}.
+ *
+ * @author fordfrog
+ */
+public class KeyedJoinTest {
+
+    /**
+     * Uses text before colon as key.
+     */
+    private static final KeyedJoin.KeyExtractor<String> PREFIX =
+            new KeyedJoin.KeyExtractor<String>() {
+                @Override
+                public String getKey(final String object) {
+                    return object.substring(0, object.indexOf(':'));
+                }
+            };
+
+    @Test(timeout = 1000)
+    public void testJoin() {
+        final KeyedJoin<String> join = KeyedJoin.join(
+                Arrays.asList("a:1", "b:1", "c:1", "d:1"),
+                Arrays.asList("e:1", "d:2", "b:1", "a:1"), PREFIX);
+
+        Assert.assertThat(join.getRemoved(),
+                IsEqual.equalTo(Arrays.asList("c:1")));
+        Assert.assertThat(join.getAdded(),
+                IsEqual.equalTo(Arrays.asList("e:1")));
+        Assert.assertThat(join.getChangedOld(),
+                IsEqual.equalTo(Arrays.asList("d:1")));
+        Assert.assertThat(join.getChangedNew(),
+                IsEqual.equalTo(Arrays.asList("d:2")));
+        Assert.assertThat(join.getDropped(),
+                IsEqual.equalTo(Arrays.asList("c:1", "d:1")));
+        Assert.assertThat(join.getCreated(),
+                IsEqual.equalTo(Arrays.asList("e:1", "d:2")));
+    }
+
+    @Test(timeout = 1000)
+    public void testJoinWithoutOld() {
+        final KeyedJoin<String> join =
+                KeyedJoin.join(null, Arrays.asList("a:1", "b:1"), PREFIX);
+
+        Assert.assertTrue(join.getDropped().isEmpty());
+        Assert.assertThat(join.getCreated(),
+                IsEqual.equalTo(Arrays.asList("a:1", "b:1")));
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link LockLevel}.
+ *
+ * @author fordfrog
+ */
+public class LockLevelTest {
+
+    @Test(timeout = 1000)
+    public void testDropSchemaLocksContainedTables() {
+        final Change change = new Change(Change.Kind.DROP_SCHEMA,
+                ObjectKey.schema("s"), null, "DROP SCHEMA s CASCADE;");
+
+        Assert.assertThat(LockLevel.estimate(change),
+                IsEqual.equalTo(LockLevel.ACCESS_EXCLUSIVE));
+    }
+
+    @Test(timeout = 1000)
+    public void testAddConstraintByKind() {
+        final ObjectKey key =
+                new ObjectKey(ObjectKey.Kind.RELATION, "s", "t");
+        final PgConstraint foreignKey = new PgConstraint("t_fk");
+        foreignKey.setKind(PgConstraint.Kind.FOREIGN_KEY);
+        final PgConstraint check = new PgConstraint("t_check");
+        check.setKind(PgConstraint.Kind.CHECK);
+
+        final Change change = new Change(Change.Kind.ALTER_TABLE, key, null,
+                "ALTER TABLE t");
+        change.addClause(Change.Kind.ADD_CONSTRAINT, "t_fk", null,
+                foreignKey, "ADD CONSTRAINT t_fk");
+
+        Assert.assertThat(LockLevel.estimate(change),
+                IsEqual.equalTo(LockLevel.SHARE_ROW_EXCLUSIVE));
+
+        change.addClause(Change.Kind.ADD_CONSTRAINT, "t_check", null,
+                check, "ADD CONSTRAINT t_check");
+
+        Assert.assertThat(LockLevel.estimate(change),
+                IsEqual.equalTo(LockLevel.ACCESS_EXCLUSIVE));
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ParallelOutput}.
+ *
+ * @author fordfrog
+ */
+public class ParallelOutputTest {
+
+    @Test(timeout = 5000)
+    public void testOrderIsKept() {
+        final List<List<String>> expected = computeNested(1);
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertThat(computeNested(3), IsEqual.equalTo(expected));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testComputeAll() {
+        final ParallelOutput parallel = new ParallelOutput(4);
+
+        try {
+            final List<Integer> squares = parallel.computeAll(numbers(1000),
+                    new ParallelOutput.Computation<Integer, Integer>() {
+                        @Override
+                        public Integer compute(final Integer item) {
+                            return item * item;
+                        }
+                    });
+
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertThat(squares.get(i), IsEqual.equalTo(i * i));
+            }
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testResultsAreReceivedInOrder() {
+        final ParallelOutput parallel = new ParallelOutput(4);
+        final List<Integer> received = new ArrayList<Integer>(1000);
+
+        try {
+            parallel.computeAll(numbers(1000),
+                    new ParallelOutput.Computation<Integer, Integer>() {
+                        @Override
+                        public Integer compute(final Integer item) {
+                            return item * 2;
+                        }
+                    }, new ParallelOutput.Receiver<Integer>() {
+                        @Override
+                        public void receive(final Integer result) {
+                            received.add(result);
+                        }
+                    });
+        } finally {
+            parallel.shutdown();
+        }
+
+        Assert.assertThat(received.size(), IsEqual.equalTo(1000));
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertThat(received.get(i), IsEqual.equalTo(i * 2));
+        }
+    }
+
+    @Test(timeout = 5000, expected = IllegalStateException.class)
+    public void testFailureIsRethrown() {
+        final ParallelOutput parallel = new ParallelOutput(4);
+
+        try {
+            parallel.computeAll(numbers(10),
+                    new ParallelOutput.Computation<Integer, Integer>() {
+                        @Override
+                        public Integer compute(final Integer item) {
+                            if (item == 7) {
+                                throw new IllegalStateException();
+                            }
+
+                            return item;
+                        }
+                    });
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Computes results of nested computations.
+     *
+     * @param threads number of threads
+     *
+     * @return results
+     */
+    private static List<List<String>> computeNested(final int threads) {
+        final ParallelOutput parallel = new ParallelOutput(threads);
+
+        try {
+            return parallel.computeAll(numbers(20),
+                    new ParallelOutput.Computation<Integer, List<String>>() {
+                        @Override
+                        public List<String> compute(final Integer outer) {
+                            return parallel.computeAll(numbers(50),
+                                    new ParallelOutput.Computation<
+                                            Integer, String>() {
+                                        @Override
+                                        public String compute(
+                                                final Integer inner) {
+                                            return outer + "." + inner;
+                                        }
+                                    });
+                        }
+                    });
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * Returns list of numbers from 0 to {@code count} - 1.
+     *
+     * @param count count of numbers
+     *
+     * @return list of numbers
+     */
+    private static List<Integer> numbers(final int count) {
+        final List<Integer> list = new ArrayList<Integer>(count);
+
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+
+        return list;
+    }
+}
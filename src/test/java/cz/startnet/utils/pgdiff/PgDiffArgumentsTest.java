@@ -0,0 +1,120 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link PgDiffArguments}.
+ *
+ * @author fordfrog
+ */
+public class PgDiffArgumentsTest {
+
+    /**
+     * Tests that check, manifest, fleet and template modes exclude each
+     * other.
+     */
+    @Test(timeout = 1000)
+    public void testModesExcludeEachOther() {
+        final String[][] argsList = {
+            {"--check", "--fleet", "out", "new.sql", "t.sql"},
+            {"--manifest", "--fleet", "out", "new.sql", "t.sql"},
+            {"--template", "t", "--fleet", "out", "new.sql", "t.sql"},
+            {"--check", "--template", "t", "old.sql", "new.sql"},
+            {"--check", "--manifest", "old.sql"}
+        };
+
+        for (final String[] args : argsList) {
+            final StringWriter output = new StringWriter();
+            Assert.assertThat(parse(output, args), IsEqual.equalTo(false));
+            Assert.assertThat(output.toString().trim(), IsEqual.equalTo(
+                    Resources.getString("ErrorModeConflict")));
+        }
+    }
+
+    /**
+     * Tests that each mode is accepted alone.
+     */
+    @Test(timeout = 1000)
+    public void testSingleMode() {
+        final String[][] argsList = {
+            {"--check", "old.sql", "new.sql"},
+            {"--manifest", "old.sql"},
+            {"--fleet", "out", "new.sql", "t.sql"},
+            {"--template", "t", "old.sql", "new.sql"}
+        };
+
+        for (final String[] args : argsList) {
+            Assert.assertThat(parse(new StringWriter(), args),
+                    IsEqual.equalTo(true));
+        }
+    }
+
+    /**
+     * Tests that option given as the last argument without value is
+     * reported.
+     */
+    @Test(timeout = 1000)
+    public void testMissingOptionValue() {
+        final String[] options = {"--fleet", "--in-charset-name",
+            "--out-charset-name", "--rollback", "--template", "--threads"};
+
+        for (final String option : options) {
+            final StringWriter output = new StringWriter();
+            Assert.assertThat(parse(output, new String[]{option}),
+                    IsEqual.equalTo(false));
+            Assert.assertThat(output.toString().startsWith(
+                    Resources.getString("ErrorMissingOptionValue") + ": "
+                    + option), IsEqual.equalTo(true));
+        }
+    }
+
+    /**
+     * Tests that number of threads must be positive number.
+     */
+    @Test(timeout = 1000)
+    public void testInvalidThreads() {
+        final String[] values = {"x", "0", "-1"};
+
+        for (final String value : values) {
+            final StringWriter output = new StringWriter();
+            Assert.assertThat(parse(output, new String[]{
+                        "--threads", value, "old.sql", "new.sql"}),
+                    IsEqual.equalTo(false));
+            Assert.assertThat(output.toString().startsWith(
+                    Resources.getString("ErrorInvalidOptionValue")
+                    + ": --threads " + value), IsEqual.equalTo(true));
+        }
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        Assert.assertThat(arguments.parse(new PrintWriter(new StringWriter()),
+                new String[]{"--threads", "3", "old.sql", "new.sql"}),
+                IsEqual.equalTo(true));
+        Assert.assertThat(arguments.getThreads(), IsEqual.equalTo(3));
+    }
+
+    /**
+     * Parses the arguments.
+     *
+     * @param output output of the parser
+     * @param args   array of arguments
+     *
+     * @return result of {@link PgDiffArguments#parse(PrintWriter, String[])}
+     */
+    private static boolean parse(final StringWriter output,
+            final String[] args) {
+        final PrintWriter writer = new PrintWriter(output);
+        final boolean result = new PgDiffArguments().parse(writer, args);
+        writer.flush();
+
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.IOException;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link PgDiffCheck}.
+ *
+ * @author fordfrog
+ */
+public class PgDiffCheckTest {
+
+    @Test(timeout = 1000)
+    public void testSameDatabases() {
+        Assert.assertThat(PgDiffCheck.findFirstDifference(
+                TestUtils.load("add_function_noargs_original.sql"),
+                TestUtils.load("add_function_noargs_original.sql")),
+                IsNull.nullValue());
+    }
+
+    @Test(timeout = 1000)
+    public void testAddedFunction() {
+        Assert.assertThat(PgDiffCheck.findFirstDifference(
+                TestUtils.load("add_function_noargs_original.sql"),
+                TestUtils.load("add_function_noargs_new.sql")),
+                IsEqual.equalTo("FUNCTION public.return_one()"));
+    }
+
+    @Test(timeout = 1000)
+    public void testModifiedTable() {
+        Assert.assertThat(PgDiffCheck.findFirstDifference(
+                TestUtils.load("add_column_original.sql"),
+                TestUtils.load("add_column_new.sql")),
+                IsEqual.equalTo("RELATION public.testtable"));
+    }
+
+    @Test(timeout = 1000)
+    public void testReorderedObjects() throws IOException {
+        final PgDatabase oldDatabase = TestUtils.parse(
+                "CREATE TABLE a (id integer);\n"
+                + "CREATE TABLE b (id integer);\n");
+        final PgDatabase newDatabase = TestUtils.parse(
+                "CREATE TABLE b (id integer);\n"
+                + "CREATE TABLE a (id integer);\n");
+
+        Assert.assertThat(
+                PgDiffCheck.findFirstDifference(oldDatabase, newDatabase),
+                IsNull.nullValue());
+        Assert.assertTrue(PgDiff.diffDatabases(new PgDiffArguments(),
+                oldDatabase, newDatabase).getChanges().isEmpty());
+    }
+}
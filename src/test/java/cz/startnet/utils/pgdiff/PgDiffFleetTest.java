@@ -0,0 +1,158 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.loader.FileException;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link PgDiffFleet}.
+ *
+ * @author fordfrog
+ */
+public class PgDiffFleetTest {
+
+    /**
+     * Folder for dumps and scripts.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void testDiffFleet() throws IOException {
+        final File baseline = copy("add_column_new.sql", "baseline.sql");
+        final File drifted = copy("add_column_original.sql", "a.sql");
+        final File same = copy("add_column_new.sql", "b.sql");
+        final File duplicate = copy("add_column_original.sql", "c.sql");
+        final File scripts = new File(folder.getRoot(), "scripts");
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setThreads(2);
+        arguments.setFleetDirectory(scripts.getPath());
+        arguments.setNewDumpFile(baseline.getPath());
+        arguments.setTenantDumpFiles(
+                Arrays.asList(drifted.getPath(), same.getPath(),
+                duplicate.getPath()));
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        PgDiffFleet.diffFleet(writer, arguments);
+        writer.flush();
+
+        Assert.assertThat(output.toString(), IsEqual.equalTo(
+                "GROUP\tTENANTS\tFINGERPRINT" + TestUtils.EOL
+                + "1\t2\t" + getFingerprint(drifted) + TestUtils.EOL
+                + "2\t1\t" + getFingerprint(same) + TestUtils.EOL
+                + TestUtils.EOL + "TENANT\tGROUP" + TestUtils.EOL
+                + "a.sql\t1" + TestUtils.EOL
+                + "b.sql\t2" + TestUtils.EOL
+                + "c.sql\t1" + TestUtils.EOL
+                + TestUtils.EOL + "OBJECT\t1\t2" + TestUtils.EOL
+                + "RELATION public.testtable\tX\t-" + TestUtils.EOL));
+        final String script = TestUtils.read(new File(scripts, "a.diff.sql"));
+        Assert.assertThat(script.trim(), IsEqual.equalTo(
+                TestUtils.readResource("add_column_diff.sql").trim()));
+        Assert.assertThat(
+                TestUtils.read(new File(scripts, "b.diff.sql")).trim(),
+                IsEqual.equalTo(""));
+        Assert.assertThat(TestUtils.read(new File(scripts, "c.diff.sql")),
+                IsEqual.equalTo(script));
+    }
+
+    /**
+     * Tests that scripts written to the folder of the dumps do not overwrite
+     * the dumps.
+     *
+     * @throws IOException Thrown if a file cannot be read or written.
+     */
+    @Test(timeout = 5000)
+    public void testScriptsInDumpFolder() throws IOException {
+        final File baseline = copy("add_column_new.sql", "baseline.sql");
+        final File drifted = copy("add_column_original.sql", "a.sql");
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setFleetDirectory(folder.getRoot().getPath());
+        arguments.setNewDumpFile(baseline.getPath());
+        arguments.setTenantDumpFiles(Arrays.asList(drifted.getPath()));
+
+        PgDiffFleet.diffFleet(
+                new PrintWriter(new StringWriter()), arguments);
+
+        Assert.assertThat(TestUtils.read(drifted), IsEqual.equalTo(
+                TestUtils.readResource("add_column_original.sql")));
+        Assert.assertThat(TestUtils.read(
+                new File(folder.getRoot(), "a.diff.sql")).trim(),
+                IsEqual.equalTo(TestUtils.readResource(
+                "add_column_diff.sql").trim()));
+    }
+
+    /**
+     * Tests that nothing is written if script of a tenant would overwrite
+     * dump of another tenant.
+     *
+     * @throws IOException Thrown if a file cannot be read or written.
+     */
+    @Test(timeout = 5000)
+    public void testScriptOverwritesDump() throws IOException {
+        final File baseline = copy("add_column_new.sql", "baseline.sql");
+        final File drifted = copy("add_column_original.sql", "a.sql");
+        final File clash = copy("add_column_new.sql", "a.diff.sql");
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setFleetDirectory(folder.getRoot().getPath());
+        arguments.setNewDumpFile(baseline.getPath());
+        arguments.setTenantDumpFiles(
+                Arrays.asList(drifted.getPath(), clash.getPath()));
+
+        try {
+            PgDiffFleet.diffFleet(
+                    new PrintWriter(new StringWriter()), arguments);
+            Assert.fail("FileException expected");
+        } catch (final FileException ex) {
+            Assert.assertThat(TestUtils.read(clash), IsEqual.equalTo(
+                    TestUtils.readResource("add_column_new.sql")));
+        }
+    }
+
+    /**
+     * Returns fingerprint of the dump.
+     *
+     * @param file dump file
+     *
+     * @return fingerprint of the database
+     */
+    private static String getFingerprint(final File file) {
+        final PgDatabase database = TestUtils.load(file);
+        database.freeze();
+
+        return database.getFingerprint();
+    }
+
+    /**
+     * Copies test resource to the temporary folder.
+     *
+     * @param resource name of the resource
+     * @param fileName name of the file in the folder
+     *
+     * @return created file
+     *
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    private File copy(final String resource, final String fileName)
+            throws IOException {
+        return TestUtils.copy(resource, new File(folder.getRoot(), fileName));
+    }
+}
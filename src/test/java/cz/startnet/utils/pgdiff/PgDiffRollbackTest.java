@@ -0,0 +1,111 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests output of rollback script together with the forward script.
+ *
+ * @author fordfrog
+ */
+public class PgDiffRollbackTest {
+
+    /**
+     * Folder for the rollback script.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that forward script is written to the writer and rollback script
+     * that reverts it is written to the rollback file.
+     *
+     * @throws IOException Thrown if the rollback file cannot be read.
+     */
+    @Test(timeout = 5000)
+    public void testRollback() throws IOException {
+        final File rollback = new File(folder.getRoot(), "rollback.sql");
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setRollbackFile(rollback.getPath());
+
+        final StringWriter forward = new StringWriter();
+        final PrintWriter writer = new PrintWriter(forward);
+        PgDiff.createDiff(writer, arguments,
+                PgDiffRollbackTest.class.getResourceAsStream(
+                "add_column_original.sql"),
+                PgDiffRollbackTest.class.getResourceAsStream(
+                "add_column_new.sql"));
+        writer.flush();
+
+        Assert.assertThat(forward.toString(), IsEqual.equalTo(
+                TestUtils.EOL + "ALTER TABLE testtable" + TestUtils.EOL
+                + "\tADD COLUMN field5 boolean DEFAULT false NOT NULL;"
+                + TestUtils.EOL));
+        Assert.assertThat(TestUtils.read(rollback), IsEqual.equalTo(
+                TestUtils.EOL + "ALTER TABLE testtable" + TestUtils.EOL
+                + "\tDROP COLUMN field5;" + TestUtils.EOL));
+    }
+
+    /**
+     * Tests that rollback cannot be combined with other modes.
+     */
+    @Test(timeout = 5000)
+    public void testRollbackWithOtherMode() {
+        final String[][] argsList = {
+            {"--check", "--rollback", "r.sql", "old.sql", "new.sql"},
+            {"--manifest", "--rollback", "r.sql", "old.sql"},
+            {"--fleet", "out", "--rollback", "r.sql", "new.sql", "t.sql"},
+            {"--template", "t", "--rollback", "r.sql", "old.sql", "new.sql"}
+        };
+
+        for (final String[] args : argsList) {
+            Assert.assertThat(parse(args), IsEqual.equalTo(false));
+        }
+
+        Assert.assertThat(parse(
+                new String[]{"--rollback", "r.sql", "old.sql", "new.sql"}),
+                IsEqual.equalTo(true));
+    }
+
+    /**
+     * Tests that rollback file cannot be any of the dumps.
+     */
+    @Test(timeout = 5000)
+    public void testRollbackOverwritesDump() {
+        final File oldDump = new File(folder.getRoot(), "old.sql");
+        final File newDump = new File(folder.getRoot(), "new.sql");
+        final String sameNewDump = folder.getRoot().getPath()
+                + File.separator + "." + File.separator + "new.sql";
+
+        Assert.assertThat(parse(new String[]{"--rollback", oldDump.getPath(),
+                    oldDump.getPath(), newDump.getPath()}),
+                IsEqual.equalTo(false));
+        Assert.assertThat(parse(new String[]{"--rollback", sameNewDump,
+                    oldDump.getPath(), newDump.getPath()}),
+                IsEqual.equalTo(false));
+    }
+
+    /**
+     * Parses the arguments.
+     *
+     * @param args array of arguments
+     *
+     * @return result of {@link PgDiffArguments#parse(PrintWriter, String[])}
+     */
+    private static boolean parse(final String[] args) {
+        return new PgDiffArguments().parse(
+                new PrintWriter(new StringWriter()), args);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link PgDiffTemplate}.
+ *
+ * @author fordfrog
+ */
+public class PgDiffTemplateTest {
+
+    /**
+     * Folder for dumps.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void testDiffTemplate() throws IOException {
+        final File oldDump = write("old.sql", "CREATE SCHEMA t1;\n"
+                + "CREATE SCHEMA t2;\n"
+                + "SET search_path = t1, pg_catalog;\n"
+                + "CREATE TABLE items (id integer);\n"
+                + "SET search_path = t2, pg_catalog;\n"
+                + "CREATE TABLE items (id integer, name text);\n");
+        final File newDump = write("new.sql", "CREATE SCHEMA template;\n"
+                + "SET search_path = template, pg_catalog;\n"
+                + "CREATE TABLE items (id integer, name text);\n");
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setThreads(2);
+        arguments.setTemplateSchema("template");
+        arguments.setOldDumpFile(oldDump.getPath());
+        arguments.setNewDumpFile(newDump.getPath());
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        PgDiffTemplate.diffTemplate(writer, arguments);
+        writer.flush();
+
+        Assert.assertThat(output.toString(), IsEqual.equalTo(
+                TestUtils.EOL + "SET search_path = t1, pg_catalog;"
+                + TestUtils.EOL
+                + TestUtils.EOL + "ALTER TABLE items" + TestUtils.EOL
+                + "\tADD COLUMN name text;" + TestUtils.EOL));
+    }
+
+    /**
+     * Tests that references qualified with name of the template, in column
+     * default and in foreign key, are diffed as references to the tenant.
+     *
+     * @throws IOException Thrown if a dump cannot be written.
+     */
+    @Test(timeout = 5000)
+    public void testQualifiedReferences() throws IOException {
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setThreads(2);
+        arguments.setTemplateSchema("template");
+        arguments.setOldDumpFile(TestUtils.copy(
+                "template_qualified_original.sql",
+                new File(folder.getRoot(), "old.sql")).getPath());
+        arguments.setNewDumpFile(TestUtils.copy("template_qualified_new.sql",
+                new File(folder.getRoot(), "new.sql")).getPath());
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        PgDiffTemplate.diffTemplate(writer, arguments);
+        writer.flush();
+
+        Assert.assertThat(output.toString().trim(), IsEqual.equalTo(
+                TestUtils.readResource("template_qualified_diff.sql").trim()));
+    }
+
+    /**
+     * Tests that name of the template inside string literals and function
+     * bodies is not renamed to the tenant.
+     *
+     * @throws IOException Thrown if a dump cannot be written.
+     */
+    @Test(timeout = 5000)
+    public void testLiteralsNotRenamed() throws IOException {
+        final String objects = "CREATE TABLE a (id integer);\n"
+                + "COMMENT ON TABLE a IS 'mirrors template.a';\n"
+                + "CREATE FUNCTION f() RETURNS bigint\n"
+                + "    LANGUAGE sql\n"
+                + "    AS $$SELECT count(*) FROM template.a$$;\n";
+
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setTemplateSchema("template");
+        arguments.setOldDumpFile(write("old.sql", "CREATE SCHEMA t1;\n"
+                + "SET search_path = t1, pg_catalog;\n" + objects).getPath());
+        arguments.setNewDumpFile(write("new.sql", "CREATE SCHEMA template;\n"
+                + "SET search_path = template, pg_catalog;\n"
+                + objects).getPath());
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        PgDiffTemplate.diffTemplate(writer, arguments);
+        writer.flush();
+
+        Assert.assertThat(output.toString(), IsEqual.equalTo(""));
+    }
+
+    @Test(timeout = 5000, expected = RuntimeException.class)
+    public void testMissingTemplate() throws IOException {
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setTemplateSchema("template");
+        arguments.setOldDumpFile(write("old.sql", "").getPath());
+        arguments.setNewDumpFile(write("new.sql", "").getPath());
+
+        PgDiffTemplate.diffTemplate(
+                new PrintWriter(new StringWriter()), arguments);
+    }
+
+    /**
+     * Writes dump to the temporary folder.
+     *
+     * @param fileName name of the file in the folder
+     * @param content  content of the dump
+     *
+     * @return created file
+     *
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    private File write(final String fileName, final String content)
+            throws IOException {
+        return TestUtils.write(content, new File(folder.getRoot(), fileName));
+    }
+}
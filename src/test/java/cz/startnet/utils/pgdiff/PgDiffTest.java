@@ -39,6 +39,9 @@ public class PgDiffTest {
                 new Object[][]{
                     // Tests scenario where COLUMN type is modified.
                     {"modify_column_type", false, false, false, false},
+                    // Tests that aliases of the same COLUMN type are not
+                    // reported as type change.
+                    {"modify_column_type_alias", false, false, false, false},
                     // Tests scenario where CLUSTER is added to TABLE.
                     {"add_cluster", false, false, false, false},
                     // Tests scenario where CLUSTER is dropped from TABLE.
@@ -215,6 +218,10 @@ public class PgDiffTest {
                     {"function_bug3084274", false, true, false, false},
                     // Tests addition of comment when new column has been added
                     {"add_comment_new_column", false, true, false, false},
+                    // Tests comments that precede creation of their objects
+                    {"add_comment_before_create", false, true, false, false},
+                    // Tests changes of comments on rules
+                    {"alter_comment_rule", false, true, false, false},
                     // Tests handling of quoted schemas in search_path
                     {"quoted_schema", false, true, false, false},
                     // Tests adding new column with add defaults turned on
@@ -246,6 +253,16 @@ public class PgDiffTest {
                     , {"add_type", false, false, false, false}
                     , {"drop_type", false, false, false, false}
                     , {"alter_type", false, false, false, false}
+                    // Tests that OWNER TO, privileges and inherited defaults
+                    // are preceded by search path of their schema
+                    , {"schema_owner_privileges", false, false, false, false}
+                    // Tests that SET STORAGE is separated from the next
+                    // statement
+                    , {"alter_column_storage", false, false, false, false}
+                    // Tests change and removal of generation expression
+                    , {"alter_generated_column", false, false, false, false}
+                    // Tests addition, removal and changes of identity
+                    , {"alter_identity_column", false, false, false, false}
                 });
     }
     /**
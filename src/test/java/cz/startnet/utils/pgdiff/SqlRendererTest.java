@@ -0,0 +1,64 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.schema.ObjectKey;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link SqlRenderer}.
+ *
+ * @author fordfrog
+ */
+public class SqlRendererTest {
+
+    /**
+     * Line separator.
+     */
+    private static final String EOL = System.getProperty("line.separator");
+
+    @Test(timeout = 1000)
+    public void testRender() {
+        final ObjectKey key =
+                new ObjectKey(ObjectKey.Kind.RELATION, "s", "t");
+        final ChangeSet changes = new ChangeSet("SET search_path = s;");
+        final Change alter = changes.add(Change.Kind.ALTER_TABLE, key, null,
+                null, null, "ALTER TABLE t");
+        alter.addClause(Change.Kind.DROP_COLUMN, "a", null, null,
+                "DROP COLUMN a");
+        alter.addClause(Change.Kind.ADD_COLUMN, "b", null, null,
+                "ADD COLUMN b integer");
+        changes.add(Change.Kind.REVOKE, key, null, null, null,
+                "REVOKE ALL ON TABLE t FROM bob;");
+        changes.add(Change.Kind.GRANT, key, null, null, null,
+                "GRANT SELECT ON TABLE t TO bob;").setSeparated(false);
+
+        final StringWriter output = new StringWriter();
+        final PrintWriter writer = new PrintWriter(output);
+        SqlRenderer.render(writer, changes, true);
+        writer.flush();
+
+        Assert.assertThat(output.toString(), IsEqual.equalTo(
+                "START TRANSACTION;" + EOL
+                + EOL + "SET search_path = s;" + EOL
+                + EOL + "ALTER TABLE t" + EOL
+                + "\tDROP COLUMN a," + EOL
+                + "\tADD COLUMN b integer;" + EOL
+                + EOL + "REVOKE ALL ON TABLE t FROM bob;" + EOL
+                + "GRANT SELECT ON TABLE t TO bob;" + EOL
+                + EOL + "COMMIT TRANSACTION;" + EOL));
+    }
+
+    @Test(timeout = 1000)
+    public void testDropColumnIsDrop() {
+        Assert.assertTrue(Change.Kind.DROP_COLUMN.isDrop());
+        Assert.assertTrue(!Change.Kind.ADD_COLUMN.isDrop());
+    }
+}
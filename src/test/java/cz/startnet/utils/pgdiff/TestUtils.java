@@ -0,0 +1,195 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+
+/**
+ * Helpers shared by tests for loading dumps from test resources and for
+ * reading and writing files. Test resources are looked up relative to this
+ * package and all texts use UTF-8.
+ *
+ * @author fordfrog
+ */
+public final class TestUtils {
+
+    /**
+     * Line separator.
+     */
+    public static final String EOL = System.getProperty("line.separator");
+
+    /**
+     * Loads database from test resource.
+     *
+     * @param resource name of the resource
+     *
+     * @return loaded database
+     */
+    public static PgDatabase load(final String resource) {
+        return PgDumpLoader.loadDatabaseSchema(
+                TestUtils.class.getResourceAsStream(resource), "UTF-8",
+                false, false);
+    }
+
+    /**
+     * Loads database from dump file.
+     *
+     * @param file dump file
+     *
+     * @return loaded database
+     */
+    public static PgDatabase load(final File file) {
+        return PgDumpLoader.loadDatabaseSchema(
+                file.getPath(), "UTF-8", false, false);
+    }
+
+    /**
+     * Parses database from dump text.
+     *
+     * @param dump dump text
+     *
+     * @return parsed database
+     *
+     * @throws IOException Thrown if the text cannot be encoded.
+     */
+    public static PgDatabase parse(final String dump) throws IOException {
+        return PgDumpLoader.loadDatabaseSchema(
+                new ByteArrayInputStream(dump.getBytes("UTF-8")), "UTF-8",
+                false, false);
+    }
+
+    /**
+     * Copies test resource to the file.
+     *
+     * @param resource name of the resource
+     * @param file     target file
+     *
+     * @return the target file
+     *
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public static File copy(final String resource, final File file)
+            throws IOException {
+        return write(TestUtils.class.getResourceAsStream(resource), file);
+    }
+
+    /**
+     * Writes text to the file.
+     *
+     * @param content text
+     * @param file    target file
+     *
+     * @return the target file
+     *
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public static File write(final String content, final File file)
+            throws IOException {
+        return write(
+                new ByteArrayInputStream(content.getBytes("UTF-8")), file);
+    }
+
+    /**
+     * Reads content of the file.
+     *
+     * @param file file
+     *
+     * @return content of the file with lines separated by {@link #EOL}
+     *
+     * @throws IOException Thrown if the file cannot be read.
+     */
+    public static String read(final File file) throws IOException {
+        return read(new FileInputStream(file));
+    }
+
+    /**
+     * Reads content of test resource.
+     *
+     * @param resource name of the resource
+     *
+     * @return content of the resource with lines separated by {@link #EOL}
+     *
+     * @throws IOException Thrown if the resource cannot be read.
+     */
+    public static String readResource(final String resource)
+            throws IOException {
+        return read(TestUtils.class.getResourceAsStream(resource));
+    }
+
+    /**
+     * Reads content of the stream and closes it.
+     *
+     * @param input input stream
+     *
+     * @return content of the stream with lines separated by {@link #EOL}
+     *
+     * @throws IOException Thrown if the stream cannot be read.
+     */
+    private static String read(final InputStream input) throws IOException {
+        final BufferedReader reader =
+                new BufferedReader(new InputStreamReader(input, "UTF-8"));
+        final StringBuilder sbContent = new StringBuilder(1024);
+
+        try {
+            String line = reader.readLine();
+
+            while (line != null) {
+                sbContent.append(line);
+                sbContent.append(EOL);
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+
+        return sbContent.toString();
+    }
+
+    /**
+     * Writes content of the stream to the file and closes the stream.
+     *
+     * @param input input stream
+     * @param file  target file
+     *
+     * @return the target file
+     *
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    private static File write(final InputStream input, final File file)
+            throws IOException {
+        final OutputStream output = new FileOutputStream(file);
+
+        try {
+            final byte[] buffer = new byte[4096];
+            int length;
+
+            while ((length = input.read(buffer)) != -1) {
+                output.write(buffer, 0, length);
+            }
+        } finally {
+            output.close();
+            input.close();
+        }
+
+        return file;
+    }
+
+    /**
+     * Creates a new instance of TestUtils.
+     */
+    private TestUtils() {
+    }
+}
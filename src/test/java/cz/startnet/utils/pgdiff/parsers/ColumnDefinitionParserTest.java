@@ -0,0 +1,116 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgColumn;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ColumnDefinitionParser}.
+ *
+ * @author fordfrog
+ */
+public class ColumnDefinitionParserTest {
+
+    @Test(timeout = 1000)
+    public void testParseDefaultAndNotNull() {
+        final PgColumn column = parse("character varying(20) "
+                + "DEFAULT nextval('seq'::regclass) NOT NULL");
+
+        Assert.assertThat(column.getType(),
+                IsEqual.equalTo("character varying(20)"));
+        Assert.assertThat(column.getDefaultValue(),
+                IsEqual.equalTo("nextval('seq'::regclass)"));
+        Assert.assertFalse(column.getNullValue());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseDefaultContainingKeywords() {
+        final PgColumn column =
+                parse("text DEFAULT 'x DEFAULT y NOT NULL'::text NULL");
+
+        Assert.assertThat(column.getType(), IsEqual.equalTo("text"));
+        Assert.assertThat(column.getDefaultValue(),
+                IsEqual.equalTo("'x DEFAULT y NOT NULL'::text"));
+        Assert.assertTrue(column.getNullValue());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseCollation() {
+        final PgColumn column =
+                parse("timestamp with time zone COLLATE pg_catalog.\"C\"");
+
+        Assert.assertThat(column.getType(),
+                IsEqual.equalTo("timestamp with time zone"));
+        Assert.assertThat(column.getCollation(),
+                IsEqual.equalTo("pg_catalog.\"C\""));
+        Assert.assertThat(column.getDefaultValue(), IsNull.nullValue());
+        Assert.assertTrue(column.getNullValue());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseIdentityAndGenerated() {
+        final PgColumn identity = parse("integer NOT NULL "
+                + "GENERATED BY DEFAULT AS IDENTITY (START WITH 10)");
+
+        Assert.assertThat(identity.getType(), IsEqual.equalTo("integer"));
+        Assert.assertThat(identity.getIdentity(),
+                IsEqual.equalTo("BY DEFAULT"));
+        Assert.assertThat(identity.getIdentityOptions(),
+                IsEqual.equalTo("(START WITH 10)"));
+        Assert.assertFalse(identity.getNullValue());
+
+        final PgColumn generated =
+                parse("numeric GENERATED ALWAYS AS ((price * 2)) STORED");
+
+        Assert.assertThat(generated.getType(), IsEqual.equalTo("numeric"));
+        Assert.assertThat(generated.getGeneratedExpression(),
+                IsEqual.equalTo("((price * 2))"));
+        Assert.assertThat(generated.getIdentity(), IsNull.nullValue());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseReferencesAfterNotNull() {
+        final PgColumn column = parse("integer NOT NULL REFERENCES other(id)");
+
+        Assert.assertThat(column.getType(), IsEqual.equalTo("integer"));
+        Assert.assertFalse(column.getNullValue());
+        Assert.assertThat(column.getConstraints(),
+                IsEqual.equalTo("REFERENCES other(id)"));
+        Assert.assertThat(column.getFullDefinition(false),
+                IsEqual.equalTo("test integer NOT NULL REFERENCES other(id)"));
+    }
+
+    @Test(timeout = 1000)
+    public void testParseInlineConstraints() {
+        final PgColumn column = parse("integer CONSTRAINT c_fk REFERENCES "
+                + "other(id) ON DELETE SET NULL DEFAULT 1 CHECK ((test > 0))");
+
+        Assert.assertThat(column.getType(), IsEqual.equalTo("integer"));
+        Assert.assertThat(column.getDefaultValue(), IsEqual.equalTo("1"));
+        Assert.assertTrue(column.getNullValue());
+        Assert.assertThat(column.getConstraints(), IsEqual.equalTo(
+                "CONSTRAINT c_fk REFERENCES other(id) ON DELETE SET NULL "
+                + "CHECK ((test > 0))"));
+    }
+
+    /**
+     * Creates column and parses given definition into it.
+     *
+     * @param definition column definition
+     *
+     * @return parsed column
+     */
+    private static PgColumn parse(final String definition) {
+        final PgColumn column = new PgColumn("test");
+        ColumnDefinitionParser.parse(column, definition);
+
+        return column;
+    }
+}
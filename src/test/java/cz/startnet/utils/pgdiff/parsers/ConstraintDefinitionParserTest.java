@@ -0,0 +1,99 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgConstraint;
+import java.util.Arrays;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ConstraintDefinitionParser}.
+ *
+ * @author fordfrog
+ */
+public class ConstraintDefinitionParserTest {
+
+    @Test(timeout = 1000)
+    public void testParsePrimaryKey() {
+        final PgConstraint constraint =
+                parse("PRIMARY KEY (id, \"Name\") USING INDEX TABLESPACE ts");
+
+        Assert.assertTrue(constraint.isPrimaryKeyConstraint());
+        Assert.assertThat(constraint.getColumns(),
+                IsEqual.equalTo(Arrays.asList("id", "Name")));
+        Assert.assertFalse(constraint.isDeferrable());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseForeignKey() {
+        final PgConstraint constraint = parse("FOREIGN KEY (owner_id) "
+                + "REFERENCES public.owners(id) MATCH FULL "
+                + "ON UPDATE CASCADE ON DELETE SET NULL "
+                + "DEFERRABLE INITIALLY DEFERRED");
+
+        Assert.assertThat(constraint.getKind(),
+                IsEqual.equalTo(PgConstraint.Kind.FOREIGN_KEY));
+        Assert.assertFalse(constraint.isPrimaryKeyConstraint());
+        Assert.assertThat(constraint.getColumns(),
+                IsEqual.equalTo(Arrays.asList("owner_id")));
+        Assert.assertThat(constraint.getReferencedTable(),
+                IsEqual.equalTo("public.owners"));
+        Assert.assertThat(constraint.getReferencedColumns(),
+                IsEqual.equalTo(Arrays.asList("id")));
+        Assert.assertThat(constraint.getMatchType(), IsEqual.equalTo("FULL"));
+        Assert.assertThat(constraint.getOnUpdate(),
+                IsEqual.equalTo("CASCADE"));
+        Assert.assertThat(constraint.getOnDelete(),
+                IsEqual.equalTo("SET NULL"));
+        Assert.assertTrue(constraint.isDeferrable());
+        Assert.assertTrue(constraint.isInitiallyDeferred());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseCheckMentioningPrimaryKey() {
+        final PgConstraint constraint =
+                parse("CHECK ((note <> 'PRIMARY KEY (x)'::text)) NOT VALID");
+
+        Assert.assertThat(constraint.getKind(),
+                IsEqual.equalTo(PgConstraint.Kind.CHECK));
+        Assert.assertFalse(constraint.isPrimaryKeyConstraint());
+        Assert.assertTrue(constraint.getColumns().isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testParseUniqueAndExclude() {
+        final PgConstraint unique = parse("UNIQUE NULLS NOT DISTINCT (a, b)");
+
+        Assert.assertThat(unique.getKind(),
+                IsEqual.equalTo(PgConstraint.Kind.UNIQUE));
+        Assert.assertThat(unique.getColumns(),
+                IsEqual.equalTo(Arrays.asList("a", "b")));
+
+        final PgConstraint exclude =
+                parse("EXCLUDE USING gist (room WITH =, during WITH &&)");
+
+        Assert.assertThat(exclude.getKind(),
+                IsEqual.equalTo(PgConstraint.Kind.EXCLUDE));
+        Assert.assertTrue(exclude.getColumns().isEmpty());
+    }
+
+    /**
+     * Creates constraint with given definition and parses it.
+     *
+     * @param definition constraint definition
+     *
+     * @return parsed constraint
+     */
+    private static PgConstraint parse(final String definition) {
+        final PgConstraint constraint = new PgConstraint("test");
+        constraint.setDefinition(definition);
+        ConstraintDefinitionParser.parse(constraint);
+
+        return constraint;
+    }
+}
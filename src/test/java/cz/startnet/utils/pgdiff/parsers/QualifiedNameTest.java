@@ -0,0 +1,46 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link QualifiedName}.
+ *
+ * @author fordfrog
+ */
+public class QualifiedNameTest {
+
+    @Test(timeout = 1000)
+    public void testThreeParts() {
+        final QualifiedName name =
+                new QualifiedName("\"My.Schema\".mytable.\"Col\"\"1\"");
+
+        Assert.assertThat(name.getPartCount(), IsEqual.equalTo(3));
+        Assert.assertThat(name.getObjectName(), IsEqual.equalTo("Col\"1"));
+        Assert.assertThat(name.getSecondObjectName(),
+                IsEqual.equalTo("mytable"));
+        Assert.assertThat(name.getThirdObjectName(),
+                IsEqual.equalTo("My.Schema"));
+        Assert.assertThat(name.getSchemaName(new PgDatabase()),
+                IsEqual.equalTo("My.Schema"));
+    }
+
+    @Test(timeout = 1000)
+    public void testUnqualified() {
+        final QualifiedName name = new QualifiedName("mytable");
+
+        Assert.assertThat(name.getPartCount(), IsEqual.equalTo(1));
+        Assert.assertThat(name.getObjectName(), IsEqual.equalTo("mytable"));
+        Assert.assertThat(name.getThirdObjectName(), IsNull.nullValue());
+        Assert.assertThat(name.getSchemaName(new PgDatabase()),
+                IsEqual.equalTo("public"));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.util.Arrays;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ChildList}.
+ *
+ * @author fordfrog
+ */
+public class ChildListTest {
+
+    /**
+     * Tests that appended items are kept in order before and after freezing.
+     */
+    @Test(timeout = 1000)
+    public void testAppend() {
+        final ChildList<String> list = new ChildList<String>();
+
+        for (int i = 0; i < 10; i++) {
+            list.append(String.valueOf(i));
+        }
+
+        Assert.assertThat(list.size(), IsEqual.equalTo(10));
+        Assert.assertThat(list.get(9), IsEqual.equalTo("9"));
+
+        list.freeze();
+
+        Assert.assertThat(list, IsEqual.equalTo(Arrays.asList(
+                "0", "1", "2", "3", "4", "5", "6", "7", "8", "9")));
+    }
+
+    /**
+     * Tests that list is frozen only after {@link ChildList#freeze()} and
+     * that repeated freezing is allowed.
+     */
+    @Test(timeout = 1000)
+    public void testIsFrozen() {
+        final ChildList<String> list = new ChildList<String>();
+        Assert.assertThat(list.isFrozen(), IsEqual.equalTo(false));
+
+        list.append("a");
+        Assert.assertThat(list.isFrozen(), IsEqual.equalTo(false));
+
+        list.freeze();
+        Assert.assertThat(list.isFrozen(), IsEqual.equalTo(true));
+
+        list.freeze();
+        Assert.assertThat(list.isFrozen(), IsEqual.equalTo(true));
+        Assert.assertThat(list.size(), IsEqual.equalTo(1));
+    }
+
+    /**
+     * Tests that items cannot be appended to frozen list.
+     */
+    @Test(timeout = 1000, expected = IllegalStateException.class)
+    public void testAppendAfterFreeze() {
+        final ChildList<String> list = new ChildList<String>();
+        list.append("a");
+        list.freeze();
+        list.append("b");
+    }
+
+    /**
+     * Tests that empty list can be frozen and items cannot be appended to it
+     * afterwards.
+     */
+    @Test(timeout = 1000, expected = IllegalStateException.class)
+    public void testAppendAfterFreezeEmpty() {
+        final ChildList<String> list = new ChildList<String>();
+        list.freeze();
+        Assert.assertThat(list.isEmpty(), IsEqual.equalTo(true));
+        list.append("a");
+    }
+
+    /**
+     * Tests that list cannot be modified through the {@link java.util.List}
+     * interface.
+     */
+    @Test(timeout = 1000, expected = UnsupportedOperationException.class)
+    public void testListIsReadOnly() {
+        final ChildList<String> list = new ChildList<String>();
+        list.add("a");
+    }
+
+    /**
+     * Tests that items beyond size cannot be read even if the backing array
+     * has free slots.
+     */
+    @Test(timeout = 1000, expected = IndexOutOfBoundsException.class)
+    public void testGetBeyondSize() {
+        final ChildList<String> list = new ChildList<String>();
+        list.append("a");
+        list.get(1);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import cz.startnet.utils.pgdiff.TestUtils;
+import java.io.IOException;
+import java.util.List;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link DependencyGraph}.
+ *
+ * @author fordfrog
+ */
+public class DependencyGraphTest {
+
+    @Test(timeout = 1000)
+    public void testDependencies() throws IOException {
+        final PgDatabase database = TestUtils.parse(
+                "CREATE SEQUENCE owners_id_seq;\n"
+                + "CREATE TABLE owners (id integer "
+                + "DEFAULT nextval('owners_id_seq'::regclass) NOT NULL);\n"
+                + "CREATE TABLE items (id integer, owner_id integer);\n"
+                + "ALTER TABLE ONLY items ADD CONSTRAINT items_owner_fkey "
+                + "FOREIGN KEY (owner_id) REFERENCES owners(id);\n"
+                + "CREATE FUNCTION touch() RETURNS trigger\n"
+                + "    LANGUAGE plpgsql\n"
+                + "    AS $$BEGIN RETURN NEW; END;$$;\n"
+                + "CREATE TRIGGER items_touch BEFORE UPDATE ON items "
+                + "FOR EACH ROW EXECUTE PROCEDURE touch();\n"
+                + "CREATE VIEW owner_items AS SELECT o.id, 'items' AS note "
+                + "FROM owners o JOIN public.items i ON i.owner_id = o.id;\n");
+        final DependencyGraph graph = database.getDependencyGraph();
+
+        final ObjectKey owners =
+                new ObjectKey(ObjectKey.Kind.RELATION, "public", "owners");
+        final ObjectKey items =
+                new ObjectKey(ObjectKey.Kind.RELATION, "public", "items");
+        final ObjectKey view = new ObjectKey(
+                ObjectKey.Kind.RELATION, "public", "owner_items");
+
+        final List<Dependency> ownersDependents = graph.getDependents(owners);
+        Assert.assertThat(ownersDependents.size(), IsEqual.equalTo(2));
+        Assert.assertThat(ownersDependents.get(0).getKind(), IsEqual.equalTo(
+                Dependency.Kind.FOREIGN_KEY_REFERENCES_TABLE));
+        Assert.assertThat(ownersDependents.get(0).getFrom(),
+                IsEqual.equalTo(items));
+        Assert.assertThat(ownersDependents.get(1).getFrom(),
+                IsEqual.equalTo(view));
+
+        final List<Dependency> ownersDependencies =
+                graph.getDependencies(owners);
+        Assert.assertThat(ownersDependencies.size(), IsEqual.equalTo(1));
+        Assert.assertThat(ownersDependencies.get(0).getTo(), IsEqual.equalTo(
+                new ObjectKey(ObjectKey.Kind.SEQUENCE, "public",
+                "owners_id_seq")));
+        Assert.assertThat(ownersDependencies.get(0).getMember(),
+                IsEqual.equalTo("id"));
+
+        final List<Dependency> functionDependents = graph.getDependents(
+                ObjectKey.function("public", "touch", "touch()"));
+        Assert.assertThat(functionDependents.size(), IsEqual.equalTo(1));
+        Assert.assertThat(functionDependents.get(0).getMember(),
+                IsEqual.equalTo("items_touch"));
+
+        Assert.assertThat(graph.getDependencies(view).size(),
+                IsEqual.equalTo(2));
+        Assert.assertTrue(graph.getDependents(view).isEmpty());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import cz.startnet.utils.pgdiff.PgDiff;
+import cz.startnet.utils.pgdiff.PgDiffArguments;
+import cz.startnet.utils.pgdiff.TestUtils;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that fingerprints of schema objects cover all attributes the diff
+ * compares. Each variant changes single attribute of the base dump, so the
+ * diff of the variant against the base must not be empty and fingerprint of
+ * the variant must differ from fingerprint of the base and of all other
+ * variants.
+ *
+ * @author fordfrog
+ */
+public class FingerprintTest {
+
+    /**
+     * Base dump that contains objects of all kinds.
+     */
+    private static final String BASE = "CREATE SCHEMA s;\n"
+            + "COMMENT ON SCHEMA s IS 'schema';\n"
+            + "SET search_path = s, pg_catalog;\n"
+            + "CREATE TYPE ty AS ENUM (\n    'a',\n    'b'\n);\n"
+            + "CREATE TYPE co AS (\n    x integer\n);\n"
+            + "CREATE FUNCTION f(a integer) RETURNS integer\n"
+            + "    LANGUAGE sql\n    AS $$SELECT 1$$;\n"
+            + "CREATE FUNCTION tf() RETURNS trigger\n"
+            + "    LANGUAGE plpgsql\n    AS $$BEGIN RETURN NEW; END;$$;\n"
+            + "CREATE FUNCTION tf2() RETURNS trigger\n"
+            + "    LANGUAGE plpgsql\n    AS $$BEGIN RETURN OLD; END;$$;\n"
+            + "CREATE SEQUENCE seq\n    START WITH 1\n    INCREMENT BY 1\n"
+            + "    NO MINVALUE\n    NO MAXVALUE\n    CACHE 1;\n"
+            + "CREATE TABLE p (\n    id integer\n);\n"
+            + "CREATE TABLE t (\n    id integer NOT NULL,\n"
+            + "    c text DEFAULT 'x'::text,\n    d integer\n)\n"
+            + "WITH (fillfactor=90);\n"
+            + "ALTER TABLE ONLY t ALTER COLUMN d SET STATISTICS 100;\n"
+            + "ALTER TABLE s.t OWNER TO a;\n"
+            + "CREATE VIEW v AS\n    SELECT 1 AS one;\n"
+            + "ALTER TABLE ONLY t\n"
+            + "    ADD CONSTRAINT t_pkey PRIMARY KEY (id);\n"
+            + "ALTER TABLE ONLY t\n"
+            + "    ADD CONSTRAINT t_d_check CHECK ((d > 0));\n"
+            + "CREATE INDEX t_c_idx ON t USING btree (c);\n"
+            + "CREATE TRIGGER tr BEFORE INSERT ON t "
+            + "FOR EACH ROW EXECUTE PROCEDURE tf();\n"
+            + "CREATE RULE r AS ON DELETE TO t DO INSTEAD NOTHING;\n"
+            + "COMMENT ON TABLE t IS 'table';\n"
+            + "COMMENT ON COLUMN t.c IS 'column';\n"
+            + "GRANT SELECT ON TABLE t TO a;\n"
+            + "GRANT SELECT ON SEQUENCE seq TO a;\n";
+    /**
+     * Variants of the base dump, each given as text of the base dump and
+     * its replacement.
+     */
+    private static final String[][] VARIANTS = {
+        // schema
+        {"IS 'schema'", "IS 'other'"},
+        // types
+        {"x integer\n", "x bigint\n"},
+        // functions
+        {"$$SELECT 1$$", "$$SELECT 2$$"},
+        {"f(a integer)", "f(b integer)"},
+        {"GRANT SELECT ON TABLE",
+            "COMMENT ON FUNCTION f(a integer) IS 'f';\nGRANT SELECT ON TABLE"},
+        // sequence
+        {"START WITH 1", "START WITH 2"},
+        {"INCREMENT BY 1", "INCREMENT BY 2"},
+        {"NO MINVALUE", "MINVALUE 1"},
+        {"NO MAXVALUE", "MAXVALUE 100"},
+        {"CACHE 1;", "CACHE 2;"},
+        {"CACHE 1;", "CACHE 1\n    CYCLE;"},
+        {"CACHE 1;", "CACHE 1;\nALTER SEQUENCE seq OWNED BY t.d;"},
+        {"CACHE 1;", "CACHE 1;\nCOMMENT ON SEQUENCE seq IS 's';"},
+        {"ON SEQUENCE seq TO a", "ON SEQUENCE seq TO b"},
+        // columns
+        {"    d integer\n", "    d bigint\n"},
+        {"    d integer\n", "    d integer,\n    e integer\n"},
+        {"DEFAULT 'x'::text", "DEFAULT 'y'::text"},
+        {"id integer NOT NULL", "id integer"},
+        {"c text DEFAULT", "c text COLLATE pg_catalog.\"C\" DEFAULT"},
+        {"    d integer\n", "    d integer REFERENCES p(id)\n"},
+        {"    d integer\n",
+            "    d integer GENERATED ALWAYS AS ((id * 2)) STORED\n"},
+        {"id integer NOT NULL",
+            "id integer NOT NULL GENERATED ALWAYS AS IDENTITY"},
+        {"STATISTICS 100", "STATISTICS 200"},
+        {"IS 'column'", "IS 'other'"},
+        // table
+        {"fillfactor=90", "fillfactor=80"},
+        {")\nWITH", ")\nINHERITS (p)\nWITH"},
+        {"OWNER TO a", "OWNER TO b"},
+        {"IS 'table'", "IS 'other'"},
+        {"SELECT ON TABLE t", "INSERT ON TABLE t"},
+        {"ON TABLE t TO a", "ON TABLE t TO b"},
+        // constraints
+        {"(d > 0)", "(d > 1)"},
+        {"PRIMARY KEY (id)", "PRIMARY KEY (id, d)"},
+        // indexes
+        {"btree (c)", "btree (d)"},
+        {"CREATE INDEX", "CREATE UNIQUE INDEX"},
+        // triggers
+        {"tr BEFORE INSERT", "tr AFTER INSERT"},
+        {"BEFORE INSERT ON", "BEFORE INSERT OR DELETE ON"},
+        {"BEFORE INSERT ON", "BEFORE UPDATE OF c ON"},
+        {"FOR EACH ROW", "FOR EACH STATEMENT"},
+        {"PROCEDURE tf()", "PROCEDURE tf2()"},
+        // rules
+        {"ON DELETE TO t", "ON UPDATE TO t"},
+        {"DO INSTEAD NOTHING", "DO ALSO NOTHING"},
+        {"ON DELETE TO t", "ON DELETE TO t WHERE (old.d > 0)"},
+        // views
+        {"SELECT 1 AS one", "SELECT 2 AS one"},
+        {"CREATE VIEW v AS", "CREATE VIEW v (uno) AS"},
+        {"CREATE VIEW v AS", "CREATE MATERIALIZED VIEW v AS"}
+    };
+
+    /**
+     * Tests that each variant is diffed and changes the fingerprint.
+     *
+     * @throws IOException Thrown if a dump cannot be parsed.
+     */
+    @Test(timeout = 5000)
+    public void testVariantsChangeFingerprint() throws IOException {
+        final Set<String> fingerprints =
+                new HashSet<String>(VARIANTS.length + 1);
+        fingerprints.add(getFingerprint(BASE));
+
+        for (final String[] variant : VARIANTS) {
+            Assert.assertTrue("Base dump contains " + variant[0],
+                    BASE.contains(variant[0]));
+
+            final String dump = BASE.replaceFirst(Pattern.quote(variant[0]),
+                    Matcher.quoteReplacement(variant[1]));
+            final String message = variant[0] + " -> " + variant[1];
+
+            Assert.assertThat(message, PgDiff.diffDatabases(
+                    new PgDiffArguments(), TestUtils.parse(BASE),
+                    TestUtils.parse(dump)).getChanges().isEmpty(),
+                    IsEqual.equalTo(false));
+            Assert.assertTrue(message,
+                    fingerprints.add(getFingerprint(dump)));
+        }
+    }
+
+    /**
+     * Tests that the same dump has the same fingerprint.
+     *
+     * @throws IOException Thrown if a dump cannot be parsed.
+     */
+    @Test(timeout = 5000)
+    public void testSameDumpSameFingerprint() throws IOException {
+        Assert.assertThat(getFingerprint(BASE),
+                IsEqual.equalTo(getFingerprint(BASE)));
+    }
+
+    /**
+     * Returns fingerprint of the database parsed from the dump.
+     *
+     * @param dump dump text
+     *
+     * @return fingerprint of the database
+     *
+     * @throws IOException Thrown if the dump cannot be parsed.
+     */
+    private static String getFingerprint(final String dump)
+            throws IOException {
+        final PgDatabase database = TestUtils.parse(dump);
+        database.freeze();
+
+        return database.getFingerprint();
+    }
+}
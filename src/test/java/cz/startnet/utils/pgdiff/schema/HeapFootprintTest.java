@@ -0,0 +1,54 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link HeapFootprint}.
+ *
+ * @author fordfrog
+ */
+public class HeapFootprintTest {
+
+    @Test(timeout = 5000)
+    public void testMeasure() throws UnsupportedEncodingException {
+        final String sql = "CREATE SCHEMA other;\n"
+                + "CREATE TABLE public.items (id integer, name text);\n"
+                + "CREATE TABLE other.big (id integer, a text, b text, "
+                + "c text, d text);\n"
+                + "CREATE FUNCTION public.f() RETURNS integer\n"
+                + "    LANGUAGE sql\n"
+                + "    AS $$SELECT 1$$;\n";
+        final PgDatabase database = PgDumpLoader.loadDatabaseSchema(
+                new ByteArrayInputStream(sql.getBytes("UTF-8")), "UTF-8",
+                false, false);
+        database.freeze();
+
+        final HeapFootprint footprint = HeapFootprint.measure(database);
+        long sum = 0;
+
+        for (final Long bytes : footprint.getBytesBySchema().values()) {
+            sum += bytes;
+        }
+
+        Assert.assertEquals(footprint.getTotalBytes(), sum);
+        Assert.assertTrue(footprint.getBytesBySchema().get("other")
+                > footprint.getBytesBySchema().get("public") / 4);
+
+        final Map<String, Long> byKind = footprint.getBytesByKind();
+        Assert.assertTrue(byKind.get("PgTable") > 0);
+        Assert.assertTrue(byKind.get("PgColumn") > 0);
+        Assert.assertTrue(byKind.get("PgFunction") > 0);
+        Assert.assertTrue(footprint.getBytesByCategory().get(
+                HeapFootprint.CATEGORY_BODIES) > 0);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsSame;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link PgDataType}.
+ *
+ * @author fordfrog
+ */
+public class PgDataTypeTest {
+
+    @Test(timeout = 1000)
+    public void testAliasesAreInterned() {
+        assertSame("int4", "integer");
+        assertSame("INT", "pg_catalog.int4");
+        assertSame("varchar(10)", "character varying ( 10 )");
+        assertSame("timestamptz(3)", "timestamp(3) with time zone");
+        assertSame("timestamp", "timestamp without time zone");
+        assertSame("decimal(10)", "numeric(10,0)");
+        assertSame("float(10)", "real");
+        assertSame("float", "double precision");
+        assertSame("char", "character(1)");
+        assertSame("bpchar(5)", "character(5)");
+        assertSame("_bool[]", "_bool ARRAY");
+    }
+
+    @Test(timeout = 1000)
+    public void testDifferentTypes() {
+        Assert.assertNotSame(PgDataType.valueOf("varchar(10)"),
+                PgDataType.valueOf("varchar(20)"));
+        Assert.assertNotSame(PgDataType.valueOf("integer"),
+                PgDataType.valueOf("integer[]"));
+        Assert.assertNotSame(PgDataType.valueOf("bpchar"),
+                PgDataType.valueOf("character"));
+        Assert.assertNotSame(PgDataType.valueOf("\"MyType\""),
+                PgDataType.valueOf("mytype"));
+    }
+
+    @Test(timeout = 1000)
+    public void testDescriptor() {
+        final PgDataType type = PgDataType.valueOf("TIMESTAMPTZ(6)[][]");
+
+        Assert.assertThat(type.getBaseType(),
+                IsEqual.equalTo("timestamp with time zone"));
+        Assert.assertThat(type.getModifiers(), IsEqual.equalTo("(6)"));
+        Assert.assertThat(type.getArrayDimensions(), IsEqual.equalTo(2));
+        Assert.assertThat(type.toString(),
+                IsEqual.equalTo("timestamp(6) with time zone[][]"));
+    }
+
+    /**
+     * Asserts that both type texts resolve to the same descriptor.
+     *
+     * @param text1 first type text
+     * @param text2 second type text
+     */
+    private static void assertSame(final String text1, final String text2) {
+        Assert.assertThat(PgDataType.valueOf(text1),
+                IsSame.sameInstance(PgDataType.valueOf(text2)));
+    }
+}
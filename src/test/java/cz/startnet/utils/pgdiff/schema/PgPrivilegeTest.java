@@ -0,0 +1,55 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link PgPrivilege}.
+ *
+ * @author fordfrog
+ */
+public class PgPrivilegeTest {
+
+    @Test(timeout = 1000)
+    public void testGrantAndRevoke() {
+        final PgRelationPrivilege privilege = new PgRelationPrivilege("role");
+        privilege.setPrivileges("ALL", true, false);
+        privilege.setPrivileges("update", true, true);
+        privilege.setPrivileges("DELETE", false, false);
+
+        Assert.assertThat(privilege.getPrivilegesSQL(false), IsEqual.equalTo(
+                "SELECT, INSERT, UPDATE, TRUNCATE, REFERENCES, TRIGGER"));
+        Assert.assertThat(privilege.getPrivilegesSQL(true),
+                IsEqual.equalTo("UPDATE"));
+
+        privilege.setPrivileges("UPDATE", false, true);
+
+        Assert.assertFalse(privilege.hasPrivileges(true));
+        Assert.assertTrue(privilege.hasPrivileges(false));
+    }
+
+    @Test(timeout = 1000)
+    public void testAllAndSimilar() {
+        final PgColumnPrivilege privilege1 = new PgColumnPrivilege("role1");
+        privilege1.setPrivileges("ALL", true, true);
+        final PgColumnPrivilege privilege2 = new PgColumnPrivilege("role2");
+        privilege2.setPrivileges("SELECT", true, true);
+        privilege2.setPrivileges("INSERT", true, true);
+        privilege2.setPrivileges("UPDATE", true, true);
+
+        Assert.assertThat(privilege1.getPrivilegesSQL(true, "col"),
+                IsEqual.equalTo("ALL (col)"));
+        Assert.assertFalse(privilege1.isSimilar(privilege2));
+        Assert.assertFalse(privilege1.isSimilar(null));
+
+        privilege2.setPrivileges("REFERENCES", true, true);
+
+        Assert.assertTrue(privilege1.isSimilar(privilege2));
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import org.hamcrest.core.IsNull;
+import org.hamcrest.core.IsSame;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link PgSchema}.
+ *
+ * @author fordfrog
+ */
+public class PgSchemaTest {
+
+    @Test(timeout = 1000)
+    public void testLookupsReturnFirstObject() {
+        final PgSchema schema = new PgSchema("s");
+        final PgView first = new PgView("v");
+        final PgSequence sequence = new PgSequence("seq");
+        schema.addRelation(first);
+        schema.addRelation(new PgView("v"));
+        schema.addSequence(sequence);
+
+        Assert.assertThat(schema.getRelation("v"),
+                IsSame.<PgRelation>sameInstance(first));
+        Assert.assertThat(schema.getView("v"), IsSame.sameInstance(first));
+        Assert.assertThat(schema.getTable("v"), IsNull.nullValue());
+        Assert.assertThat(schema.getSequence("seq"),
+                IsSame.sameInstance(sequence));
+        Assert.assertTrue(schema.containsSequence("seq"));
+        Assert.assertFalse(schema.containsType("seq"));
+    }
+
+    @Test(timeout = 1000)
+    public void testCopyFindsSharedObjects() {
+        final PgSchema schema = new PgSchema("s");
+        final PgType type = new PgType("t");
+        schema.addType(type);
+
+        final PgSchema copy = schema.withName("c");
+
+        Assert.assertThat(copy.getType("t"), IsSame.sameInstance(type));
+        Assert.assertTrue(copy.containsType("t"));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link SchemaRename}.
+ *
+ * @author fordfrog
+ */
+public class SchemaRenameTest {
+
+    /**
+     * Rename of schema tpl to t1.
+     */
+    private final SchemaRename rename = new SchemaRename("tpl", "t1");
+
+    @Test(timeout = 1000)
+    public void testQualifiers() {
+        Assert.assertThat(rename.apply("FOREIGN KEY (a) REFERENCES tpl.p(id)"),
+                IsEqual.equalTo("FOREIGN KEY (a) REFERENCES t1.p(id)"));
+        Assert.assertThat(rename.apply("\"tpl\".a + tpl.b"),
+                IsEqual.equalTo("t1.a + t1.b"));
+        Assert.assertThat(rename.apply("nextval('tpl.seq'::regclass)"),
+                IsEqual.equalTo("nextval('t1.seq'::regclass)"));
+    }
+
+    @Test(timeout = 1000)
+    public void testNotQualifiers() {
+        final String[] sqls = {
+            "tpl + mytpl.a + x.tpl.a + tpl_a.b + \"tpl.a\"",
+            "'mirrors tpl.a'",
+            "'tpl.a'::text",
+            "$$SELECT tpl.a$$ || $x$tpl.a$x$",
+            "a -- tpl.a\n + b /* tpl.a */"
+        };
+
+        for (final String sql : sqls) {
+            Assert.assertThat(rename.apply(sql), IsEqual.equalTo(sql));
+            Assert.assertThat(rename.isQualified(sql), IsEqual.equalTo(false));
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void testQuotedNewName() {
+        Assert.assertThat(new SchemaRename("tpl", "Tenant").apply(
+                "tpl.a = 'tpl.b'::regclass"),
+                IsEqual.equalTo("\"Tenant\".a = '\"Tenant\".b'::regclass"));
+    }
+}
@@ -0,0 +1,3 @@
+COMMENT ON TABLE items IS 'Stored items';
+
+COMMENT ON COLUMN items.name IS 'Name of the item';
\ No newline at end of file
@@ -0,0 +1,10 @@
+COMMENT ON TABLE items IS 'Stored items';
+
+COMMENT ON COLUMN items.name IS 'old name';
+
+CREATE TABLE items (
+    id integer NOT NULL,
+    name text
+);
+
+COMMENT ON COLUMN items.name IS 'Name of the item';
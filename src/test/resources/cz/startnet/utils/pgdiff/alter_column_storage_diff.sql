@@ -0,0 +1,4 @@
+ALTER TABLE ONLY testtable ALTER COLUMN field1 SET STORAGE EXTERNAL;
+
+ALTER TABLE testtable2
+	ADD COLUMN field2 integer;
@@ -0,0 +1,10 @@
+CREATE TABLE testtable (
+    field1 text
+);
+
+ALTER TABLE ONLY testtable ALTER COLUMN field1 SET STORAGE EXTERNAL;
+
+CREATE TABLE testtable2 (
+    field1 integer,
+    field2 integer
+);
@@ -0,0 +1,7 @@
+CREATE TABLE testtable (
+    field1 text
+);
+
+CREATE TABLE testtable2 (
+    field1 integer
+);
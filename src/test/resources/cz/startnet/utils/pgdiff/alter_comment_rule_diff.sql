@@ -0,0 +1,3 @@
+COMMENT ON RULE items_nodelete ON items IS NULL;
+
+COMMENT ON RULE items_noupdate ON items IS 'Items are read only';
\ No newline at end of file
@@ -0,0 +1,10 @@
+CREATE TABLE items (
+    id integer NOT NULL,
+    name text
+);
+
+CREATE RULE items_nodelete AS ON DELETE TO items DO INSTEAD NOTHING;
+
+CREATE RULE items_noupdate AS ON UPDATE TO items DO INSTEAD NOTHING;
+
+COMMENT ON RULE items_noupdate ON items IS 'Items are read only';
@@ -0,0 +1,10 @@
+CREATE TABLE items (
+    id integer NOT NULL,
+    name text
+);
+
+CREATE RULE items_nodelete AS ON DELETE TO items DO INSTEAD NOTHING;
+
+COMMENT ON RULE items_nodelete ON items IS 'Keeps items';
+
+CREATE RULE items_noupdate AS ON UPDATE TO items DO INSTEAD NOTHING;
@@ -0,0 +1,4 @@
+ALTER TABLE testtable
+	DROP COLUMN b,
+	ADD COLUMN b integer GENERATED ALWAYS AS ((a * 3)) STORED,
+	ALTER COLUMN c DROP EXPRESSION;
@@ -0,0 +1,5 @@
+CREATE TABLE testtable (
+    a integer,
+    b integer GENERATED ALWAYS AS ((a * 3)) STORED,
+    c integer
+);
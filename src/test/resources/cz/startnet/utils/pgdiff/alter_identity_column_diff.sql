@@ -0,0 +1,6 @@
+ALTER TABLE testtable
+	ALTER COLUMN a ADD GENERATED BY DEFAULT AS IDENTITY,
+	ALTER COLUMN b SET GENERATED BY DEFAULT,
+	ALTER COLUMN c DROP IDENTITY,
+	ALTER COLUMN d DROP IDENTITY,
+	ALTER COLUMN d ADD GENERATED ALWAYS AS IDENTITY (START WITH 20);
@@ -0,0 +1,6 @@
+CREATE TABLE testtable (
+    a integer NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    b integer NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    c integer NOT NULL,
+    d integer NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 20)
+);
@@ -0,0 +1,6 @@
+CREATE TABLE testtable (
+    a integer NOT NULL,
+    b integer NOT NULL GENERATED ALWAYS AS IDENTITY,
+    c integer NOT NULL GENERATED ALWAYS AS IDENTITY,
+    d integer NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 10)
+);
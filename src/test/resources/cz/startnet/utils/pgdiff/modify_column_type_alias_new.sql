@@ -0,0 +1,7 @@
+CREATE TABLE testtable (
+    field1 integer,
+    field2 character varying(10),
+    field3 timestamp(3) with time zone,
+    field4 numeric(10, 0),
+    field5 boolean[]
+);
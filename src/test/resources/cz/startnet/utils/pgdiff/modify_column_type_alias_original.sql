@@ -0,0 +1,7 @@
+CREATE TABLE testtable (
+    field1 int4,
+    field2 varchar(10),
+    field3 timestamptz(3),
+    field4 pg_catalog.numeric(10),
+    field5 bool[]
+);
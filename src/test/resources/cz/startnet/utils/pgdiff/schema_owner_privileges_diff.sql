@@ -0,0 +1,11 @@
+SET search_path = s1, pg_catalog;
+
+ALTER TABLE parenttable OWNER TO bob;
+
+REVOKE ALL ON TABLE parenttable FROM public;
+
+REVOKE ALL ON TABLE parenttable FROM carol;
+GRANT SELECT ON TABLE parenttable TO carol;
+
+ALTER TABLE ONLY childtable
+	ALTER COLUMN id SET DEFAULT 1;
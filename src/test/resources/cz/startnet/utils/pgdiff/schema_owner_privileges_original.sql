@@ -0,0 +1,16 @@
+CREATE SCHEMA s1;
+
+SET search_path = s1, pg_catalog;
+
+CREATE TABLE parenttable (
+    id integer NOT NULL
+);
+
+ALTER TABLE s1.parenttable OWNER TO alice;
+
+CREATE TABLE childtable (
+    name text
+)
+INHERITS (parenttable);
+
+ALTER TABLE ONLY childtable ALTER COLUMN id SET DEFAULT 0;
@@ -0,0 +1,18 @@
+
+SET search_path = t2, pg_catalog;
+
+CREATE SEQUENCE children_id_seq
+	START WITH 1
+	INCREMENT BY 1
+	NO MAXVALUE
+	NO MINVALUE
+	CACHE 1;
+
+ALTER TABLE children
+	ALTER COLUMN id SET DEFAULT nextval('t2.children_id_seq'::regclass);
+
+ALTER SEQUENCE children_id_seq
+	OWNED BY children.id;
+
+ALTER TABLE children
+	ADD CONSTRAINT children_parent_id_fkey FOREIGN KEY (parent_id) REFERENCES t2.parents(id);
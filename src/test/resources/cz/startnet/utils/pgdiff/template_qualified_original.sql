@@ -0,0 +1,44 @@
+CREATE SCHEMA t1;
+CREATE SCHEMA t2;
+
+SET search_path = t1, pg_catalog;
+
+CREATE TABLE parents (
+    id integer NOT NULL
+);
+
+CREATE TABLE children (
+    id integer NOT NULL,
+    parent_id integer
+);
+
+CREATE SEQUENCE children_id_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE children_id_seq OWNED BY children.id;
+
+ALTER TABLE ONLY children ALTER COLUMN id SET DEFAULT nextval('t1.children_id_seq'::regclass);
+
+ALTER TABLE ONLY parents
+    ADD CONSTRAINT parents_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY children
+    ADD CONSTRAINT children_parent_id_fkey FOREIGN KEY (parent_id) REFERENCES t1.parents(id);
+
+SET search_path = t2, pg_catalog;
+
+CREATE TABLE parents (
+    id integer NOT NULL
+);
+
+CREATE TABLE children (
+    id integer NOT NULL,
+    parent_id integer
+);
+
+ALTER TABLE ONLY parents
+    ADD CONSTRAINT parents_pkey PRIMARY KEY (id);